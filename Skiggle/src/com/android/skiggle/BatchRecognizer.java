@@ -0,0 +1,176 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// BatchRecognizer recognizes a stream of (possibly multi-stroke) characters on several threads at once.
+// Each character is given as the PenPaths of its strokes and is recognized by its own PenCharacter, so the
+// characters are independent of each other.  The characters are handed out to the threads in chunks, and
+// the results are given back in the same order as the characters came in.
+//
+// By default a fixed pool with one thread per processor is used.  Any other ExecutorService can be used
+// instead, e.g. a java.util.concurrent.ForkJoinPool (a work-stealing pool) on a server.
+public class BatchRecognizer {
+
+	private static final int DEFAULT_CHUNK_SIZE = 32; // Number of characters recognized by one task
+	private static final int PENDING_CHUNKS_PER_THREAD = 4; // Number of chunks queued per thread before waiting for results
+
+	// Listener for getting the results of recognize() in the order of the characters
+	public interface ResultListener {
+		void onCharacterRecognized(int index, PenCharacter penCharacter);
+	}
+
+	// Members
+	private ExecutorService mExecutor;
+	private boolean mOwnExecutorP; // true if mExecutor was created (and has to be shut down) by this BatchRecognizer
+	private int mParallelism;
+	private int mChunkSize = DEFAULT_CHUNK_SIZE;
+	private volatile RecognitionCache mRecognitionCache = null;
+
+	public BatchRecognizer() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public BatchRecognizer(int numOfThreads) {
+		mExecutor = Executors.newFixedThreadPool(numOfThreads);
+		mOwnExecutorP = true;
+		mParallelism = numOfThreads;
+	}
+
+	// Use an executor that runs up to parallelism tasks at once
+	public BatchRecognizer(ExecutorService executor, int parallelism) {
+		mExecutor = executor;
+		mOwnExecutorP = false;
+		mParallelism = parallelism;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		mChunkSize = Math.max(1, chunkSize);
+	}
+
+	// Recognize the characters through cache (if not null), shared by the threads
+	public void setRecognitionCache(RecognitionCache cache) {
+		mRecognitionCache = cache;
+	}
+
+	// Recognize one character from the pen paths of its strokes
+	public static PenCharacter recognizeCharacter(PenPath strokePaths[]) {
+		return recognizeCharacter(strokePaths, null);
+	}
+
+	// Recognize one character from the pen paths of its strokes through cache (if not null)
+	public static PenCharacter recognizeCharacter(PenPath strokePaths[], RecognitionCache cache) {
+		PenCharacter penCharacter = new PenCharacter();
+		for (int i = 0; i < strokePaths.length; i++) {
+			PenStroke penStroke = PenStroke.obtain(strokePaths[i]);
+			penCharacter.addStroke(penStroke);
+			penCharacter.addSegments(penStroke, RecognitionTraceListener.NO_TRACE);
+			penStroke.recycle(); // the character has its own reference
+		}
+		penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE, cache);
+		return penCharacter;
+	}
+
+	// Recognize all the characters and return the recognized characters in the same order.  The strokes and
+	// segments of each character are put back into the pools once its result is taken.
+	public List<Character> recognizeAll(List<PenPath[]> characters) throws InterruptedException, ExecutionException {
+		final List<Character> results = new ArrayList<Character>(characters.size());
+		recognize(characters.iterator(), new ResultListener() {
+			public void onCharacterRecognized(int index, PenCharacter penCharacter) {
+				results.add(penCharacter.mPenCharacter);
+				penCharacter.resetStrokes();
+				penCharacter.resetSegments();
+			}
+		});
+		return results;
+	}
+
+	// Recognize the characters as they come from the iterator and give each result to the listener, in the
+	// order of the characters.  Only a few chunks per thread are in progress at a time so that long streams
+	// are not read into memory.  Return the number of characters recognized.
+	public int recognize(Iterator<PenPath[]> characters, ResultListener listener)
+			throws InterruptedException, ExecutionException {
+		LinkedList<Future<PenCharacter[]>> pendingChunks = new LinkedList<Future<PenCharacter[]>>();
+		int maxPendingChunks = Math.max(1, mParallelism) * PENDING_CHUNKS_PER_THREAD;
+		int numOfCharacters = 0;
+
+		try {
+			while (characters.hasNext()) {
+				final List<PenPath[]> chunk = new ArrayList<PenPath[]>(mChunkSize);
+				final RecognitionCache cache = mRecognitionCache;
+				while (characters.hasNext() & (chunk.size() < mChunkSize)) {
+					chunk.add(characters.next());
+				}
+
+				pendingChunks.add(mExecutor.submit(new Callable<PenCharacter[]>() {
+					public PenCharacter[] call() {
+						int chunkSize = chunk.size();
+						PenCharacter penCharacters[] = new PenCharacter[chunkSize];
+						for (int i = 0; i < chunkSize; i++) {
+							penCharacters[i] = recognizeCharacter(chunk.get(i), cache);
+						}
+						return penCharacters;
+					}
+				}));
+
+				// Wait for the oldest chunk when enough chunks are in progress
+				if (pendingChunks.size() >= maxPendingChunks)
+					numOfCharacters = deliverChunk(pendingChunks.removeFirst(), numOfCharacters, listener);
+			}
+
+			while (!pendingChunks.isEmpty()) {
+				numOfCharacters = deliverChunk(pendingChunks.removeFirst(), numOfCharacters, listener);
+			}
+		}
+		finally {
+			// Nothing is left in progress if a chunk failed or the thread was interrupted
+			for (Iterator<Future<PenCharacter[]>> i = pendingChunks.iterator(); i.hasNext();) {
+				i.next().cancel(true);
+			}
+		}
+		return numOfCharacters;
+	}
+
+	private int deliverChunk(Future<PenCharacter[]> chunk, int index, ResultListener listener)
+			throws InterruptedException, ExecutionException {
+		PenCharacter penCharacters[] = chunk.get();
+		for (int i = 0; i < penCharacters.length; i++) {
+			listener.onCharacterRecognized(index, penCharacters[i]);
+			index = index + 1;
+		}
+		return index;
+	}
+
+	// Shut down the executor if it was created by this BatchRecognizer
+	public void shutdown() {
+		if (mOwnExecutorP)
+			mExecutor.shutdown();
+	}
+}
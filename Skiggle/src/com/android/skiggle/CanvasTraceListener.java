@@ -0,0 +1,55 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+// CanvasTraceListener draws the debugging overlay of the recognizer on a canvas: the split points and stats
+// of the segments, the primitive stroke elements of the segments, and the matched character and its
+// candidates.  It must be used on the thread that owns the canvas.  The curvature histograms of the split
+// segments are only drawn if the curvature points are kept (see PenSegment.setKeepCurvaturePoints()).
+public class CanvasTraceListener implements RecognitionTraceListener {
+
+	// Members
+	private Canvas mCanvas;
+	private Paint mTextPaint;
+
+	public CanvasTraceListener(Canvas canvas, Paint textPaint) {
+		mCanvas = canvas;
+		mTextPaint = textPaint;
+	}
+
+	public void onSegmentSplit(PenSegment segment, PenSegment probeSegment, PenSegment headSegment, PenSegment tailSegment) {
+		PenUtil.printString(String.format(".(%1$3.1f,%2$3.1f), k:%2$3.1f", headSegment.mPosEnd[0], headSegment.mPosEnd[1]),
+				headSegment.mPosEnd[0], headSegment.mPosEnd[1], segment.mBoundingRectF, mCanvas, mTextPaint);
+		probeSegment.printSegmentStats(mCanvas, mTextPaint);
+	}
+
+	public void onSegmentsAdded(PenCharacter penCharacter, PenStroke penStroke) {
+		penCharacter.printSegmentCharacters(penCharacter.mPenSegments.elementAt(0).mBoundingRectF, mCanvas, mTextPaint);
+	}
+
+	public void onCharacterMatched(PenCharacter penCharacter) {
+		penCharacter.printPenCharacter(mCanvas, 50.0F, 400.0F, mTextPaint);
+		penCharacter.printPenCharacterCandidates(mCanvas, 60.0F, 400.0F, mTextPaint);
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+// CharacterRule checks whether the segments of a character form a character (or one of a few characters made
+// up of the same primitive stroke elements, like 'C' and 'c').  Its roles are the primitive stroke elements of
+// the segments it checks, one per segment, e.g. "/\-" for 'A'.  ANY_PRIMITIVE is a role any segment can fill.
+// When two or more segments have the primitive of a role, they fill the roles for that primitive in the order
+// the segments were written.
+public abstract class CharacterRule {
+
+	public static final char ANY_PRIMITIVE = '*';
+	public static final float UNMEASURED_CONFIDENCE = 0.5F; // Confidence of a rule that only checks the primitives
+
+	public final String mRoles;
+	public final float mMaxConfidence; // highest confidence of a match (see PenCharacter.findBestCharacters())
+
+	public CharacterRule(String roles) {
+		this(roles, 1.0F);
+	}
+
+	public CharacterRule(String roles, float maxConfidence) {
+		mRoles = roles;
+		mMaxConfidence = maxConfidence;
+	}
+
+	// Return the character the segments form or '\0' if they do not form one.  segmentIndexes has the index in
+	// penCharacter.mPenSegments of the segment for each role.
+	public abstract char match(PenCharacter penCharacter, int segmentIndexes[]);
+}
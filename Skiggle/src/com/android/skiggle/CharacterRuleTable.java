@@ -0,0 +1,176 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+import java.util.Vector;
+
+// CharacterRuleTable has the rules to try for each signature of the segments of a character (see
+// SegmentCandidateTable), in the order of the candidates for the signature.  A rule is only in the table for a
+// signature if the primitives of the signature fill its roles exactly, and a rule shared by several candidates
+// is only in it once (for the first of them), as it would not match the others either.  The segment of each
+// role is bound to a position in the signature order when the class is loaded, so matching a character only
+// has to map the positions to the indexes of its segments.
+// For scoring the rules (see PenCharacter.findBestCharacters()) each rule of a signature has a weight, which
+// drops by RANK_WEIGHT_RATIO from one rule to the next so that the order of the candidates still counts, and
+// a bound on the score of it and the rules after it.
+public class CharacterRuleTable {
+
+	private static final float RANK_WEIGHT_RATIO = 0.9F; // Weight of a rule relative to the rule before it
+
+	private static final CharacterRule NO_RULES[] = {};
+	private static final int NO_ROLE_POSITIONS[][] = {};
+	private static final float NO_SCORES[] = {};
+
+	private static final CharacterRule RULES[][] = new CharacterRule[SegmentCandidateTable.NUM_OF_SIGNATURES][];
+	private static final int ROLE_POSITIONS[][][] = new int[SegmentCandidateTable.NUM_OF_SIGNATURES][][];
+	private static final float SCORE_WEIGHTS[][] = new float[SegmentCandidateTable.NUM_OF_SIGNATURES][];
+	private static final float SCORE_BOUNDS[][] = new float[SegmentCandidateTable.NUM_OF_SIGNATURES][];
+
+	static {
+		buildTable();
+	}
+
+	// Get the rules to try, in order, for the segments with a signature
+	public static CharacterRule[] getRules(int signature) {
+		if ((signature < 0) || (RULES[signature] == null))
+			return NO_RULES;
+		return RULES[signature];
+	}
+
+	// Get the positions (in the signature order of the segments) of the segments for the roles of each rule
+	// of getRules(signature)
+	public static int[][] getRolePositions(int signature) {
+		if ((signature < 0) || (ROLE_POSITIONS[signature] == null))
+			return NO_ROLE_POSITIONS;
+		return ROLE_POSITIONS[signature];
+	}
+
+	// Get the weight of the score of each rule of getRules(signature)
+	public static float[] getScoreWeights(int signature) {
+		if ((signature < 0) || (SCORE_WEIGHTS[signature] == null))
+			return NO_SCORES;
+		return SCORE_WEIGHTS[signature];
+	}
+
+	// Get the highest score each rule of getRules(signature), or any rule after it, can have
+	public static float[] getScoreBounds(int signature) {
+		if ((signature < 0) || (SCORE_BOUNDS[signature] == null))
+			return NO_SCORES;
+		return SCORE_BOUNDS[signature];
+	}
+
+	private static void buildTable() {
+		Vector<CharacterRule> rules = new Vector<CharacterRule>();
+		Vector<int[]> rolePositions = new Vector<int[]>();
+
+		for (int signature = 0; signature < SegmentCandidateTable.NUM_OF_SIGNATURES; signature++) {
+			String primitives = SegmentCandidateTable.getSignaturePrimitives(signature);
+			if (primitives == null)
+				continue;
+
+			rules.clear();
+			rolePositions.clear();
+			String candidates = SegmentCandidateTable.getCandidates(signature);
+			for (int i = 0; i < candidates.length(); i++) {
+				CharacterRule rule = PenCharacter.getCharacterRule(candidates.charAt(i));
+				if ((rule == null) || rules.contains(rule))
+					continue;
+
+				int positions[] = bindRoles(rule.mRoles, primitives);
+				if (positions != null) {
+					rules.add(rule);
+					rolePositions.add(positions);
+				}
+			}
+
+			if (!rules.isEmpty()) {
+				RULES[signature] = rules.toArray(new CharacterRule[rules.size()]);
+				ROLE_POSITIONS[signature] = rolePositions.toArray(new int[rolePositions.size()][]);
+				buildScores(signature);
+			}
+		}
+	}
+
+	private static void buildScores(int signature) {
+		CharacterRule rules[] = RULES[signature];
+		float weights[] = new float[rules.length];
+		float bounds[] = new float[rules.length];
+
+		float weight = 1.0F;
+		for (int i = 0; i < rules.length; i++) {
+			weights[i] = weight;
+			weight = weight * RANK_WEIGHT_RATIO;
+		}
+
+		float bound = 0.0F;
+		for (int i = rules.length - 1; i >= 0; i--) {
+			bound = Math.max(bound, weights[i] * rules[i].mMaxConfidence);
+			bounds[i] = bound;
+		}
+
+		SCORE_WEIGHTS[signature] = weights;
+		SCORE_BOUNDS[signature] = bounds;
+	}
+
+	// Bind each role to the position of a segment in the (sorted) primitives of a signature and return the
+	// positions, or null if the segments cannot fill the roles exactly
+	private static int[] bindRoles(String roles, String primitives) {
+		int numOfSegments = primitives.length();
+		if (roles.length() != numOfSegments)
+			return null;
+
+		int positions[] = new int[numOfSegments];
+		boolean boundP[] = new boolean[numOfSegments];
+
+		// The roles for a primitive take the segments with that primitive in order.  Since the primitives of a
+		// signature are sorted with the segments of a primitive in the order they were written, the first role
+		// for a primitive gets the first segment written with it and so on.
+		for (int i = 0; i < numOfSegments; i++) {
+			char role = roles.charAt(i);
+			if (role == CharacterRule.ANY_PRIMITIVE)
+				continue;
+
+			int position = primitives.indexOf(role);
+			while ((position >= 0) && boundP[position]) {
+				position = primitives.indexOf(role, position + 1);
+			}
+			if (position < 0)
+				return null;
+
+			positions[i] = position;
+			boundP[position] = true;
+		}
+
+		// The ANY_PRIMITIVE roles take the rest of the segments
+		int position = 0;
+		for (int i = 0; i < numOfSegments; i++) {
+			if (roles.charAt(i) == CharacterRule.ANY_PRIMITIVE) {
+				while (boundP[position]) {
+					position++;
+				}
+				positions[i] = position;
+				boundP[position] = true;
+			}
+		}
+		return positions;
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+// CharacterScore is a character the strokes of a PenCharacter may be and its score, from 0 (the thresholds
+// of its rule were only just met) to 1 (see PenCharacter.findBestCharacters()).
+public class CharacterScore {
+
+	public final char mCharacter;
+	public final float mScore;
+
+	public CharacterScore(char character, float score) {
+		mCharacter = character;
+		mScore = score;
+	}
+
+	public String toString() {
+		return mCharacter + ":" + mScore;
+	}
+}
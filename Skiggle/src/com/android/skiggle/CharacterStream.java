@@ -0,0 +1,305 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import java.util.LinkedList;
+import java.util.Vector;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// CharacterStream takes the strokes of a line (or a page) of handwriting as they are written, groups them
+// into characters, and recognizes each character once it is closed, on background threads, while the next
+// ones are being written.  A stroke starts a new character (and closes the open one) if
+//    - the pen was up for more than CHARACTER_TIMEOUT_MILLIS before it, e.g. characters written on top of
+//      each other in a small write pad, or
+//    - it is clear of the bounding box of the open character: to its right by more than CHARACTER_GAP_RATIO
+//      of the character's size (its height or width, whichever is larger), or to its left by as much (the
+//      start of a new line).  Strokes above or below the character (like the dot of an 'i' or the second
+//      line of an '=') belong to it.
+// A character closed by a gap is held back until the next stroke: if that stroke reaches back over it (like
+// the bar of an 'H' written after its two far apart sides) the two characters are one after all.
+// The open character can also be closed by commitIfIdle() (e.g. from a timer CHARACTER_TIMEOUT_MILLIS after
+// pen up) or commit().  Strokes are only compared with the last two characters, so the work per stroke does
+// not grow with the length of the line.
+//
+// The closed characters are recognized on the executor (by default one thread per processor) and handed
+// to the listener through the result executor, in the order they were closed.
+// The stream takes a reference to each stroke added (see PenStroke.retain()) and gives it up once the
+// character of the stroke has been recognized or dropped.  The listener may reset a character it is handed
+// (see PenCharacter.resetStrokes() and resetSegments()) to put its strokes and segments back into the pools.
+public class CharacterStream {
+
+	public static final long CHARACTER_TIMEOUT_MILLIS = 1000; // Pen up time that closes a character
+	private static final float CHARACTER_GAP_RATIO = 0.4F; // Min gap (as a fraction of the character size) to the next character
+	private static final float MIN_CHARACTER_SIZE = 20.0F; // Size used for the gap of small characters like '.'
+
+	// Listener for the closed characters.  It is called through the result executor, in the order the
+	// characters were closed; index counts the characters of the stream from 0.
+	public interface CharacterListener {
+		void onCharacterRecognized(int index, PenCharacter penCharacter);
+	}
+
+	// The strokes of a character that is being written (or held back) and their bounding box
+	private static class StrokeGroup {
+		Vector<PenStroke> mPenStrokes = new Vector<PenStroke>();
+		PenRectF mBoundingRectF = new PenRectF();
+
+		void add(PenStroke penStroke) {
+			penStroke.retain();
+			if (mPenStrokes.isEmpty())
+				mBoundingRectF.set(penStroke.mBoundingRectF);
+			else
+				mBoundingRectF.union(penStroke.mBoundingRectF);
+			mPenStrokes.add(penStroke);
+		}
+
+		// Put the strokes of group in front of the strokes of this group
+		void prepend(StrokeGroup group) {
+			if (!mPenStrokes.isEmpty())
+				group.mBoundingRectF.union(mBoundingRectF);
+			mBoundingRectF.set(group.mBoundingRectF);
+			mPenStrokes.addAll(0, group.mPenStrokes);
+			group.mPenStrokes.clear();
+		}
+
+		boolean isEmpty() {
+			return mPenStrokes.isEmpty();
+		}
+
+		// Drop the strokes, giving up the references to them
+		void clear() {
+			recycle(mPenStrokes.toArray(new PenStroke[mPenStrokes.size()]));
+			mPenStrokes.clear();
+		}
+
+		// Check to see if the bounding box of a stroke overlaps this group's from left to right
+		boolean overlapsX(PenRectF rectF) {
+			return (rectF.left <= mBoundingRectF.right) & (mBoundingRectF.left <= rectF.right);
+		}
+	}
+
+	// A closed character waiting to be recognized or handed to the listener
+	private static class ClosedCharacter {
+		int mIndex;
+		long mGeneration;
+		PenStroke mPenStrokes[];
+		PenCharacter mPenCharacter; // set when recognized
+	}
+
+	// Members
+	private ExecutorService mExecutor;
+	private boolean mOwnExecutorP; // true if mExecutor was created (and has to be shut down) by this CharacterStream
+	private Executor mResultExecutor;
+	private CharacterListener mListener;
+	private volatile RecognitionCache mRecognitionCache = null;
+
+	private StrokeGroup mOpenGroup = new StrokeGroup(); // the character being written
+	private StrokeGroup mHeldGroup = new StrokeGroup(); // the character closed by a gap and held back (see addStroke())
+	private long mLastPenUpTime = 0;
+
+	private int mNumOfCharacters = 0; // Number of characters closed
+	private long mGeneration = 0; // incremented by clear()
+	private LinkedList<ClosedCharacter> mClosedCharacters = new LinkedList<ClosedCharacter>(); // in the order they were closed
+
+	public CharacterStream(Executor resultExecutor, CharacterListener listener) {
+		this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "SkiggleCharacterStream");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}), resultExecutor, listener);
+		mOwnExecutorP = true;
+	}
+
+	// Recognize the characters on executor
+	public CharacterStream(ExecutorService executor, Executor resultExecutor, CharacterListener listener) {
+		mExecutor = executor;
+		mOwnExecutorP = false;
+		mResultExecutor = resultExecutor;
+		mListener = listener;
+	}
+
+	// Recognize the closed characters through cache (if not null)
+	public void setRecognitionCache(RecognitionCache cache) {
+		mRecognitionCache = cache;
+	}
+
+	// Add a stroke written between penDownTime and penUpTime (in milliseconds).  The stroke must not be changed
+	// after it is added.
+	public synchronized void addStroke(PenStroke penStroke, long penDownTime, long penUpTime) {
+		PenRectF strokeRectF = penStroke.mBoundingRectF;
+
+		if (!mOpenGroup.isEmpty() && (penDownTime - mLastPenUpTime > CHARACTER_TIMEOUT_MILLIS)) {
+			commit();
+		}
+		else if (!mOpenGroup.isEmpty() && isClearOf(mOpenGroup, strokeRectF)) {
+			// Hold the open character back until the next stroke
+			close(mHeldGroup);
+			mHeldGroup.prepend(mOpenGroup);
+		}
+		else if (!mHeldGroup.isEmpty()) {
+			// The stroke is part of the open character; it joins it to the held back character if it reaches
+			// over it
+			if (mHeldGroup.overlapsX(strokeRectF))
+				mOpenGroup.prepend(mHeldGroup);
+			else
+				close(mHeldGroup);
+		}
+
+		mOpenGroup.add(penStroke);
+		mLastPenUpTime = penUpTime;
+	}
+
+	// Close the open character if the pen has been up for more than CHARACTER_TIMEOUT_MILLIS at time now.
+	// Return true if it was closed.
+	public synchronized boolean commitIfIdle(long now) {
+		if (mOpenGroup.isEmpty() || (now - mLastPenUpTime <= CHARACTER_TIMEOUT_MILLIS))
+			return false;
+
+		commit();
+		return true;
+	}
+
+	// Close the open character (and the one held back, if any) and queue them for recognition
+	public synchronized void commit() {
+		close(mHeldGroup);
+		close(mOpenGroup);
+	}
+
+	// The strokes of the open character
+	public synchronized PenStroke[] getOpenStrokes() {
+		return mOpenGroup.mPenStrokes.toArray(new PenStroke[mOpenGroup.mPenStrokes.size()]);
+	}
+
+	// Number of characters closed so far
+	public synchronized int getNumOfCharacters() {
+		return mNumOfCharacters;
+	}
+
+	// Drop the open character and the characters not yet handed to the listener, and start counting the
+	// characters from 0 again
+	public synchronized void clear() {
+		mGeneration = mGeneration + 1;
+		mOpenGroup.clear();
+		mHeldGroup.clear();
+		mClosedCharacters.clear();
+		mNumOfCharacters = 0;
+	}
+
+	// Shut down the executor if it was created by this CharacterStream
+	public void shutdown() {
+		clear();
+		if (mOwnExecutorP)
+			mExecutor.shutdown();
+	}
+
+	// Check to see if a stroke is to the right of a character by more than the gap between characters, or
+	// starts a new line (it is to the left of the character by as much)
+	private static boolean isClearOf(StrokeGroup group, PenRectF strokeRectF) {
+		PenRectF rectF = group.mBoundingRectF;
+		float size = Math.max(MIN_CHARACTER_SIZE, Math.max(rectF.height(), rectF.width()));
+		float gap = CHARACTER_GAP_RATIO * size;
+
+		return (strokeRectF.left - rectF.right > gap) | (rectF.left - strokeRectF.right > gap);
+	}
+
+	// Close the character made up of the strokes of group (if any) and queue it for recognition
+	private void close(StrokeGroup group) {
+		if (group.isEmpty())
+			return;
+
+		final ClosedCharacter closedCharacter = new ClosedCharacter();
+		final RecognitionCache cache = mRecognitionCache;
+		closedCharacter.mIndex = mNumOfCharacters;
+		closedCharacter.mGeneration = mGeneration;
+		closedCharacter.mPenStrokes = group.mPenStrokes.toArray(new PenStroke[group.mPenStrokes.size()]);
+		mNumOfCharacters = mNumOfCharacters + 1;
+		group.mPenStrokes.clear();
+		mClosedCharacters.add(closedCharacter);
+
+		mExecutor.execute(new Runnable() {
+			public void run() {
+				PenCharacter penCharacter = new PenCharacter();
+				boolean recognizedP = false;
+				try {
+					for (int i = 0; i < closedCharacter.mPenStrokes.length; i++) {
+						penCharacter.addStroke(closedCharacter.mPenStrokes[i]);
+						penCharacter.addSegments(closedCharacter.mPenStrokes[i], RecognitionTraceListener.NO_TRACE);
+					}
+					penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE, cache);
+					recognizedP = true;
+				}
+				finally {
+					recycle(closedCharacter.mPenStrokes); // the character has its own references
+					// A character that failed to be recognized is handed to the listener empty and unrecognized,
+					// so that it does not hold back the characters after it
+					if (!recognizedP)
+						reset(penCharacter);
+					deliver(closedCharacter, penCharacter);
+				}
+			}
+		});
+	}
+
+	// Hand the recognized characters at the head of the queue to the listener.  A character recognized ahead
+	// of an earlier one waits for it.
+	private synchronized void deliver(ClosedCharacter closedCharacter, PenCharacter penCharacter) {
+		if (closedCharacter.mGeneration != mGeneration) {
+			reset(penCharacter);
+			return;
+		}
+
+		closedCharacter.mPenCharacter = penCharacter;
+		while (!mClosedCharacters.isEmpty() && (mClosedCharacters.getFirst().mPenCharacter != null)) {
+			final ClosedCharacter recognizedCharacter = mClosedCharacters.removeFirst();
+			final long generation = recognizedCharacter.mGeneration;
+			mResultExecutor.execute(new Runnable() {
+				public void run() {
+					// The character may have been dropped by clear() while it was being posted
+					if (isCurrent(generation))
+						mListener.onCharacterRecognized(recognizedCharacter.mIndex, recognizedCharacter.mPenCharacter);
+					else
+						reset(recognizedCharacter.mPenCharacter);
+				}
+			});
+		}
+	}
+
+	private synchronized boolean isCurrent(long generation) {
+		return (mGeneration == generation);
+	}
+
+	// Give up the references to penStrokes
+	private static void recycle(PenStroke penStrokes[]) {
+		for (int i = 0; i < penStrokes.length; i++) {
+			penStrokes[i].recycle();
+		}
+	}
+
+	// Put the strokes and the segments of a character that is dropped back into the pools
+	private static void reset(PenCharacter penCharacter) {
+		penCharacter.resetStrokes();
+		penCharacter.resetSegments();
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+// CurvatureKernel computes the per-point math of PenSegment.getCurvaturePoints() over the points of many
+// strokes at once, laid out one after the other in the arrays of a StrokeBatch.  Each method computes the
+// points from (inclusive) to to (exclusive) of the arrays without regard to where a stroke starts or ends;
+// StrokeBatch clears the values that straddle two strokes.  All implementations must give the same results,
+// bit for bit, as SCALAR, which uses the fast-math kernel of PenUtil.
+// StrokeBatch.getDefaultKernel() picks the fastest implementation the runtime has: the one in
+// VECTOR_KERNEL_CLASS_NAME (built with the JDK Vector API on a server JVM, not on Android) if it can be loaded,
+// and SCALAR otherwise.
+public interface CurvatureKernel {
+
+	public static final String VECTOR_KERNEL_CLASS_NAME = "com.android.skiggle.VectorCurvatureKernel";
+
+	// Set tanAngle[i] to the angle (in degrees, see PenUtil.getAbsAngleFast()) of the tangent (tanX[i], tanY[i])
+	void computeTanAngles(float tanX[], float tanY[], float tanAngle[], int from, int to);
+
+	// Set kappa[i] to the curvature (see PenUtil.computeCurvatureM2003Fast()) at point i from points i - 1, i
+	// and i + 1 (so from must be at least 1 and to at most the number of points - 1)
+	void computeCurvatures(float x[], float y[], float kappa[], int from, int to);
+
+	// Set kappaDiff[i] to kappa[i + 1] - kappa[i] (so to must be at most the number of points - 1)
+	void computeDifferences(float kappa[], float kappaDiff[], int from, int to);
+
+	// The kernel that computes one point at a time
+	public static final CurvatureKernel SCALAR = new CurvatureKernel() {
+		public void computeTanAngles(float tanX[], float tanY[], float tanAngle[], int from, int to) {
+			for (int i = from; i < to; i++) {
+				tanAngle[i] = PenUtil.getAbsAngleFast(tanY[i], tanX[i]);
+			}
+		}
+
+		public void computeCurvatures(float x[], float y[], float kappa[], int from, int to) {
+			for (int i = from; i < to; i++) {
+				kappa[i] = PenUtil.computeCurvatureM2003Fast(x[i - 1], y[i - 1], x[i], y[i], x[i + 1], y[i + 1]);
+			}
+		}
+
+		public void computeDifferences(float kappa[], float kappaDiff[], int from, int to) {
+			for (int i = from; i < to; i++) {
+				kappaDiff[i] = kappa[i + 1] - kappa[i];
+			}
+		}
+	};
+}
@@ -0,0 +1,59 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+// InkFormat describes the Skiggle ink file, a compact binary recording of handwritten characters as the touch
+// samples of their strokes (see InkWriter and InkReader).  All fixed size numbers are big-endian.
+//
+//    header      MAGIC (int), VERSION (int), COORDINATE_SCALE (int)
+//    characters  one record per character:
+//                    varint   the character written (or recognized), 0 if it is not known
+//                    varint   number of strokes
+//                    for each stroke, a stroke header and its points:
+//                        varint   number of touch samples (at least 1)
+//                        varlong  pen down time, in milliseconds after the pen up time of the stroke before it
+//                                 (after time 0, e.g. boot, for the first stroke of the file)
+//                        varlong  time from pen down to pen up, in milliseconds
+//                        for each sample, zigzag varints of the change in x and in y from the sample before it
+//                        (from (0, 0) for the first sample of the character)
+//    index       the offset (int) of each character record, in order
+//    trailer     offset of the index (long), number of characters (int), MAGIC (int)
+//
+// Coordinates are stored in units of 1/COORDINATE_SCALE of a pixel.  A varint is an unsigned number written
+// 7 bits at a time, lowest first, with the top bit of each byte set if more bytes follow; a zigzag varint
+// maps 0, -1, 1, -2, ... to 0, 1, 2, 3, ... first so that small changes of either sign take one byte.
+public class InkFormat {
+
+	public static final int MAGIC = 0x534B494E; // "SKIN"
+	public static final int VERSION = 1;
+	public static final int COORDINATE_SCALE = 10; // Coordinate units per pixel
+
+	public static final int HEADER_SIZE = 12;
+	public static final int TRAILER_SIZE = 16;
+
+	public static int toZigzag(int n) {
+		return (n << 1) ^ (n >> 31);
+	}
+
+	public static int fromZigzag(int n) {
+		return (n >>> 1) ^ -(n & 1);
+	}
+}
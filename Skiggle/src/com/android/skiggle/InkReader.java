@@ -0,0 +1,259 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// InkReader reads the characters of a Skiggle ink file (see InkFormat) from a memory-mapped buffer:
+//    InkReader reader = InkReader.open(file);
+//    while (reader.nextCharacter()) {
+//        for (int i = 0; i < reader.getNumOfStrokes(); i++) {
+//            reader.nextStroke(accumulator);
+//            PenStroke penStroke = new PenStroke(accumulator);
+//            ...
+// The touch samples of a stroke are decoded straight from the buffer into a PenStrokeAccumulator, the way
+// WritePad feeds them in while the stroke is drawn, so the strokes are the same as those written on
+// the write pad and the samples are not copied.  A character whose offset or samples run outside the
+// characters of the file is reported as an IOException.  A reader is not thread-safe; readers of the
+// same file (see duplicate()) can be used on different threads.
+public class InkReader {
+
+	// Receives the touch samples of a stroke (see nextStroke(TouchListener))
+	public interface TouchListener {
+		void touchDown(float x, float y, long time);
+		void touchMove(float x, float y, long time);
+		void touchUp(long time);
+	}
+
+	// Members
+	private ByteBuffer mBuffer;
+	private float mCoordinateScale;
+	private int mIndexOffset;
+	private int mNumOfCharacters;
+
+	private int mNextCharacter = 0; // index of the character nextCharacter() goes to
+	private char mCharacter = '\0';
+	private int mNumOfStrokes = 0; // number of strokes of the current character
+	private int mNumOfStrokesRead = 0;
+	private int mLastX, mLastY; // last sample, in coordinate units
+	private long mPenDownTime = 0; // of the last stroke read
+	private long mPenUpTime = 0;
+	private PenRectF mBoundingRectF = new PenRectF(); // for making a line of a stroke of zero length
+
+	// Map file and read it
+	public static InkReader open(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			// The mapping stays valid after the channel is closed
+			return new InkReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		finally {
+			randomAccessFile.close();
+		}
+	}
+
+	// Read the ink file in buffer (from its position to its limit)
+	public InkReader(ByteBuffer buffer) throws IOException {
+		mBuffer = buffer.slice();
+		int size = mBuffer.limit();
+		if ((size < InkFormat.HEADER_SIZE + InkFormat.TRAILER_SIZE) || (mBuffer.getInt(0) != InkFormat.MAGIC) ||
+				(mBuffer.getInt(size - 4) != InkFormat.MAGIC))
+			throw new IOException("Not a Skiggle ink file");
+		if (mBuffer.getInt(4) != InkFormat.VERSION)
+			throw new IOException("Unknown ink file version " + mBuffer.getInt(4));
+
+		mCoordinateScale = mBuffer.getInt(8);
+		long indexOffset = mBuffer.getLong(size - InkFormat.TRAILER_SIZE);
+		mNumOfCharacters = mBuffer.getInt(size - 8);
+		if ((mCoordinateScale <= 0) || (mNumOfCharacters < 0) || (indexOffset < InkFormat.HEADER_SIZE) ||
+				(indexOffset + 4L * mNumOfCharacters != size - InkFormat.TRAILER_SIZE))
+			throw new IOException("Corrupt ink file");
+		mIndexOffset = (int) indexOffset;
+	}
+
+	private InkReader(InkReader src) {
+		mBuffer = src.mBuffer.duplicate();
+		mCoordinateScale = src.mCoordinateScale;
+		mIndexOffset = src.mIndexOffset;
+		mNumOfCharacters = src.mNumOfCharacters;
+	}
+
+	// Get a reader of the same buffer, at the first character
+	public InkReader duplicate() {
+		return new InkReader(this);
+	}
+
+	public int getNumOfCharacters() {
+		return mNumOfCharacters;
+	}
+
+	// Make nextCharacter() go to character index
+	public void seekCharacter(int index) {
+		mNextCharacter = Math.max(0, Math.min(mNumOfCharacters, index));
+	}
+
+	// Go to the next character.  Return false if there are no more characters.
+	public boolean nextCharacter() throws IOException {
+		if (mNextCharacter >= mNumOfCharacters)
+			return false;
+
+		// The characters are between the header and the index
+		int offset = mBuffer.getInt(mIndexOffset + 4 * mNextCharacter);
+		if ((offset < InkFormat.HEADER_SIZE) || (offset >= mIndexOffset))
+			throw new IOException("Corrupt ink file: character " + mNextCharacter + " at " + offset);
+		mBuffer.position(offset);
+		mNextCharacter = mNextCharacter + 1;
+		mCharacter = (char) readVarint();
+		mNumOfStrokes = readVarint();
+		mNumOfStrokesRead = 0;
+		mLastX = 0;
+		mLastY = 0;
+		return true;
+	}
+
+	// The character written (or recognized), '\0' if it is not known
+	public char getCharacter() {
+		return mCharacter;
+	}
+
+	public int getNumOfStrokes() {
+		return mNumOfStrokes;
+	}
+
+	// Read the next stroke of the character into accumulator (which is reset first).  Return false if all the
+	// strokes of the character have been read.
+	public boolean nextStroke(PenStrokeAccumulator accumulator) throws IOException {
+		if (mNumOfStrokesRead >= mNumOfStrokes)
+			return false;
+
+		int numOfPoints = readVarint();
+		mPenDownTime = mPenUpTime + readVarlong();
+		mPenUpTime = mPenDownTime + readVarlong();
+		mNumOfStrokesRead = mNumOfStrokesRead + 1;
+		accumulator.reset();
+
+		// Replay the touch samples as WritePad does: moves smaller than TOUCH_TOLERANCE are dropped,
+		// the others are smoothed with quadTo, and a stroke of zero length becomes a line of 1 pixel
+		float lastX = readX();
+		float lastY = readY();
+		accumulator.moveTo(lastX, lastY);
+		for (int i = 1; i < numOfPoints; i++) {
+			float x = readX();
+			float y = readY();
+			if ((Math.abs(x - lastX) >= WritePad.TOUCH_TOLERANCE) || (Math.abs(y - lastY) >= WritePad.TOUCH_TOLERANCE)) {
+				accumulator.quadTo(lastX, lastY, (x + lastX) / 2, (y + lastY) / 2);
+				lastX = x;
+				lastY = y;
+			}
+		}
+		accumulator.lineTo(lastX, lastY);
+
+		if (accumulator.getLength() == 0) {
+			accumulator.computeBounds(mBoundingRectF);
+			accumulator.lineTo(mBoundingRectF.centerX(), mBoundingRectF.centerY() + 1);
+		}
+		return true;
+	}
+
+	// Read the touch samples of the next stroke into listener, as a touch down, touch moves and a touch up.
+	// The times of the samples are not kept so the moves are spread evenly from pen down to pen up.  Return
+	// false if all the strokes of the character have been read.
+	public boolean nextStroke(TouchListener listener) throws IOException {
+		if (mNumOfStrokesRead >= mNumOfStrokes)
+			return false;
+
+		int numOfPoints = readVarint();
+		mPenDownTime = mPenUpTime + readVarlong();
+		mPenUpTime = mPenDownTime + readVarlong();
+		mNumOfStrokesRead = mNumOfStrokesRead + 1;
+
+		float x = readX();
+		listener.touchDown(x, readY(), mPenDownTime);
+		for (int i = 1; i < numOfPoints; i++) {
+			x = readX();
+			listener.touchMove(x, readY(), mPenDownTime + (mPenUpTime - mPenDownTime) * i / (numOfPoints - 1));
+		}
+		listener.touchUp(mPenUpTime);
+		return true;
+	}
+
+	// Pen down and pen up times (in milliseconds, see InkFormat) of the last stroke read.
+	// The times of a character read after a seekCharacter() are only relative to each other.
+	public long getPenDownTime() {
+		return mPenDownTime;
+	}
+
+	public long getPenUpTime() {
+		return mPenUpTime;
+	}
+
+	// The x of the next sample, in pixels; readX() and readY() are called in turn
+	private float readX() throws IOException {
+		mLastX = mLastX + InkFormat.fromZigzag(readVarint());
+		return mLastX / mCoordinateScale;
+	}
+
+	private float readY() throws IOException {
+		mLastY = mLastY + InkFormat.fromZigzag(readVarint());
+		return mLastY / mCoordinateScale;
+	}
+
+	// A varint is at most 5 bytes long (a varlong 10), 7 bits to a byte
+	private int readVarint() throws IOException {
+		int n = 0;
+		int shift = 0;
+		byte b;
+		do {
+			if (shift >= 32)
+				throw new IOException("Corrupt ink file: varint too long at " + mBuffer.position());
+			b = readByte();
+			n = n | ((b & 0x7F) << shift);
+			shift = shift + 7;
+		} while (b < 0);
+		return n;
+	}
+
+	private long readVarlong() throws IOException {
+		long n = 0;
+		int shift = 0;
+		byte b;
+		do {
+			if (shift >= 64)
+				throw new IOException("Corrupt ink file: varlong too long at " + mBuffer.position());
+			b = readByte();
+			n = n | ((long) (b & 0x7F) << shift);
+			shift = shift + 7;
+		} while (b < 0);
+		return n;
+	}
+
+	// Read the next byte of a character, which ends before the index
+	private byte readByte() throws IOException {
+		if (mBuffer.position() >= mIndexOffset)
+			throw new IOException("Corrupt ink file: character runs into the index at " + mBuffer.position());
+		return mBuffer.get();
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import java.io.IOException;
+import java.util.LinkedList;
+
+// InkRecorder records the strokes written on the write pad into an InkWriter.  The touch samples of each
+// stroke are kept from pen down to pen up and the strokes are written out a character at a time, as the
+// characters are recognized by CharacterStream (which hands them over in the order they were written, with
+// their strokes in order).
+public class InkRecorder {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	// The touch samples of a stroke
+	private static class RecordedStroke {
+		float mPointsX[];
+		float mPointsY[];
+		int mNumOfPoints;
+		long mPenDownTime;
+		long mPenUpTime;
+	}
+
+	// Members
+	private InkWriter mWriter;
+	private RecordedStroke mStroke = null; // the stroke being written
+	private LinkedList<RecordedStroke> mPendingStrokes = new LinkedList<RecordedStroke>(); // not yet in a character
+
+	public InkRecorder(InkWriter writer) {
+		mWriter = writer;
+	}
+
+	public void penDown(float x, float y, long time) {
+		mStroke = new RecordedStroke();
+		mStroke.mPointsX = new float[INITIAL_CAPACITY];
+		mStroke.mPointsY = new float[INITIAL_CAPACITY];
+		mStroke.mPenDownTime = time;
+		addPoint(x, y);
+	}
+
+	public void penMove(float x, float y) {
+		if (mStroke != null)
+			addPoint(x, y);
+	}
+
+	// End the stroke and keep it for the character it will be part of (see characterRecognized()).  Like
+	// WritePad, the stroke ends at the last sample moved to.
+	public void penUp(long time) {
+		if (mStroke == null)
+			return;
+
+		mStroke.mPenUpTime = time;
+		mPendingStrokes.add(mStroke);
+		mStroke = null;
+	}
+
+	// Drop the last stroke (e.g. a "clear screen" stroke, which is not part of any character)
+	public void discardStroke() {
+		if (!mPendingStrokes.isEmpty())
+			mPendingStrokes.removeLast();
+	}
+
+	// Write the first numOfStrokes strokes not yet written as character c
+	public void characterRecognized(char c, int numOfStrokes) throws IOException {
+		mWriter.beginCharacter(c);
+		for (int i = 0; (i < numOfStrokes) && !mPendingStrokes.isEmpty(); i++) {
+			RecordedStroke stroke = mPendingStrokes.removeFirst();
+			mWriter.addStroke(stroke.mPointsX, stroke.mPointsY, stroke.mNumOfPoints, stroke.mPenDownTime, stroke.mPenUpTime);
+		}
+		mWriter.endCharacter();
+	}
+
+	// Drop the strokes not yet written
+	public void clear() {
+		mStroke = null;
+		mPendingStrokes.clear();
+	}
+
+	// Close the writer; the strokes not yet written are dropped
+	public void close() throws IOException {
+		clear();
+		mWriter.close();
+	}
+
+	private void addPoint(float x, float y) {
+		int numOfPoints = mStroke.mNumOfPoints;
+		if (numOfPoints == mStroke.mPointsX.length) {
+			float newPointsX[] = new float[2 * numOfPoints];
+			float newPointsY[] = new float[2 * numOfPoints];
+			System.arraycopy(mStroke.mPointsX, 0, newPointsX, 0, numOfPoints);
+			System.arraycopy(mStroke.mPointsY, 0, newPointsY, 0, numOfPoints);
+			mStroke.mPointsX = newPointsX;
+			mStroke.mPointsY = newPointsY;
+		}
+		mStroke.mPointsX[numOfPoints] = x;
+		mStroke.mPointsY[numOfPoints] = y;
+		mStroke.mNumOfPoints = numOfPoints + 1;
+	}
+}
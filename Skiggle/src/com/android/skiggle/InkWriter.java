@@ -0,0 +1,166 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// InkWriter writes characters to a Skiggle ink file (see InkFormat), one character at a time:
+//    writer.beginCharacter(c);
+//    writer.addStroke(...);  // for each stroke of the character
+//    writer.endCharacter();
+// and close() writes the index of the characters.  A character is buffered until endCharacter() and only
+// the offsets of the characters are kept after that, so a recording can be as long as the file allows.
+public class InkWriter {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	// Members
+	private DataOutputStream mOut;
+	private long mNumOfBytesWritten = 0;
+	private int mCharacterOffsets[] = new int[INITIAL_CAPACITY];
+	private int mNumOfCharacters = 0;
+	private long mLastPenUpTime = 0;
+
+	// The character being written
+	private boolean mInCharacterP = false;
+	private byte mRecord[] = new byte[INITIAL_CAPACITY];
+	private int mRecordLength = 0;
+	private int mNumOfStrokes = 0;
+	private char mCharacter;
+	private int mLastX, mLastY; // last sample, in coordinate units
+
+	public InkWriter(File file) throws IOException {
+		this(new FileOutputStream(file));
+	}
+
+	// Write to out (which is closed by close())
+	public InkWriter(OutputStream out) throws IOException {
+		mOut = new DataOutputStream(new BufferedOutputStream(out));
+		mOut.writeInt(InkFormat.MAGIC);
+		mOut.writeInt(InkFormat.VERSION);
+		mOut.writeInt(InkFormat.COORDINATE_SCALE);
+		mNumOfBytesWritten = InkFormat.HEADER_SIZE;
+	}
+
+	// Start a character; c is the character written (or recognized), or '\0' if it is not known
+	public void beginCharacter(char c) {
+		mInCharacterP = true;
+		mCharacter = c;
+		mRecordLength = 0;
+		mNumOfStrokes = 0;
+		mLastX = 0;
+		mLastY = 0;
+	}
+
+	// Add a stroke of the character with touch samples (xs[i], ys[i]) for i < numOfPoints, in pixels
+	public void addStroke(float xs[], float ys[], int numOfPoints, long penDownTime, long penUpTime) {
+		if (!mInCharacterP)
+			throw new IllegalStateException("addStroke() outside of a character");
+		if (numOfPoints < 1)
+			throw new IllegalArgumentException("A stroke needs at least one touch sample");
+
+		writeVarint(numOfPoints);
+		writeVarlong(Math.max(0, penDownTime - mLastPenUpTime));
+		writeVarlong(Math.max(0, penUpTime - penDownTime));
+		for (int i = 0; i < numOfPoints; i++) {
+			int x = Math.round(xs[i] * InkFormat.COORDINATE_SCALE);
+			int y = Math.round(ys[i] * InkFormat.COORDINATE_SCALE);
+			writeVarint(InkFormat.toZigzag(x - mLastX));
+			writeVarint(InkFormat.toZigzag(y - mLastY));
+			mLastX = x;
+			mLastY = y;
+		}
+		mLastPenUpTime = Math.max(penDownTime, penUpTime);
+		mNumOfStrokes = mNumOfStrokes + 1;
+	}
+
+	// Write the character started by beginCharacter()
+	public void endCharacter() throws IOException {
+		if (!mInCharacterP)
+			throw new IllegalStateException("endCharacter() outside of a character");
+		if (mNumOfBytesWritten > Integer.MAX_VALUE)
+			throw new IOException("Ink file too large");
+
+		if (mNumOfCharacters == mCharacterOffsets.length) {
+			int newOffsets[] = new int[2 * mCharacterOffsets.length];
+			System.arraycopy(mCharacterOffsets, 0, newOffsets, 0, mNumOfCharacters);
+			mCharacterOffsets = newOffsets;
+		}
+		mCharacterOffsets[mNumOfCharacters] = (int) mNumOfBytesWritten;
+		mNumOfCharacters = mNumOfCharacters + 1;
+
+		// The stroke count goes before the strokes
+		int strokesLength = mRecordLength;
+		writeVarint(mCharacter);
+		writeVarint(mNumOfStrokes);
+		mOut.write(mRecord, strokesLength, mRecordLength - strokesLength);
+		mOut.write(mRecord, 0, strokesLength);
+		mNumOfBytesWritten = mNumOfBytesWritten + mRecordLength;
+		mInCharacterP = false;
+	}
+
+	public int getNumOfCharacters() {
+		return mNumOfCharacters;
+	}
+
+	// Write the index and the trailer and close the file.  A character not ended by endCharacter() is dropped.
+	public void close() throws IOException {
+		long indexOffset = mNumOfBytesWritten;
+		for (int i = 0; i < mNumOfCharacters; i++) {
+			mOut.writeInt(mCharacterOffsets[i]);
+		}
+		mOut.writeLong(indexOffset);
+		mOut.writeInt(mNumOfCharacters);
+		mOut.writeInt(InkFormat.MAGIC);
+		mOut.close();
+	}
+
+	private void writeVarint(int n) {
+		ensureCapacity(mRecordLength + 5);
+		while ((n & ~0x7F) != 0) {
+			mRecord[mRecordLength++] = (byte) ((n & 0x7F) | 0x80);
+			n = n >>> 7;
+		}
+		mRecord[mRecordLength++] = (byte) n;
+	}
+
+	private void writeVarlong(long n) {
+		ensureCapacity(mRecordLength + 10);
+		while ((n & ~0x7FL) != 0) {
+			mRecord[mRecordLength++] = (byte) ((n & 0x7F) | 0x80);
+			n = n >>> 7;
+		}
+		mRecord[mRecordLength++] = (byte) n;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > mRecord.length) {
+			byte newRecord[] = new byte[Math.max(capacity, 2 * mRecord.length)];
+			System.arraycopy(mRecord, 0, newRecord, 0, mRecordLength);
+			mRecord = newRecord;
+		}
+	}
+}
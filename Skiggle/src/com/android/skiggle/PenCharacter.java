@@ -33,8 +33,6 @@ import java.util.logging.LogRecord;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.PointF;
-import android.graphics.RectF;
 import android.util.Log;
 
 // PenCharacter is a class representing the character written.  It has:
@@ -48,16 +46,23 @@ public class PenCharacter {
 	private static int DEFAULT_PENCHARACTER_STROKE_WIDTH = 4;
 
 	private Vector<PenStroke> mPenStrokes;
-	public float mPenStrokesMinX = Skiggle.DEFAULT_WRITE_PAD_WIDTH; //x-coord of left edge of rectangle bounding all strokes
+	private int mNumOfStrokes = 0; // the strokes of mPenStrokes, or of a character in a SegmentStore (see bind())
+	public float mPenStrokesMinX = Float.MAX_VALUE; //x-coord of left edge of rectangle bounding all strokes
 	public float mPenStrokesMaxX = 0.0F; //x-coord of right edge of rectangle bounding all strokes
-	public float mPenStrokesMinY = Skiggle.DEFAULT_WRITE_PAD_HEIGHT; //y-coord of top edge of rectangle bounding all strokes
+	public float mPenStrokesMinY = Float.MAX_VALUE; //y-coord of top edge of rectangle bounding all strokes
 	public float mPenStrokesMaxY = 0.0F; //y-coord of bottom edge of rectangle bounding all strokes
 
 	public Vector<PenSegment> mPenSegments;
+	private SegmentRelations mRelations = new SegmentRelations(); // geometry of mPenSegments read by the checks
 
 	public Character mPenCharacter = null;
 	public String mPenCharacterCandidates = "";
+	private int mSignature = SegmentCandidateTable.TOO_MANY_SEGMENTS_SIGNATURE; // signature of mPenSegments (see SegmentCandidateTable)
+	private int mSortedSegmentIndexes[] = new int[SegmentCandidateTable.MAX_NUM_OF_SEGMENTS]; // mPenSegments in signature order
+	private int mRoleSegmentIndexes[] = new int[SegmentCandidateTable.MAX_NUM_OF_SEGMENTS]; // segments for the roles of a rule
+	private float mMatchConfidence = 1.0F; // smallest margin of the thresholds checked by the rule being tried (see isWithinThreshold())
 	private float mFontSize = Skiggle.DEFAULT_FONT_SIZE;
+	private RecognizerProfile mProfile = RecognizerProfile.getCurrent(); // the profile the character is recognized with
 
 	public PenCharacter () {
 		mPenStrokes = new Vector<PenStroke>();
@@ -73,15 +78,59 @@ public class PenCharacter {
 		mPenStrokesMinY = Math.min(mPenStrokesMinY, penStroke.mBoundingRectF.top);
 		mPenStrokesMaxY = Math.max(mPenStrokesMaxY, penStroke.mBoundingRectF.bottom);
 
+		penStroke.retain();
 		mPenStrokes.add(penStroke);
+		mNumOfStrokes = mNumOfStrokes + 1;
+	}
+
+	// Make this character (with no strokes of its own) the character of numOfStrokes strokes bounded by minX, minY,
+	// maxX and maxY and made up of the first numOfSegments of segments, to be recognized again with the current
+	// profile.  The segments are not copied.  Used by SegmentStore.CharacterView to recognize the characters of a
+	// store with one PenCharacter and a few PenSegments.
+	void bind(int numOfStrokes, float minX, float minY, float maxX, float maxY, PenSegment segments[], int numOfSegments) {
+		mPenStrokes.clear();
+		mNumOfStrokes = numOfStrokes;
+		mPenStrokesMinX = minX;
+		mPenStrokesMinY = minY;
+		mPenStrokesMaxX = maxX;
+		mPenStrokesMaxY = maxY;
+
+		mPenSegments.clear();
+		for (int i = 0; i < numOfSegments; i++) {
+			mPenSegments.add(segments[i]);
+		}
+		mRelations.clear();
+		mRelations.update(mPenSegments);
+
+		mPenCharacter = null;
+		mPenCharacterCandidates = "";
+		mMatchConfidence = 1.0F;
+		mProfile = RecognizerProfile.getCurrent();
+	}
+
+	// The stroke i of mPenStrokes
+	PenStroke getStroke(int i) {
+		return mPenStrokes.elementAt(i);
+	}
+
+	// Recognize the character with profile rather than with the profile that was current when it was made.  The
+	// segments added since must be added again if profile splits or matches segments differently (see
+	// RecognizerProfile.hasSameSegmentParameters()).
+	public void setProfile(RecognizerProfile profile) {
+		mProfile = profile;
+	}
+
+	public RecognizerProfile getProfile() {
+		return mProfile;
 	}
 
 	// Break up stroke into one or more segments
-	public void addSegments (PenStroke penStroke, Canvas canvas, Paint textPaint) {
+	public void addSegments (PenStroke penStroke, RecognitionTraceListener trace) {
 
-		mPenSegments.addAll(penStroke.segmentStroke(canvas, textPaint));
+		mPenSegments.addAll(penStroke.segmentStroke(trace, mProfile));
+		mRelations.update(mPenSegments);
 		
-		printSegmentCharacters(mPenSegments.elementAt(0).mBoundingRectF, canvas, textPaint);
+		trace.onSegmentsAdded(this, penStroke);
 	}
 
 
@@ -104,18 +153,10 @@ public class PenCharacter {
 			mFontSize = Math.max(mFontSize, Math.max(tempStroke.mBoundingRectHeight, tempStroke.mBoundingRectWidth));
 			// Paint over the stroke with the original pen color so that the new color will be visible
 			mPaint.setColor(0xFF00FFFF);
-			canvas.drawPath(tempStroke, mPaint);
+			drawPenPath(tempStroke.mPenStrokePath, canvas, mPaint);
 			// Paint the copy of the stroke with the new pen color
 			mPaint.setColor(paintColor);
-			canvas.drawPath(tempStroke, mPaint);
-		}
-
-		switch (mPenStrokes.size()) {
-		case 2: checkForCapitalL();
-		break;
-		case 3: checkForCapitalI();
-		break;
-		default:
+			drawPenPath(tempStroke.mPenStrokePath, canvas, mPaint);
 		}
 
 		Paint tempPaint = new Paint();
@@ -124,764 +165,410 @@ public class PenCharacter {
 				10.0F + (float) (mPenStrokes.size() * 10), 350.0F, tempPaint);
 	}
 
-	// Reset mPenStrokes
-	public void resetStrokes() {
-		for (Iterator<PenStroke> i = mPenStrokes.iterator(); i.hasNext();) {
-			i.next().reset();
+	// Draw the line segments of a pen path
+	private void drawPenPath(PenPath penPath, Canvas canvas, Paint paint) {
+		int numOfPoints = penPath.getPointCount();
+		for (int i = 1; i < numOfPoints; i++) {
+			canvas.drawLine(penPath.getX(i - 1), penPath.getY(i - 1), penPath.getX(i), penPath.getY(i), paint);
 		}
 	}
 
-	// Reset mPenSegments
-	public void resetSegments() {
-		for (Iterator<PenSegment> i = mPenSegments.iterator(); i.hasNext();) {
-			i.next().reset();
-		}
+	public int getNumOfStrokes() {
+		return mNumOfStrokes;
 	}
 
-	// Method for getting candidate characters
-	// Get candidates for 1-stroke character
-	private void get1SegmentCharacterCandidates() {
-		char strokeChar0 = mPenSegments.elementAt(0).mPenSegmentCharacter;
-		SegmentBitSet sBitSet0 = SegmentBitSet.getSegmentBitSetForChar(strokeChar0);
-		sBitSet0.mSegmentBitSet.and(SegmentBitSet.ONE_SEGMENT_BITSET.mSegmentBitSet);
-		mPenCharacterCandidates = sBitSet0.getCharacters();
-		// mPenCharacter = mPenSegments.elementAt(0).mPenSegmentCharacter;
+	// The geometry of the segments (of the first SegmentCandidateTable.MAX_NUM_OF_SEGMENTS of them)
+	SegmentRelations getSegmentRelations() {
+		return mRelations;
 	}
 
-	// Get candidates for 2-stroke character
-	private void get2SegmentCharacterCandidates() {
-		char strokeChar0 = mPenSegments.elementAt(0).mPenSegmentCharacter;
-		char strokeChar1 = mPenSegments.elementAt(1).mPenSegmentCharacter;
-		SegmentBitSet sBitSet0 = SegmentBitSet.getSegmentBitSetForChar(strokeChar0);
-		SegmentBitSet sBitSet1 = SegmentBitSet.getSegmentBitSetForChar(strokeChar1);
-		SegmentBitSet s2SegmentsBitSet = new SegmentBitSet();
-		s2SegmentsBitSet.copy(SegmentBitSet.TWO_SEGMENTS_BITSET);
-
-		sBitSet0.mSegmentBitSet.and(sBitSet1.mSegmentBitSet);
-
-		sBitSet0.mSegmentBitSet.and(s2SegmentsBitSet.mSegmentBitSet);
-
-		mPenCharacterCandidates = sBitSet0.getCharacters();
-
-		//		}
+	// Drop the strokes of the character, giving up its references to them (see PenStroke.recycle()), so that
+	// the character can be used for new strokes
+	public void resetStrokes() {
+		for (Iterator<PenStroke> i = mPenStrokes.iterator(); i.hasNext();) {
+			i.next().recycle();
+		}
+		mPenStrokes.clear();
+		mNumOfStrokes = 0;
+		mPenStrokesMinX = Float.MAX_VALUE;
+		mPenStrokesMaxX = 0.0F;
+		mPenStrokesMinY = Float.MAX_VALUE;
+		mPenStrokesMaxY = 0.0F;
 	}
 
-	// Get candidates for 3-stroke character
-	private void get3SegmentCharacterCandidates() {
-		char strokeChar0 = mPenSegments.elementAt(0).mPenSegmentCharacter;
-		char strokeChar1 = mPenSegments.elementAt(1).mPenSegmentCharacter;
-		char strokeChar2 = mPenSegments.elementAt(2).mPenSegmentCharacter;
-		SegmentBitSet sBitSet0 = SegmentBitSet.getSegmentBitSetForChar(strokeChar0);
-		SegmentBitSet sBitSet1 = SegmentBitSet.getSegmentBitSetForChar(strokeChar1);
-		SegmentBitSet sBitSet2 = SegmentBitSet.getSegmentBitSetForChar(strokeChar2);
-		SegmentBitSet s3SegmentsBitSet = new SegmentBitSet();
-		s3SegmentsBitSet.copy(SegmentBitSet.THREE_SEGMENTS_BITSET);
-
-		sBitSet0.mSegmentBitSet.and(sBitSet1.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(sBitSet2.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(s3SegmentsBitSet.mSegmentBitSet);
-
-		mPenCharacterCandidates = sBitSet0.getCharacters();
-		//		}
+	// Drop the segments of the character and what was recognized from them, putting the segments back into
+	// the pool (see PenSegment.recycle()), so that the character can be used for new segments.  The segments
+	// must not be used afterwards.
+	public void resetSegments() {
+		for (Iterator<PenSegment> i = mPenSegments.iterator(); i.hasNext();) {
+			i.next().recycle();
+		}
+		mPenSegments.clear();
+		mRelations.clear();
+		mPenCharacter = null;
+		mPenCharacterCandidates = "";
+		mMatchConfidence = 1.0F;
 	}
 
-	// Get candidates for 4-stroke character
-	private void get4SegmentCharacterCandidates() {
-		char strokeChar0 = mPenSegments.elementAt(0).mPenSegmentCharacter;
-		char strokeChar1 = mPenSegments.elementAt(1).mPenSegmentCharacter;
-		char strokeChar2 = mPenSegments.elementAt(2).mPenSegmentCharacter;
-		char strokeChar3 = mPenSegments.elementAt(3).mPenSegmentCharacter;
-
-		/*
-		  if ((strokeChar0 != strokeChar1) & (strokeChar0 != strokeChar2) 
-				& (strokeChar0 != strokeChar2) & (strokeChar0 != strokeChar3)
-				& (strokeChar1 != strokeChar2) & (strokeChar1 != strokeChar3)
-				& (strokeChar2 != strokeChar3)) {
-		 */
-		SegmentBitSet sBitSet0 = SegmentBitSet.getSegmentBitSetForChar(strokeChar0);
-		SegmentBitSet sBitSet1 = SegmentBitSet.getSegmentBitSetForChar(strokeChar1);
-		SegmentBitSet sBitSet2 = SegmentBitSet.getSegmentBitSetForChar(strokeChar2);
-		SegmentBitSet sBitSet3 = SegmentBitSet.getSegmentBitSetForChar(strokeChar3);
-		SegmentBitSet s4SegmentsBitSet = new SegmentBitSet();
-		s4SegmentsBitSet.copy(SegmentBitSet.FOUR_SEGMENTS_BITSET);
-
-		sBitSet0.mSegmentBitSet.and(sBitSet1.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(sBitSet2.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(sBitSet3.mSegmentBitSet);
-		sBitSet0.mSegmentBitSet.and(s4SegmentsBitSet.mSegmentBitSet);
-
-		mPenCharacterCandidates = sBitSet0.getCharacters();
-		//}
+	// Method for getting candidate characters
+	// The candidates for each combination of segments are looked up in SegmentCandidateTable
+	public void getCharacterCandidates() {
+
+		long startTime = RecognizerMetrics.startTime();
+		long startBytes = RecognizerMetrics.startAllocatedBytes();
+		mSignature = SegmentCandidateTable.getSignature(mPenSegments, mSortedSegmentIndexes);
+		mPenCharacterCandidates = SegmentCandidateTable.getCandidates(mSignature);
+		RecognizerMetrics.record(RecognizerMetrics.STAGE_CHARACTER_CANDIDATES, startTime, startBytes);
 	}
 
-	public void getCharacterCandidates(Canvas canvas, Paint textPaint) {
-
-		switch (mPenSegments.size()) {
-		case 1: 
-			get1SegmentCharacterCandidates();
-			break;
-		case 2: 
-			get2SegmentCharacterCandidates();
-			break;
-		case 3: 
-			get3SegmentCharacterCandidates();
-			break;
-		case 4: 
-			get4SegmentCharacterCandidates();
-			break;
-		default:
-			mPenCharacterCandidates = "???";
-		}
-	}
+	// The checks compare their measurements with thresholds through isBetweenThresholds(), isWithinThreshold() and
+	// isBeyondThreshold(), which also keep in mMatchConfidence the smallest margin by which a threshold was met:
+	// how far the measurement is inside it as a fraction of the threshold (or of half the distance between the
+	// thresholds), at most 1 and negative if it is not met.  findBestCharacters() scores a character by the
+	// margin of the rule that matched it.  Comparisons that choose between the characters of a rule (like 'C'
+	// and 'c') are not thresholds of the match and are made directly.
 
 	// Check to see if a float is greater than the low and less than high thresholds
 	private boolean isBetweenThresholds(double num, double lowThreshold, double highThreshold) {
+		double halfRange = 0.5 * (highThreshold - lowThreshold);
+		recordMargin((halfRange > 0) ? Math.min(num - lowThreshold, highThreshold - num) / halfRange : -1.0);
 		return ((lowThreshold < num) & (num < highThreshold));
 	}
 
-	// Check to see if the strokes form a small letter (that is the rectangle bounding them is small enough for a small letter)
-	private boolean isSmallLetter() {
-
-		return isBetweenThresholds(mPenStrokesMaxY - mPenStrokesMinY, 0, (float) (0.4 * Skiggle.DEFAULT_WRITE_PAD_HEIGHT));
-
+	// Check to see if a float is less than a threshold
+	private boolean isWithinThreshold(double num, double threshold) {
+		boolean withinP = (num < threshold);
+		recordMargin((threshold > 0) ? (threshold - num) / threshold : (withinP ? 0.0 : -1.0));
+		return withinP;
 	}
 
-	// Get the x,y coordinates of the left and right of a stroke (like a '-')
-	// and return a 4-element array containing the leftX, leftY, rightX and rightY respectively
-	private float[] getLeftRightCoordsOfSegment(PenSegment pSegment) {
-		// Initially assume the start of the stroke
-		float leftX = pSegment.mPosStart[0]; // x-coord of top end of the stroke
-		float leftY = pSegment.mPosStart[1]; // y-coord of top end of the stroke
-		float rightX = pSegment.mPosEnd[0]; // x-coord of bottom end of the stroke
-		float rightY = pSegment.mPosEnd[1]; // y-coord of bottom end of the stroke
-		// Swap the left and right points of the stroke if necessary
-		if (rightX < leftX) {
-			leftX = rightX;
-			leftY = rightY;
-			rightX = pSegment.mPosStart[0];
-			rightY = pSegment.mPosStart[1];
-		}
-		float coords[] = {leftX, leftY, rightX, rightY};
-		return coords;
+	// Check to see if a float is less than or equal to a threshold, recording the same margin as
+	// isWithinThreshold()
+	private boolean isWithinOrAtThreshold(double num, double threshold) {
+		boolean withinP = (num <= threshold);
+		recordMargin((threshold > 0) ? (threshold - num) / threshold : (withinP ? 0.0 : -1.0));
+		return withinP;
 	}
 
-	// Get the x,y coordinates of the top and bottom of a stroke (like a '/', '\', or '|')
-	// and return a 4-element array containing the topX, topY, bottomX and bottomY respectively
-	private float[] getTopBottomCoordsOfSegment(PenSegment pSegment) {
-		// Initially assume the start of the stroke is the top
-		float topX = pSegment.mPosStart[0]; // x-coord of top end of the stroke
-		float topY = pSegment.mPosStart[1]; // y-coord of top end of the stroke
-		float bottomX = pSegment.mPosEnd[0]; // x-coord of bottom end of the stroke
-		float bottomY = pSegment.mPosEnd[1]; // y-coord of bottom end of the stroke
-		// Swap the top and bottom ends of the stroke if necessary
-		if (bottomY < topY) {
-			topX = bottomX;
-			topY = bottomY;
-			bottomX = pSegment.mPosStart[0];
-			bottomY = pSegment.mPosStart[1];
-		}
-		float coords[] = {topX, topY, bottomX, bottomY};
-		return coords;
+	// Check to see if a float is greater than a threshold
+	private boolean isBeyondThreshold(double num, double threshold) {
+		boolean beyondP = (num > threshold);
+		recordMargin((threshold > 0) ? (num - threshold) / threshold : (beyondP ? 1.0 : -1.0));
+		return beyondP;
 	}
 
-	// Get the gaps between the tops and bottoms of two strokes
-	// and return a 2-element array containing the top gap and bottom gap
-	private float[] getTopBottomGapsBetween2Segments(PenSegment pSegment1, PenSegment pSegment2) {
-		float coords[] = getTopBottomCoordsOfSegment(pSegment1);
-		float stroke1TopX = coords[0]; // x-coord of top end of FSLASH stroke
-		float stroke1TopY = coords[1]; // y-coord of top end of FSLASH stroke
-		float stroke1BottomX = coords[2]; // x-coord of bottom end of FSLASH stroke
-		float stroke1BottomY = coords[3]; // y-coord of bottom end of FSLASH stroke
-
-		coords = getTopBottomCoordsOfSegment(pSegment2);
-		float stroke2TopX = coords[0]; // x-coord of top end of FSLASH stroke
-		float stroke2TopY = coords[1]; // y-coord of top end of FSLASH stroke
-		float stroke2BottomX = coords[2]; // x-coord of bottom end of FSLASH stroke
-		float stroke2BottomY = coords[3]; // y-coord of bottom end of FSLASH stroke
-
-		float gaps[] = {
-				PenUtil.distanceBetween2Points(stroke1TopX, stroke1TopY, stroke2TopX, stroke2TopY),
-				PenUtil.distanceBetween2Points(stroke1BottomX, stroke1BottomY, stroke2BottomX, stroke2BottomY)};
-		return gaps;
+	private void recordMargin(double margin) {
+		mMatchConfidence = (float) Math.min(mMatchConfidence, margin);
 	}
 
-	// Get the x, y coordinates of points at 1/3 and 2/3 from the left (or top) line between the points (left or top
-	// coordinates first
-	private float[] getPointsAt1stAnd2ndThirdMarks(float leftOrTopX, float leftOrTopY, float rightOrBottomX, float rightOrBottomY) {
-		// Get the x,y coordinates at the one-third and two-third marks of the line between
-		// the points (leftOrTopX, leftOrTopY) and  (rightOrBottomX, rightOrBottomY)
-
-		float oneThirdX = (rightOrBottomX - leftOrTopX)/3; // one third the distance between 
-		float oneThirdY = (rightOrBottomY - leftOrTopY)/3; // one third the distance between left and right y-ccords
-
-		float coords[] = {
-				leftOrTopX + oneThirdX,  // x-coord of first one-third mark
-				leftOrTopY + oneThirdY,  // y-coord of first one-third mark
-				leftOrTopX + 2 * oneThirdX, // x-coord of second one-third mark
-				leftOrTopY + 2 * oneThirdY}; // x-coord of second one-third mark
-
-		return coords;
+	// Set mMatchConfidence back to a value saved before checking a shape that did not match
+	private boolean resetMatchConfidence(float matchConfidence) {
+		mMatchConfidence = matchConfidence;
+		return true;
 	}
 
-	// Order a pair of PenSegments into the left and right and return them as an array of 2 with
-	// left PenSegment as first element and right PenSegment as the second element.
-	private PenSegment[] order2PenSegmentsIntoLeftRight(PenSegment pSegment1, PenSegment pSegment2) {
-		PenSegment leftRightPenSegments[] = {pSegment1, pSegment2}; // Assume pSegment1 is on left of pSegment2 initially.
-
-		// Determine which of the 2 HLINE strokes is on the left and which is on the right.
-
-		// Initially assume the first PenSegment found to be the left PenSegment of the 'I'.
-		float leftSegmentStartX = pSegment1.mPosStart[0]; // x-coord of left point of the first PenSegment stroke.
-		float leftSegmentEndX = pSegment1.mPosEnd[0]; // x-coord of bottom end of the first PenSegment stroke.
-		float leftSegmentMidX = (leftSegmentStartX + leftSegmentEndX)/2;
+	// Check to see if the strokes form a small letter (that is the rectangle bounding them is small enough for a small letter)
+	// (also read by RecognitionCache, since it depends on the height and not only the shape of the strokes)
+	boolean isSmallLetter() {
 
-		// Initially assume the second PenSegment found to be the right PenSegment of the 'I'.
-		float rightSegmentStartX = pSegment2.mPosStart[0]; // x-coord of left point of second PenSegment stroke.
-		float rightSegmentEndX = pSegment2.mPosEnd[0]; // x-coord of right point of second PenSegment stroke.
-		float rightSegmentMidX = (rightSegmentStartX + rightSegmentEndX)/2;
+		float height = mPenStrokesMaxY - mPenStrokesMinY;
+		return ((0 < height) & (height < (float) (mProfile.get(RecognizerProfile.SMALL_LETTER_MAX_HEIGHT) * Skiggle.DEFAULT_WRITE_PAD_HEIGHT)));
 
-		// If the second PenSegment is on left of the first PenSegment, swap them (make the second PenSegment the left
-		// and the first PenSegment the right).
-		if (rightSegmentMidX < leftSegmentMidX) {
-			leftRightPenSegments[0] = pSegment2;
-			leftRightPenSegments[1] = pSegment1;
-		}
-		return leftRightPenSegments;
 	}
 
-	// Order a pair of PenSegments into the Right and bottom and return them as an array of 2 with
-	// top PenSegment as first element and bottom PenSegment as the second element.
-	private PenSegment[] order2PenSegmentsIntoTopBottom(PenSegment pSegment1, PenSegment pSegment2) {
-		PenSegment topBottomPenSegments[] = {pSegment1, pSegment2}; // Assume pSegment1 is on top of pSegment2 initially.
-
-		// Determine which of the 2 HLINE strokes is at the top and which is at the bottom.
-
-		// Initially assume the first PenSegment found to be the top PenSegment of the 'I'.
-		float topSegmentStartY = pSegment1.mPosStart[1]; // y-coord of top end of the first PenSegment stroke.
-		float topSegmentEndY = pSegment1.mPosEnd[1]; // y-coord of bottom end of the first PenSegment stroke.
-		float topSegmentMidY = (topSegmentStartY + topSegmentEndY)/2;
+	// Check to see if the strokes are tall enough for a 'P' rather than a 'p' (also read by RecognitionCache)
+	boolean isCapitalPHeight() {
+		return ((mPenStrokesMaxY - mPenStrokesMinY) > (Skiggle.DEFAULT_WRITE_PAD_HEIGHT * mProfile.get(RecognizerProfile.CAPITAL_P_MIN_HEIGHT)));
+	}
 
-		// Initially assume the second PenSegment found to be the bottom PenSegment of the 'I'.
-		float bottomSegmentStartY = pSegment2.mPosStart[1]; // y-coord of top end of second PenSegment stroke.
-		float bottomSegmentEndY = pSegment2.mPosEnd[1]; // y-coord of bottom end of second PenSegment stroke.
-		float bottomSegmentMidY = (bottomSegmentStartY + bottomSegmentEndY)/2;
+	// Check to see if a segment is no more than one third the height of the screen from the bottom of the screen
+	// (also read by RecognitionCache, since it depends on where and not only how the segment is written)
+	boolean isInLowerZone(int segmentIndex) {
+		return (mPenSegments.elementAt(segmentIndex).mAvgY > Skiggle.DEFAULT_WRITE_PAD_HEIGHT * mProfile.get(RecognizerProfile.LOWER_ZONE_TOP));
+	}
 
-		// If the second PenSegment is on top of the first PenSegment, swap them (make the second PenSegment the top
-		// and the first PenSegment the bottom).
-		// Note: y increases downwards (y values of the top stroke are smaller than those of the bottom stroke).
-		if (bottomSegmentMidY < topSegmentMidY) {
-			topBottomPenSegments[0] = pSegment2;
-			topBottomPenSegments[1] = pSegment1;
-		}
-		return topBottomPenSegments;
+	// The zone the top end of a segment is in, as checkFor9() and checkForSmallQ() tell them apart: 1 in the
+	// upper zone (as for a '9'), 2 below it (as for a 'q') and 0 in neither (also read by RecognitionCache)
+	int getTopZone(int segmentIndex) {
+		float topY = mRelations.getTopY(segmentIndex);
+		float upperZoneHeight = (float) (mProfile.get(RecognizerProfile.UPPER_ZONE_HEIGHT) * Skiggle.DEFAULT_WRITE_PAD_HEIGHT);
+		if ((-1.0F < topY) & (topY < upperZoneHeight))
+			return 1;
+		if ((upperZoneHeight < topY) & (topY < (float) (Skiggle.DEFAULT_WRITE_PAD_HEIGHT + 1.0)))
+			return 2;
+		return 0;
 	}
 
 	// Check to see if the gap between the top (bottom) of a caret ('/' and '\') or V ('\' or '/') are close enough
 	// That is, the gap between the tops for caret (or bottoms for 'V') of FSLASH and BSLASH are less than one
 	// quarter the distance between their bases
-	private boolean gapCheckForCaretShape(PenSegment pSegment1, PenSegment pSegment2) {
-		float gaps[] = getTopBottomGapsBetween2Segments(pSegment1, pSegment2);
-		float gapBetweenTops = gaps[0];
-		float gapBetweenBottoms = gaps[1];
-		return 	(gapBetweenTops < 0.25 * gapBetweenBottoms);
+	private boolean gapCheckForCaretShape(int segment1Index, int segment2Index) {
+		float gapBetweenTops = mRelations.getTopGap(segment1Index, segment2Index);
+		float gapBetweenBottoms = mRelations.getBottomGap(segment1Index, segment2Index);
+		return 	isWithinThreshold(gapBetweenTops, 0.25 * gapBetweenBottoms);
 	}
 
-	private boolean gapCheckForVShape(PenSegment pSegment1, PenSegment pSegment2) {
-		float gaps[] = getTopBottomGapsBetween2Segments(pSegment1, pSegment2);
-		float gapBetweenTops = gaps[0];
-		float gapBetweenBottoms = gaps[1];
-		return 	(gapBetweenBottoms < 0.25 * gapBetweenTops);
+	private boolean gapCheckForVShape(int segment1Index, int segment2Index) {
+		float gapBetweenTops = mRelations.getTopGap(segment1Index, segment2Index);
+		float gapBetweenBottoms = mRelations.getBottomGap(segment1Index, segment2Index);
+		return 	isWithinThreshold(gapBetweenBottoms, 0.25 * gapBetweenTops);
 	}
 
 	// '9' or 'q' has a FC and a dot2Index on the right joining the VLINE at the top and middle
-	private boolean checkFor9OrSmallQ(float vLineTopYMin, float vLineTopYMax) {
+	private boolean checkFor9OrSmallQ(int fCIndex, int vLineIndex, float vLineTopYMin, float vLineTopYMax) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		// VLINE is the first stroke and BC the second, both written top down.
-		if (numOfSegments == 2) {
-			int fCIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'q' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.FC_CHAR:
-					fCIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the x,y of the top and bottom of FC
+		float fCTopX = mRelations.getTopX(fCIndex); // x-coord of top end of the right FC stroke
+		float fCTopY = mRelations.getTopY(fCIndex); // y-coord of top end of the right FC stroke
+		float fCBottomX = mRelations.getBottomX(fCIndex); // x-coord of bottom end of the right FC stroke
+		float fCBottomY = mRelations.getBottomY(fCIndex); // y-coord of bottom end of the right FC stroke
+
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of the VLINE stroke
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = .25 * vLineHeight;
+
+		// Check to see if the following gaps are less their respective thresholds
+		// i.   The gap between the top ends of VLINE and FC
+		// ii.  The gap between the bottom of FC and the mid-point of VLINE
+		// iii. Distance of the top end of the VLINE from the top of the writing area
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, fCTopX, fCTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, fCBottomX, fCBottomY), gapThreshold) &
+			isBetweenThresholds(vLineTopY, vLineTopYMin, vLineTopYMax);
 
-			// Check to make sure that the two component strokes for 'q' are there, i.e.,
-			// fCIndex and vLineIndex are both not negative
-			if ((fCIndex >= 0) & (vLineIndex >= 0)) {
-				// Get the x,y of the top and bottom of FC
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fCIndex));
-				float fCTopX = coords[0]; // x-coord of top end of the right FC stroke
-				float fCTopY = coords[1]; // y-coord of top end of the right FC stroke
-				float fCBottomX = coords[2]; // x-coord of bottom end of the right FC stroke
-				float fCBottomY = coords[3]; // y-coord of bottom end of the right FC stroke
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of the VLINE stroke
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = .25 * vLineHeight;
-
-				// Check to see if the following gaps are less their respective thresholds
-				// i.   The gap between the top ends of VLINE and FC
-				// ii.  The gap between the bottom of FC and the mid-point of VLINE
-				// iii. Distance of the top end of the VLINE from the top of the writing area
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, fCTopX, fCTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, fCBottomX, fCBottomY) < gapThreshold) &
-					isBetweenThresholds(vLineTopY, vLineTopYMin, vLineTopYMax);
-			}
-		}
 		return matchedP;
 	}  // End of checkFor9OrSmallQ()
 
 	// Check to see if the stroke is a 'C' or 'c'.  Both is made up of a single stroke, FC.
-	private boolean checkForCShape() { //float minSize, float maxSize){
+	private boolean checkForCShape(int fCIndex) { //float minSize, float maxSize){
 		boolean matchedP = false;
 
-		int numOfSegments = mPenSegments.size();
-
-		// 'C' has only one pen stroke character.
-		if (numOfSegments == 1) {
-			float heightOfC = mPenStrokesMaxY - mPenStrokesMinY;
-			float widthOfC = mPenStrokesMaxX - mPenStrokesMinX;
-			
-
-
-			matchedP =
-				// Must be a forward character primitive
-				(mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.FC_CHAR) &
-				/*
-				// and the ends of the stroke is less than its height
-				(PenUtil.distanceBetween2Points(
-						mPenSegments.elementAt(0).mPosStart[0], mPenSegments.elementAt(0).mPosStart[1],
-						mPenSegments.elementAt(0).mPosEnd[0], mPenSegments.elementAt(0).mPosEnd[1])
-						< 0.9 * heightOfC); & */
-						// and the width of the stroke is more than .4 its height
-						(widthOfC > .4 * heightOfC);
+		float heightOfC = mPenStrokesMaxY - mPenStrokesMinY;
+		float widthOfC = mPenStrokesMaxX - mPenStrokesMinX;
 
+		matchedP =
+			/*
+			// The ends of the stroke is less than its height
+			(PenUtil.distanceBetween2Points(
+					mPenSegments.elementAt(fCIndex).mPosStart[0], mPenSegments.elementAt(fCIndex).mPosStart[1],
+					mPenSegments.elementAt(fCIndex).mPosEnd[0], mPenSegments.elementAt(fCIndex).mPosEnd[1])
+					< 0.9 * heightOfC); & */
+					// and the width of the stroke is more than .4 its height
+					isBeyondThreshold(widthOfC, .4 * heightOfC);
 
-		}
 		return matchedP;
 	}  // End of checkForCShape()
 
 	// Check for the three strokes that form 'K' or 'k' and return either 'K', 'k' or NUL (Ascii value 0)
-	private char checkForCapitalOrSmallK() {
+	private char checkForCapitalOrSmallK(int fSlashIndex, int bSlashIndex, int vLineIndex) {
 		char c = '\0';
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int fSlashIndex = -1;
-			int bSlashIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'K' has only three pen stroke characters
-
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
 
-			// Check to make sure that the three component strokes for 'K' are there, i.e.,
-			// fSlashIndex, bSlashIndex, and vLineIndex are all not negative
-			if ((fSlashIndex >= 0) & (bSlashIndex >= 0) & (vLineIndex >= 0)) {
-
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));
-				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke (above BSLASH)
-				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke (above BSLASH)
-				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke (above BSLASH)
-
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bSlashIndex));
-				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke (below FSLASH)
-				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke (below FSLASH)
-				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke (below FSLASH)
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coord of middle of VLINE stroke (avg of top and bottom x-coord)
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coord of middle of VLINE stroke (avg of top and bottom y-coord)
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.25 * vLineHeight;
-
-				// Check to see if the following gaps are less than their respective thresholds:
-				// i.   The gap between the bottom of FSLASH and top of BSLASH
-				// ii.  The gap between the bottom of FSLASH and the VLINE mid-point 
-				// iii. The gap between the top of BSLASH and the VLINE mid-point
-
-				if	((PenUtil.distanceBetween2Points(fSlashBottomX, fSlashBottomY, bSlashTopX, bSlashTopY) < gapThreshold) &
-						(PenUtil.distanceBetween2Points(fSlashBottomX, fSlashBottomY, vLineMidX, vLineMidY) < gapThreshold) &
-						(PenUtil.distanceBetween2Points(bSlashTopX, bSlashTopY, vLineMidX, vLineMidY) < gapThreshold))
-					// If the vertical height between FSLASH and BSLASH is more than .75 the VLINE height then it is a 'K'
-					if ((bSlashBottomY - fSlashTopY) > .75 * vLineHeight) c = 'K';
-				// Otherwise it is a 'k'
-					else c = 'k';
-			}
-		}
-		return c;
-	} // End of checkForKShape()
+		float fSlashTopY = mRelations.getTopY(fSlashIndex); // y-coord of top end of the FSLASH stroke (above BSLASH)
+		float fSlashBottomX = mRelations.getBottomX(fSlashIndex); // x-coord of bottom end of the FSLASH stroke (above BSLASH)
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of bottom end of the FSLASH stroke (above BSLASH)
 
+		float bSlashTopX = mRelations.getTopX(bSlashIndex); // x-coord of top end of the BSLASH stroke (below FSLASH)
+		float bSlashTopY = mRelations.getTopY(bSlashIndex); // y-coord of top end of the BSLASH stroke (below FSLASH)
+		float bSlashBottomY = mRelations.getBottomY(bSlashIndex); // y-coord of bottom end of the BSLASH stroke (below FSLASH)
 
-	// Check to see if the stroke is a 'O' or 'o'.  Both is made up of a single stroke, FC.
-	private boolean checkForOShape(){
-		boolean matchedP = false;
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coord of middle of VLINE stroke (avg of top and bottom x-coord)
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coord of middle of VLINE stroke (avg of top and bottom y-coord)
 
-		int numOfSegments = mPenSegments.size();
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.25 * vLineHeight;
 
-		// 'O'or 'o' has only one pen stroke character.
-		if (numOfSegments == 1) {
-			matchedP = (mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.CIRCLE_CHAR);
-		}
-		return matchedP;
-	}  // End of checkForOShape()
+		// Check to see if the following gaps are less than their respective thresholds:
+		// i.   The gap between the bottom of FSLASH and top of BSLASH
+		// ii.  The gap between the bottom of FSLASH and the VLINE mid-point 
+		// iii. The gap between the top of BSLASH and the VLINE mid-point
+
+		if	(isWithinThreshold(PenUtil.distanceBetween2Points(fSlashBottomX, fSlashBottomY, bSlashTopX, bSlashTopY), gapThreshold) &
+				isWithinThreshold(PenUtil.distanceBetween2Points(fSlashBottomX, fSlashBottomY, vLineMidX, vLineMidY), gapThreshold) &
+				isWithinThreshold(PenUtil.distanceBetween2Points(bSlashTopX, bSlashTopY, vLineMidX, vLineMidY), gapThreshold))
+			// If the vertical height between FSLASH and BSLASH is more than .75 the VLINE height then it is a 'K'
+			if ((bSlashBottomY - fSlashTopY) > .75 * vLineHeight) c = 'K';
+		// Otherwise it is a 'k'
+			else c = 'k';
+
+		return c;
+	} // End of checkForKShape()
+
+
+	// 'O' or 'o' is made up of a single stroke, CIRCLE, so its rule (O_SHAPE_RULE) only needs the size check
 
 	// Check to see if the two strokes (VLINE and BC) form the shape of a 'P'.   
 	// This method is used by the methods checking for capital 'P' and small 'p'.
 	// Capital 'P' has a height larger than 2/3 the height of the writing space.
 	// The height of a small 'p' is less 2/3 the height of the writing space.
 	// 'P' has a VLINE and a BC (backward C or ')') on the right joining the VLINE at the top and mid-point
-	private boolean checkForPShape() {
+	private boolean checkForPShape(int bCIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		// VLINE is the first stroke and BC the second, both written top down.
-		if (numOfSegments == 2) {
-			int vLineIndex = -1;
-			int bCIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'P' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.BC_CHAR:
-					bCIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of the VLINE stroke
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of the VLINE stroke
+
+		// Get the x,y of the top and bottom of BC
+		float bCTopX = mRelations.getTopX(bCIndex); // x-coord of top end of the right BC stroke
+		float bCTopY = mRelations.getTopY(bCIndex); // y-coord of top end of the right BC stroke
+		float bCBottomX = mRelations.getBottomX(bCIndex); // x-coord of bottom end of the right BC stroke
+		float bCBottomY = mRelations.getBottomY(bCIndex); // y-coord of bottom end of the right BC stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.25 * vLineHeight;
+
+		// Check to see if the following gaps are less their respective thresholds
+		// i.   The gap between the top ends VLINE and BC
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, bCTopX, bCTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bCBottomX, bCBottomY), 2 * gapThreshold);
 
-			// Check to make sure that the two component strokes for 'P' are there, i.e.,
-			// bCIndex and vLineIndex are both not negative
-			if ((bCIndex >= 0) & (vLineIndex >= 0)) {
-				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of the VLINE stroke
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of the VLINE stroke
-
-				// Get the x,y of the top and bottom of BC
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bCIndex));
-				float bCTopX = coords[0]; // x-coord of top end of the right BC stroke
-				float bCTopY = coords[1]; // y-coord of top end of the right BC stroke
-				float bCBottomX = coords[2]; // x-coord of bottom end of the right BC stroke
-				float bCBottomY = coords[3]; // y-coord of bottom end of the right BC stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.25 * vLineHeight;
-
-				// Check to see if the following gaps are less their respective thresholds
-				// i.   The gap between the top ends VLINE and BC
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, bCTopX, bCTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bCBottomX, bCBottomY) < 2 * gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkForPShape()
 
 	// Check for 'S' for capital 'S' and small 's'
-	private boolean checkForSShape() {
+	private boolean checkForSShape(int fCIndex, int bCIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 2) {
-			int fCIndex = -1; // first stroke N to S
-			int bCIndex = -1; // second stroke N to S
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'S' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.FC_CHAR:
-					fCIndex = i;
-					break;
-				case PenSegment.BC_CHAR:
-					bCIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
-			// Check to make sure that the two component strokes for 'S' are there, i.e.,
-			// fSlashIndex and bSlashIndex are both not negative
-			if ((fCIndex >= 0) & (bCIndex >= 0)) {
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fCIndex));		
-				float fCTopX = coords[0]; // x-coord of top end of the FC stroke
-				float fCTopY = coords[1]; // y-coord of top end of the FC stroke
-				float fCBottomX = coords[2]; // x-coord of bottom end of the FC stroke
-				float fCBottomY = coords[3]; // y-coord of bottom end of the FC stroke
-
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bCIndex));		
-				float bCTopX = coords[0]; // x-coord of top end of the BC stroke
-				float bCTopY = coords[1]; // y-coord of top end of the BC stroke
-				float bCBottomX = coords[2]; // x-coord of bottom end of the BC stroke
-				float bCBottomY = coords[3]; // y-coord of bottom end of the BC stroke
-
-				float endToEndDistance = PenUtil.distanceBetween2Points(fCTopX, fCTopY, bCBottomX, bCBottomY);
-				float minGapBetweenFCAndBC = PenUtil.distanceBetween2Points(fCBottomX, fCBottomY, bCTopX, bCTopY);
-
-				// Check to make sure BC and FC cross sufficiently to form the 'S'
-				matchedP = (minGapBetweenFCAndBC < 0.25 * endToEndDistance);
-			}
-		}
-		return matchedP;
-	} // End of checkForSShape()
+		float fCTopX = mRelations.getTopX(fCIndex); // x-coord of top end of the FC stroke
+		float fCTopY = mRelations.getTopY(fCIndex); // y-coord of top end of the FC stroke
+		float fCBottomX = mRelations.getBottomX(fCIndex); // x-coord of bottom end of the FC stroke
+		float fCBottomY = mRelations.getBottomY(fCIndex); // y-coord of bottom end of the FC stroke
 
+		float bCTopX = mRelations.getTopX(bCIndex); // x-coord of top end of the BC stroke
+		float bCTopY = mRelations.getTopY(bCIndex); // y-coord of top end of the BC stroke
+		float bCBottomX = mRelations.getBottomX(bCIndex); // x-coord of bottom end of the BC stroke
+		float bCBottomY = mRelations.getBottomY(bCIndex); // y-coord of bottom end of the BC stroke
 
-	// Check to see if the stroke is a 'U' or 'u'.  Both is made up of a single stroke, U.
-	private boolean checkForUShape(){
-		boolean matchedP = false;
+		float endToEndDistance = PenUtil.distanceBetween2Points(fCTopX, fCTopY, bCBottomX, bCBottomY);
+		float minGapBetweenFCAndBC = PenUtil.distanceBetween2Points(fCBottomX, fCBottomY, bCTopX, bCTopY);
 
-		int numOfSegments = mPenSegments.size();
+		// Check to make sure BC and FC cross sufficiently to form the 'S'
+		matchedP = isWithinThreshold(minGapBetweenFCAndBC, 0.25 * endToEndDistance);
 
-		// 'C' has only one pen stroke character.
-		if (numOfSegments == 1) {
-			matchedP = (mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.U_CHAR);
-		}
 		return matchedP;
-	}  // End of checkForUShape()
+	} // End of checkForSShape()
+
+
+	// 'U' or 'u' is made up of a single stroke, U, so its rule (U_SHAPE_RULE) only needs the size check
 
 	// 'V' or 'v' is made up of a back slash ('\') and a forward slash ('/')
-	private boolean checkForVShape(){
+	// (the two strokes are not checked for being slashes, so their order does not matter)
+	private boolean checkForVShape(int segment1Index, int segment2Index){
 		boolean matchedP = false;
 
-		int numOfSegments = mPenSegments.size();
+		matchedP =
+			(gapCheckForVShape(segment1Index, segment2Index));
 
-		// 'V' has only two pen stroke characters.
-		if (numOfSegments == 2) {
-			matchedP =
-				(gapCheckForVShape(mPenSegments.elementAt(0), mPenSegments.elementAt(1)));
-		}
 		return matchedP;
 	} // End of checkForVShape()
 
 	// 'W' or 'w' has two pairs of BSLASH's ('\') and a FSLASH's ('/') or V's, side by side
-	private boolean checkForWShape() {
+	private boolean checkForWShape(int leftBSlashIndex, int leftFSlashIndex, int rightBSlashIndex, int rightFSlashIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 4) {
-			int leftBSlashIndex = -1; 
-			int leftFSlashIndex = -1;
-			int rightBSlashIndex = -1;
-			int rightFSlashIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'W' has only four pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.BSLASH_CHAR:
-					if (leftBSlashIndex < 0)
-						leftBSlashIndex = i;
-					else
-						rightBSlashIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					if (leftFSlashIndex < 0)
-						leftFSlashIndex = i;
-					else
-						rightFSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the left and right BSLASH strokes of 'W'
+		int leftBSlashSegmentIndex = mRelations.getLeftIndex(leftBSlashIndex, rightBSlashIndex);
+		int rightBSlashSegmentIndex = mRelations.getRightIndex(leftBSlashIndex, rightBSlashIndex);
+
+		// Get the left and right FSLASH strokes of 'W'
+		int leftFSlashSegmentIndex = mRelations.getLeftIndex(leftFSlashIndex, rightFSlashIndex);
+		int rightFSlashSegmentIndex = mRelations.getRightIndex(leftFSlashIndex, rightFSlashIndex);
+
+		// Check to see if the following gaps are close enough:
+		// i.   Gap between the bottom of the left BSLASH and the bottom of the left FSLASH (bottom of first 'V' of 'W')
+		// ii.  Gap between the top of the left FSLASH and the bottom of the right BSLASH (top middle caret of 'W')
+		// iii. Gap between the bottom of the right BSLASH and the bottom of the right FSLASH (bottom of second 'V' of 'W')
+		matchedP = 
+			(gapCheckForVShape(leftBSlashSegmentIndex, leftFSlashSegmentIndex))  // Check for left '\/' of 'W'
+			& (gapCheckForCaretShape(leftFSlashSegmentIndex, rightBSlashSegmentIndex)) // Check for middle '/\' of 'W'
+			& (gapCheckForVShape(rightBSlashSegmentIndex, rightFSlashSegmentIndex));  // Check for right '\/' of 'W'
 
-			// Check to make sure that the four component strokes for 'W' are there, i.e.,
-			// leftFSlashIndex, leftBSlashIndex, rightFSlashIndex, and rightVLineIndex are all not negative
-			if ((leftBSlashIndex >= 0) & (leftFSlashIndex >= 0) & (rightBSlashIndex >= 0) & (rightFSlashIndex >= 0)) {
-				// Get the left and right BSLASH strokes of 'W'
-				PenSegment leftRightBSlashSegments[] = 
-					order2PenSegmentsIntoLeftRight(mPenSegments.elementAt(leftBSlashIndex),
-							mPenSegments.elementAt(rightBSlashIndex));
-
-				PenSegment leftBSlashSegment = leftRightBSlashSegments[0];
-				PenSegment rightBSlashSegment = leftRightBSlashSegments[1];	
-
-				// Get the left and right FSLASH strokes of 'W'
-				PenSegment leftRightFSlashSegments[] = 
-					order2PenSegmentsIntoLeftRight(mPenSegments.elementAt(leftFSlashIndex),
-							mPenSegments.elementAt(rightFSlashIndex));
-
-				PenSegment leftFSlashSegment = leftRightFSlashSegments[0];
-				PenSegment rightFSlashSegment = leftRightFSlashSegments[1];	
-
-				// Check to see if the following gaps are close enough:
-				// i.   Gap between the bottom of the left BSLASH and the bottom of the left FSLASH (bottom of first 'V' of 'W')
-				// ii.  Gap between the top of the left FSLASH and the bottom of the right BSLASH (top middle caret of 'W')
-				// iii. Gap between the bottom of the right BSLASH and the bottom of the right FSLASH (bottom of second 'V' of 'W')
-				matchedP = 
-					(gapCheckForVShape(leftBSlashSegment, leftFSlashSegment))  // Check for left '\/' of 'W'
-					& (gapCheckForCaretShape(leftFSlashSegment, rightBSlashSegment)) // Check for middle '/\' of 'W'
-					& (gapCheckForVShape(rightBSlashSegment, rightFSlashSegment));  // Check for right '\/' of 'W'
-			}
-		}
 		return matchedP;
 	} // End of checkForWShape()
 
 	// Check for 'X' for capital 'X' and small 'x'
-	private boolean checkForXShape() {
+	private boolean checkForXShape(int bSlashIndex, int fSlashIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
+		float bSlashTopX = mRelations.getTopX(bSlashIndex); // x-coord of top end of the BSLASH stroke
+		float bSlashTopY = mRelations.getTopY(bSlashIndex); // y-coord of top end of the BSLASH stroke
+		float bSlashBottomX = mRelations.getBottomX(bSlashIndex); // x-coord of bottom end of the BSLASH stroke
+		float bSlashBottomY = mRelations.getBottomY(bSlashIndex); // y-coord of bottom end of the BSLASH stroke
+		float bSlashAvgX = (bSlashTopX + bSlashBottomX)/2; // average of x-coord (mid-point) of BSLASH stroke
+		float bSlashAvgY = (bSlashTopY + bSlashBottomY)/2; // average of y-coord (mid-point) of BSLASH stroke
+
+		float fSlashTopX = mRelations.getTopX(fSlashIndex); // x-coord of top end of the FSLASH stroke
+		float fSlashTopY = mRelations.getTopY(fSlashIndex); // y-coord of top end of the FSLASH stroke
+		float fSlashBottomX = mRelations.getBottomX(fSlashIndex); // x-coord of bottom end of the FSLASH stroke
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of bottom end of the FSLASH stroke
+		float fSlashAvgX = (fSlashTopX + fSlashBottomX)/2; // average of x-coord (mid-point) of FSLASH stroke
+		float fSlashAvgY = (fSlashTopY + fSlashBottomY)/2; // average of y-coord (mid-point) of FSLASH stroke
+
+		float topGap = PenUtil.distanceBetween2Points(fSlashTopX, fSlashTopY, bSlashTopX, bSlashTopY);
+		float bottomGap = PenUtil.distanceBetween2Points(fSlashBottomX, fSlashBottomY, bSlashBottomX, bSlashBottomY);
+		float midGap = PenUtil.distanceBetween2Points(fSlashAvgX, fSlashAvgY, bSlashAvgX, bSlashAvgY);
+		float maxGap = Math.max(topGap, bottomGap);
+		float minGap = Math.min(topGap, bottomGap);
+
+		// Check to make sure FSLASH and BSLASH cross sufficiently to form the 'X'
+		matchedP = 
+			isBeyondThreshold(minGap, .25 * maxGap) // min horizontal gap between FSLASH and BSLASH must be at least one quarter that of the max gap
+			& (fSlashTopX > bSlashTopX) & (fSlashTopY < bSlashBottomY) // top of FSLASH must to right of the top of BSLASH and above the bottom of BSLASH
+			& (fSlashBottomX < bSlashBottomX) & (fSlashBottomY > bSlashTopY) // bottom of FSLASH must to left of the bottom of BSLASH and below the top of BSLASH
+			& isWithinThreshold(midGap, .25 * maxGap); // gap between the mid points of BSLASH and FSLASH must be small enough
 
-		if (numOfSegments == 2) {
-			int bSlashIndex = -1; // first stroke NW to SE
-			int fSlashIndex = -1; // second stroke NE to SW
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'X' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
-			// Check to make sure that the two component strokes for 'X' are there, i.e.,
-			// fSlashIndex and bSlashIndex are both not negative
-			if ((bSlashIndex >= 0) & (fSlashIndex >= 0)) {
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bSlashIndex));		
-				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
-				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
-				float bSlashBottomX = coords[2]; // x-coord of bottom end of the BSLASH stroke
-				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke
-				float bSlashAvgX = (bSlashTopX + bSlashBottomX)/2; // average of x-coord (mid-point) of BSLASH stroke
-				float bSlashAvgY = (bSlashTopY + bSlashBottomY)/2; // average of y-coord (mid-point) of BSLASH stroke
-
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));		
-				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
-				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
-				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
-				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke
-				float fSlashAvgX = (fSlashTopX + fSlashBottomX)/2; // average of x-coord (mid-point) of FSLASH stroke
-				float fSlashAvgY = (fSlashTopY + fSlashBottomY)/2; // average of y-coord (mid-point) of FSLASH stroke
-
-				float topGap = PenUtil.distanceBetween2Points(fSlashTopX, fSlashTopY, bSlashTopX, bSlashTopY);
-				float bottomGap = PenUtil.distanceBetween2Points(fSlashBottomX, fSlashBottomY, bSlashBottomX, bSlashBottomY);
-				float midGap = PenUtil.distanceBetween2Points(fSlashAvgX, fSlashAvgY, bSlashAvgX, bSlashAvgY);
-				float maxGap = Math.max(topGap, bottomGap);
-				float minGap = Math.min(topGap, bottomGap);
-
-				// Check to make sure FSLASH and BSLASH cross sufficiently to form the 'X'
-				matchedP = 
-					( minGap > .25 * maxGap) // min horizontal gap between FSLASH and BSLASH must be at least one quarter that of the max gap
-					& (fSlashTopX > bSlashTopX) & (fSlashTopY < bSlashBottomY) // top of FSLASH must to right of the top of BSLASH and above the bottom of BSLASH
-					& (fSlashBottomX < bSlashBottomX) & (fSlashBottomY > bSlashTopY) // bottom of FSLASH must to left of the bottom of BSLASH and below the top of BSLASH
-					& (midGap < (.25 * maxGap)); // gap between the mid points of BSLASH and FSLASH must be small enough
-			}
-		}
 		return matchedP;
 	} // End of checkForXShape()
 
 	// 'Z' or 'z' has an HLINE ('-') at the top and bottom of a FSLASH ('/')
-	private boolean checkForZShape() {
+	private boolean checkForZShape(int topHLineIndex, int fSlashIndex, int bottomHLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int topHLineIndex = -1;
-			int fSlashIndex = -1;
-			int bottomHLineIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'Z' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					if (topHLineIndex < 0)
-						topHLineIndex = i;
-					else
-						bottomHLineIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the top and bottom HLINE strokes of 'Z'
+		int topHLineSegmentIndex = mRelations.getTopIndex(topHLineIndex, bottomHLineIndex);
+		int bottomHLineSegmentIndex = mRelations.getBottomIndex(topHLineIndex, bottomHLineIndex);
+
+		// Get x, y coords of right end of top HLINE
+		float topHLineRightX = mRelations.getRightX(topHLineSegmentIndex); // x-coord of right end of top HLINE;
+		float topHLineRightY = mRelations.getRightY(topHLineSegmentIndex); // y-coord of right end of top HLINE;
+
+		// Get x, y coords of left end of bottom HLINE
+		float bottomHLineLeftX = mRelations.getLeftX(bottomHLineSegmentIndex); // x-coord of left end of bottom HLINE;
+		float bottomHLineLeftY = mRelations.getLeftY(bottomHLineSegmentIndex); // y-coord of left end of bottom HLINE;
+
+		// Get x,y of top and bottom of FSLASH
+		float fSlashTopX = mRelations.getTopX(fSlashIndex); // x-coord of top end of the FSLASH stroke
+		float fSlashTopY = mRelations.getTopY(fSlashIndex); // y-coord of top end of the FSLASH stroke
+		float fSlashBottomX = mRelations.getBottomX(fSlashIndex); // x-coord of bottom end of the FSLASH stroke
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of bottom end of the FSLASH stroke
+
+		float fSlashHeight = Math.abs(fSlashBottomY - fSlashTopY);
+		double gapThreshold = 0.25 * fSlashHeight;
+
+		// Check to see if the gaps between the mid-points of the top and bottom HLINE's are less than the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(fSlashTopX, fSlashTopY, topHLineRightX, topHLineRightY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(fSlashBottomX, fSlashBottomY, bottomHLineLeftX, bottomHLineLeftY), gapThreshold);
 
-			// Check to make sure that the three component strokes for 'Z' are there, i.e.,
-			// topHLineIndex, vLineIndex, and bottomHLineIndex are all not negative
-			if ((topHLineIndex >= 0) & (fSlashIndex >= 0) & (bottomHLineIndex >= 0)) {
-				// Get the top and bottom HLINE strokes of 'Z'
-				PenSegment topBottomHLineSegments[] = 
-					order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(topHLineIndex),
-							mPenSegments.elementAt(bottomHLineIndex));
-
-				// Get x, y coords of right end of top HLINE
-				float coords[] = getLeftRightCoordsOfSegment(topBottomHLineSegments[0]);
-				float topHLineRightX = coords[2]; // x-coord of right end of top HLINE;
-				float topHLineRightY = coords[3]; // y-coord of right end of top HLINE;
-
-				// Get x, y coords of left end of bottom HLINE
-				coords = getLeftRightCoordsOfSegment(topBottomHLineSegments[1]);
-				float bottomHLineLeftX = coords[0]; // x-coord of left end of bottom HLINE;
-				float bottomHLineLeftY = coords[1]; // y-coord of left end of bottom HLINE;
-
-				// Get x,y of top and bottom of FSLASH
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));
-				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
-				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
-				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
-				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke
-
-				float fSlashHeight = Math.abs(fSlashBottomY - fSlashTopY);
-				double gapThreshold = 0.25 * fSlashHeight;
-
-				// Check to see if the gaps between the mid-points of the top and bottom HLINE's are less than the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(fSlashTopX, fSlashTopY, topHLineRightX, topHLineRightY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(fSlashBottomX, fSlashBottomY, bottomHLineLeftX, bottomHLineLeftY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	} // End of checkForZShape()
 
@@ -889,15 +576,11 @@ public class PenCharacter {
 	// Check for specific characters
 
 	// Caret character (or inverted V) is made up of a forward slash ('/') and a back slash ('\')
-	private boolean checkForCaret(){
+	// (the two strokes are not checked for being slashes, so their order does not matter)
+	private boolean checkForCaret(int segment1Index, int segment2Index){
 		boolean matchedP = false;
 
-		int numOfSegments = mPenSegments.size();
-
-		// Caret has only two pen stroke characters.
-		if (numOfSegments == 2) {
-			matchedP = (gapCheckForCaretShape(mPenSegments.elementAt(0), mPenSegments.elementAt(1)));
-		}
+		matchedP = (gapCheckForCaretShape(segment1Index, segment2Index));
 
 		return matchedP;
 	}  // End of checkForCaret()
@@ -922,251 +605,143 @@ public class PenCharacter {
 	}
 
 	// 3 has two strokes - two BC (backward C or ')') strokes stacked on top of one another.
-	private boolean checkFor3() {
+	private boolean checkFor3(int topBCIndex, int bottomBCIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		// 3 has only two pen stroke characters
-		if (numOfSegments == 2) {
-			int topBCIndex = -1;
-			int bottomBCIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.BC_CHAR:
-					if (topBCIndex < 0) topBCIndex = i;
-					else bottomBCIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the top and bottom BC strokes
+		int topBCSegmentIndex = mRelations.getTopIndex(topBCIndex, bottomBCIndex);
+		int bottomBCSegmentIndex = mRelations.getBottomIndex(topBCIndex, bottomBCIndex);
+
+		// Get x,y coords of the top BC stroke
+		float topBCTopY = mRelations.getTopY(topBCSegmentIndex); // y-coord of top end of the top BC stroke
+		float topBCBottomX = mRelations.getBottomX(topBCSegmentIndex); // x-coord of bottom end of the top BC stroke
+		float topBCBottomY = mRelations.getBottomY(topBCSegmentIndex); // y-coord of bottom end of the top BC stroke
+
+		// Get x,y coords of the bottom BC stroke
+		float bottomBCTopX = mRelations.getTopX(bottomBCSegmentIndex); // x-coord of top end of the bottom BC stroke
+		float bottomBCTopY = mRelations.getTopY(bottomBCSegmentIndex); // y-coord of top end of the bottom BC stroke
+		float bottomBCBottomY = mRelations.getBottomY(bottomBCSegmentIndex); // y-coord of bottom end of the bottom BC stroke
+
+		float height = Math.abs(bottomBCBottomY - topBCTopY);
+		double gapThreshold = 0.25 * height;
+
+		// Check to see if the gap between the bottom of the top BC and the top of the bottom BC are close enough
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(topBCBottomX, topBCBottomY, bottomBCTopX, bottomBCTopY), gapThreshold);
 
-			// Check to make sure that the two component strokes for '3' are there, i.e.,
-			// topBCIndex and bottomBCIndex are both not negative
-			if ((topBCIndex >= 0) & (bottomBCIndex >= 0)) {
-				// Get the top and bottom BC strokes
-				PenSegment topBottomBCSegments[] = 
-					order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(topBCIndex), mPenSegments.elementAt(bottomBCIndex));
-
-				// Get x,y coords of the top BC stroke
-				float coords[] = getTopBottomCoordsOfSegment(topBottomBCSegments[0]);
-				float topBCTopY = coords[1]; // y-coord of top end of the top BC stroke
-				float topBCBottomX = coords[2]; // x-coord of bottom end of the top BC stroke
-				float topBCBottomY = coords[3]; // y-coord of bottom end of the top BC stroke
-
-				// Get x,y coords of the bottom BC stroke
-				coords = getTopBottomCoordsOfSegment(topBottomBCSegments[1]);
-				float bottomBCTopX = coords[0]; // x-coord of top end of the bottom BC stroke
-				float bottomBCTopY = coords[1]; // y-coord of top end of the bottom BC stroke
-				float bottomBCBottomY = coords[3]; // y-coord of bottom end of the bottom BC stroke
-
-				float height = Math.abs(bottomBCBottomY - topBCTopY);
-				double gapThreshold = 0.25 * height;
-
-				// Check to see if the gap between the bottom of the top BC and the top of the bottom BC are close enough
-				matchedP =
-					(PenUtil.distanceBetween2Points(topBCBottomX, topBCBottomY, bottomBCTopX, bottomBCTopY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkFor3()
 
 	// 4 has three strokes - a HLINE, a VLINE, and a FSLASH.
-	private boolean checkFor4() {
+	private boolean checkFor4(int hLineIndex, int vLineIndex, int fSlashIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		// 5 has only three pen stroke characters
-		if (numOfSegments == 3) {
-			int hLineIndex = -1;
-			int vLineIndex = -1;
-			int fSlashIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					hLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the left, right x,y coords of the HLINE stroke
+		float hLineLeftX = mRelations.getLeftX(hLineIndex); // x-coord of left end of the HLINE stroke
+		float hLineLeftY = mRelations.getLeftY(hLineIndex); // y-coord of left end of the HLINE stroke
+		float hLineRightX = mRelations.getRightX(hLineIndex); // x-coord of right end of the HLINE stroke
+		float hLineRightY = mRelations.getRightY(hLineIndex); // y-coord of right end of the HLINE stroke
+		float hLineMidX = (hLineLeftX + hLineRightX)/2; // x-ccord of mid-point of the HLINE stroke
+		float hLineMidY = (hLineLeftY + hLineRightY)/2; // y-coord of mid-point of the HLINE stroke
+
+		// Get the top, bottom x,y coords of the VLINE stroke
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-ccord of mid-point of the VLINE stroke
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coord of mid-point of the VLINE stroke
+
+		// Get the top, bottom x,y coords of the BC stroke
+		float fSlashBottomX = mRelations.getBottomX(fSlashIndex); // x-coord of bottom end of the bottom BC stroke
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of bottom end of the bottom BC stroke
+
+		float height = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.25 * height;
+
+		// Check to see if the following gaps are less than their respective thresholds
+		// i.   Gap between the left end of the HLINE and the bottom end of the FSLASH
+		// ii.  Gap between the mid-points of HLINE and VLINE
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(hLineLeftX, hLineLeftY, fSlashBottomX, fSlashBottomY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, hLineMidX, hLineMidY), gapThreshold);
 
-			// Check to make sure that the two component strokes for '5' are there, i.e.,
-			// hLineIndex, vLineIndex, and fSlashIndex are all not negative
-			if ((hLineIndex >= 0) & (vLineIndex >= 0) & (fSlashIndex >= 0)) {
-				// Get the left, right x,y coords of the HLINE stroke
-				float coords[] = getLeftRightCoordsOfSegment(mPenSegments.elementAt(hLineIndex));
-				float hLineLeftX = coords[0]; // x-coord of left end of the HLINE stroke
-				float hLineLeftY = coords[1]; // y-coord of left end of the HLINE stroke
-				float hLineRightX = coords[2]; // x-coord of right end of the HLINE stroke
-				float hLineRightY = coords[3]; // y-coord of right end of the HLINE stroke
-				float hLineMidX = (hLineLeftX + hLineRightX)/2; // x-ccord of mid-point of the HLINE stroke
-				float hLineMidY = (hLineLeftY + hLineRightY)/2; // y-coord of mid-point of the HLINE stroke
-
-				// Get the top, bottom x,y coords of the VLINE stroke
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-ccord of mid-point of the VLINE stroke
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coord of mid-point of the VLINE stroke
-
-				// Get the top, bottom x,y coords of the BC stroke
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));
-				float fSlashBottomX = coords[2]; // x-coord of bottom end of the bottom BC stroke
-				float fSlashBottomY = coords[3]; // y-coord of bottom end of the bottom BC stroke
-
-				float height = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.25 * height;
-
-				// Check to see if the following gaps are less than their respective thresholds
-				// i.   Gap between the left end of the HLINE and the bottom end of the FSLASH
-				// ii.  Gap between the mid-points of HLINE and VLINE
-				matchedP =
-					(PenUtil.distanceBetween2Points(hLineLeftX, hLineLeftY, fSlashBottomX, fSlashBottomY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, hLineMidX, hLineMidY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkFor4()
 
 	// 5 has three strokes - a HLINE, a VLINE, and a BC (backward C or ')') strokes stacked on top of one another.
-	private boolean checkFor5() {
+	private boolean checkFor5(int hLineIndex, int vLineIndex, int bCIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		// 5 has only three pen stroke characters
-		if (numOfSegments == 3) {
-			int hLineIndex = -1;
-			int vLineIndex = -1;
-			int bCIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					hLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.BC_CHAR:
-					bCIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the left, right x,y coords of the HLINE stroke
+		float hLineLeftX = mRelations.getLeftX(hLineIndex); // x-coord of left end of the HLINE stroke
+		float hLineLeftY = mRelations.getLeftY(hLineIndex); // y-coord of left end of the HLINE stroke
+
+		// Get the top, bottom x,y coords of the VLINE stroke
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+
+		// Get the top, bottom x,y coords of the BC stroke
+		float bCTopX = mRelations.getTopX(bCIndex); // x-coord of top end of the bottom BC stroke
+		float bCTopY = mRelations.getTopY(bCIndex); // y-coord of top end of the bottom BC stroke
+		float bCBottomY = mRelations.getBottomY(bCIndex); // y-coord of bottom end of the bottom BC stroke
+
+		float height = Math.abs(bCBottomY - hLineLeftY);
+		double gapThreshold = 0.25 * height;
+
+		// Check to see if the following gaps are less than their respective thresholds
+		// i.   Gap between the left end of the HLINE and the top end of the VLINE
+		// ii.  Gap between the bottom end of the HLINE and the top of the BC
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(hLineLeftX, hLineLeftY, vLineTopX, vLineTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bCTopX, bCTopY), gapThreshold);
 
-			// Check to make sure that the two component strokes for '5' are there, i.e.,
-			// hLineIndex, vLineIndex, and bCIndex are all not negative
-			if ((hLineIndex >= 0) & (vLineIndex >= 0) & (bCIndex >= 0)) {
-				// Get the left, right x,y coords of the HLINE stroke
-				float coords[] = getLeftRightCoordsOfSegment(mPenSegments.elementAt(hLineIndex));
-				float hLineLeftX = coords[0]; // x-coord of left end of the HLINE stroke
-				float hLineLeftY = coords[1]; // y-coord of left end of the HLINE stroke
-
-				// Get the top, bottom x,y coords of the VLINE stroke
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-				// Get the top, bottom x,y coords of the BC stroke
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bCIndex));
-				float bCTopX = coords[0]; // x-coord of top end of the bottom BC stroke
-				float bCTopY = coords[1]; // y-coord of top end of the bottom BC stroke
-				float bCBottomY = coords[3]; // y-coord of bottom end of the bottom BC stroke
-
-				float height = Math.abs(bCBottomY - hLineLeftY);
-				double gapThreshold = 0.25 * height;
-
-				// Check to see if the following gaps are less than their respective thresholds
-				// i.   Gap between the left end of the HLINE and the top end of the VLINE
-				// ii.  Gap between the bottom end of the HLINE and the top of the BC
-				matchedP =
-					(PenUtil.distanceBetween2Points(hLineLeftX, hLineLeftY, vLineTopX, vLineTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bCTopX, bCTopY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkFor5()
 
 	// 7 has two strokes - a HLINE above a FSLASH.
-	private boolean checkFor7() {
+	private boolean checkFor7(int hLineIndex, int fSlashIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		// 7 has only two pen stroke characters
-		if (numOfSegments == 2) {
-			int hLineIndex = -1;
-			int fSlashIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					hLineIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the left, right x,y coords of the HLINE stroke
+		//				float hLineLeftX = mRelations.getLeftX(hLineIndex); // x-coord of left end of the HLINE stroke
+		//				float hLineLeftY = mRelations.getLeftY(hLineIndex); // y-coord of left end of the HLINE stroke
+		float hLineRightX = mRelations.getRightX(hLineIndex); // x-coord of right end of the HLINE stroke
+		float hLineRightY = mRelations.getRightY(hLineIndex); // y-coord of right end of the HLINE stroke
+
+		// Get the top, bottom x,y coords of the VLINE stroke
+		float fSlashTopX = mRelations.getTopX(fSlashIndex); // x-coord of top end of the VLINE stroke
+		float fSlashTopY = mRelations.getTopY(fSlashIndex); // y-coord of top end of the VLINE stroke
+		//				float fSlashBottomX = mRelations.getBottomX(fSlashIndex); // x-coord of bottom end of the VLINE stroke
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of bottom end of the VLINE stroke
+
+
+		float height = Math.abs(fSlashBottomY - fSlashTopY);
+		double gapThreshold = 0.25 * height;
+
+		// Check to see if the following gaps are less than their respective thresholds
+		// i.   Gap between the left end of the HLINE and the top end of the VLINE
+		// ii.  Gap between the bottom end of the HLINE and the top of the BC
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(hLineRightX, hLineRightY, fSlashTopX, fSlashTopY), gapThreshold);
 
-			// Check to make sure that the two component strokes for '7' are there, i.e.,
-			// hLineIndex and fSlashIndex both all not negative
-			if ((hLineIndex >= 0) & (fSlashIndex >= 0)) {
-				// Get the left, right x,y coords of the HLINE stroke
-				float coords[] = getLeftRightCoordsOfSegment(mPenSegments.elementAt(hLineIndex));
-				//				float hLineLeftX = coords[0]; // x-coord of left end of the HLINE stroke
-				//				float hLineLeftY = coords[1]; // y-coord of left end of the HLINE stroke
-				float hLineRightX = coords[2]; // x-coord of right end of the HLINE stroke
-				float hLineRightY = coords[3]; // y-coord of right end of the HLINE stroke
-
-				// Get the top, bottom x,y coords of the VLINE stroke
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));
-				float fSlashTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float fSlashTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				//				float fSlashBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float fSlashBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-
-				float height = Math.abs(fSlashBottomY - fSlashTopY);
-				double gapThreshold = 0.25 * height;
-
-				// Check to see if the following gaps are less than their respective thresholds
-				// i.   Gap between the left end of the HLINE and the top end of the VLINE
-				// ii.  Gap between the bottom end of the HLINE and the top of the BC
-				matchedP =
-					(PenUtil.distanceBetween2Points(hLineRightX, hLineRightY, fSlashTopX, fSlashTopY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkFor7()
 
 	// '9' has a VLINE and a FC on the right joining the VLINE at the top and middle
-	private boolean checkFor9() {
+	private boolean checkFor9(int fCIndex, int vLineIndex) {
 		boolean matchedP = false;
 
 		double vLineTopYMin = -1.0;
-		double vLineTopYMax = .4 * Skiggle.DEFAULT_WRITE_PAD_HEIGHT;
+		double vLineTopYMax = mProfile.get(RecognizerProfile.UPPER_ZONE_HEIGHT) * Skiggle.DEFAULT_WRITE_PAD_HEIGHT;
 
 		// Check to see if the following are true
 		// i.   VLINE and FC form a q or 9 shape
 		// ii.  The top of the VLINE is less than .4 the height of the writing area from the top edge of the writing area
 		matchedP =
-			checkFor9OrSmallQ((float)vLineTopYMin, (float)vLineTopYMax);
+			checkFor9OrSmallQ(fCIndex, vLineIndex, (float)vLineTopYMin, (float)vLineTopYMax);
 
 		return matchedP;
 	}  // End of checkFor9()
@@ -1178,639 +753,375 @@ public class PenCharacter {
 	 ******************/
 
 	// 'A' is made up of a forward slash ('/'), a back slash ('\'), and a horizontal line ('-')
-	private boolean checkForCapitalA(){
+	private boolean checkForCapitalA(int fSlashIndex, int bSlashIndex, int hLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int fSlashIndex = -1;
-			int bSlashIndex = -1;
-			int hLineIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'A' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				case PenSegment.HLINE_CHAR:
-					hLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
 
-			// Check to make sure that the three component strokes for 'A' are there, i.e.,
-			// fSlashIndex, bSlashIndex, and hLineIndex are all not negative
-			if ((fSlashIndex >= 0) & (bSlashIndex >= 0) & (hLineIndex >= 0)) {
-
-				// Get x,y of top and bottom of FSLASH
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));
-				float fSlashTopX = coords[0]; // x-coord of start point of FSLASH stroke
-				float fSlashTopY = coords[1]; // y-coord of start point of FSLASH stroke
-				float fSlashBottomX = coords[2]; // x-coord of end point of FSLASH stroke
-				float fSlashBottomY = coords[3]; // y-coord of end point of FSLASH stroke
-
-				// Get x,y of top and bottom of BSLASH
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bSlashIndex));
-				float bSlashTopX = coords[0]; // x-coord of start point of BSLASH stroke
-				float bSlashTopY = coords[1]; // y-coord of start point of BSLASH stroke
-				float bSlashBottomX = coords[2]; // x-coord of end point of BSLASH stroke
-				float bSlashBottomY = coords[3]; // y-coord of end point of BSLASH stroke
-
-				// Check to see if the mid-point of horizontal line (dash) is between
-				// .25 and .75 of the maximum height of BSLASH and FSLASH
-				// and between .25 and .75 of the maximum width of BSLASH and FSLASH
-				float maxY = Math.max(fSlashBottomY, bSlashBottomY); // y-coord values increase downwards
-				float minY = Math.min(fSlashTopY, bSlashTopY);
-				float height = maxY - minY;
-
-				float maxX = Math.max(Math.max(fSlashTopX, fSlashBottomX), Math.max(bSlashTopX, bSlashBottomX));
-				float minX = Math.min(Math.min(fSlashTopX, fSlashBottomX), Math.min(bSlashTopX, bSlashBottomX));
-				float width = maxX - minX;
-
-				float hLineAvgX = (mPenSegments.elementAt(hLineIndex).mPosStart[0] + mPenSegments.elementAt(hLineIndex).mPosEnd[0])/2;
-				float hLineAvgY = (mPenSegments.elementAt(hLineIndex).mPosStart[1] + mPenSegments.elementAt(hLineIndex).mPosEnd[1])/2;
-
-				float hLineAvgXDist = hLineAvgX - minX;
-				float hLineAvgYDist = hLineAvgY - minY;
-
-				// Check for caret (or '/' and '\') forming the top of A and position of horizontal line (dash) wrt to caret
-				matchedP = 
-					gapCheckForCaretShape(mPenSegments.elementAt(fSlashIndex), mPenSegments.elementAt(bSlashIndex)) &
-					isBetweenThresholds(hLineAvgXDist, .25 * width, .75 * width) &
-					isBetweenThresholds(hLineAvgYDist, .25 * height, .75 * height);
-			}
-		}
+		// Get x,y of top and bottom of FSLASH
+		float fSlashTopX = mRelations.getTopX(fSlashIndex); // x-coord of start point of FSLASH stroke
+		float fSlashTopY = mRelations.getTopY(fSlashIndex); // y-coord of start point of FSLASH stroke
+		float fSlashBottomX = mRelations.getBottomX(fSlashIndex); // x-coord of end point of FSLASH stroke
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of end point of FSLASH stroke
+
+		// Get x,y of top and bottom of BSLASH
+		float bSlashTopX = mRelations.getTopX(bSlashIndex); // x-coord of start point of BSLASH stroke
+		float bSlashTopY = mRelations.getTopY(bSlashIndex); // y-coord of start point of BSLASH stroke
+		float bSlashBottomX = mRelations.getBottomX(bSlashIndex); // x-coord of end point of BSLASH stroke
+		float bSlashBottomY = mRelations.getBottomY(bSlashIndex); // y-coord of end point of BSLASH stroke
+
+		// Check to see if the mid-point of horizontal line (dash) is between
+		// .25 and .75 (by default, see RecognizerProfile) of the maximum height of BSLASH and FSLASH
+		// and between .25 and .75 of the maximum width of BSLASH and FSLASH
+		float maxY = Math.max(fSlashBottomY, bSlashBottomY); // y-coord values increase downwards
+		float minY = Math.min(fSlashTopY, bSlashTopY);
+		float height = maxY - minY;
+
+		float maxX = Math.max(Math.max(fSlashTopX, fSlashBottomX), Math.max(bSlashTopX, bSlashBottomX));
+		float minX = Math.min(Math.min(fSlashTopX, fSlashBottomX), Math.min(bSlashTopX, bSlashBottomX));
+		float width = maxX - minX;
+
+		float hLineAvgX = (mPenSegments.elementAt(hLineIndex).mPosStart[0] + mPenSegments.elementAt(hLineIndex).mPosEnd[0])/2;
+		float hLineAvgY = (mPenSegments.elementAt(hLineIndex).mPosStart[1] + mPenSegments.elementAt(hLineIndex).mPosEnd[1])/2;
+
+		float hLineAvgXDist = hLineAvgX - minX;
+		float hLineAvgYDist = hLineAvgY - minY;
+
+		double low = mProfile.get(RecognizerProfile.CAPITAL_A_HLINE_LOW);
+		double high = mProfile.get(RecognizerProfile.CAPITAL_A_HLINE_HIGH);
+
+		// Check for caret (or '/' and '\') forming the top of A and position of horizontal line (dash) wrt to caret
+		matchedP = 
+			gapCheckForCaretShape(fSlashIndex, bSlashIndex) &
+			isBetweenThresholds(hLineAvgXDist, low * width, high * width) &
+			isBetweenThresholds(hLineAvgYDist, low * height, high * height);
+
 		return matchedP;
 	}  // End of checkForCapitalA()
 
 	// 'B' has three strokes - a VLINE and two BC (backward C or ')') strokes on the right.
 	// The top BC joins the VLINE at the top and around mid-point and the bottom BC joins the VLINE
 	// at around the mid-point and the bottom
-	private boolean checkForCapitalB() {
+	private boolean checkForCapitalB(int topBCIndex, int bottomBCIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int topBCIndex = -1;
-			int bottomBCIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'B' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.BC_CHAR:
-					if (topBCIndex < 0) topBCIndex = i;
-					else bottomBCIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the top and bottom BC strokes
+		int topBCSegmentIndex = mRelations.getTopIndex(topBCIndex, bottomBCIndex);
+		int bottomBCSegmentIndex = mRelations.getBottomIndex(topBCIndex, bottomBCIndex);
+
+		// Get x,y coords of the top BC stroke
+		float topBCTopX = mRelations.getTopX(topBCSegmentIndex); // x-coord of top end of the top BC stroke
+		float topBCTopY = mRelations.getTopY(topBCSegmentIndex); // y-coord of top end of the top BC stroke
+		float topBCBottomX = mRelations.getBottomX(topBCSegmentIndex); // x-coord of bottom end of the top BC stroke
+		float topBCBottomY = mRelations.getBottomY(topBCSegmentIndex); // y-coord of bottom end of the top BC stroke
+
+		// Get x,y coords of the bottom BC stroke
+		float bottomBCTopX = mRelations.getTopX(bottomBCSegmentIndex); // x-coord of top end of the bottom BC stroke
+		float bottomBCTopY = mRelations.getTopY(bottomBCSegmentIndex); // y-coord of top end of the bottom BC stroke
+		float bottomBCBottomX = mRelations.getBottomX(bottomBCSegmentIndex); // x-coord of bottom end of the bottom BC stroke
+		float bottomBCBottomY = mRelations.getBottomY(bottomBCSegmentIndex); // y-coord of bottom end of the bottom BC stroke
+
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of the VLINE stroke
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.25 * vLineHeight;
+
+		// Check to see if the following gaps are less their respective thresholds
+		// i.   The gap between the top ends VLINE and top BC
+		// ii.  The gap between the bottom of the top BC and the mid-point of VLINE
+		// iii. The gap between the top of the bottom BC and the mid-point of VLINE
+		// iv.  The gap between the bottom ends VLINE and bottom BC
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topBCTopX, topBCTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, topBCBottomX, topBCBottomY), 2 * gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bottomBCTopX, bottomBCTopY), 2 * gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomBCBottomX, bottomBCBottomY), gapThreshold);
 
-			// Check to make sure that the three component strokes for 'B' are there, i.e.,
-			// topBCIndex, bottomBCIndex, and vLineIndex are all not negative
-			if ((topBCIndex >= 0) & (bottomBCIndex >= 0) & (vLineIndex >= 0)) {
-				// Get the top and bottom BC strokes
-				PenSegment topBottomBCSegments[] = 
-					order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(topBCIndex), mPenSegments.elementAt(bottomBCIndex));
-
-				// Get x,y coords of the top BC stroke
-				float coords[] = getTopBottomCoordsOfSegment(topBottomBCSegments[0]);
-				float topBCTopX = coords[0]; // x-coord of top end of the top BC stroke
-				float topBCTopY = coords[1]; // y-coord of top end of the top BC stroke
-				float topBCBottomX = coords[2]; // x-coord of bottom end of the top BC stroke
-				float topBCBottomY = coords[3]; // y-coord of bottom end of the top BC stroke
-
-				// Get x,y coords of the bottom BC stroke
-				coords = getTopBottomCoordsOfSegment(topBottomBCSegments[1]);
-				float bottomBCTopX = coords[0]; // x-coord of top end of the bottom BC stroke
-				float bottomBCTopY = coords[1]; // y-coord of top end of the bottom BC stroke
-				float bottomBCBottomX = coords[2]; // x-coord of bottom end of the bottom BC stroke
-				float bottomBCBottomY = coords[3]; // y-coord of bottom end of the bottom BC stroke
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of the VLINE stroke
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.25 * vLineHeight;
-
-				// Check to see if the following gaps are less their respective thresholds
-				// i.   The gap between the top ends VLINE and top BC
-				// ii.  The gap between the bottom of the top BC and the mid-point of VLINE
-				// iii. The gap between the top of the bottom BC and the mid-point of VLINE
-				// iv.  The gap between the bottom ends VLINE and bottom BC
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topBCTopX, topBCTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, topBCBottomX, topBCBottomY) < 2 * gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bottomBCTopX, bottomBCTopY) < 2 * gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomBCBottomX, bottomBCBottomY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkForCapitalB()
 
 	// 'C' is checked using the checkForCShape() and the isSmallLetter() methods
 
 	// 'D' has a VLINE and a BC (backward C or ')') on the right joining the VLINE at the top and bottom
-	private boolean checkForCapitalD() {
+	private boolean checkForCapitalD(int bCIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 2) {
-			int bCIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'D' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.BC_CHAR:
-					bCIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the x,y of the top and bottom of BC
+		float bCTopX = mRelations.getTopX(bCIndex); // x-coord of top end of the BC stroke
+		float bCTopY = mRelations.getTopY(bCIndex); // y-coord of top end of the BC stroke
+		float bCBottomX = mRelations.getBottomX(bCIndex); // x-coord of bottom end of the BC stroke
+		float bCBottomY = mRelations.getBottomY(bCIndex); // y-coord of bottom end of the BC stroke
 
-			// Check to make sure that the two component strokes for 'D' are there, i.e.,
-			// bCIndex and vLineIndex are both not negative
-			if ((bCIndex >= 0) & (vLineIndex >= 0)) {
-				// Get the x,y of the top and bottom of BC
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bCIndex));
-				float bCTopX = coords[0]; // x-coord of top end of the BC stroke
-				float bCTopY = coords[1]; // y-coord of top end of the BC stroke
-				float bCBottomX = coords[2]; // x-coord of bottom end of the BC stroke
-				float bCBottomY = coords[3]; // y-coord of bottom end of the BC stroke
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.25 * vLineHeight;
-
-				// Check to see if the gap between the top ends VLINE and BC that between
-				// the bottom ends of VLINE and BC are less than the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, bCTopX, bCTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bCBottomX, bCBottomY) < gapThreshold);
-			}
-		}
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.25 * vLineHeight;
+
+		// Check to see if the gap between the top ends VLINE and BC that between
+		// the bottom ends of VLINE and BC are less than the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, bCTopX, bCTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bCBottomX, bCBottomY), gapThreshold);
 
 		return matchedP;
 	}  // End of checkForCapitalD()
 
 	// Check for 'E'
-	private boolean checkForCapitalE() {
+	private boolean checkForCapitalE(int topHLineIndex, int midHLineIndex, int bottomHLineIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 4) {
-			int topHLineIndex = -1;
-			int midHLineIndex = -1;
-			int bottomHLineIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'E' has only four pen stroke characters - 1 long vertical and 3 short horizontal segments
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					if (topHLineIndex == -1)
-						topHLineIndex = i;
-					else if (midHLineIndex == -1)
-						midHLineIndex = i;
-					else
-						bottomHLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		float topHLineLeftX = mRelations.getLeftX(topHLineIndex); // x-coord of left point of the top HLINE stroke
+		float topHLineLeftY = mRelations.getLeftY(topHLineIndex); // y-coord of left point of the top HLINE stroke
+
+		float midHLineLeftX = mRelations.getLeftX(midHLineIndex); // x-coord of left point of the mid HLINE stroke
+		float midHLineLeftY = mRelations.getLeftY(midHLineIndex); // y-coord of left point of the mid HLINE stroke
+
+		float bottomHLineLeftX = mRelations.getLeftX(bottomHLineIndex); // x-coord of left point of the bottom HLINE stroke
+		float bottomHLineLeftY = mRelations.getLeftY(bottomHLineIndex); // y-coord of left point of the bottom HLINE stroke
+
+		// Check to see which of the two HLINE is the top one (the one with lower y-coord value)
+		if (midHLineLeftY < topHLineLeftY) {
+			// swap x,y coords of top and mid HLINE's
+			float temp = topHLineLeftX;
+			topHLineLeftX = midHLineLeftX;
+			midHLineLeftX = temp;
+
+			temp = topHLineLeftY;
+			topHLineLeftY = midHLineLeftY;
+			midHLineLeftY = temp;
+		}
+
+		// Check if the third HLINE is above the top HLINE, between the top and mid HLINE's or below mid HLINE
+		// revise topHLineIndex, midHLineIndex, and bottomHLineIndex accordingly
+		if (bottomHLineLeftY < topHLineLeftY) {
+			// Rotate the x,y coords of the top HLINE down to the mid HLINE, from the mid HLINE
+			// down to the bottom HLINE, and from the bottom HLINE back to the top HLINE.
+			float temp = midHLineLeftX;
+			midHLineLeftX = topHLineLeftX;
+			topHLineLeftX = bottomHLineLeftX;
+			bottomHLineLeftX = temp;
+
+			temp = midHLineLeftY;
+			midHLineLeftY = topHLineLeftY;
+			topHLineLeftY = bottomHLineLeftY;
+			bottomHLineLeftY = temp;
+		}
+		else if (bottomHLineLeftY < midHLineLeftY) {
+			// Swap the x,y coords of the mid and bottom HLINE's
+			float temp = midHLineLeftX;
+			midHLineLeftX = bottomHLineLeftX;
+			bottomHLineLeftX = temp;
+
+			temp = midHLineLeftY;
+			midHLineLeftY = bottomHLineLeftY;
+			bottomHLineLeftY = temp;
+		}	
+
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coord of the mid point of the VLINE stroke
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // x-coord of the mid point of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.25 * vLineHeight;
+
+		// Check to see if:
+		// i.   The gap between the top of the VLINE and left of the top HLINE is less than the gap threshold
+		// ii.  The gap between the middle of the VLINE and left of middle HLINE is less than the gap threshold
+		// iii. The gap between the top of the VLINE and left of the bottom HLINE is less than the gap threshold
+
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineLeftX, topHLineLeftY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineLeftX, bottomHLineLeftY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, midHLineLeftX, midHLineLeftY), gapThreshold);
 
-			// Check to make sure that the four component strokes for 'E' are there, i.e.,
-			// topHLineIndex, midHLineIndex, bottomHLineIndex, and vLineIndex are all not negative
-			if ((topHLineIndex >= 0) & (midHLineIndex >= 0) & (bottomHLineIndex >= 0) & (vLineIndex >= 0)) {
-				float coords[] = getLeftRightCoordsOfSegment(mPenSegments.elementAt(topHLineIndex));
-				float topHLineLeftX = coords[0]; // x-coord of left point of the top HLINE stroke
-				float topHLineLeftY = coords[1]; // y-coord of left point of the top HLINE stroke
-
-				coords = getLeftRightCoordsOfSegment(mPenSegments.elementAt(midHLineIndex));
-				float midHLineLeftX = coords[0]; // x-coord of left point of the mid HLINE stroke
-				float midHLineLeftY = coords[1]; // y-coord of left point of the mid HLINE stroke
-
-				coords = getLeftRightCoordsOfSegment(mPenSegments.elementAt(bottomHLineIndex));
-				float bottomHLineLeftX = coords[0]; // x-coord of left point of the bottom HLINE stroke
-				float bottomHLineLeftY = coords[1]; // y-coord of left point of the bottom HLINE stroke
-
-				// Check to see which of the two HLINE is the top one (the one with lower y-coord value)
-				if (midHLineLeftY < topHLineLeftY) {
-					// swap x,y coords of top and mid HLINE's
-					float temp = topHLineLeftX;
-					topHLineLeftX = midHLineLeftX;
-					midHLineLeftX = temp;
-
-					temp = topHLineLeftY;
-					topHLineLeftY = midHLineLeftY;
-					midHLineLeftY = temp;
-				}
-
-				// Check if the third HLINE is above the top HLINE, between the top and mid HLINE's or below mid HLINE
-				// revise topHLineIndex, midHLineIndex, and bottomHLineIndex accordingly
-				if (bottomHLineLeftY < topHLineLeftY) {
-					// Rotate the x,y coords of the top HLINE down to the mid HLINE, from the mid HLINE
-					// down to the bottom HLINE, and from the bottom HLINE back to the top HLINE.
-					float temp = midHLineLeftX;
-					midHLineLeftX = topHLineLeftX;
-					topHLineLeftX = bottomHLineLeftX;
-					bottomHLineLeftX = temp;
-
-					temp = midHLineLeftY;
-					midHLineLeftY = topHLineLeftY;
-					topHLineLeftY = bottomHLineLeftY;
-					bottomHLineLeftY = temp;
-				}
-				else if (bottomHLineLeftY < midHLineLeftY) {
-					// Swap the x,y coords of the mid and bottom HLINE's
-					float temp = midHLineLeftX;
-					midHLineLeftX = bottomHLineLeftX;
-					bottomHLineLeftX = temp;
-
-					temp = midHLineLeftY;
-					midHLineLeftY = bottomHLineLeftY;
-					bottomHLineLeftY = temp;
-				}	
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coord of the mid point of the VLINE stroke
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // x-coord of the mid point of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.25 * vLineHeight;
-
-				// Check to see if:
-				// i.   The gap between the top of the VLINE and left of the top HLINE is less than the gap threshold
-				// ii.  The gap between the middle of the VLINE and left of middle HLINE is less than the gap threshold
-				// iii. The gap between the top of the VLINE and left of the bottom HLINE is less than the gap threshold
-
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineLeftX, topHLineLeftY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineLeftX, bottomHLineLeftY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, midHLineLeftX, midHLineLeftY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkForCapitalE()
 
 	// Check for 'F'
-	private boolean checkForCapitalF() {
+	private boolean checkForCapitalF(int topHLineIndex, int midHLineIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
-
-		if (numOfSegments == 3) {
-			int topHLineIndex = -1;
-			int midHLineIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'F' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					if (topHLineIndex == -1) {
-						topHLineIndex = i;
-					}
-					else
-						midHLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
 
-			// Check to make sure that the three component strokes for 'F' are there, i.e.,
-			// topHLineIndex, midHLineIndex, and vLineIndex are all not negative
-			if ((topHLineIndex >= 0) & (midHLineIndex >= 0) & (vLineIndex >= 0)) {
-				// Check to see which of the two HLINE is the top one (the one with lower y-coord value)
-				if (mPenSegments.elementAt(midHLineIndex).mPosStart[1] < mPenSegments.elementAt(topHLineIndex).mPosStart[1]) {
-					int temp = topHLineIndex;
-					topHLineIndex = midHLineIndex;
-					midHLineIndex = temp;
-				}
-
-				float coords[] = getLeftRightCoordsOfSegment(mPenSegments.elementAt(topHLineIndex));
-				float topHLineLeftX = coords[0]; // x-coord of left point of the top HLINE stroke
-				float topHLineLeftY = coords[1]; // y-coord of left point of the top HLINE stroke
-
-				coords = getLeftRightCoordsOfSegment(mPenSegments.elementAt(midHLineIndex));
-				float midHLineLeftY = coords[1]; // y-coord of left point of the mid HLINE stroke
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				float gapBetweenTopAndMidHLine = Math.abs(topHLineLeftY - midHLineLeftY);
-				double gapThreshold = 0.25 * vLineHeight;
-
-				// Check to see if the gaps between the leftmost end the top HLINE and top of the VLINE
-				// is less than the gap threshold and the gap between the top and mid HLINE's
-				// are less than the gap threshold
-				matchedP =
-					(isBetweenThresholds(gapBetweenTopAndMidHLine, gapThreshold, .75 * vLineHeight )) &
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineLeftX, topHLineLeftY) < gapThreshold);
-			}
+		// Check to see which of the two HLINE is the top one (the one with lower y-coord value)
+		if (mPenSegments.elementAt(midHLineIndex).mPosStart[1] < mPenSegments.elementAt(topHLineIndex).mPosStart[1]) {
+			int temp = topHLineIndex;
+			topHLineIndex = midHLineIndex;
+			midHLineIndex = temp;
 		}
+
+		float topHLineLeftX = mRelations.getLeftX(topHLineIndex); // x-coord of left point of the top HLINE stroke
+		float topHLineLeftY = mRelations.getLeftY(topHLineIndex); // y-coord of left point of the top HLINE stroke
+
+		float midHLineLeftY = mRelations.getLeftY(midHLineIndex); // y-coord of left point of the mid HLINE stroke
+
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		float gapBetweenTopAndMidHLine = Math.abs(topHLineLeftY - midHLineLeftY);
+		double gapThreshold = 0.25 * vLineHeight;
+
+		// Check to see if the gaps between the leftmost end the top HLINE and top of the VLINE
+		// is less than the gap threshold and the gap between the top and mid HLINE's
+		// are less than the gap threshold
+		matchedP =
+			(isBetweenThresholds(gapBetweenTopAndMidHLine, gapThreshold, .75 * vLineHeight )) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineLeftX, topHLineLeftY), gapThreshold);
+
 		return matchedP;
 	}  // End of checkForCapitalF()
 
 	// 'G' has a FC (forward C or '('), a HLINE and a VLINE.  The HLINE touches the top of the VLINE which
 	// in turn is touched by the lower right end of the FC.
-	private boolean checkForCapitalG() {
+	private boolean checkForCapitalG(int fCIndex, int vLineIndex, int hLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
-		// G can have 3 strokes - FC and HLINE and an optional VLINE
-		if (numOfSegments == 3) {
-			int fCIndex = -1;
-			int hLineIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'G' has only two pen stroke characters.
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.FC_CHAR:
-					fCIndex = i;
-					break;
-				case PenSegment.HLINE_CHAR:
-					hLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
 
-			// Check to make sure that the three component strokes for 'G' are there, i.e.,
-			// fCIndex, vLineIndex, and hLineIndex are all not negative.
-			if ((fCIndex >= 0) & (vLineIndex >= 0) & (hLineIndex >= 0)) {
-				// Get the x,y of the top and bottom of FC.
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fCIndex));
-				float fCBottomX = coords[2]; // x-coord of bottom end of the BC stroke.
-				float fCBottomY = coords[3]; // y-coord of bottom end of the BC stroke.
-
-				// Get x,y of the top and bottom of HLINE
-				coords = getLeftRightCoordsOfSegment(mPenSegments.elementAt(hLineIndex));
-				float hLineLeftX = coords[0]; // x-coord of left end of the HLINE stroke.
-				float hLineLeftY = coords[1]; // y-coord of left end of the HLINE stroke.
-				float hLineRightX = coords[2]; // x-coord of right end of the HLINE stroke.
-				float hLineRightY = coords[3]; // y-coord of right end of the HLINE stroke.
-				float hLineMidX = (hLineLeftX + hLineRightX)/2; // x-coord of the mid-point of the HLINE stroke.
-				float hLineMidY = (hLineLeftY + hLineRightY)/2; // x-coord of the mid-point of the HLINE stroke.				
-				float hLineWidth = Math.abs(hLineLeftX - hLineRightX);
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke.
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke.
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke.
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke.
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coord of the mid-point of the VLINE stroke.
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // x-coord of the mid-point of the VLINE stroke.				
-				float vLineHeight = Math.abs(vLineTopY - vLineBottomY);
-				
-				float refLineLength = Math.min(hLineWidth, vLineHeight);
-				
-				// Check to see if the following gaps are less than their respective gap thresholds.
-				matchedP =
-					// i.  Gap between the y-coord of the mid-point of HLINE and the y-coord of the top end of VLINE.
-					(Math.abs(hLineMidY - vLineTopY) <= .25 * refLineLength) &
-					
-					// ii. Gap between the x-coord of the mid-point of HLINE and the x-coord of the top end of FC
-					Math.abs(hLineMidX - vLineTopX) <= .5 * refLineLength &
-					
-					// iii.  Gap between the y-coord of the mid-point of VLINE and the y-coord of the bottom end of FC.
-					(Math.abs(vLineMidY - fCBottomY) <= .5 * refLineLength) &
-					
-					// ii. Gap between the x-coord of the mid-point of VLINE and the x-coord of the bottom end of FC
-					Math.abs(vLineMidX - fCBottomX) <= .25 * refLineLength;
+		// Get the x,y of the top and bottom of FC.
+		float fCBottomX = mRelations.getBottomX(fCIndex); // x-coord of bottom end of the BC stroke.
+		float fCBottomY = mRelations.getBottomY(fCIndex); // y-coord of bottom end of the BC stroke.
+
+		// Get x,y of the top and bottom of HLINE
+		float hLineLeftX = mRelations.getLeftX(hLineIndex); // x-coord of left end of the HLINE stroke.
+		float hLineLeftY = mRelations.getLeftY(hLineIndex); // y-coord of left end of the HLINE stroke.
+		float hLineRightX = mRelations.getRightX(hLineIndex); // x-coord of right end of the HLINE stroke.
+		float hLineRightY = mRelations.getRightY(hLineIndex); // y-coord of right end of the HLINE stroke.
+		float hLineMidX = (hLineLeftX + hLineRightX)/2; // x-coord of the mid-point of the HLINE stroke.
+		float hLineMidY = (hLineLeftY + hLineRightY)/2; // x-coord of the mid-point of the HLINE stroke.				
+		float hLineWidth = Math.abs(hLineLeftX - hLineRightX);
+
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke.
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke.
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke.
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke.
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coord of the mid-point of the VLINE stroke.
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // x-coord of the mid-point of the VLINE stroke.				
+		float vLineHeight = Math.abs(vLineTopY - vLineBottomY);
+		
+		float refLineLength = Math.min(hLineWidth, vLineHeight);
+		
+		// Check to see if the following gaps are at most their respective gap thresholds.
+		matchedP =
+			// i.  Gap between the y-coord of the mid-point of HLINE and the y-coord of the top end of VLINE.
+			isWithinOrAtThreshold(Math.abs(hLineMidY - vLineTopY), .25 * refLineLength) &
+			
+			// ii. Gap between the x-coord of the mid-point of HLINE and the x-coord of the top end of FC
+			isWithinOrAtThreshold(Math.abs(hLineMidX - vLineTopX), .5 * refLineLength) &
+			
+			// iii.  Gap between the y-coord of the mid-point of VLINE and the y-coord of the bottom end of FC.
+			isWithinOrAtThreshold(Math.abs(vLineMidY - fCBottomY), .5 * refLineLength) &
+			
+			// ii. Gap between the x-coord of the mid-point of VLINE and the x-coord of the bottom end of FC
+			isWithinOrAtThreshold(Math.abs(vLineMidX - fCBottomX), .25 * refLineLength);
 
 
-			}
-		}
 
 		return matchedP;
 	}  // End of checkForCapitalG()
 
 	// 'H' has a HLINE ('-') between two VLINE's ('|')
-	private boolean checkForCapitalH() {
+	private boolean checkForCapitalH(int leftVLineIndex, int hLineIndex, int rightVLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int leftVLineIndex = -1, hLineIndex = -1, rightVLineIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'H' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					if (leftVLineIndex < 0)
-						leftVLineIndex = i;
-					else
-						rightVLineIndex = i;
-					break;
-				case PenSegment.HLINE_CHAR:
-					hLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the left and left VLINE strokes of 'I'
+		int leftVLineSegmentIndex = mRelations.getLeftIndex(leftVLineIndex, rightVLineIndex);
+		int rightVLineSegmentIndex = mRelations.getRightIndex(leftVLineIndex, rightVLineIndex);
+		// Get the average x,y coords of each of the left and right VLINE's
+		float leftVLineMidX = mRelations.getMidX(leftVLineSegmentIndex);
+		float leftVLineMidY = mRelations.getMidY(leftVLineSegmentIndex);
+		float rightVLineMidX = mRelations.getMidX(rightVLineSegmentIndex);
+		float rightVLineMidY = mRelations.getMidY(rightVLineSegmentIndex);
+
+		// Get x,y of the left and right of HLINE
+		float hLineLeftX = mRelations.getLeftX(hLineIndex); // x-coord of left point of the HLINE stroke
+		float hLineLeftY = mRelations.getLeftY(hLineIndex); // y-coord of left point of the HLINE stroke
+		float hLineRightX = mRelations.getRightX(hLineIndex); // x-coord of bottom end of the HLINE stroke
+		float hLineRightY = mRelations.getRightY(hLineIndex); // y-coord of bottom end of the HLINE stroke
+
+		float hLineWidth = Math.abs(hLineLeftX - hLineRightX);
+		double gapThreshold = 0.25 * hLineWidth;
+
+		// Check to see if the gaps between the mid-points of the left and right VLINE's and
+		// the left and right, respectively, of HLINE are less than the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(hLineLeftX, hLineLeftY, leftVLineMidX, leftVLineMidY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(hLineRightX, hLineRightY, rightVLineMidX, rightVLineMidY), gapThreshold);
 
-			// Check to make sure that the three component strokes for 'H' are there, i.e.,
-			// leftVLineIndex, hLineIndex, and rightVLineIndex are all not negative
-			if ((leftVLineIndex >= 0) & (hLineIndex >= 0) & (rightVLineIndex >= 0)) {
-				// Get the left and left VLINE strokes of 'I'
-				PenSegment leftRightVLineSegments[] = 
-					order2PenSegmentsIntoLeftRight(mPenSegments.elementAt(leftVLineIndex),
-							mPenSegments.elementAt(rightVLineIndex));
-				PenSegment leftVLineSegment = leftRightVLineSegments[0];
-				PenSegment rightVLineSegment = leftRightVLineSegments[1];	
-				// Get the average x,y coords of each of the left and right VLINE's
-				float leftVLineMidX = (leftVLineSegment.mPosStart[0] + leftVLineSegment.mPosEnd[0])/2;
-				float leftVLineMidY = (leftVLineSegment.mPosStart[1] + leftVLineSegment.mPosEnd[1])/2;				
-				float rightVLineMidX = (rightVLineSegment.mPosStart[0] + rightVLineSegment.mPosEnd[0])/2;
-				float rightVLineMidY = (rightVLineSegment.mPosStart[1] + rightVLineSegment.mPosEnd[1])/2;
-
-				// Get x,y of the left and right of HLINE
-				float coords[] = getLeftRightCoordsOfSegment(mPenSegments.elementAt(hLineIndex));
-
-				float hLineLeftX = coords[0]; // x-coord of left point of the HLINE stroke
-				float hLineLeftY = coords[1]; // y-coord of left point of the HLINE stroke
-				float hLineRightX = coords[2]; // x-coord of bottom end of the HLINE stroke
-				float hLineRightY = coords[3]; // y-coord of bottom end of the HLINE stroke
-
-				float hLineWidth = Math.abs(hLineLeftX - hLineRightX);
-				double gapThreshold = 0.25 * hLineWidth;
-
-				// Check to see if the gaps between the mid-points of the left and right VLINE's and
-				// the left and right, respectively, of HLINE are less than the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(hLineLeftX, hLineLeftY, leftVLineMidX, leftVLineMidY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(hLineRightX, hLineRightY, rightVLineMidX, rightVLineMidY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkForCapitalH()
 
 	// 'I' has an HLINE ('-') at the top and bottom of a VLINE ('|')
-	private boolean checkForCapitalI() {
+	private boolean checkForCapitalI(int topHLineIndex, int vLineIndex, int bottomHLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int topHLineIndex = -1;
-			int vLineIndex = -1;
-			int bottomHLineIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'I' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					if (topHLineIndex < 0)
-						topHLineIndex = i;
-					else
-						bottomHLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the top and bottom HLINE strokes of 'I'
+		int topHLineSegmentIndex = mRelations.getTopIndex(topHLineIndex, bottomHLineIndex);
+		int bottomHLineSegmentIndex = mRelations.getBottomIndex(topHLineIndex, bottomHLineIndex);
+		float topHLineMidX = mRelations.getMidX(topHLineSegmentIndex);
+		float topHLineMidY = mRelations.getMidY(topHLineSegmentIndex);
+		float bottomHLineMidX = mRelations.getMidX(bottomHLineSegmentIndex);
+		float bottomHLineMidY = mRelations.getMidY(bottomHLineSegmentIndex);
+
+		// Get x,y of top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.1 * vLineHeight;
+
+		// Check to see if the gaps between the mid-points of the top and bottom HLINE's 
+		// and top and bottom, respectively, of VLINE are less than the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineMidX, topHLineMidY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineMidX, bottomHLineMidY), gapThreshold);
 
-			// Check to make sure that the three component strokes for 'I' are there, i.e.,
-			// topHLineIndex, vLineIndex, and bottomHLineIndex are all not negative
-			if ((topHLineIndex >= 0) & (vLineIndex >= 0) & (bottomHLineIndex >= 0)) {
-				// Get the top and bottom HLINE strokes of 'I'
-				PenSegment topBottomHLineSegments[] = 
-					order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(topHLineIndex),
-							mPenSegments.elementAt(bottomHLineIndex));
-				float topHLineMidX = (topBottomHLineSegments[0].mPosStart[0] + topBottomHLineSegments[0].mPosEnd[0])/2;
-				float topHLineMidY = (topBottomHLineSegments[0].mPosStart[1] + topBottomHLineSegments[0].mPosEnd[1])/2;				
-				float bottomHLineMidX = (topBottomHLineSegments[1].mPosStart[0] + topBottomHLineSegments[1].mPosEnd[0])/2;
-				float bottomHLineMidY = (topBottomHLineSegments[1].mPosStart[1] + topBottomHLineSegments[1].mPosEnd[1])/2;
-
-				// Get x,y of top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.1 * vLineHeight;
-
-				// Check to see if the gaps between the mid-points of the top and bottom HLINE's 
-				// and top and bottom, respectively, of VLINE are less than the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineMidX, topHLineMidY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineMidX, bottomHLineMidY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkForCapitalI()
 
 	// 'J' has an HLINE ('-') at the top of a VLINE ('|') and a U below the VLINE
-	private boolean checkForCapitalJ() {
+	private boolean checkForCapitalJ(int topHLineIndex, int vLineIndex, int bottomUIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int topHLineIndex = -1;
-			int vLineIndex = -1;
-			int bottomUIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'J' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					topHLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.U_CHAR:
-					bottomUIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the top HLINE stroke of 'J'
+		PenSegment topHLineSegment = mPenSegments.elementAt(topHLineIndex);
+		float topHLineMidX = (topHLineSegment.mPosStart[0] + topHLineSegment.mPosEnd[0])/2;
+		float topHLineMidY = (topHLineSegment.mPosStart[1] + topHLineSegment.mPosEnd[1])/2;				
+
+		// Get x,y of top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.1 * vLineHeight;
+
+		// Get the left, right x,y coordinates of the bottom U stroke of 'J'
+		float rightUX = mRelations.getRightX(bottomUIndex);
+		float rightUY = mRelations.getRightY(bottomUIndex);				
+
+		// Check to see if the gaps between the mid-points of the top and bottom HLINE's 
+		// and top and bottom, respectively, of VLINE are less than the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineMidX, topHLineMidY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, rightUX, rightUY), gapThreshold);
 
-			// Check to make sure that the three component strokes for 'J' are there, i.e.,
-			// topHLineIndex, vLineIndex, and bottomUIndex are all not negative
-			if ((topHLineIndex >= 0) & (vLineIndex >= 0) & (bottomUIndex >= 0)) {
-				// Get the top HLINE stroke of 'J'
-				PenSegment topHLineSegment = mPenSegments.elementAt(topHLineIndex);
-				float topHLineMidX = (topHLineSegment.mPosStart[0] + topHLineSegment.mPosEnd[0])/2;
-				float topHLineMidY = (topHLineSegment.mPosStart[1] + topHLineSegment.mPosEnd[1])/2;				
-
-				// Get x,y of top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.1 * vLineHeight;
-
-				// Get the left, right x,y coordinates of the bottom U stroke of 'J'
-				coords = getLeftRightCoordsOfSegment(mPenSegments.elementAt(bottomUIndex));
-				float rightUX = coords[2];
-				float rightUY = coords[3];				
-
-				// Check to see if the gaps between the mid-points of the top and bottom HLINE's 
-				// and top and bottom, respectively, of VLINE are less than the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineMidX, topHLineMidY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, rightUX, rightUY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkForCapitalJ()
 
@@ -1818,197 +1129,101 @@ public class PenCharacter {
 	// 'K' is checked using checkForCapitalOrSmallK() which returns a 'k', 'K', or '\0' and not a boolean
 
 	// 'L' has a VLINE and an HLINE at the bottom
-	private boolean checkForCapitalL() {
+	private boolean checkForCapitalL(int bottomHLineIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 2) {
-			int bottomHLineIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'L' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					bottomHLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
-
-			// Check to make sure that the two component strokes for 'L' are there, i.e.,
-			// bottomHLineIndex and vLineIndex are both not negative
-			if ((bottomHLineIndex >= 0) & (vLineIndex >= 0)) {
-				float coords[] = getLeftRightCoordsOfSegment(mPenSegments.elementAt(bottomHLineIndex));
-				float bottomHLineLeftX = coords[0]; // x-coord of left point of the bottom HLINE stroke
-				float bottomHLineLeftY = coords[1]; // y-coord of left point of the bottom HLINE stroke
+		float bottomHLineLeftX = mRelations.getLeftX(bottomHLineIndex); // x-coord of left point of the bottom HLINE stroke
+		float bottomHLineLeftY = mRelations.getLeftY(bottomHLineIndex); // y-coord of left point of the bottom HLINE stroke
 
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
 
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.25 * vLineHeight;
 
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.25 * vLineHeight;
-
-				// Check to see if the gaps between the leftmost end the bottom HLINE and bottom of the VLINE
-				// is less than the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineLeftX, bottomHLineLeftY) < gapThreshold);
-			}
-		}
+		// Check to see if the gaps between the leftmost end the bottom HLINE and bottom of the VLINE
+		// is less than the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineLeftX, bottomHLineLeftY), gapThreshold);
 
 		return matchedP;
 	}  // End of checkForCapitalL()
 
 	// 'M' has a BSLASH ('\') and a FSLASH ('/') between two VLINE's ('|')
-	private boolean checkForCapitalM() {
+	private boolean checkForCapitalM(int leftVLineIndex, int bSlashIndex, int fSlashIndex, int rightVLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 4) {
-			int leftVLineIndex = -1;
-			int bSlashIndex = -1;
-			int fSlashIndex = -1;
-			int rightVLineIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'M' has only four pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					if (leftVLineIndex < 0)
-						leftVLineIndex = i;
-					else
-						rightVLineIndex = i;
-					break;
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the left and left VLINE strokes of 'M'
+		int leftVLineSegmentIndex = mRelations.getLeftIndex(leftVLineIndex, rightVLineIndex);
+		int rightVLineSegmentIndex = mRelations.getRightIndex(leftVLineIndex, rightVLineIndex);
+
+		// Get x,y of the top of the left VLINE
+		float leftVLineTopX = mRelations.getTopX(leftVLineSegmentIndex); // x-coord of top of the left VLINE
+		float leftVLineTopY = mRelations.getTopY(leftVLineSegmentIndex); // y-coord of top of the left VLINE	
+
+		float rightVLineTopX = mRelations.getTopX(rightVLineSegmentIndex); // x-coord of top of the right VLINE
+		float rightVLineTopY = mRelations.getTopY(rightVLineSegmentIndex); // y-coord of top of the right VLINE	
+
+		// Get x,y of the top and bottom of BSLASH
+		float bSlashTopX = mRelations.getTopX(bSlashIndex); // x-coord of top end of the BSLASH stroke
+		float bSlashTopY = mRelations.getTopY(bSlashIndex); // y-coord of top end of the BSLASH stroke
+		float bSlashBottomY = mRelations.getBottomY(bSlashIndex); // y-coord of bottom end of the BSLASH stroke
+		float bSlashHeight = Math.abs(bSlashBottomY - bSlashTopY);
+		double bSlashGapThreshold = 0.25 * bSlashHeight;
+
+		// Get x,y of the top and bottom of FSLASH
+		float fSlashTopX = mRelations.getTopX(fSlashIndex); // x-coord of top end of the FSLASH stroke
+		float fSlashTopY = mRelations.getTopY(fSlashIndex); // y-coord of top end of the FSLASH stroke
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of bottom end of the FSLASH stroke
+		float fSlashHeight = Math.abs(fSlashBottomY - fSlashTopY);
+		double fSlashGapThreshold = 0.25 * fSlashHeight;
+
+		// Check to see if the following gaps are close enough:
+		// i.   Gap between the top of the left HLINE and the top of the BSLASH (left top of 'M')
+		// ii.  Gap between the bottom of the BSLASH and the bottom of FSLASH (bottom of middle 'V' of 'M')
+		// iii. Gap between the top of the right HLINE and the top of the FSLASH (right top of 'M')
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(bSlashTopX, bSlashTopY, leftVLineTopX, leftVLineTopY), bSlashGapThreshold) &
+			gapCheckForVShape(fSlashIndex, bSlashIndex) &					
+			isWithinThreshold(PenUtil.distanceBetween2Points(fSlashTopX, fSlashTopY, rightVLineTopX, rightVLineTopY), fSlashGapThreshold);
 
-			// Check to make sure that the four component strokes for 'M' are there, i.e.,
-			// leftVLineIndex, bSlashIndex, fSlashIndex, and rightVLineIndex are all not negative
-			if ((leftVLineIndex >= 0) & (bSlashIndex >= 0) & (fSlashIndex >= 0) & (rightVLineIndex >= 0)) {
-				// Get the left and left VLINE strokes of 'M'
-				PenSegment leftRightVLineSegments[] = 
-					order2PenSegmentsIntoLeftRight(mPenSegments.elementAt(leftVLineIndex),
-							mPenSegments.elementAt(rightVLineIndex));
-
-				PenSegment leftVLineSegment = leftRightVLineSegments[0];
-				PenSegment rightVLineSegment = leftRightVLineSegments[1];				
-				// Get x,y of the top of the left VLINE
-				float coords[] = getTopBottomCoordsOfSegment(leftVLineSegment);
-				float leftVLineTopX = coords[0]; // x-coord of top of the left VLINE
-				float leftVLineTopY = coords[1]; // y-coord of top of the left VLINE	
-
-				coords = getTopBottomCoordsOfSegment(rightVLineSegment);
-				float rightVLineTopX = coords[0]; // x-coord of top of the right VLINE
-				float rightVLineTopY = coords[1]; // y-coord of top of the right VLINE	
-
-				// Get x,y of the top and bottom of BSLASH
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bSlashIndex));
-				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
-				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
-				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke
-				float bSlashHeight = Math.abs(bSlashBottomY - bSlashTopY);
-				double bSlashGapThreshold = 0.25 * bSlashHeight;
-
-				// Get x,y of the top and bottom of FSLASH
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));
-				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
-				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
-				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke
-				float fSlashHeight = Math.abs(fSlashBottomY - fSlashTopY);
-				double fSlashGapThreshold = 0.25 * fSlashHeight;
-
-				// Check to see if the following gaps are close enough:
-				// i.   Gap between the top of the left HLINE and the top of the BSLASH (left top of 'M')
-				// ii.  Gap between the bottom of the BSLASH and the bottom of FSLASH (bottom of middle 'V' of 'M')
-				// iii. Gap between the top of the right HLINE and the top of the FSLASH (right top of 'M')
-				matchedP =
-					(PenUtil.distanceBetween2Points(bSlashTopX, bSlashTopY, leftVLineTopX, leftVLineTopY) < bSlashGapThreshold) &
-					gapCheckForVShape(mPenSegments.elementAt(fSlashIndex), mPenSegments.elementAt(bSlashIndex)) &					
-					(PenUtil.distanceBetween2Points(fSlashTopX, fSlashTopY, rightVLineTopX, rightVLineTopY) < fSlashGapThreshold);
-			}
-		}
 		return matchedP;
 	} // End of checkForCapitalM()
 
 	// 'N' has a BSLASH ('\') between two VLINE's ('|')
-	private boolean checkForCapitalN() {
+	private boolean checkForCapitalN(int leftVLineIndex, int bSlashIndex, int rightVLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int leftVLineIndex = -1;
-			int bSlashIndex = -1;
-			int rightVLineIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'N' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					if (leftVLineIndex < 0)
-						leftVLineIndex = i;
-					else
-						rightVLineIndex = i;
-					break;
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the left and right VLINE strokes of 'N'
+		int leftVLineSegmentIndex = mRelations.getLeftIndex(leftVLineIndex, rightVLineIndex);
+		int rightVLineSegmentIndex = mRelations.getRightIndex(leftVLineIndex, rightVLineIndex);
+
+		// Get x,y of the top of the left VLINE
+		float leftVLineTopX = mRelations.getTopX(leftVLineSegmentIndex); // x-coord of top of the left VLINE
+		float leftVLineTopY = mRelations.getTopY(leftVLineSegmentIndex); // y-coord of top of the left VLINE	
+
+		// Get x,y of the bottom of the right VLINE
+		float rightVLineBottomX = mRelations.getBottomX(rightVLineSegmentIndex); // x-coord of bottom of the right VLINE
+		float rightVLineBottomY = mRelations.getBottomY(rightVLineSegmentIndex); // y-coord of bottom of the right VLINE
+
+		// Get x,y of the top and bottom of BSLASH
+		float bSlashTopX = mRelations.getTopX(bSlashIndex); // x-coord of top end of the BSLASH stroke
+		float bSlashTopY = mRelations.getTopY(bSlashIndex); // y-coord of top end of the BSLASH stroke
+		float bSlashBottomX = mRelations.getBottomX(bSlashIndex); // x-coord of bottom end of the BSLASH stroke
+		float bSlashBottomY = mRelations.getBottomY(bSlashIndex); // y-coord of bottom end of the BSLASH stroke
+
+		float bSlashHeight = Math.abs(bSlashBottomY - bSlashTopY);
+		double gapThreshold = 0.25 * bSlashHeight;
+
+		// Check to see if the gaps between the top of the left VLINE and the top of the BSLASH and
+		// between the bottom of the right VLINE and the bottom of the BSLASH are less than
+		// the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(bSlashTopX, bSlashTopY, leftVLineTopX, leftVLineTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(bSlashBottomX, bSlashBottomY, rightVLineBottomX, rightVLineBottomY), gapThreshold);
 
-			// Check to make sure that the three component strokes for 'N' are there, i.e.,
-			// leftVLineIndex, bSlashIndex, and rightVLineIndex are all not negative
-			if ((leftVLineIndex >= 0) & (bSlashIndex >= 0) & (rightVLineIndex >= 0)) {
-				// Get the left and right VLINE strokes of 'N'
-				PenSegment leftRightVLineSegments[] = 
-					order2PenSegmentsIntoLeftRight(mPenSegments.elementAt(leftVLineIndex),
-							mPenSegments.elementAt(rightVLineIndex));
-
-				PenSegment leftVLineSegment = leftRightVLineSegments[0];
-				PenSegment rightVLineSegment = leftRightVLineSegments[1];				
-				// Get x,y of the top of the left VLINE
-				float coords[] = getTopBottomCoordsOfSegment(leftVLineSegment);
-				float leftVLineTopX = coords[0]; // x-coord of top of the left VLINE
-				float leftVLineTopY = coords[1]; // y-coord of top of the left VLINE	
-
-				// Get x,y of the bottom of the right VLINE
-				coords = getTopBottomCoordsOfSegment(rightVLineSegment);
-				float rightVLineBottomX = coords[2]; // x-coord of bottom of the right VLINE
-				float rightVLineBottomY = coords[3]; // y-coord of bottom of the right VLINE
-
-				// Get x,y of the top and bottom of BSLASH
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bSlashIndex));
-				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
-				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
-				float bSlashBottomX = coords[2]; // x-coord of bottom end of the BSLASH stroke
-				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke
-
-				float bSlashHeight = Math.abs(bSlashBottomY - bSlashTopY);
-				double gapThreshold = 0.25 * bSlashHeight;
-
-				// Check to see if the gaps between the top of the left VLINE and the top of the BSLASH and
-				// between the bottom of the right VLINE and the bottom of the BSLASH are less than
-				// the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(bSlashTopX, bSlashTopY, leftVLineTopX, leftVLineTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(bSlashBottomX, bSlashBottomY, rightVLineBottomX, rightVLineBottomY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkForCapitalN()
 
@@ -2016,48 +1231,23 @@ public class PenCharacter {
 	// 'P' is checked using checkForPShape() and letter size check
 
 	// 'Q' has a CIRCLE and a BSLASH cutting the circle at the bottom right
-	private boolean checkForCapitalQ() {
+	private boolean checkForCapitalQ(int circleIndex, int bSlashIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
-
-		if (numOfSegments == 2) {
-			int circleIndex = -1;
-			int bSlashIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'Q' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.CIRCLE_CHAR:
-					circleIndex = i;
-					break;
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
 
-			// Check to make sure that the two component strokes for 'Q' are there, i.e.,
-			// circleIndex and vLineIndex are both not negative
-			if ((circleIndex >= 0) & (bSlashIndex >= 0)) {
-				// Get the x,y of the top and bottom of BC
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bSlashIndex));
-				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
-				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
+		// Get the x,y of the top and bottom of BC
+		float bSlashTopX = mRelations.getTopX(bSlashIndex); // x-coord of top end of the BSLASH stroke
+		float bSlashTopY = mRelations.getTopY(bSlashIndex); // y-coord of top end of the BSLASH stroke
 
-				// Get average x,y of the CIRCLE stroke
-				float hLineAvgX = mPenSegments.elementAt(circleIndex).mAvgX; // average of x-coord (mid-point) of the CIRCLE stroke
-				float hLineAvgY = mPenSegments.elementAt(circleIndex).mAvgY; // average of y-coord (mid-point) of the CIRCLE stroke
+		// Get average x,y of the CIRCLE stroke
+		float hLineAvgX = mPenSegments.elementAt(circleIndex).mAvgX; // average of x-coord (mid-point) of the CIRCLE stroke
+		float hLineAvgY = mPenSegments.elementAt(circleIndex).mAvgY; // average of y-coord (mid-point) of the CIRCLE stroke
 
-				float circleHeight = mPenSegments.elementAt(circleIndex).mBoundingRectHeight;
+		float circleHeight = mPenSegments.elementAt(circleIndex).mBoundingRectHeight;
 
-				// Check to see if the following gaps are less their respective thresholds
-				// i.   The gap between the top end BSLASH and the mid x,y coords of CIRCLE
+		// Check to see if the following gaps are less their respective thresholds
+		// i.   The gap between the top end BSLASH and the mid x,y coords of CIRCLE
 
-				matchedP = (PenUtil.distanceBetween2Points(bSlashTopX, bSlashTopY, hLineAvgX, hLineAvgY) < 0.5 * circleHeight);
-			}
-		}
+		matchedP = isWithinThreshold(PenUtil.distanceBetween2Points(bSlashTopX, bSlashTopY, hLineAvgX, hLineAvgY), 0.5 * circleHeight);
 
 		return matchedP;
 	}  // End of checkForCapitalQ()
@@ -2065,121 +1255,67 @@ public class PenCharacter {
 	// 'R' has three strokes - a VLINE, a BC (backward C or ')') and a BSLASH on the right.
 	// The BC joins the VLINE at the top and around mid-point and the BSLASH joins the VLINE
 	// at around the mid-point and the bottom.
-	private boolean checkForCapitalR() {
+	private boolean checkForCapitalR(int bCIndex, int bSlashIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int bCIndex = -1;
-			int bSlashIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'R' has only three pen stroke characters.
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.BC_CHAR:
-					bCIndex = i;
-					break;
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get x,y coords of the BC stroke
+		float bCTopX = mRelations.getTopX(bCIndex); // x-coord of top end of the BC stroke
+		float bCTopY = mRelations.getTopY(bCIndex); // y-coord of top end of the BC stroke
+		float bCBottomX = mRelations.getBottomX(bCIndex); // x-coord of bottom end of the BC stroke
+		float bCBottomY = mRelations.getBottomY(bCIndex); // y-coord of bottom end of the BC stroke
+
+		// Get x,y coords of the BSLASH stroke
+		float bSlashTopX = mRelations.getTopX(bSlashIndex); // x-coord of top end of the BSLASH stroke
+		float bSlashTopY = mRelations.getTopY(bSlashIndex); // y-coord of top end of the BSLASH stroke
+
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of the VLINE stroke
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.25 * vLineHeight;
+
+		// Check to see if the following gaps are less their respective thresholds
+		// i.   The gap between the top ends VLINE and BC
+		// ii.  The gap between the bottom of the BC and the mid-point of VLINE
+		// iii. The gap between the top of the BSLASH and the mid-point of VLINE
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, bCTopX, bCTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bCBottomX, bCBottomY), 2 * gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bSlashTopX, bSlashTopY), 2 * gapThreshold);
 
-			// Check to make sure that the two component strokes for 'P' are there, i.e.,
-			// bCIndex, bSlashIndex and vLineIndex are both not negative.
-			if ((bCIndex >= 0) & (bSlashIndex >= 0) & (vLineIndex >= 0)) {
-				// Get x,y coords of the BC stroke
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bCIndex));
-				float bCTopX = coords[0]; // x-coord of top end of the BC stroke
-				float bCTopY = coords[1]; // y-coord of top end of the BC stroke
-				float bCBottomX = coords[2]; // x-coord of bottom end of the BC stroke
-				float bCBottomY = coords[3]; // y-coord of bottom end of the BC stroke
-
-				// Get x,y coords of the BSLASH stroke
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bSlashIndex));
-				float bSlashTopX = coords[0]; // x-coord of top end of the BSLASH stroke
-				float bSlashTopY = coords[1]; // y-coord of top end of the BSLASH stroke
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of the VLINE stroke
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.25 * vLineHeight;
-
-				// Check to see if the following gaps are less their respective thresholds
-				// i.   The gap between the top ends VLINE and BC
-				// ii.  The gap between the bottom of the BC and the mid-point of VLINE
-				// iii. The gap between the top of the BSLASH and the mid-point of VLINE
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, bCTopX, bCTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bCBottomX, bCBottomY) < 2 * gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bSlashTopX, bSlashTopY) < 2 * gapThreshold);
-			}
-		}
 		return matchedP;
 	}  // End of checkForCapitalR()
 
 	// 'T' has an HLINE ('-') at the top of a VLINE ('|')
-	private boolean checkForCapitalT() {
+	private boolean checkForCapitalT(int topHLineIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 2) {
-			int topHLineIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'T' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					topHLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Assume the HLINE found to be top HLINE of the 'T'
+		float topHLineStartX = mPenSegments.elementAt(topHLineIndex).mPosStart[0]; // x-coord of top end of the HLINE stroke
+		float topHLineStartY = mPenSegments.elementAt(topHLineIndex).mPosStart[1]; // y-coord of top end of the HLINE stroke
+		float topHLineEndX = mPenSegments.elementAt(topHLineIndex).mPosEnd[0]; // x-coord of bottom end of the HLINE stroke
+		float topHLineEndY = mPenSegments.elementAt(topHLineIndex).mPosEnd[1]; // y-coord of bottom end of the HLINE stroke
+		float topHLineMidX = (topHLineStartX + topHLineEndX)/2;
+		float topHLineMidY = (topHLineStartY + topHLineEndY)/2;
+
+		// Get x,y of top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.15 * vLineHeight;
+
+		// Check to see if the gap between the mid-point of the top HLINE and the top of
+		// the VLINE is less than the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineMidX, topHLineMidY), gapThreshold);
 
-			// Check to make sure that the two component strokes for 'T' are there, i.e.,
-			// topHLineIndex and vLineIndex are both not negative
-			if ((topHLineIndex >= 0) & (vLineIndex >= 0)) {
-				// Assume the HLINE found to be top HLINE of the 'T'
-				float topHLineStartX = mPenSegments.elementAt(topHLineIndex).mPosStart[0]; // x-coord of top end of the HLINE stroke
-				float topHLineStartY = mPenSegments.elementAt(topHLineIndex).mPosStart[1]; // y-coord of top end of the HLINE stroke
-				float topHLineEndX = mPenSegments.elementAt(topHLineIndex).mPosEnd[0]; // x-coord of bottom end of the HLINE stroke
-				float topHLineEndY = mPenSegments.elementAt(topHLineIndex).mPosEnd[1]; // y-coord of bottom end of the HLINE stroke
-				float topHLineMidX = (topHLineStartX + topHLineEndX)/2;
-				float topHLineMidY = (topHLineStartY + topHLineEndY)/2;
-
-				// Get x,y of top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));		
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.15 * vLineHeight;
-
-				// Check to see if the gap between the mid-point of the top HLINE and the top of
-				// the VLINE is less than the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineMidX, topHLineMidY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	} // End of checkForCapitalT()
 
@@ -2189,62 +1325,33 @@ public class PenCharacter {
 	// 'X' is checked using the checkForCShape() and the isSmallLetter() methods
 
 	// 'Y' is made up of a back slash ('\'), a forward slash ('/') and a vertical line ('|')
-	private boolean checkForCapitalY(){
+	private boolean checkForCapitalY(int fSlashIndex, int bSlashIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int fSlashIndex = -1;
-			int bSlashIndex = -1;
-			int vLineIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'Y' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
 
-			// Check to make sure that the three component strokes for 'Y' are there, i.e.,
-			// fSlashIndex, bSlashIndex, and vLineIndex are all not negative
-			if ((fSlashIndex >= 0) & (bSlashIndex >= 0) & (vLineIndex >= 0)) {
+		// Get the bottom coords of FSLASH and BSLASH
+		float fSlashBottomX = mRelations.getBottomX(fSlashIndex); // x-coord of bottom end of the FSLASH stroke
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of bottom end of the FSLASH stroke
 
-				// Get the bottom coords of FSLASH and BSLASH
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));		
-				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
-				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke
+		float bSlashBottomX = mRelations.getBottomX(bSlashIndex); // x-coord of bottom end of the BSLASH stroke
+		float bSlashBottomY = mRelations.getBottomY(bSlashIndex); // y-coord of bottom end of the BSLASH stroke
 
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bSlashIndex));		
-				float bSlashBottomX = coords[2]; // x-coord of bottom end of the BSLASH stroke
-				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke
+		float avgSlashBottomX = (fSlashBottomX + bSlashBottomX)/2;
+		float avgSlashBottomY = (fSlashBottomY + bSlashBottomY)/2;
 
-				float avgSlashBottomX = (fSlashBottomX + bSlashBottomX)/2;
-				float avgSlashBottomY = (fSlashBottomY + bSlashBottomY)/2;
+		float hLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float hLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float hLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float hLineHeight = Math.abs(hLineBottomY - hLineTopY);
 
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float hLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float hLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float hLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float hLineHeight = Math.abs(hLineBottomY - hLineTopY);
+		// Check to see if the gap between the bottom of FSLASH and BSLASH is less than one quarter the distance
+		// between their tops and the bottom of FSLASH and BSLASH is less than half the HLINE height from the
+		// top of HLINE
+		matchedP = 
+			(gapCheckForVShape(fSlashIndex, bSlashIndex)) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(avgSlashBottomX, avgSlashBottomY, hLineTopX, hLineTopY), .5 * hLineHeight);
 
-				// Check to see if the gap between the bottom of FSLASH and BSLASH is less than one quarter the distance
-				// between their tops and the bottom of FSLASH and BSLASH is less than half the HLINE height from the
-				// top of HLINE
-				matchedP = 
-					(gapCheckForVShape(mPenSegments.elementAt(fSlashIndex), mPenSegments.elementAt(bSlashIndex))) &
-					(PenUtil.distanceBetween2Points(avgSlashBottomX, avgSlashBottomY, hLineTopX, hLineTopY) < .5 * hLineHeight);
 
-			}
-		}
 		return matchedP;
 	} // End of checkForCapitalY()
 
@@ -2257,117 +1364,62 @@ public class PenCharacter {
 	 ************************/
 
 	// 'a' has a FC and VLINE on the right joining the VLINE almost at the top and bottom
-	private boolean checkForSmallA() {
+	private boolean checkForSmallA(int fCIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 2) {
-			// Indices listed in writing order, i.e., FC first and then VLINE (both strokes should be written top to bottom)
-			int fCIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'a' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.FC_CHAR:
-					fCIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the x,y of the top and bottom of FC
+		float fCTopX = mRelations.getTopX(fCIndex); // x-coord of top end of the FC stroke
+		float fCTopY = mRelations.getTopY(fCIndex); // y-coord of top end of the FC stroke
+		float fCBottomX = mRelations.getBottomX(fCIndex); // x-coord of bottom end of the FC stroke
+		float fCBottomY = mRelations.getBottomY(fCIndex); // y-coord of bottom end of the FC stroke
 
-			// Check to make sure that the two component strokes for 'a' are there, i.e.,
-			// fCIndex and vLineIndex are both not negative
-			if ((fCIndex >= 0) & (vLineIndex >= 0)) {
-				// Get the x,y of the top and bottom of FC
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fCIndex));
-				float fCTopX = coords[0]; // x-coord of top end of the FC stroke
-				float fCTopY = coords[1]; // y-coord of top end of the FC stroke
-				float fCBottomX = coords[2]; // x-coord of bottom end of the FC stroke
-				float fCBottomY = coords[3]; // y-coord of bottom end of the FC stroke
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.2 * vLineHeight;
-
-				// Check to see if the gap between the top ends of VLINE and FC and that between
-				// the bottom ends of VLINE and FC are less than the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, fCTopX, fCTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, fCBottomX, fCBottomY) < gapThreshold);
-			}
-		}
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.2 * vLineHeight;
+
+		// Check to see if the gap between the top ends of VLINE and FC and that between
+		// the bottom ends of VLINE and FC are less than the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, fCTopX, fCTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, fCBottomX, fCBottomY), gapThreshold);
 
 		return matchedP;
 	}  // End of checkForSmallA()
 
-	// 'b' has a VLINE and a BC on the right joining the VLINE at the middle and bottom
-	private boolean checkForSmallB() {
-		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
+	// 'b' has a VLINE and a BC on the right joining the VLINE at the middle and bottom
+	private boolean checkForSmallB(int bCIndex, int vLineIndex) {
+		boolean matchedP = false;
+
+
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coordinate of the mid point of the VLINE stroke
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coordinate of the mid point of the VLINE stroke
+
+		// Get the x,y of the top and bottom of BC
+		float bCTopX = mRelations.getTopX(bCIndex); // x-coord of top end of the BC stroke
+		float bCTopY = mRelations.getTopY(bCIndex); // y-coord of top end of the BC stroke
+		float bCBottomX = mRelations.getBottomX(bCIndex); // x-coord of bottom end of the BC stroke
+		float bCBottomY = mRelations.getBottomY(bCIndex); // y-coord of bottom end of the BC stroke
 
-		if (numOfSegments == 2) {
-			// Indices listed in writing order, i.e., VLINE first and then BC (both strokes should be written top to bottom)
-			int vLineIndex = -1;
-			int bCIndex = -1;
-
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'b' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.BC_CHAR:
-					bCIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
 
-			// Check to make sure that the two component strokes for 'b' are there, i.e.,
-			// bCIndex and vLineIndex are both not negative
-			if ((bCIndex >= 0) & (vLineIndex >= 0)) {
-
-				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coordinate of the mid point of the VLINE stroke
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coordinate of the mid point of the VLINE stroke
-
-				// Get the x,y of the top and bottom of BC
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bCIndex));
-				float bCTopX = coords[0]; // x-coord of top end of the BC stroke
-				float bCTopY = coords[1]; // y-coord of top end of the BC stroke
-				float bCBottomX = coords[2]; // x-coord of bottom end of the BC stroke
-				float bCBottomY = coords[3]; // y-coord of bottom end of the BC stroke
-
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.2 * vLineHeight;
-
-				// Check to see if the following gaps are within their respective threshold
-				// i.  Gap between the middle of VLINE and top of BC
-				// ii. The gap between the bottom ends of VLINE and BC
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bCTopX, bCTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bCBottomX, bCBottomY) < gapThreshold);
-			}
-		}
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.2 * vLineHeight;
+
+		// Check to see if the following gaps are within their respective threshold
+		// i.  Gap between the middle of VLINE and top of BC
+		// ii. The gap between the bottom ends of VLINE and BC
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, bCTopX, bCTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bCBottomX, bCBottomY), gapThreshold);
 
 		return matchedP;
 	}  // End of checkForSmallB()
@@ -2375,111 +1427,57 @@ public class PenCharacter {
 	// 'c' is checked using the checkForCShape() and the isSmallLetter() methods
 
 	// 'd' has a FC and VLINE on the right joining the VLINE at the middle and bottom
-	private boolean checkForSmallD() {
+	private boolean checkForSmallD(int fCIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
-
-		if (numOfSegments == 2) {
-			// Indices listed in writing order, i.e., FC first and then VLINE (both strokes should be written top to bottom)
-			int fCIndex = -1;
-			int vLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'd' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.FC_CHAR:
-					fCIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
 
-			// Check to make sure that the two component strokes for 'd' are there, i.e.,
-			// fCIndex and vLineIndex are both not negative
-			if ((fCIndex >= 0) & (vLineIndex >= 0)) {
-				// Get the x,y of the top and bottom of FC
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fCIndex));
-				float fCTopX = coords[0]; // x-coord of top end of the FC stroke
-				float fCTopY = coords[1]; // y-coord of top end of the FC stroke
-				float fCBottomX = coords[2]; // x-coord of bottom end of the FC stroke
-				float fCBottomY = coords[3]; // y-coord of bottom end of the FC stroke
-
-				// Get x,y of the top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-				float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coordinate of the mid point of the VLINE stroke
-				float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coordinate of the mid point of the VLINE stroke		
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.2 * vLineHeight;
-
-				// Check to see if the following gaps are within their respective threshold
-				// i.  Gap between the middle of VLINE and top of FC
-				// ii. The gap between the bottom ends of VLINE and FC
-				matchedP =
-					(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, fCTopX, fCTopY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, fCBottomX, fCBottomY) < gapThreshold);
-			}
-		}
+		// Get the x,y of the top and bottom of FC
+		float fCTopX = mRelations.getTopX(fCIndex); // x-coord of top end of the FC stroke
+		float fCTopY = mRelations.getTopY(fCIndex); // y-coord of top end of the FC stroke
+		float fCBottomX = mRelations.getBottomX(fCIndex); // x-coord of bottom end of the FC stroke
+		float fCBottomY = mRelations.getBottomY(fCIndex); // y-coord of bottom end of the FC stroke
+
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+		float vLineMidX = (vLineTopX + vLineBottomX)/2; // x-coordinate of the mid point of the VLINE stroke
+		float vLineMidY = (vLineTopY + vLineBottomY)/2; // y-coordinate of the mid point of the VLINE stroke		
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.2 * vLineHeight;
+
+		// Check to see if the following gaps are within their respective threshold
+		// i.  Gap between the middle of VLINE and top of FC
+		// ii. The gap between the bottom ends of VLINE and FC
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineMidX, vLineMidY, fCTopX, fCTopY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, fCBottomX, fCBottomY), gapThreshold);
 
 		return matchedP;
 	}  // End of checkForSmallD()
 
 	// 'i' has a VLINE and a DOT above it
-	private boolean checkForSmallI() {
+	private boolean checkForSmallI(int vLineIndex, int dotIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 2) {
-			// Indices listed in writing order, i.e., VLINE (top down)and then a DOT above the VLINE
-			int vLineIndex = -1;
-			int dotIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'i' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.DOT_CHAR:
-					dotIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke	
 
-			// Check to make sure that the two component strokes for 'i' are there, i.e.,
-			// vLineIndex and dotIndex are both not negative
-			if ((vLineIndex >= 0) & (dotIndex >= 0)) {
-				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke	
-
-				float vLineHeight = vLineBottomY - vLineTopY;
-				double verticalGapThreshold = 0.5 * vLineHeight;
-				double horizontalGapThreshold = 0.1 * vLineHeight;
-
-				// Get the x,y of the top and bottom of DOT
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(dotIndex));
-				float dotBottomX = coords[2]; // x-coord of bottom end of the DOT stroke
-				float dotBottomY = coords[3]; // y-coord of bottom end of the DOT stroke
-
-				// Check to see if the DOT is above the VLINE
-				matchedP =
-					isBetweenThresholds((vLineTopY - dotBottomY),  0, verticalGapThreshold) &
-					(Math.abs(vLineTopX - dotBottomX) < horizontalGapThreshold);
-			}
-		}
+		float vLineHeight = vLineBottomY - vLineTopY;
+		double verticalGapThreshold = 0.5 * vLineHeight;
+		double horizontalGapThreshold = 0.1 * vLineHeight;
+
+		// Get the x,y of the top and bottom of DOT
+		float dotBottomX = mRelations.getBottomX(dotIndex); // x-coord of bottom end of the DOT stroke
+		float dotBottomY = mRelations.getBottomY(dotIndex); // y-coord of bottom end of the DOT stroke
+
+		// Check to see if the DOT is above the VLINE
+		matchedP =
+			isBetweenThresholds((vLineTopY - dotBottomY),  0, verticalGapThreshold) &
+			isWithinThreshold(Math.abs(vLineTopX - dotBottomX), horizontalGapThreshold);
 
 		return matchedP;
 	}  // End of checkForSmallI()
@@ -2488,72 +1486,46 @@ public class PenCharacter {
 	// 'p' is checked using checkForPShape() and letter size check
 
 	// 'q' has a VLINE and a FC on the right joining the VLINE at the top and middle
-	private boolean checkForSmallQ() {
+	private boolean checkForSmallQ(int fCIndex, int vLineIndex) {
 		boolean matchedP = false;
 
-		double vLineTopYMin = .4 * Skiggle.DEFAULT_WRITE_PAD_HEIGHT;
+		double vLineTopYMin = mProfile.get(RecognizerProfile.UPPER_ZONE_HEIGHT) * Skiggle.DEFAULT_WRITE_PAD_HEIGHT;
 		double vLineTopYMax = Skiggle.DEFAULT_WRITE_PAD_HEIGHT + 1.0;
 
 		// Check to see if the following are true
 		// i.   VLINE and FC form a q or 9 shape
 		// ii.  The top of the VLINE is more than .4 the height of the writing area from the top edge of the writing area
 		matchedP =
-			checkFor9OrSmallQ((float)vLineTopYMin, (float)vLineTopYMax);
+			checkFor9OrSmallQ(fCIndex, vLineIndex, (float)vLineTopYMin, (float)vLineTopYMax);
 
 		return matchedP;
 	}  // End of checkForSmallQ()
 
 	// 't' has a VLINE and a HLINE cutting the VLINE somewhere between .2 and .4 of the VLINE's height from the top of VLINE
-	private boolean checkForSmallT() {
+	private boolean checkForSmallT(int vLineIndex, int hLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 2) {
-			int vLineIndex = -1;
-			int hLineIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 't' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.HLINE_CHAR:
-					hLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
 
-			// Check to make sure that the two component strokes for 't' are there, i.e.,
-			// vLineIndex and hLineIndex are both not negative
-			if ((vLineIndex >= 0) & (hLineIndex >= 0)) {
-				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double minDistFromTop = 0.2 * vLineHeight;
-				double maxDistFromTop = 0.5 * vLineHeight;
-
-				coords = getLeftRightCoordsOfSegment(mPenSegments.elementAt(hLineIndex));
-				float hLineLeftX = coords[0]; // x-coord of left point of the HLINE stroke
-				float hLineLeftY = coords[1]; // y-coord of left point of the HLINE stroke
-				float hLineRightX = coords[2]; // x-coord of right point of the HLINE stroke
-				float hLineRightY = coords[3]; // y-coord of right point of the HLINE stroke
-				float hLineMidX = (hLineLeftX + hLineRightX)/2; // x-coord of the mid point of the HLINE stroke
-				float hLineMidY = (hLineLeftY + hLineRightY)/2; // y-coord of the mid point of the HLINE stroke
-
-				// Check to see if the gaps between the leftmost end the bottom HLINE and bottom of the VLINE
-				// is less than the gap threshold
-				matchedP =
-					(isBetweenThresholds(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, hLineMidX, hLineMidY),
-							minDistFromTop, maxDistFromTop));
-			}
-		}
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double minDistFromTop = 0.2 * vLineHeight;
+		double maxDistFromTop = 0.5 * vLineHeight;
+
+		float hLineLeftX = mRelations.getLeftX(hLineIndex); // x-coord of left point of the HLINE stroke
+		float hLineLeftY = mRelations.getLeftY(hLineIndex); // y-coord of left point of the HLINE stroke
+		float hLineRightX = mRelations.getRightX(hLineIndex); // x-coord of right point of the HLINE stroke
+		float hLineRightY = mRelations.getRightY(hLineIndex); // y-coord of right point of the HLINE stroke
+		float hLineMidX = (hLineLeftX + hLineRightX)/2; // x-coord of the mid point of the HLINE stroke
+		float hLineMidY = (hLineLeftY + hLineRightY)/2; // y-coord of the mid point of the HLINE stroke
+
+		// Check to see if the gaps between the leftmost end the bottom HLINE and bottom of the VLINE
+		// is less than the gap threshold
+		matchedP =
+			(isBetweenThresholds(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, hLineMidX, hLineMidY),
+					minDistFromTop, maxDistFromTop));
 
 		return matchedP;
 	}  // End of checkForSmallT()
@@ -2566,49 +1538,24 @@ public class PenCharacter {
 
 
 	// 'y' has a BSLASH and a FSLASH on the right with the bottom of the BSLASH touching the middle of the FSLASH
-	private boolean checkForSmallY() {
+	private boolean checkForSmallY(int bSlashIndex, int fSlashIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 2) {
-			int bSlashIndex = -1; // First stroke
-			int fSlashIndex = -1; // Second stroke
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'y' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
-			// Check to make sure that the two component strokes for 'y' are there, i.e.,
-			// fSlashIndex and bSlashIndex are both not negative
-			if ((bSlashIndex >= 0) & (fSlashIndex >= 0)) {
-
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bSlashIndex));		
-				float bSlashBottomX = coords[2]; // x-coord of bottom end of the BSLASH stroke
-				float bSlashBottomY = coords[3]; // y-coord of bottom end of the BSLASH stroke
-
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));		
-				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
-				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
-				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
-				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke
-				float fSlashAvgX = (fSlashTopX + fSlashBottomX)/2; // average of the x-coord of FSLASH
-				float fSlashAvgY = (fSlashTopY + fSlashBottomY)/2; // average of the y-coord of FSLASH
-				double gapThreshold = .25 * Math.abs(fSlashBottomY - fSlashTopY); 
-
-				// Check to make sure that the bottom of BSLASH touches the middle of FSLASH to form the 'y'
-				matchedP = 
-					PenUtil.distanceBetween2Points(bSlashBottomX, bSlashBottomY, fSlashAvgX, fSlashAvgY) < gapThreshold;
-			}
-		}
+
+		float bSlashBottomX = mRelations.getBottomX(bSlashIndex); // x-coord of bottom end of the BSLASH stroke
+		float bSlashBottomY = mRelations.getBottomY(bSlashIndex); // y-coord of bottom end of the BSLASH stroke
+
+		float fSlashTopX = mRelations.getTopX(fSlashIndex); // x-coord of top end of the FSLASH stroke
+		float fSlashTopY = mRelations.getTopY(fSlashIndex); // y-coord of top end of the FSLASH stroke
+		float fSlashBottomX = mRelations.getBottomX(fSlashIndex); // x-coord of bottom end of the FSLASH stroke
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of bottom end of the FSLASH stroke
+		float fSlashAvgX = (fSlashTopX + fSlashBottomX)/2; // average of the x-coord of FSLASH
+		float fSlashAvgY = (fSlashTopY + fSlashBottomY)/2; // average of the y-coord of FSLASH
+		double gapThreshold = .25 * Math.abs(fSlashBottomY - fSlashTopY); 
+
+		// Check to make sure that the bottom of BSLASH touches the middle of FSLASH to form the 'y'
+		matchedP = 
+			isWithinThreshold(PenUtil.distanceBetween2Points(bSlashBottomX, bSlashBottomY, fSlashAvgX, fSlashAvgY), gapThreshold);
 
 		return matchedP;
 	}  // End of checkForSmallY()
@@ -2625,53 +1572,26 @@ public class PenCharacter {
 
 	// Check for  '!'
 	// '!' has a VLINE and a DOT below it
-	private boolean checkForExclamationMark() {
+	private boolean checkForExclamationMark(int vLineIndex, int dotIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 2) {
-			// Indices listed in writing order, i.e., VLINE (top down)and then a DOT above the VLINE
-			int vLineIndex = -1;
-			int dotIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// '!' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				case PenSegment.DOT_CHAR:
-					dotIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get x,y of the top and bottom of VLINE
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke	
 
-			// Check to make sure that the two component strokes for '!' are there, i.e.,
-			// vLineIndex and dotIndex are both not negative
-			if ((vLineIndex >= 0) & (dotIndex >= 0)) {
-				// Get x,y of the top and bottom of VLINE
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of top end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke	
-
-				float vLineHeight = vLineBottomY - vLineTopY;
-				double verticalGapThreshold = 0.5 * vLineHeight;
-				double horizontalGapThreshold = 0.1 * vLineHeight;
-
-				// Get the x,y of the top and bottom of DOT
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(dotIndex));
-				float dotTopX = coords[0]; // x-coord of top end of the DOT stroke
-				float dotTopY = coords[1]; // y-coord of top end of the DOT stroke
-
-				// Check to see if the DOT is below the VLINE
-				matchedP =
-					isBetweenThresholds((dotTopY - vLineBottomY), 0, verticalGapThreshold) &
-					(Math.abs(dotTopX - vLineBottomX) < horizontalGapThreshold);
-			}
-		}
+		float vLineHeight = vLineBottomY - vLineTopY;
+		double verticalGapThreshold = 0.5 * vLineHeight;
+		double horizontalGapThreshold = 0.1 * vLineHeight;
+
+		// Get the x,y of the top and bottom of DOT
+		float dotTopX = mRelations.getTopX(dotIndex); // x-coord of top end of the DOT stroke
+		float dotTopY = mRelations.getTopY(dotIndex); // y-coord of top end of the DOT stroke
+
+		// Check to see if the DOT is below the VLINE
+		matchedP =
+			isBetweenThresholds((dotTopY - vLineBottomY), 0, verticalGapThreshold) &
+			isWithinThreshold(Math.abs(dotTopX - vLineBottomX), horizontalGapThreshold);
 
 		return matchedP;
 	}  // End of checkForExclamationMark()
@@ -2681,100 +1601,56 @@ public class PenCharacter {
 	// Check for  '#'
 	// '#' has a pair of FSLASH's ('/') next to each other and a pair of HLINE's ('-') one on top of the other
 	//  The pairs of FSLASH's and HLINE's cross each other.
-	private boolean checkForHashSymbol() {
+	private boolean checkForHashSymbol(int hLine1Index, int hLine2Index, int fSlash1Index, int fSlash2Index) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 4) {
-			int hLine1Index = -1;
-			int hLine2Index = -1;
-			int fSlash1Index = -1; 
-			int fSlash2Index = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// '#' has only four pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					if (hLine1Index < 0)
-						hLine1Index = i;
-					else
-						hLine2Index = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					if (fSlash1Index < 0)
-						fSlash1Index = i;
-					else
-						fSlash2Index = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the top and bottom HLINE strokes of '#'
+		int topHLineSegmentIndex = mRelations.getTopIndex(hLine1Index, hLine2Index);
+		int bottomHLineSegmentIndex = mRelations.getBottomIndex(hLine1Index, hLine2Index);
+
+		// Get the x,y coordinates at the one-third point of the top HLINE stroke
+		float topHLine1st3rdX = mRelations.getLeftRight1stThirdX(topHLineSegmentIndex);
+		float topHLine1st3rdY = mRelations.getLeftRight1stThirdY(topHLineSegmentIndex);
+		float topHLine2nd3rdX = mRelations.getLeftRight2ndThirdX(topHLineSegmentIndex);
+		float topHLine2nd3rdY = mRelations.getLeftRight2ndThirdY(topHLineSegmentIndex);
+
+		// Get the x,y coordinates at the two-third point of the bottom HLINE stroke
+		float bottomHLine1st3rdX = mRelations.getLeftRight1stThirdX(bottomHLineSegmentIndex);
+		float bottomHLine1st3rdY = mRelations.getLeftRight1stThirdY(bottomHLineSegmentIndex);
+		float bottomHLine2nd3rdX = mRelations.getLeftRight2ndThirdX(bottomHLineSegmentIndex);
+		float bottomHLine2nd3rdY = mRelations.getLeftRight2ndThirdY(bottomHLineSegmentIndex);
+
+		// Get the left and right FSLASH strokes of '#'
+		int leftFSlashSegmentIndex = mRelations.getTopIndex(fSlash1Index, fSlash2Index);
+		int rightFSlashSegmentIndex = mRelations.getBottomIndex(fSlash1Index, fSlash2Index);
+
+		// Get the x,y coordinates at the one-third point of the top FSLASH stroke
+		float leftFSlash1st3rdX = mRelations.getTopBottom1stThirdX(leftFSlashSegmentIndex);
+		float leftFSlash1st3rdY = mRelations.getTopBottom1stThirdY(leftFSlashSegmentIndex);
+		float leftFSlash2nd3rdX = mRelations.getTopBottom2ndThirdX(leftFSlashSegmentIndex);
+		float leftFSlash2nd3rdY = mRelations.getTopBottom2ndThirdY(leftFSlashSegmentIndex);
+
+		// Get the x,y coordinates at the one-third point of the top FSLASH stroke
+		float rightFSlash1st3rdX = mRelations.getTopBottom1stThirdX(rightFSlashSegmentIndex);
+		float rightFSlash1st3rdY = mRelations.getTopBottom1stThirdY(rightFSlashSegmentIndex);
+		float rightFSlash2nd3rdX = mRelations.getTopBottom2ndThirdX(rightFSlashSegmentIndex);
+		float rightFSlash2nd3rdY = mRelations.getTopBottom2ndThirdY(rightFSlashSegmentIndex);
+
+		float gapThreshold = 
+			// (float) 0.25 *
+			Math.min(Math.min(PenUtil.distanceBetween2Points(topHLine1st3rdX, topHLine1st3rdY, topHLine2nd3rdX, topHLine2nd3rdY),
+					PenUtil.distanceBetween2Points(bottomHLine1st3rdX, bottomHLine1st3rdY, bottomHLine2nd3rdX, bottomHLine2nd3rdY)),
+					Math.min(PenUtil.distanceBetween2Points(leftFSlash1st3rdX, leftFSlash1st3rdY, leftFSlash2nd3rdX, leftFSlash2nd3rdY),
+							PenUtil.distanceBetween2Points(rightFSlash1st3rdX, rightFSlash1st3rdY, rightFSlash2nd3rdX, rightFSlash2nd3rdY)));
+
+		// Check to see if the following gaps are close enough:
+		matchedP = 
+			isWithinThreshold(PenUtil.distanceBetween2Points(topHLine1st3rdX, topHLine1st3rdY, leftFSlash1st3rdX, leftFSlash1st3rdY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(topHLine2nd3rdX, topHLine2nd3rdY, rightFSlash1st3rdX, rightFSlash1st3rdY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(bottomHLine1st3rdX, bottomHLine1st3rdY, leftFSlash2nd3rdX, leftFSlash2nd3rdY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(bottomHLine2nd3rdX, bottomHLine2nd3rdY, rightFSlash2nd3rdX, rightFSlash2nd3rdY), gapThreshold);
 
-			// Check to make sure that the four component strokes for '#' are there, i.e.,
-			// hLine1Index, hLine2Index, fSlash1Index, and fSlash2Index are all not negative
-			if ((hLine1Index >= 0) & (hLine2Index >= 0) & (fSlash1Index >= 0) & (fSlash2Index >= 0)) {
-				// Get the top and bottom HLINE strokes of '#'
-				PenSegment topBottomHLineSegments[] = 
-					order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(hLine1Index),
-							mPenSegments.elementAt(hLine2Index));
-
-				// Get the x,y coordinates at the one-third point of the top HLINE stroke
-				PenSegment topHLineSegment = topBottomHLineSegments[0];
-				float coords[] = getLeftRightCoordsOfSegment(topHLineSegment);
-				float coordsOf1stAnd2ndThirdMarks[] = getPointsAt1stAnd2ndThirdMarks(coords[0], coords[1], coords[2], coords[3]);
-				float topHLine1st3rdX = coordsOf1stAnd2ndThirdMarks[0];
-				float topHLine1st3rdY = coordsOf1stAnd2ndThirdMarks[1];
-				float topHLine2nd3rdX = coordsOf1stAnd2ndThirdMarks[2];
-				float topHLine2nd3rdY = coordsOf1stAnd2ndThirdMarks[3];
-
-				// Get the x,y coordinates at the two-third point of the bottom HLINE stroke
-				PenSegment bottomHLineSegment = topBottomHLineSegments[1];
-				coords = getLeftRightCoordsOfSegment(bottomHLineSegment);
-				coordsOf1stAnd2ndThirdMarks = getPointsAt1stAnd2ndThirdMarks(coords[0], coords[1], coords[2], coords[3]);
-				float bottomHLine1st3rdX = coordsOf1stAnd2ndThirdMarks[0];
-				float bottomHLine1st3rdY = coordsOf1stAnd2ndThirdMarks[1];
-				float bottomHLine2nd3rdX = coordsOf1stAnd2ndThirdMarks[2];
-				float bottomHLine2nd3rdY = coordsOf1stAnd2ndThirdMarks[3];
-
-				// Get the left and right FSLASH strokes of '#'
-				PenSegment leftRightFSlashSegments[] = 
-					order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(fSlash1Index),
-							mPenSegments.elementAt(fSlash2Index));
-
-				// Get the x,y coordinates at the one-third point of the top FSLASH stroke
-				PenSegment leftFSlashSegment = leftRightFSlashSegments[0];
-				coords = getTopBottomCoordsOfSegment(leftFSlashSegment);
-				coordsOf1stAnd2ndThirdMarks = getPointsAt1stAnd2ndThirdMarks(coords[0], coords[1], coords[2], coords[3]);
-				float leftFSlash1st3rdX = coordsOf1stAnd2ndThirdMarks[0];
-				float leftFSlash1st3rdY = coordsOf1stAnd2ndThirdMarks[1];
-				float leftFSlash2nd3rdX = coordsOf1stAnd2ndThirdMarks[2];
-				float leftFSlash2nd3rdY = coordsOf1stAnd2ndThirdMarks[3];
-
-				// Get the x,y coordinates at the one-third point of the top FSLASH stroke
-				PenSegment rightFSlashSegment = leftRightFSlashSegments[1];
-				coords = getTopBottomCoordsOfSegment(rightFSlashSegment);
-				coordsOf1stAnd2ndThirdMarks = getPointsAt1stAnd2ndThirdMarks(coords[0], coords[1], coords[2], coords[3]);
-				float rightFSlash1st3rdX = coordsOf1stAnd2ndThirdMarks[0];
-				float rightFSlash1st3rdY = coordsOf1stAnd2ndThirdMarks[1];
-				float rightFSlash2nd3rdX = coordsOf1stAnd2ndThirdMarks[2];
-				float rightFSlash2nd3rdY = coordsOf1stAnd2ndThirdMarks[3];
-
-				float gapThreshold = 
-					// (float) 0.25 *
-					Math.min(Math.min(PenUtil.distanceBetween2Points(topHLine1st3rdX, topHLine1st3rdY, topHLine2nd3rdX, topHLine2nd3rdY),
-							PenUtil.distanceBetween2Points(bottomHLine1st3rdX, bottomHLine1st3rdY, bottomHLine2nd3rdX, bottomHLine2nd3rdY)),
-							Math.min(PenUtil.distanceBetween2Points(leftFSlash1st3rdX, leftFSlash1st3rdY, leftFSlash2nd3rdX, leftFSlash2nd3rdY),
-									PenUtil.distanceBetween2Points(rightFSlash1st3rdX, rightFSlash1st3rdY, rightFSlash2nd3rdX, rightFSlash2nd3rdY)));
-
-				// Check to see if the following gaps are close enough:
-				matchedP = 
-					(PenUtil.distanceBetween2Points(topHLine1st3rdX, topHLine1st3rdY, leftFSlash1st3rdX, leftFSlash1st3rdY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(topHLine2nd3rdX, topHLine2nd3rdY, rightFSlash1st3rdX, rightFSlash1st3rdY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(bottomHLine1st3rdX, bottomHLine1st3rdY, leftFSlash2nd3rdX, leftFSlash2nd3rdY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(bottomHLine2nd3rdX, bottomHLine2nd3rdY, rightFSlash2nd3rdX, rightFSlash2nd3rdY) < gapThreshold);
 
-			}
-		}
 		return matchedP;
 	} // End of checkForHashSymbol()
 
@@ -2784,65 +1660,37 @@ public class PenCharacter {
 
 	// Check for  '%'
 	// '%' CIRCLE ('o') at the top and bottom of a FSLASH ('/')
-	private boolean checkForPercentSign() {
+	private boolean checkForPercentSign(int topCircleIndex, int fSlashIndex, int bottomCircleIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int topCircleIndex = -1;
-			int fSlashIndex = -1;
-			int bottomCircleIndex = -1;
-			for (int i = 0; i < numOfSegments; i++) {
-				// '%' has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.CIRCLE_CHAR:
-					if (topCircleIndex < 0)
-						topCircleIndex = i;
-					else
-						bottomCircleIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the top and bottom CIRCLE strokes of '%'
+		int topCircleSegmentIndex = mRelations.getTopIndex(topCircleIndex, bottomCircleIndex);
+		int bottomCircleSegmentIndex = mRelations.getBottomIndex(topCircleIndex, bottomCircleIndex);
+
+		// Get x, y coords of the middle of the top CIRCLE
+		float topCircleMidX = mPenSegments.elementAt(topCircleSegmentIndex).mAvgX; // x-coord of mid point of the top CIRCLE;
+		float topCircleMidY = mPenSegments.elementAt(topCircleSegmentIndex).mAvgY; // y-coord of mid point of the top CIRCLE;
+
+		// Get x, y coords of the middle of the bottom CIRCLE
+		float bottomCircleMidX = mPenSegments.elementAt(bottomCircleSegmentIndex).mAvgX; // x-coord of mid point of the bottom CIRCLE;
+		float bottomCircleMidY = mPenSegments.elementAt(bottomCircleSegmentIndex).mAvgY; // y-coord of mid point of the bottom CIRCLE;
+
+		// Get x,y of top and bottom of FSLASH
+		float fSlashTopX = mRelations.getTopX(fSlashIndex); // x-coord of top end of the FSLASH stroke
+		float fSlashTopY = mRelations.getTopY(fSlashIndex); // y-coord of top end of the FSLASH stroke
+		float fSlashBottomX = mRelations.getBottomX(fSlashIndex); // x-coord of bottom end of the FSLASH stroke
+		float fSlashBottomY = mRelations.getBottomY(fSlashIndex); // y-coord of bottom end of the FSLASH stroke
+		float fSlashMidX = (fSlashTopX + fSlashBottomX)/2; // x-ccord of the mid point of the FSLASH stroke
+		float fSlashMidY = (fSlashTopY + fSlashBottomY)/2; // y-ccord of the mid point of the FSLASH stroke
+
+		float fSlashHeight = fSlashBottomY - fSlashTopY;
+		double gapThreshold = 0.5 * fSlashHeight;
+
+		// Check to see if the gaps between the mid-points of the top and bottom HLINE's are less than the gap threshold
+		matchedP =
+			isWithinThreshold(PenUtil.distanceBetween2Points(fSlashMidX, fSlashMidY, topCircleMidX, topCircleMidY), gapThreshold) &
+			isWithinThreshold(PenUtil.distanceBetween2Points(fSlashMidX, fSlashMidY, bottomCircleMidX, bottomCircleMidY), gapThreshold);
 
-			// Check to make sure that the three component strokes for '%' are there, i.e.,
-			// topCircleIndex, vLineIndex, and bottomCircleIndex are all not negative
-			if ((topCircleIndex >= 0) & (fSlashIndex >= 0) & (bottomCircleIndex >= 0)) {
-				// Get the top and bottom CIRCLE strokes of '%'
-				PenSegment topBottomCircleSegments[] = 
-					order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(topCircleIndex),
-							mPenSegments.elementAt(bottomCircleIndex));
-
-				// Get x, y coords of the middle of the top CIRCLE
-				float topCircleMidX = topBottomCircleSegments[0].mAvgX; // x-coord of mid point of the top CIRCLE;
-				float topCircleMidY = topBottomCircleSegments[0].mAvgY; // y-coord of mid point of the top CIRCLE;
-
-				// Get x, y coords of the middle of the bottom CIRCLE
-				float bottomCircleMidX = topBottomCircleSegments[1].mAvgX; // x-coord of mid point of the bottom CIRCLE;
-				float bottomCircleMidY = topBottomCircleSegments[1].mAvgY; // y-coord of mid point of the bottom CIRCLE;
-
-				// Get x,y of top and bottom of FSLASH
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(fSlashIndex));
-				float fSlashTopX = coords[0]; // x-coord of top end of the FSLASH stroke
-				float fSlashTopY = coords[1]; // y-coord of top end of the FSLASH stroke
-				float fSlashBottomX = coords[2]; // x-coord of bottom end of the FSLASH stroke
-				float fSlashBottomY = coords[3]; // y-coord of bottom end of the FSLASH stroke
-				float fSlashMidX = (fSlashTopX + fSlashBottomX)/2; // x-ccord of the mid point of the FSLASH stroke
-				float fSlashMidY = (fSlashTopY + fSlashBottomY)/2; // y-ccord of the mid point of the FSLASH stroke
-
-				float fSlashHeight = fSlashBottomY - fSlashTopY;
-				double gapThreshold = 0.5 * fSlashHeight;
-
-				// Check to see if the gaps between the mid-points of the top and bottom HLINE's are less than the gap threshold
-				matchedP =
-					(PenUtil.distanceBetween2Points(fSlashMidX, fSlashMidY, topCircleMidX, topCircleMidY) < gapThreshold) &
-					(PenUtil.distanceBetween2Points(fSlashMidX, fSlashMidY, bottomCircleMidX, bottomCircleMidY) < gapThreshold);
-			}
-		}
 		return matchedP;
 	} // End of checkForPercentSign()
 
@@ -2850,28 +1698,18 @@ public class PenCharacter {
 	// Check for  '\''
 
 	// Check for  '('
-	private boolean checkForLeftParenthesis() {
-		boolean matchedP = false;
-		// In checkForCShape, a test is done to see if the C shape is curved enough.  If so it is a "c" or "C".
-		// If not it is assumed to be a left parenthesis after confirming that the it is a FC_CHAR stroke primitive.
-		if (mPenSegments.size() == 1) // Left prenthesis has only one stroke
-			matchedP = (mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.FC_CHAR);
-		
-		return matchedP;
-	} // checkForLeftParenthesis()
+	// In checkForCShape, a test is done to see if the C shape is curved enough.  If so it is a "c" or "C".
+	// If not it is assumed to be a left parenthesis, which is any single FC_CHAR stroke primitive (LEFT_PARENTHESIS_RULE).
 
 	// Check for  ')' or ','
 	// Check for the BC stroke that form ')' or ',' and return either ')', ',' or NUL (Ascii value 0)
-	private char checkForRightParenthesisOrComma() {
+	private char checkForRightParenthesisOrComma(int bCIndex) {
 		char c = '\0';
 
-		if (mPenSegments.size() == 1) // ')' or ',' has only one stroke
-			if (mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.BC_CHAR) {
-				// Check to see the BC is no more than one third the height of the screen from the bottom of the screen
-				if (mPenSegments.elementAt(0).mAvgY > Skiggle.DEFAULT_WRITE_PAD_HEIGHT * (2.0/3))
-					c = ',';   // If so then it is a comma ','
-				else c = ')';  // otherwise it is a right parenthesis ')'
-			}
+		// Check to see the BC is no more than one third the height of the screen from the bottom of the screen
+		if (isInLowerZone(bCIndex))
+			c = ',';   // If so then it is a comma ','
+		else c = ')';  // otherwise it is a right parenthesis ')'
 
 		return c;
 	} // End of checkForRightParenthesisOrComma()
@@ -2879,56 +1717,31 @@ public class PenCharacter {
 	// Check for  '*'
 
 	// Check for  '+'
-	private boolean checkForPlusSign() {
+	private boolean checkForPlusSign(int hLineIndex, int vLineIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
 
+		float hLineTopX = mRelations.getTopX(hLineIndex); // x-coord of top end of the HLINE stroke
+		float hLineTopY = mRelations.getTopY(hLineIndex); // y-coord of top end of the HLINE stroke
+		float hLineBottomX = mRelations.getBottomX(hLineIndex); // x-coord of bottom end of the HLINE stroke
+		float hLineBottomY = mRelations.getBottomY(hLineIndex); // y-coord of bottom end of the HLINE stroke
+		float hLineAvgX = (hLineTopX + hLineBottomX)/2; // average of x-coord (mid-point) of HLINE stroke
+		float hLineAvgY = (hLineTopY + hLineBottomY)/2; // average of y-coord (mid-point) of HLINE stroke
+
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLLINE stroke
+		float vLineAvgX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of VLINE stroke
+		float vLineAvgY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of VLINE stroke
+
+		float topGap = PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, hLineTopX, hLineTopY);
+		float bottomGap = PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, hLineBottomX, hLineBottomY);
+		float midGap = PenUtil.distanceBetween2Points(vLineAvgX, vLineAvgY, hLineAvgX, hLineAvgY);
+		float maxGap = Math.max(topGap, bottomGap);
+
+		// Check to make sure HLINE and VLINE cross sufficiently to form the '+'
+		matchedP = isWithinThreshold(midGap, .25 * maxGap); // gap between the mid points of HLINE and VLINE must be small enough
 
-		if (numOfSegments == 2) {
-			int hLineIndex = -1; // first stroke E to W
-			int vLineIndex = -1; // second stroke N to S
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// '+' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					hLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
-			// Check to make sure that the two component strokes for '+' are there, i.e.,
-			// vLineIndex and hLineIndex are both not negative
-			if ((hLineIndex >= 0) & (vLineIndex >= 0)) {
-				float coords[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(hLineIndex));		
-				float hLineTopX = coords[0]; // x-coord of top end of the HLINE stroke
-				float hLineTopY = coords[1]; // y-coord of top end of the HLINE stroke
-				float hLineBottomX = coords[2]; // x-coord of bottom end of the HLINE stroke
-				float hLineBottomY = coords[3]; // y-coord of bottom end of the HLINE stroke
-				float hLineAvgX = (hLineTopX + hLineBottomX)/2; // average of x-coord (mid-point) of HLINE stroke
-				float hLineAvgY = (hLineTopY + hLineBottomY)/2; // average of y-coord (mid-point) of HLINE stroke
-
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));		
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLLINE stroke
-				float vLineAvgX = (vLineTopX + vLineBottomX)/2; // average of x-coord (mid-point) of VLINE stroke
-				float vLineAvgY = (vLineTopY + vLineBottomY)/2; // average of y-coord (mid-point) of VLINE stroke
-
-				float topGap = PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, hLineTopX, hLineTopY);
-				float bottomGap = PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, hLineBottomX, hLineBottomY);
-				float midGap = PenUtil.distanceBetween2Points(vLineAvgX, vLineAvgY, hLineAvgX, hLineAvgY);
-				float maxGap = Math.max(topGap, bottomGap);
-
-				// Check to make sure HLINE and VLINE cross sufficiently to form the '+'
-				matchedP = (midGap < (.25 * maxGap)); // gap between the mid points of HLINE and VLINE must be small enough
-			}
-		}
 		return matchedP;
 	} // End of checkForPlusSign()
 
@@ -2938,201 +1751,105 @@ public class PenCharacter {
 
 	// Check for  '-' or '_'
 	// Check for the HLINE stroke that form '-' or '_' and return either '-', '_' or NUL (Ascii value 0)
-	private char checkForDashOrUnderscore() {
+	// (DASH_OR_UNDERSCORE_RULE takes a single FSLASH_CHAR stroke primitive, as this check always has)
+	private char checkForDashOrUnderscore(int fSlashIndex) {
 		char c = '\0';
 
-		if (mPenSegments.size() == 1) // '-' or '_' has only one stroke
-			if (mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.FSLASH_CHAR) {
-				// Check to see the HLINE is no more than one third the height of the screen from the bottom of the screen
-				if (mPenSegments.elementAt(0).mAvgY > Skiggle.DEFAULT_WRITE_PAD_HEIGHT * (2.0/3))
-					c = '_';   // If so then it is an underscore '_'
-				else c = '-';  // otherwise it is a dash '-'
-			}
+		// Check to see the HLINE is no more than one third the height of the screen from the bottom of the screen
+		if (isInLowerZone(fSlashIndex))
+			c = '_';   // If so then it is an underscore '_'
+		else c = '-';  // otherwise it is a dash '-'
 
 		return c;
 	} // End of checkForDashOrUnderscore()
 
 	// Check for  '.'
-	private boolean checkForPeriod() {
-		boolean matchedP = false;
-		if (mPenSegments.size() == 1) // Back slash has only one stroke
-			matchedP = (mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.DOT_CHAR);
-
-		return matchedP;
-	} // checkForPeriod()
+	// '.' is any single DOT_CHAR stroke primitive (PERIOD_RULE)
 
 	// Check for  '/'
-	private boolean checkForForwardSlash() {
-		boolean matchedP = false;
-		if (mPenSegments.size() == 1) // Forward slash has only one stroke
-			matchedP = (mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.FSLASH_CHAR);
-
-		return matchedP;
-	} // checkForForwardSlash()
+	// '/' is any single FSLASH_CHAR stroke primitive (FORWARD_SLASH_RULE)
 
 	// Check for  ':'
 	// ':' has a two DOT's, one on top of the other
-	private boolean checkForColon() {
+	private boolean checkForColon(int dot1Index, int dot2Index) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
-
-		if (numOfSegments == 2) {
-			int dot1Index = -1;
-			int dot2Index = -1;
 
-			for (int i = 0; i < numOfSegments; i++) {
-				// ':' has only two pen stroke characters
-				if (mPenSegments.elementAt(i).mPenSegmentCharacter == PenSegment.DOT_CHAR)
-					if (dot1Index < 0) dot1Index = i;
-					else dot2Index = i;
-			}
-
-			// Check to make sure that the two component strokes for ':' are there, i.e.,
-			// dot1Index and dot2Index are both not negative
-			if ((dot1Index >= 0) & (dot2Index >= 0)) {
-				PenSegment pSegments[] = order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(dot1Index), mPenSegments.elementAt(dot2Index));
-				// Get x,y of the top DOT
-				float topDotX = pSegments[0].mAvgX; // x-coord of the top DOT
+		int topDotSegmentIndex = mRelations.getTopIndex(dot1Index, dot2Index);
+		// Get x,y of the top DOT
+		float topDotX = mPenSegments.elementAt(topDotSegmentIndex).mAvgX; // x-coord of the top DOT
 
-				// Get x,y of the bottom DOT
-				float bottomDotX = pSegments[0].mAvgX; // x-coord of the bottom DOT
+		// Get x,y of the bottom DOT
+		float bottomDotX = mPenSegments.elementAt(topDotSegmentIndex).mAvgX; // x-coord of the bottom DOT
 
-				// Check to see if the DOT is below the dot1
-				matchedP = (Math.abs(topDotX - bottomDotX) < 20);
-			}
-		}
+		// Check to see if the DOT is below the dot1
+		matchedP = isWithinThreshold(Math.abs(topDotX - bottomDotX), 20);
 
 		return matchedP;
 	}  // End of checkForColon()
 
 	// Check for  ';'
 	// ';' has a  DOT and a BC below it
-	private boolean checkForSemiColon() {
+	private boolean checkForSemiColon(int dotIndex, int bCIndex) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
-
-		if (numOfSegments == 2) {
-			int dotIndex = -1;
-			int bCIndex = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// ';' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.DOT_CHAR:
-					dotIndex = i;
-					break;
-				case PenSegment.BC_CHAR:
-					bCIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
 
-			// Check to make sure that the two component strokes for ';' are there, i.e.,
-			// dotIndex and bCIndex are both not negative
-			if ((dotIndex >= 0) & (bCIndex >= 0)) {
-				// Get x,y of the top DOT
+		// Get x,y of the top DOT
 
-				float dotX = mPenSegments.elementAt(dotIndex).mAvgX; // x-coord of the top DOT
-				//				float dotY = mPenSegments.elementAt(dotIndex).mAvgY; // y-coord of the top DOT
+		float dotX = mPenSegments.elementAt(dotIndex).mAvgX; // x-coord of the top DOT
+		//				float dotY = mPenSegments.elementAt(dotIndex).mAvgY; // y-coord of the top DOT
 
-				// Get x,y of the bottom DOT
-				float coord[] = getTopBottomCoordsOfSegment(mPenSegments.elementAt(bCIndex));
-				float bCTopX = coord[0]; // x-coord of top end of BC
-				//				float bCTopY = coord[1]; // y-coord of the top end of BC
+		// Get x,y of the bottom DOT
+		float bCTopX = mRelations.getTopX(bCIndex); // x-coord of top end of BC
+		//				float bCTopY = mRelations.getTopY(bCIndex); // y-coord of the top end of BC
 
-				// Check to see if the BC is below the DOT
-				matchedP = (Math.abs(dotX - bCTopX) < 20);
-			}
-		}
+		// Check to see if the BC is below the DOT
+		matchedP = isWithinThreshold(Math.abs(dotX - bCTopX), 20);
 
 		return matchedP;
 	}  // End of checkForSemiColon()
 
 	// Check for  '<' or '>'
 	// Check for the two strokes that form '<' or '>' and return either '<', '>' or NUL (Ascii value 0)
-	private char checkForLessOrGreaterThanSign() {
+	private char checkForLessOrGreaterThanSign(int bSlashIndex, int fSlashIndex) {
 		char c = '\0';
-		int numOfSegments = mPenSegments.size();
 
+		int topSlashSegmentIndex = mRelations.getTopIndex(bSlashIndex, fSlashIndex);
+		int bottomSlashSegmentIndex = mRelations.getBottomIndex(bSlashIndex, fSlashIndex);
+
+		// Get x,y of the top slash (could be an FSLASH or BSLASH)
+		float topSlashTopY = mRelations.getTopY(topSlashSegmentIndex); // y-coord of the top of the top slash
+		float topSlashBottomX = mRelations.getBottomX(topSlashSegmentIndex); // x-coord of the bottom of the top slash
+		float topSlashBottomY = mRelations.getBottomY(topSlashSegmentIndex); // y-coord of the bottom of the top slash
+
+		// Get x,y of the bottom slash (could be an FSLASH or BSLASH)
+		float bottomSlashTopX = mRelations.getTopX(bottomSlashSegmentIndex); // x-coord of the top of the bottom slash
+		float bottomSlashTopY = mRelations.getTopY(bottomSlashSegmentIndex); // y-coord of the top of the bottom slash
+		float bottomSlashBottomY = mRelations.getBottomY(bottomSlashSegmentIndex); // y-coord of the bottom of the bottom slash
+
+		float strokesHeight = bottomSlashBottomY - topSlashTopY;
+
+		// Check to see the bottom of the top slash and the top of the bottom slash are closed enough
+		if (isWithinThreshold(PenUtil.distanceBetween2Points(topSlashBottomX, topSlashBottomY, bottomSlashTopX, bottomSlashTopY), .1 * strokesHeight))
+			if (mPenSegments.elementAt(topSlashSegmentIndex).mPenSegmentCharacter == PenSegment.BSLASH_CHAR) // If the top slash is a BSLASH
+				c = '>';                                                  // then it is a '>'
+			else c = '<';                                                 // otherwise it is a '<'
 
-		if (numOfSegments == 2) {
-			int bSlashIndex = -1; // first stroke NW to SE
-			int fSlashIndex = -1; // second stroke NE to SW
-			for (int i = 0; i < numOfSegments; i++) {
-				// '>' has only two pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.BSLASH_CHAR:
-					bSlashIndex = i;
-					break;
-				case PenSegment.FSLASH_CHAR:
-					fSlashIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
-			// Check to make sure that the two component strokes for '<' or '>' are there, i.e.,
-			// fSlashIndex and bSlashIndex are both not negative
-			if ((bSlashIndex >= 0) & (fSlashIndex >= 0)) {
-				PenSegment pSegments[] = order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(bSlashIndex), mPenSegments.elementAt(fSlashIndex));
-
-				// Get x,y of the top slash (could be an FSLASH or BSLASH)
-				float coords[] = getTopBottomCoordsOfSegment(pSegments[0]);
-				float topSlashTopY = coords[1]; // y-coord of the top of the top slash
-				float topSlashBottomX = coords[2]; // x-coord of the bottom of the top slash
-				float topSlashBottomY = coords[3]; // y-coord of the bottom of the top slash
-
-				// Get x,y of the bottom slash (could be an FSLASH or BSLASH)
-				coords = getTopBottomCoordsOfSegment(pSegments[1]);
-				float bottomSlashTopX = coords[0]; // x-coord of the top of the bottom slash
-				float bottomSlashTopY = coords[1]; // y-coord of the top of the bottom slash
-				float bottomSlashBottomY = coords[3]; // y-coord of the bottom of the bottom slash
-
-				float strokesHeight = bottomSlashBottomY - topSlashTopY;
-
-				// Check to see the bottom of the top slash and the top of the bottom slash are closed enough
-				if (PenUtil.distanceBetween2Points(topSlashBottomX, topSlashBottomY, bottomSlashTopX, bottomSlashTopY) < .1 * strokesHeight)
-					if (pSegments[0].mPenSegmentCharacter == PenSegment.BSLASH_CHAR) // If the top slash is a BSLASH
-						c = '>';                                                  // then it is a '>'
-					else c = '<';                                                 // otherwise it is a '<'
-			}
-		}
 		return c;
 	} // End of checkForLessOrGreaterThanSign()
 
 	// Check for  '='
 	// '=' has a two HLINE's, one on top of the other
-	private boolean checkForEqualSign() {
+	private boolean checkForEqualSign(int hLine1Index, int hLine2Index) {
 		boolean matchedP = false;
-		int numOfSegments = mPenSegments.size();
-
-		if (numOfSegments == 2) {
-			int hLine1Index = -1;
-			int hLine2Index = -1;
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// ':' has only two pen stroke characters
-				if (mPenSegments.elementAt(i).mPenSegmentCharacter == PenSegment.HLINE_CHAR)
-					if (hLine1Index < 0) hLine1Index = i;
-					else hLine2Index = i;
-			}
 
-			// Check to make sure that the two component strokes for ':' are there, i.e.,
-			// hLine1Index and hLine2Index are both not negative
-			if ((hLine1Index >= 0) & (hLine2Index >= 0)) {
-				PenSegment pSegments[] = order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(hLine1Index), mPenSegments.elementAt(hLine2Index));
-				// Get x,y of the top HLINE
-				float topHLineX = pSegments[0].mAvgX; // x-coord of the top HLINE
+		int topHLineSegmentIndex = mRelations.getTopIndex(hLine1Index, hLine2Index);
+		// Get x,y of the top HLINE
+		float topHLineX = mPenSegments.elementAt(topHLineSegmentIndex).mAvgX; // x-coord of the top HLINE
 
-				// Get x,y of the bottom HLINE
-				float bottomHLineX = pSegments[0].mAvgX; // x-coord of the bottom HLINE
+		// Get x,y of the bottom HLINE
+		float bottomHLineX = mPenSegments.elementAt(topHLineSegmentIndex).mAvgX; // x-coord of the bottom HLINE
 
-				// Check to see if the HLINE is below the hLine1
-				matchedP = (Math.abs(topHLineX - bottomHLineX) < 20);
-			}
-		}
+		// Check to see if the HLINE is below the hLine1
+		matchedP = isWithinThreshold(Math.abs(topHLineX - bottomHLineX), 20);
 
 		return matchedP;
 	}  // End of checkForEqualSign()
@@ -3144,94 +1861,60 @@ public class PenCharacter {
 
 	// Check for 'I', '[' or ']'
 	// Check for the two strokes that form 'I', '[' or ']' and return either '[', ']' or NUL (Ascii value 0)
-	private char checkForCapitalIOrLeftOrRightSquareBracket() {
+	private char checkForCapitalIOrLeftOrRightSquareBracket(int topHLineIndex, int vLineIndex, int bottomHLineIndex) {
 		char c = '\0';
-		int numOfSegments = mPenSegments.size();
 
-		if (numOfSegments == 3) {
-			int topHLineIndex = -1; // top HLINE
-			int bottomHLineIndex = -1; // bottom HLINE
-			int vLineIndex = -1; // VLINE
-
-			for (int i = 0; i < numOfSegments; i++) {
-				// 'I', '[' or ']'has only three pen stroke characters
-				switch (mPenSegments.elementAt(i).mPenSegmentCharacter) {
-				case PenSegment.HLINE_CHAR:
-					if (topHLineIndex < 0)
-						topHLineIndex = i;
-					else
-						bottomHLineIndex = i;
-					break;
-				case PenSegment.VLINE_CHAR:
-					vLineIndex = i;
-					break;
-				default:
-					break;
-				}
-			}
+		// Get the top and bottom HLINE strokes of '[' or ']'
+		int topHLineSegmentIndex = mRelations.getTopIndex(topHLineIndex, bottomHLineIndex);
+		int bottomHLineSegmentIndex = mRelations.getBottomIndex(topHLineIndex, bottomHLineIndex);
+
+		float topHLineLeftX = mRelations.getLeftX(topHLineSegmentIndex); // x-coord of the left point of the top HLINE
+		float topHLineLeftY = mRelations.getLeftY(topHLineSegmentIndex); // y-coord of the left point of the top HLINE
+		float topHLineRightX = mRelations.getRightX(topHLineSegmentIndex); // x-coord of the right point of the top HLINE
+		float topHLineRightY = mRelations.getRightY(topHLineSegmentIndex); // y-coord of the right point of the top HLINE
+		float topHLineMidX = (topHLineLeftX + topHLineRightX)/2; // x-coord of the mid-point of the top HLINE
+		float topHLineMidY = (topHLineLeftY + topHLineRightY)/2; // y-coord of the mid-point of the top HLINE
+
+		float bottomHLineLeftX = mRelations.getLeftX(bottomHLineSegmentIndex); // x-coord of the left point of the bottom HLINE
+		float bottomHLineLeftY = mRelations.getLeftY(bottomHLineSegmentIndex); // y-coord of the left point of the bottom HLINE
+		float bottomHLineRightX = mRelations.getRightX(bottomHLineSegmentIndex); // x-coord of the right point of the bottom HLINE
+		float bottomHLineRightY = mRelations.getRightY(bottomHLineSegmentIndex); // y-coord of the right point of the bottom HLINE
+		float bottomHLineMidX = (bottomHLineLeftX + bottomHLineRightX)/2; // x-coord of the mid-point of the bottom HLINE
+		float bottomHLineMidY = (bottomHLineLeftY + bottomHLineRightY)/2; // y-coord of the mid-point of the botom HLINE
+
+		// Get x,y of top and bottom of VLINE
+		float vLineTopX = mRelations.getTopX(vLineIndex); // x-coord of top end of the VLINE stroke
+		float vLineTopY = mRelations.getTopY(vLineIndex); // y-coord of top end of the VLINE stroke
+		float vLineBottomX = mRelations.getBottomX(vLineIndex); // x-coord of bottom end of the VLINE stroke
+		float vLineBottomY = mRelations.getBottomY(vLineIndex); // y-coord of bottom end of the VLINE stroke
+
+		float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
+		double gapThreshold = 0.1 * vLineHeight;
+
+		// Check to see if the gaps between the left points of the top and bottom HLINE's 
+		// and top and bottom, respectively, of VLINE are less than the gap threshold
+		// (the margins of a shape that is not matched do not count for the next one)
+		float matchConfidence = mMatchConfidence;
+		if
+		(isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineMidX, topHLineMidY), gapThreshold) &
+				isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineMidX, bottomHLineMidY), gapThreshold))
+			c = 'I'; // the three strokes form a capital I
+		else if 
+		(resetMatchConfidence(matchConfidence) &
+				isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineRightX, topHLineRightY), gapThreshold) &
+				isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineRightX, bottomHLineRightY), gapThreshold))
+			c = ']'; // the three strokes form a right square bracket
+		else if
+		(resetMatchConfidence(matchConfidence) &
+				isWithinThreshold(PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineLeftX, topHLineLeftY), gapThreshold) &
+				isWithinThreshold(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineLeftX, bottomHLineLeftY), gapThreshold))
+			c = '['; // the three strokes form a left square bracket
 
-			// Check to make sure that the three component strokes for 'I', '[' or ']' are there, i.e.,
-			// topHLineIndex, vLineIndex, and bottomHLineIndex are all not negative
-			if ((topHLineIndex >= 0) & (vLineIndex >= 0) & (bottomHLineIndex >= 0)) {
-				// Get the top and bottom HLINE strokes of '[' or ']'
-				PenSegment topBottomHLineSegments[] = 
-					order2PenSegmentsIntoTopBottom(mPenSegments.elementAt(topHLineIndex),
-							mPenSegments.elementAt(bottomHLineIndex));
-
-				float coords[] = getLeftRightCoordsOfSegment(topBottomHLineSegments[0]);
-				float topHLineLeftX = coords[0]; // x-coord of the left point of the top HLINE
-				float topHLineLeftY = coords[1]; // y-coord of the left point of the top HLINE
-				float topHLineRightX = coords[2]; // x-coord of the right point of the top HLINE
-				float topHLineRightY = coords[3]; // y-coord of the right point of the top HLINE
-				float topHLineMidX = (topHLineLeftX + topHLineRightX)/2; // x-coord of the mid-point of the top HLINE
-				float topHLineMidY = (topHLineLeftY + topHLineRightY)/2; // y-coord of the mid-point of the top HLINE
-
-				coords = getLeftRightCoordsOfSegment(topBottomHLineSegments[1]);
-				float bottomHLineLeftX = coords[0]; // x-coord of the left point of the bottom HLINE
-				float bottomHLineLeftY = coords[1]; // y-coord of the left point of the bottom HLINE
-				float bottomHLineRightX = coords[2]; // x-coord of the right point of the bottom HLINE
-				float bottomHLineRightY = coords[3]; // y-coord of the right point of the bottom HLINE
-				float bottomHLineMidX = (bottomHLineLeftX + bottomHLineRightX)/2; // x-coord of the mid-point of the bottom HLINE
-				float bottomHLineMidY = (bottomHLineLeftY + bottomHLineRightY)/2; // y-coord of the mid-point of the botom HLINE
-
-				// Get x,y of top and bottom of VLINE
-				coords = getTopBottomCoordsOfSegment(mPenSegments.elementAt(vLineIndex));
-
-				float vLineTopX = coords[0]; // x-coord of top end of the VLINE stroke
-				float vLineTopY = coords[1]; // y-coord of top end of the VLINE stroke
-				float vLineBottomX = coords[2]; // x-coord of bottom end of the VLINE stroke
-				float vLineBottomY = coords[3]; // y-coord of bottom end of the VLINE stroke
-
-				float vLineHeight = Math.abs(vLineBottomY - vLineTopY);
-				double gapThreshold = 0.1 * vLineHeight;
-
-				// Check to see if the gaps between the left points of the top and bottom HLINE's 
-				// and top and bottom, respectively, of VLINE are less than the gap threshold
-				if
-				((PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineMidX, topHLineMidY) < gapThreshold) &
-						(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineMidX, bottomHLineMidY) < gapThreshold))
-					c = 'I'; // the three strokes form a capital I
-				else if 
-				((PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineRightX, topHLineRightY) < gapThreshold) &
-						(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineRightX, bottomHLineRightY) < gapThreshold))
-					c = ']'; // the three strokes form a right square bracket
-				else if
-				((PenUtil.distanceBetween2Points(vLineTopX, vLineTopY, topHLineLeftX, topHLineLeftY) < gapThreshold) &
-						(PenUtil.distanceBetween2Points(vLineBottomX, vLineBottomY, bottomHLineLeftX, bottomHLineLeftY) < gapThreshold))
-					c = '['; // the three strokes form a left square bracket
-			}
-		}
 		return c;
 	} // End of checkForCapitalILeftOrRightSquareBracket()
 
 	// Check for  '\\'
-	private boolean checkForBackSlash() {
-		boolean matchedP = false;
-		if (mPenSegments.size() == 1) // Back slash has only one stroke
-			matchedP = (mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.BSLASH_CHAR);
-
-		return matchedP;
-	} // checkForBackSlash()
+	// '\\' is any single BSLASH_CHAR stroke primitive (BACK_SLASH_RULE)
 
 	// Check for  ']'
 	// Check for  '^'
@@ -3249,397 +1932,640 @@ public class PenCharacter {
 	} // checkForLeftCurlyBrace()
 	
 	// Check for  '|'
-	private boolean checkForVerticalBar() {
-		boolean matchedP = false;
-		if (mPenSegments.size() == 1) // Vertical bar has only one stroke
-			matchedP = (mPenSegments.elementAt(0).mPenSegmentCharacter == PenSegment.VLINE_CHAR);
-
-		return matchedP;
-	} // checkForVerticalBar()
+	// '|' is any single VLINE_CHAR stroke primitive (VERTICAL_BAR_RULE)
 
 	// Check for  '}'
 	// Check for  '~'
 
-	// Match the pen strokes to the given character c
-	private boolean matchCharacter(char c) {
-		boolean foundP = false;
-		char penChar = '?';
+	// Rules for the candidate characters.  The roles of a rule are the primitive stroke elements of its segments
+	// (see CharacterRule) and CharacterRuleTable binds them to the segments of each combination of primitives, so
+	// a rule is only tried on segments it can apply to and gets the index of the segment for each of its roles.
+	// Characters that are checked together (like 'C' and 'c') share a rule.  A rule that does not check any
+	// thresholds (like the one for '(') matches with UNMEASURED_CONFIDENCE.
+
+	// Digits 0 to 9
+
+	private static final CharacterRule DIGIT_3_RULE = new CharacterRule("))") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkFor3(segmentIndexes[0], segmentIndexes[1]) ? '3' : '\0';
+		}
+	};
+
+	private static final CharacterRule DIGIT_4_RULE = new CharacterRule("-|/") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkFor4(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? '4' : '\0';
+		}
+	};
+
+	private static final CharacterRule DIGIT_5_RULE = new CharacterRule("-|)") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkFor5(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? '5' : '\0';
+		}
+	};
+
+	private static final CharacterRule DIGIT_7_RULE = new CharacterRule("-/") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkFor7(segmentIndexes[0], segmentIndexes[1]) ? '7' : '\0';
+		}
+	};
+
+	private static final CharacterRule DIGIT_9_RULE = new CharacterRule("(|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkFor9(segmentIndexes[0], segmentIndexes[1]) ? '9' : '\0';
+		}
+	};
+
+	// Letters A-Z, c, k, o, p, u, v, w, x, and z
+
+	private static final CharacterRule CAPITAL_A_RULE = new CharacterRule("/\\-") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalA(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? 'A' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_B_RULE = new CharacterRule("))|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalB(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? 'B' : '\0';
+		}
+	};
+
+	private static final CharacterRule C_SHAPE_RULE = new CharacterRule("(") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			if (!penCharacter.checkForCShape(segmentIndexes[0]))
+				return '\0';
+			return penCharacter.isSmallLetter() ? 'c' : 'C';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_D_RULE = new CharacterRule(")|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalD(segmentIndexes[0], segmentIndexes[1]) ? 'D' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_E_RULE = new CharacterRule("---|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalE(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2], segmentIndexes[3]) ? 'E' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_F_RULE = new CharacterRule("--|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalF(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? 'F' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_G_RULE = new CharacterRule("(|-") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalG(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? 'G' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_H_RULE = new CharacterRule("|-|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalH(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? 'H' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_I_OR_SQUARE_BRACKET_RULE = new CharacterRule("-|-") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalIOrLeftOrRightSquareBracket(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]);
+		}
+	};
+
+	private static final CharacterRule CAPITAL_J_RULE = new CharacterRule("-|U") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalJ(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? 'J' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_OR_SMALL_K_RULE = new CharacterRule("/\\|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalOrSmallK(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]);
+		}
+	};
+
+	private static final CharacterRule CAPITAL_L_RULE = new CharacterRule("-|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalL(segmentIndexes[0], segmentIndexes[1]) ? 'L' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_M_RULE = new CharacterRule("|\\/|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalM(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2], segmentIndexes[3]) ? 'M' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_N_RULE = new CharacterRule("|\\|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalN(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? 'N' : '\0';
+		}
+	};
+
+	private static final CharacterRule O_SHAPE_RULE = new CharacterRule("O", CharacterRule.UNMEASURED_CONFIDENCE) {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.isSmallLetter() ? 'o' : 'O';
+		}
+	};
+
+	private static final CharacterRule P_SHAPE_RULE = new CharacterRule(")|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			if (!penCharacter.checkForPShape(segmentIndexes[0], segmentIndexes[1]))
+				return '\0';
+			return penCharacter.isCapitalPHeight() ? 'P' : 'p';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_Q_RULE = new CharacterRule("O\\") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalQ(segmentIndexes[0], segmentIndexes[1]) ? 'Q' : '\0';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_R_RULE = new CharacterRule(")\\|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalR(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? 'R' : '\0';
+		}
+	};
+
+	private static final CharacterRule S_SHAPE_RULE = new CharacterRule("()") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			if (!penCharacter.checkForSShape(segmentIndexes[0], segmentIndexes[1]))
+				return '\0';
+			return penCharacter.isSmallLetter() ? 's' : 'S';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_T_RULE = new CharacterRule("-|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalT(segmentIndexes[0], segmentIndexes[1]) ? 'T' : '\0';
+		}
+	};
+
+	private static final CharacterRule U_SHAPE_RULE = new CharacterRule("U", CharacterRule.UNMEASURED_CONFIDENCE) {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.isSmallLetter() ? 'u' : 'U';
+		}
+	};
+
+	private static final CharacterRule V_SHAPE_RULE = new CharacterRule("**") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			if (!penCharacter.checkForVShape(segmentIndexes[0], segmentIndexes[1]))
+				return '\0';
+			return penCharacter.isSmallLetter() ? 'v' : 'V';
+		}
+	};
+
+	private static final CharacterRule W_SHAPE_RULE = new CharacterRule("\\/\\/") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			if (!penCharacter.checkForWShape(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2], segmentIndexes[3]))
+				return '\0';
+			return penCharacter.isSmallLetter() ? 'w' : 'W';
+		}
+	};
+
+	private static final CharacterRule X_SHAPE_RULE = new CharacterRule("\\/") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			if (!penCharacter.checkForXShape(segmentIndexes[0], segmentIndexes[1]))
+				return '\0';
+			return penCharacter.isSmallLetter() ? 'x' : 'X';
+		}
+	};
+
+	private static final CharacterRule CAPITAL_Y_RULE = new CharacterRule("/\\|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCapitalY(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? 'Y' : '\0';
+		}
+	};
+
+	private static final CharacterRule Z_SHAPE_RULE = new CharacterRule("-/-") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			if (!penCharacter.checkForZShape(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]))
+				return '\0';
+			return penCharacter.isSmallLetter() ? 'z' : 'Z';
+		}
+	};
+
+	// Letters a-z except for c, k, o, p, u, v, w, x, and z
+
+	private static final CharacterRule SMALL_A_RULE = new CharacterRule("(|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForSmallA(segmentIndexes[0], segmentIndexes[1]) ? 'a' : '\0';
+		}
+	};
+
+	private static final CharacterRule SMALL_B_RULE = new CharacterRule(")|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForSmallB(segmentIndexes[0], segmentIndexes[1]) ? 'b' : '\0';
+		}
+	};
+
+	private static final CharacterRule SMALL_D_RULE = new CharacterRule("(|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForSmallD(segmentIndexes[0], segmentIndexes[1]) ? 'd' : '\0';
+		}
+	};
+
+	private static final CharacterRule SMALL_I_RULE = new CharacterRule("|.") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForSmallI(segmentIndexes[0], segmentIndexes[1]) ? 'i' : '\0';
+		}
+	};
+
+	private static final CharacterRule SMALL_Q_RULE = new CharacterRule("(|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForSmallQ(segmentIndexes[0], segmentIndexes[1]) ? 'q' : '\0';
+		}
+	};
+
+	private static final CharacterRule SMALL_T_RULE = new CharacterRule("|-") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForSmallT(segmentIndexes[0], segmentIndexes[1]) ? 't' : '\0';
+		}
+	};
+
+	private static final CharacterRule SMALL_Y_RULE = new CharacterRule("\\/") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForSmallY(segmentIndexes[0], segmentIndexes[1]) ? 'y' : '\0';
+		}
+	};
+
+	// Special characters
+
+	private static final CharacterRule EXCLAMATION_MARK_RULE = new CharacterRule("|.") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForExclamationMark(segmentIndexes[0], segmentIndexes[1]) ? '!' : '\0';
+		}
+	};
+
+	private static final CharacterRule HASH_SYMBOL_RULE = new CharacterRule("--//") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForHashSymbol(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2], segmentIndexes[3]) ? '#' : '\0';
+		}
+	};
+
+	private static final CharacterRule PERCENT_SIGN_RULE = new CharacterRule("O/O") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForPercentSign(segmentIndexes[0], segmentIndexes[1], segmentIndexes[2]) ? '%' : '\0';
+		}
+	};
+
+	private static final CharacterRule LEFT_PARENTHESIS_RULE = new CharacterRule("(", CharacterRule.UNMEASURED_CONFIDENCE) {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return '(';
+		}
+	};
+
+	private static final CharacterRule RIGHT_PARENTHESIS_OR_COMMA_RULE = new CharacterRule(")", CharacterRule.UNMEASURED_CONFIDENCE) {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForRightParenthesisOrComma(segmentIndexes[0]);
+		}
+	};
+
+	private static final CharacterRule PLUS_SIGN_RULE = new CharacterRule("-|") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForPlusSign(segmentIndexes[0], segmentIndexes[1]) ? '+' : '\0';
+		}
+	};
+
+	private static final CharacterRule DASH_OR_UNDERSCORE_RULE = new CharacterRule("/", CharacterRule.UNMEASURED_CONFIDENCE) {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForDashOrUnderscore(segmentIndexes[0]);
+		}
+	};
+
+	private static final CharacterRule PERIOD_RULE = new CharacterRule(".", CharacterRule.UNMEASURED_CONFIDENCE) {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return '.';
+		}
+	};
+
+	private static final CharacterRule FORWARD_SLASH_RULE = new CharacterRule("/", CharacterRule.UNMEASURED_CONFIDENCE) {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return '/';
+		}
+	};
+
+	private static final CharacterRule COLON_RULE = new CharacterRule("..") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForColon(segmentIndexes[0], segmentIndexes[1]) ? ':' : '\0';
+		}
+	};
+
+	private static final CharacterRule SEMICOLON_RULE = new CharacterRule(".)") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForSemiColon(segmentIndexes[0], segmentIndexes[1]) ? ';' : '\0';
+		}
+	};
+
+	private static final CharacterRule LESS_OR_GREATER_THAN_SIGN_RULE = new CharacterRule("\\/") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForLessOrGreaterThanSign(segmentIndexes[0], segmentIndexes[1]);
+		}
+	};
+
+	private static final CharacterRule EQUAL_SIGN_RULE = new CharacterRule("--") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForEqualSign(segmentIndexes[0], segmentIndexes[1]) ? '=' : '\0';
+		}
+	};
+
+	private static final CharacterRule BACK_SLASH_RULE = new CharacterRule("\\", CharacterRule.UNMEASURED_CONFIDENCE) {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return '\\';
+		}
+	};
+
+	private static final CharacterRule CARET_RULE = new CharacterRule("**") {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return penCharacter.checkForCaret(segmentIndexes[0], segmentIndexes[1]) ? '^' : '\0';
+		}
+	};
+
+	private static final CharacterRule VERTICAL_BAR_RULE = new CharacterRule("|", CharacterRule.UNMEASURED_CONFIDENCE) {
+		public char match(PenCharacter penCharacter, int segmentIndexes[]) {
+			return '|';
+		}
+	};
 
-		char ch = '\0'; // used in check for 'K', 'k', '>' or '<'
+	// Get the rule for a candidate character c, or null if there is none (the character is never matched)
+	static CharacterRule getCharacterRule(char c) {
 
 		switch (c) {
 		/*****************/
 		/* Digits 0 to 9 */
 		/*****************/
 		case '0':
-			break;
+			return null;
 		case '1':
-			break;
+			return null;
 		case '2':
-			//			foundP = checkFor2();
-			//			if (foundP) penChar = '2';
-			break;
+			//			return DIGIT_2_RULE; (once there is a checkFor2())
+			return null;
 		case '3':
-			foundP = checkFor3();
-			if (foundP) penChar = '3';
-			break;
+			return DIGIT_3_RULE;
 		case '4':
-			foundP = checkFor4();
-			if (foundP) penChar = '4';
-			break;
+			return DIGIT_4_RULE;
 		case '5':
-			foundP = checkFor5();
-			if (foundP) penChar = '5';
-			break;
+			return DIGIT_5_RULE;
 		case '6':
-			break;
+			return null;
 		case '7':
-			foundP = checkFor7();
-			if (foundP) penChar = '7';
-			break;
+			return DIGIT_7_RULE;
 		case '8':
-			break;
+			return null;
 		case '9':
-			foundP = checkFor9();
-			if (foundP) penChar = '9';
-			break;
+			return DIGIT_9_RULE;
 
 			/**********************************************/
 			/* Letters A-Z, c, k, o, p, u, v, w, x, and z */
 			/**********************************************/
 		case 'A':
-			foundP = checkForCapitalA();
-			if (foundP) penChar = 'A';
-			break;
+			return CAPITAL_A_RULE;
 		case 'B': 
-			foundP = checkForCapitalB();
-			if (foundP) penChar = 'B';
-			break;
+			return CAPITAL_B_RULE;
 		case 'C': // Check for capital 'C' and small 'c'; same stroke but 'c' is smaller
 		case 'c':
-			foundP = checkForCShape(); //checkForCapitalC();
-			if (foundP) 
-				if (isSmallLetter()) penChar = 'c';
-				else penChar = 'C';
-			break;
+			return C_SHAPE_RULE;
 		case 'D':
-			foundP = checkForCapitalD();
-			if (foundP) penChar = 'D';
-			break;
+			return CAPITAL_D_RULE;
 		case 'E':
-			foundP = checkForCapitalE();
-			if (foundP) penChar = 'E';
-			break;
+			return CAPITAL_E_RULE;
 		case 'F':
-			foundP = checkForCapitalF();
-			if (foundP) penChar = 'F';
-			break;
+			return CAPITAL_F_RULE;
 		case 'G':
-			foundP = checkForCapitalG();
-			if (foundP) penChar = 'G';
-			break;
+			return CAPITAL_G_RULE;
 		case 'H':
-			foundP = checkForCapitalH();
-			if (foundP) penChar = 'H';
-			break;
+			return CAPITAL_H_RULE;
 		case 'I': // Check for 'I', '[' or ']'
 		case '[':
 		case ']':
-			ch = checkForCapitalIOrLeftOrRightSquareBracket();
-			if (ch != '\0') {
-				foundP = true;
-				penChar = ch;
-			}
-			break;
+			return CAPITAL_I_OR_SQUARE_BRACKET_RULE;
 		case 'J':
-			foundP = checkForCapitalJ();
-			if (foundP) penChar = 'J';
-			break;
+			return CAPITAL_J_RULE;
 		case 'K':
 		case 'k':
 			// Check for 'K' or 'k'
-			ch = checkForCapitalOrSmallK();
-			if (ch != '\0') {
-				foundP = true;
-				penChar = ch;
-			}
-			break;
+			return CAPITAL_OR_SMALL_K_RULE;
 		case 'L':
-			foundP = checkForCapitalL();
-			if (foundP) penChar = 'L';
-			break;
+			return CAPITAL_L_RULE;
 		case 'M':
-			foundP = checkForCapitalM();
-			if (foundP) penChar = 'M';
-			break;
+			return CAPITAL_M_RULE;
 		case 'N':
-			foundP = checkForCapitalN();
-			if (foundP) penChar = 'N';
-			break;
+			return CAPITAL_N_RULE;
 		case 'O': // Check for capital 'O' and small 'o'; same stroke but 'o' is smaller
 		case 'o':
-			foundP = checkForOShape();
-			if (foundP) 
-				if (isSmallLetter()) penChar = 'o';
-				else penChar = 'O';
-			break;
+			return O_SHAPE_RULE;
 		case 'P': // Check for capital 'P' and small 'p'; same stroke but 'P' is at least .6 the height of the writing area
 		case 'p':
-			foundP = checkForPShape();
-			if (foundP)
-				if ((mPenStrokesMaxY - mPenStrokesMinY) > (Skiggle.DEFAULT_WRITE_PAD_HEIGHT * .6))
-					penChar = 'P';
-				else penChar = 'p';
-			break;
+			return P_SHAPE_RULE;
 		case 'Q':
-			foundP = checkForCapitalQ();
-			if (foundP) penChar = 'Q';
-			break;
+			return CAPITAL_Q_RULE;
 		case 'R':
-			foundP = checkForCapitalR();
-			if (foundP) penChar = 'R';
-			break;
+			return CAPITAL_R_RULE;
 		case 'S':
 		case 's':
-			foundP = checkForSShape();
-			if (foundP) 
-				if (isSmallLetter()) penChar = 's';
-				else penChar = 'S';
-			break;
+			return S_SHAPE_RULE;
 		case 'T':
-			foundP = checkForCapitalT();
-			if (foundP) penChar = 'T';
-			break;
+			return CAPITAL_T_RULE;
 		case 'U': // Check for capital 'U' and small 'u'; same segment but 'u' is smaller
 		case 'u':
-			foundP = checkForUShape();
-			if (foundP) 
-				if (isSmallLetter()) penChar = 'u';
-				else penChar = 'U';
-			break;
+			return U_SHAPE_RULE;
 		case 'V': // Check for capital 'V' and small 'u'; same segment but 'v' is smaller
 		case 'v':
-			foundP = checkForVShape();
-			if (foundP) 
-				if (isSmallLetter()) penChar = 'v';
-				else penChar = 'V';
-			break;
+			return V_SHAPE_RULE;
 		case 'W': // Check for capital 'W' and small 'w'; same segment but 'w' is smaller
 		case 'w':
-			foundP = checkForWShape();
-			if (foundP) 
-				if (isSmallLetter()) penChar = 'w';
-				else penChar = 'W';
-			break;
+			return W_SHAPE_RULE;
 		case 'X': // Check for capital 'X' and small 'x'; same segment but 'x' is smaller
 		case 'x':
-			foundP = checkForXShape();
-			if (foundP) 
-				if (isSmallLetter()) penChar = 'x';
-				else penChar = 'X';
-			break;
+			return X_SHAPE_RULE;
 		case 'Y':
-			foundP = checkForCapitalY();
-			if (foundP) penChar = 'Y';
-			break;
+			return CAPITAL_Y_RULE;
 		case 'Z': // Check for capital 'Z' and small 'z'; same segment but 'z' is smaller
 		case 'z':
-			foundP = checkForZShape();
-			if (foundP) 
-				if (isSmallLetter()) penChar = 'z';
-				else penChar = 'Z';
-			break;
+			return Z_SHAPE_RULE;
 
 			/********************************************************/
 			/* Letters a-z except for c, k, o, p, u, v, w, x, and z */
 			/********************************************************/
 		case 'a':
-			foundP = checkForSmallA();
-			if (foundP) penChar = 'a';
-			break;
+			return SMALL_A_RULE;
 		case 'b':
-			foundP = checkForSmallB();
-			if (foundP) penChar = 'b';
-			break;
+			return SMALL_B_RULE;
 			// Small 'c' is checked in the case for capital 'C'
 		case 'd':
-			foundP = checkForSmallD();
-			if (foundP) penChar = 'd';
-			break;
+			return SMALL_D_RULE;
 		case 'e':
-			break;
+			return null;
 		case 'f':
-			break;
+			return null;
 		case 'g':
-			break;
+			return null;
 		case 'h':
-			break;
+			return null;
 		case 'i':
-			foundP = checkForSmallI();
-			if (foundP) penChar = 'i';
-			break;
+			return SMALL_I_RULE;
 		case 'j':
-			break;
+			return null;
 			// Small 'k' is checked in the case for capital 'K'			
 		case 'l':
-			break;
+			return null;
 		case 'm':
-			break;
+			return null;
 		case 'n':
-			break;
+			return null;
 			// Small 'o' is checked in the case for capital 'O'
 			// Small 'p' is checked in the case for capital 'P'
 		case 'q':
-			foundP = checkForSmallQ();
-			if (foundP) penChar = 'q';
-			break;
+			return SMALL_Q_RULE;
 		case 'r':
-			break;
+			return null;
 			// Small 's' is checked in the case for capital 'S'
 		case 't':
-			foundP = checkForSmallT();
-			if (foundP) penChar = 't';
-			break;
+			return SMALL_T_RULE;
 			// Small 'u' is checked in the case for capital 'U'
 			// Small 'v' is checked in the case for capital 'V'
 			// Small 'w' is checked in the case for capital 'W'
 			// Small 'x' is checked in the case for capital 'X'
 		case 'y':
-			foundP = checkForSmallY();
-			if (foundP) penChar = 'y';
-			break;
+			return SMALL_Y_RULE;
 			// Small 'z' is checked in the case for capital 'Z'
 
 			/********************************/
 			/* Check for special characters */
 			/********************************/
 		case ' ':
-			break;
+			return null;
 		case '!':
-			foundP = checkForExclamationMark();
-			if (foundP) penChar = '!';
-			break;
+			return EXCLAMATION_MARK_RULE;
 		case '\"': // Check for quote, "
-			break; 
+			return null; 
 		case '#':
-			foundP = checkForHashSymbol();
-			if (foundP) penChar = '#';
-			break;
+			return HASH_SYMBOL_RULE;
 		case '$':
-			break;
+			return null;
 		case '%':
-			foundP = checkForPercentSign();
-			if (foundP) penChar = '%';
-			break;
+			return PERCENT_SIGN_RULE;
 		case '&':
-			break;
+			return null;
 		case '\'': // Check for single quote or prime, '
-			break;
+			return null;
 		case '(':
-			foundP = checkForLeftParenthesis();
-			if (foundP) penChar = '(';
-			break;
+			return LEFT_PARENTHESIS_RULE;
 		case ')': // Check for right parenthesis ')' and comma ','
 		case ',':
 			// Check for ')' or ','
-			ch = checkForRightParenthesisOrComma();
-			if (ch != '\0') {
-				foundP = true;
-				penChar = ch;
-			}
-			break;
+			return RIGHT_PARENTHESIS_OR_COMMA_RULE;
 		case '*':
-			break;
+			return null;
 		case '+':
-			foundP = checkForPlusSign();
-			if (foundP) penChar = '+';
-			break;		
+			return PLUS_SIGN_RULE;
 			// ',' is checked in the case for ')'
 
 		case '-': // Check for dash '-' and underscore '_'
 		case '_':
 			// Check for '-' or '_'
-			ch = checkForDashOrUnderscore();
-			if (ch != '\0') {
-				foundP = true;
-				penChar = ch;
-			}
-			break;
+			return DASH_OR_UNDERSCORE_RULE;
 		case '.':
-			foundP = checkForPeriod();
-			if (foundP) penChar = '.';
-			break;
+			return PERIOD_RULE;
 		case '/':
-			foundP = checkForForwardSlash();
-			if (foundP) penChar = '/';
-			break;
+			return FORWARD_SLASH_RULE;
 		case ':':
-			foundP = checkForColon();
-			if (foundP) penChar = ':';
-			break;
+			return COLON_RULE;
 		case ';':
-			foundP = checkForSemiColon();
-			if (foundP) penChar = ';';
-			break;
+			return SEMICOLON_RULE;
 		case '<': // Check for '<' or '>'
 		case '>':
 			// Check for '<' or '>'
-			ch = checkForLessOrGreaterThanSign();
-			if (ch != '\0') {
-				foundP = true;
-				penChar = ch;
-			}
-			break;
+			return LESS_OR_GREATER_THAN_SIGN_RULE;
 		case '=':
-			foundP = checkForEqualSign();
-			if (foundP) penChar = '=';
-			break;
+			return EQUAL_SIGN_RULE;
 			// '>' is checked in the case for '<'
 		case '?':
-			break;
+			return null;
 		case '@':
-			break;
+			return null;
 			// '[' is checked in the case for 'I', '[', and ']'
 			// ']' is checked in the case for 'I', '[', and ']'
 		case '\\':
-			foundP = checkForBackSlash();
-			if (foundP) penChar = '\\';
-			break;
+			return BACK_SLASH_RULE;
 			// '>' is checked in the case for '<'
 		case '^':
-			foundP = checkForCaret();
-			if (foundP) penChar = '^';
-			break;
+			return CARET_RULE;
 			// '_' is checked in the case for '-'
 		case '`':
-			break;
+			return null;
 		case '{':
-			foundP = checkForLeftCurlyBrace();
-			if (foundP) penChar = '{';
-			break;
+			// checkForLeftCurlyBrace() is to be completed and never matches
+			return null;
 		case '|':
-			foundP = checkForVerticalBar();
-			if (foundP) penChar = '|';
-			break;
+			return VERTICAL_BAR_RULE;
 		case '}':
-			break;
+			return null;
 		case '~':
-			break;
+			return null;
 		default:
-
+			return null;
 		}
-		mPenCharacter = penChar;
+	}
+
+	// Match the pen strokes to the character of rule, with the segments for its roles at segmentIndexes
+	private boolean matchCharacter(CharacterRule rule, int segmentIndexes[]) {
+		char ch = scoreCharacter(rule, segmentIndexes);
+		boolean foundP = (ch != '\0');
+		if (foundP)
+			mPenCharacter = ch;
 		return foundP;
 	}
 
-	public void findMatchingCharacter (Canvas canvas, Paint textPaint) {
-		getCharacterCandidates(canvas, textPaint);
+	// Get the character rule matches (or '\0') with the segments for its roles at segmentIndexes, leaving the
+	// confidence of the match in mMatchConfidence
+	private char scoreCharacter(CharacterRule rule, int segmentIndexes[]) {
+		long startTime = RecognizerMetrics.startTime();
+		long startBytes = RecognizerMetrics.startAllocatedBytes();
+		mMatchConfidence = rule.mMaxConfidence;
+		char ch = rule.match(this, segmentIndexes);
+		RecognizerMetrics.record(RecognizerMetrics.STAGE_CHARACTER_MATCH, startTime, startBytes);
+		return ch;
+	}
+
+	// Put the indexes of the segments at rolePositions (in the signature order) into mRoleSegmentIndexes
+	private void bindRoleSegments(int rolePositions[]) {
+		for (int j = 0; j < rolePositions.length; j++) {
+			mRoleSegmentIndexes[j] = mSortedSegmentIndexes[rolePositions[j]];
+		}
+	}
+
+	public void findMatchingCharacter (RecognitionTraceListener trace) {
+		findMatchingCharacter(trace, null);
+	}
+
+	// Find the matching character as findMatchingCharacter(trace) does, but take it from cache (if not null)
+	// if a character of the same shape has been recognized, and remember it in cache otherwise
+	public void findMatchingCharacter (RecognitionTraceListener trace, RecognitionCache cache) {
+		if ((cache != null) && cache.lookUp(this)) {
+			trace.onCharacterMatched(this);
+			return;
+		}
+
+		getCharacterCandidates();
 
-		int len = mPenCharacterCandidates.length();
-		for (int i = 0; i < len; i++) {
-			if (matchCharacter(mPenCharacterCandidates.charAt(i)))
+		// The character is '?' if there are candidates but none of them match
+		if (mPenCharacterCandidates.length() > 0)
+			mPenCharacter = '?';
+
+		// Try the rules of the candidates in the order of the candidates, each with the segments for its roles
+		CharacterRule rules[] = CharacterRuleTable.getRules(mSignature);
+		int rolePositions[][] = CharacterRuleTable.getRolePositions(mSignature);
+		for (int i = 0; i < rules.length; i++) {
+			bindRoleSegments(rolePositions[i]);
+			if (matchCharacter(rules[i], mRoleSegmentIndexes))
 				break;
 		}
+		if (cache != null)
+			cache.put(this);
 
 		// mPenCharacter.showStrokes(mCanvas);
 		// Print the stroke statistics on the screen
@@ -3647,10 +2573,7 @@ public class PenCharacter {
 		// Reset the pen color back to default
 		// mPaint.setColor(DEFAULT_PEN_COLOR);
 		// mPenStroke.printMatchedCharacter(mCanvas, mPenCharacter.mPenCharacter, 100.0F, 300.0F, mTextPaint);
-		printPenCharacter(canvas, 50.0F, 400.0F, textPaint);
-		printPenCharacterCandidates(canvas, 60.0F, 400.0F, textPaint);
-		
-		printCharacterSegmentsData();
+		trace.onCharacterMatched(this);
 
 		//		PenUtil.printString(Float.toString(mPenSegments.elementAt(0).mPointsY[0]), 50.0F, 410.F,
 		//				mPenSegments.elementAt(0).mBoundingRectF, canvas, textPaint);
@@ -3659,28 +2582,88 @@ public class PenCharacter {
 		// pSegment.printSegmentStats(canvas, textPaint);
 	}
 
+	// Find the (at most) maxNumOfCharacters characters the strokes match best, best first, and set mPenCharacter to
+	// the best of them.  Rather than taking the first candidate that matches (as findMatchingCharacter() does), the
+	// rules of the candidates are scored by the confidence of their match, weighted by the order of the candidates
+	// (see CharacterRuleTable.getScoreWeights()).  The rules are tried in the order of the candidates and the rest
+	// are skipped once none of them can score higher than the characters found.
+	public Vector<CharacterScore> findBestCharacters(int maxNumOfCharacters, RecognitionTraceListener trace) {
+		maxNumOfCharacters = Math.max(1, maxNumOfCharacters);
+		Vector<CharacterScore> bestCharacters = new Vector<CharacterScore>(maxNumOfCharacters + 1);
+		getCharacterCandidates();
+
+		// The character is '?' if there are candidates but none of them match
+		if (mPenCharacterCandidates.length() > 0)
+			mPenCharacter = '?';
+
+		CharacterRule rules[] = CharacterRuleTable.getRules(mSignature);
+		int rolePositions[][] = CharacterRuleTable.getRolePositions(mSignature);
+		float scoreWeights[] = CharacterRuleTable.getScoreWeights(mSignature);
+		float scoreBounds[] = CharacterRuleTable.getScoreBounds(mSignature);
+		for (int i = 0; i < rules.length; i++) {
+			if ((bestCharacters.size() == maxNumOfCharacters) &&
+					(scoreBounds[i] <= bestCharacters.lastElement().mScore))
+				break;
+
+			bindRoleSegments(rolePositions[i]);
+			char ch = scoreCharacter(rules[i], mRoleSegmentIndexes);
+			if (ch == '\0')
+				continue;
+
+			// Keep the characters in the order of their scores (the earlier candidate first for equal scores)
+			float score = mMatchConfidence * scoreWeights[i];
+			int position = bestCharacters.size();
+			while ((position > 0) && (bestCharacters.elementAt(position - 1).mScore < score)) {
+				position--;
+			}
+			bestCharacters.insertElementAt(new CharacterScore(ch, score), position);
+			if (bestCharacters.size() > maxNumOfCharacters)
+				bestCharacters.removeElementAt(maxNumOfCharacters);
+		}
+
+		if (!bestCharacters.isEmpty())
+			mPenCharacter = bestCharacters.firstElement().mCharacter;
+		trace.onCharacterMatched(this);
+		return bestCharacters;
+	}
+
 
 	// Methods for printing PenCharacter
 	private void printString(String str, Canvas canvas, float x, float y, Paint paint) {
 
-		if (str != null) {
+		// Nothing to print on when recognizing without a display
+		if ((str != null) & (canvas != null)) {
 
-			Paint tempPaint = new Paint();
-			tempPaint.set(paint);
+			// Draw with the given paint and put its color and text size back afterwards
+			int color = paint.getColor();
+			float textSize = paint.getTextSize();
 
 			//tempPaint.setColor(Skiggle.DEFAULT_CANVAS_COLOR + 2);
 			//			tempPaint.setStrokeWidth(Skiggle.DEFAULT_STROKE_WIDTH);
 			//			canvas.drawRect(mBoundingRectF, tempPaint);
 
-			tempPaint.setColor(0xFFFFFFFF);
-			canvas.drawRect(x, y-mFontSize-3, x+200, y+3, tempPaint);
+			paint.setColor(0xFFFFFFFF);
+			canvas.drawRect(x, y-mFontSize-3, x+200, y+3, paint);
 
-			tempPaint.setTextSize(mFontSize);
-			tempPaint.setColor(0xFFFF0000);
-			canvas.drawText(str, x, y, tempPaint);
+			paint.setTextSize(mFontSize);
+			paint.setColor(0xFFFF0000);
+			canvas.drawText(str, x, y, paint);
+
+			paint.setColor(color);
+			paint.setTextSize(textSize);
 		}
 	}
 
+	// Print the segments, the recognized character and its candidates, as addSegments() and
+	// findMatchingCharacter() do while recognizing (for a character recognized without a canvas)
+	public void printRecognizedCharacter(Canvas canvas, Paint textPaint) {
+
+		if (!mPenSegments.isEmpty())
+			printSegmentCharacters(mPenSegments.elementAt(0).mBoundingRectF, canvas, textPaint);
+		printPenCharacter(canvas, 50.0F, 400.0F, textPaint);
+		printPenCharacterCandidates(canvas, 60.0F, 400.0F, textPaint);
+	}
+
 	public void printPenCharacter(Canvas canvas, float x, float y, Paint paint) {
 
 		if (mPenCharacter != null) {
@@ -3696,7 +2679,7 @@ public class PenCharacter {
 	}
 	
 	
-	public void printSegmentCharacters(RectF mBoundingRectF, Canvas canvas, Paint textPaint) {
+	public void printSegmentCharacters(PenRectF mBoundingRectF, Canvas canvas, Paint textPaint) {
 
 		int numOfSegments = mPenSegments.size();
 		PenSegment segment;
@@ -0,0 +1,148 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+// PenPath is a plain Java polyline (a single contour) made from the points drawn by the pen.  It stands in
+// for android.graphics.Path in the recognition code.  The method names follow those of Path so that the
+// drawing code in Skiggle.BoxView can replay the same moveTo/quadTo/lineTo calls on both.
+// Quadratic curves are flattened into line segments when they are added.
+public class PenPath {
+
+	private static final int INITIAL_CAPACITY = 32;
+
+	private static final float QUAD_TOLERANCE = 0.5F; // Max distance (in pixels) between a quad curve and its line segments
+	private static final int MAX_QUAD_SUBDIVISIONS = 16; // Max number of line segments used to flatten a quad curve
+
+	// Members
+	private float mPointsX[];
+	private float mPointsY[];
+	private int mNumOfPoints = 0;
+
+	public PenPath() {
+		mPointsX = new float[INITIAL_CAPACITY];
+		mPointsY = new float[INITIAL_CAPACITY];
+	}
+
+	public PenPath(PenPath src) {
+		mPointsX = new float[Math.max(INITIAL_CAPACITY, src.mNumOfPoints)];
+		mPointsY = new float[mPointsX.length];
+		set(src);
+	}
+
+	// Make this path a copy of src
+	public void set(PenPath src) {
+		ensureCapacity(src.mNumOfPoints);
+		System.arraycopy(src.mPointsX, 0, mPointsX, 0, src.mNumOfPoints);
+		System.arraycopy(src.mPointsY, 0, mPointsY, 0, src.mNumOfPoints);
+		mNumOfPoints = src.mNumOfPoints;
+	}
+
+	// Clear the path but keep the point arrays for reuse
+	public void reset() {
+		mNumOfPoints = 0;
+	}
+
+	public boolean isEmpty() {
+		return (mNumOfPoints == 0);
+	}
+
+	public int getPointCount() {
+		return mNumOfPoints;
+	}
+
+	public float getX(int i) {
+		return mPointsX[i];
+	}
+
+	public float getY(int i) {
+		return mPointsY[i];
+	}
+
+	// Start the contour at (x, y).  A PenPath holds a single contour so any earlier points are dropped.
+	public void moveTo(float x, float y) {
+		mNumOfPoints = 0;
+		addPoint(x, y);
+	}
+
+	public void lineTo(float x, float y) {
+		// Like Path, a line from an empty path starts from the origin
+		if (mNumOfPoints == 0)
+			addPoint(0.0F, 0.0F);
+
+		addPoint(x, y);
+	}
+
+	// Add a quadratic curve from the last point, approaching control point (x1, y1) and ending at (x2, y2)
+	public void quadTo(float x1, float y1, float x2, float y2) {
+		if (mNumOfPoints == 0)
+			addPoint(0.0F, 0.0F);
+
+		float x0 = mPointsX[mNumOfPoints - 1];
+		float y0 = mPointsY[mNumOfPoints - 1];
+
+		// The distance between a quad curve and its chord is at most a quarter of |p0 - 2p1 + p2|, and
+		// splitting the curve into n pieces reduces that distance by n*n
+		float ddX = x0 - 2 * x1 + x2;
+		float ddY = y0 - 2 * y1 + y2;
+		float dd = (float) Math.sqrt(ddX * ddX + ddY * ddY);
+		int numOfSubdivisions = (int) Math.ceil(Math.sqrt(dd / (4 * QUAD_TOLERANCE)));
+		numOfSubdivisions = Math.max(1, Math.min(MAX_QUAD_SUBDIVISIONS, numOfSubdivisions));
+
+		for (int i = 1; i <= numOfSubdivisions; i++) {
+			float t = (float) i / numOfSubdivisions;
+			float u = 1 - t;
+			addPoint(u * u * x0 + 2 * u * t * x1 + t * t * x2,
+					u * u * y0 + 2 * u * t * y1 + t * t * y2);
+		}
+	}
+
+	// Compute the bounds of the points of the path.  An empty path has empty bounds.
+	public void computeBounds(PenRectF bounds) {
+		if (mNumOfPoints == 0) {
+			bounds.setEmpty();
+			return;
+		}
+
+		bounds.set(mPointsX[0], mPointsY[0], mPointsX[0], mPointsY[0]);
+		for (int i = 1; i < mNumOfPoints; i++) {
+			bounds.union(mPointsX[i], mPointsY[i]);
+		}
+	}
+
+	private void addPoint(float x, float y) {
+		ensureCapacity(mNumOfPoints + 1);
+		mPointsX[mNumOfPoints] = x;
+		mPointsY[mNumOfPoints] = y;
+		mNumOfPoints = mNumOfPoints + 1;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > mPointsX.length) {
+			int newCapacity = Math.max(capacity, 2 * mPointsX.length);
+			float newPointsX[] = new float[newCapacity];
+			float newPointsY[] = new float[newCapacity];
+			System.arraycopy(mPointsX, 0, newPointsX, 0, mNumOfPoints);
+			System.arraycopy(mPointsY, 0, newPointsY, 0, mNumOfPoints);
+			mPointsX = newPointsX;
+			mPointsY = newPointsY;
+		}
+	}
+}
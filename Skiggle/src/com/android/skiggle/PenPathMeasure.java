@@ -0,0 +1,303 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+// PenPathMeasure measures the arc length of a PenPath and finds the position and tangent at a given
+// distance along it.  It stands in for android.graphics.PathMeasure in the recognition code and
+// follows its behavior: distances are clamped to [0, length] and a path with no length has no
+// position or tangent.
+// A PenPathMeasure can also measure part of another measured path (see setSubPath()) without building a
+// path for it: the part is the point at its start, the points of the path in between and the point at its
+// end, the same points getSegment() puts into a path.
+public class PenPathMeasure {
+
+	// Members
+	private PenPath mPath;
+	private int mNumOfPoints = 0;
+	private float mLengths[]; // mLengths[i] is the arc length from the first point to point i
+	private float mLength = 0.0F;
+
+	// Members of a sub-path measure: point i (0 < i < mNumOfPoints - 1) is point mPathOffset + i of mPath
+	private boolean mSubPathP = false;
+	private int mPathOffset = 0;
+	private float mStartX, mStartY; // point 0
+	private float mStopX, mStopY; // point mNumOfPoints - 1
+	private float mPos[] = {0.0F, 0.0F};
+
+	// Measure nothing until setSubPath() is called
+	PenPathMeasure() {
+	}
+
+	public PenPathMeasure(PenPath path, boolean forceClosed) {
+		setPath(path, forceClosed);
+	}
+
+	// Measure a path from lengths already computed for it (e.g. by PenStrokeAccumulator or by another
+	// PenPathMeasure of a copy of the path).  The lengths are copied.
+	PenPathMeasure(PenPath path, float lengths[], int numOfLengths) {
+		setPath(path, lengths, numOfLengths);
+	}
+
+	// Measure path, a copy of the path measured by src, without measuring it again
+	PenPathMeasure(PenPath path, PenPathMeasure src) {
+		this(path, src.mLengths, src.mNumOfPoints);
+	}
+
+	// Measure a (possibly new) path from lengths already computed for it, as PenPathMeasure(path, lengths,
+	// numOfLengths) does, reusing the lengths array if it is large enough
+	void setPath(PenPath path, float lengths[], int numOfLengths) {
+		mPath = path;
+		mNumOfPoints = numOfLengths;
+		mSubPathP = false;
+		mPathOffset = 0;
+		if ((mLengths == null) || (mLengths.length < numOfLengths))
+			mLengths = new float[Math.max(1, numOfLengths)];
+		System.arraycopy(lengths, 0, mLengths, 0, numOfLengths);
+		mLength = (numOfLengths > 0) ? lengths[numOfLengths - 1] : 0.0F;
+	}
+
+	// Measure path, a copy of the path measured by src, as PenPathMeasure(path, src) does
+	void setPath(PenPath path, PenPathMeasure src) {
+		setPath(path, src.mLengths, src.mNumOfPoints);
+	}
+
+	// Measure a (possibly new) path.  The path must not be changed while it is being measured.
+	public void setPath(PenPath path, boolean forceClosed) {
+		mPath = path;
+		mNumOfPoints = path.getPointCount();
+		mSubPathP = false;
+		mPathOffset = 0;
+
+		// A closed path has one more point, the first point repeated at the end
+		boolean closeP = forceClosed & (mNumOfPoints > 1);
+		int numOfLengths = closeP ? mNumOfPoints + 1 : mNumOfPoints;
+		if ((mLengths == null) || (mLengths.length < numOfLengths))
+			mLengths = new float[Math.max(1, numOfLengths)];
+
+		float length = 0.0F;
+		if (mNumOfPoints > 0)
+			mLengths[0] = 0.0F;
+		for (int i = 1; i < numOfLengths; i++) {
+			length = length + PenUtil.distanceBetween2Points(getX(i - 1), getY(i - 1), getX(i), getY(i));
+			mLengths[i] = length;
+		}
+		mNumOfPoints = numOfLengths;
+		mLength = length;
+	}
+
+	// Measure the part of the path measured by src (which may itself be a sub-path) between startD and stopD,
+	// the part getSegment() would put into a path, without copying its points.  The path of src must not be
+	// changed while this is used.  Return false (and measure nothing) if the part is empty.
+	boolean setSubPath(PenPathMeasure src, float startD, float stopD) {
+		startD = Math.max(0.0F, startD);
+		stopD = Math.min(src.mLength, stopD);
+		if ((src.mLength <= 0.0F) || (startD > stopD))
+			return false;
+
+		int startIndex = src.findSegment(startD);
+		int stopIndex = src.findSegment(stopD);
+
+		mPath = src.mPath;
+		mPathOffset = src.mPathOffset + startIndex - 1;
+		mNumOfPoints = 2 + Math.max(0, stopIndex - startIndex);
+		mSubPathP = true;
+		src.getPosTan(startD, mPos, null);
+		mStartX = mPos[0];
+		mStartY = mPos[1];
+		src.getPosTan(stopD, mPos, null);
+		mStopX = mPos[0];
+		mStopY = mPos[1];
+
+		if ((mLengths == null) || (mLengths.length < mNumOfPoints))
+			mLengths = new float[mNumOfPoints];
+
+		float length = 0.0F;
+		mLengths[0] = 0.0F;
+		for (int i = 1; i < mNumOfPoints; i++) {
+			length = length + PenUtil.distanceBetween2Points(getX(i - 1), getY(i - 1), getX(i), getY(i));
+			mLengths[i] = length;
+		}
+		mLength = length;
+		return true;
+	}
+
+	public float getLength() {
+		return mLength;
+	}
+
+	// Get the position and (unit) tangent at distance along the path.  Either pos or tan may be null.
+	// Return false if the path has no length.
+	public boolean getPosTan(float distance, float pos[], float tan[]) {
+		if (mLength <= 0.0F)
+			return false;
+
+		distance = Math.max(0.0F, Math.min(mLength, distance));
+		int i = findSegment(distance);
+
+		float x0 = getX(i - 1);
+		float y0 = getY(i - 1);
+		float dX = getX(i) - x0;
+		float dY = getY(i) - y0;
+		float segLength = mLengths[i] - mLengths[i - 1];
+		float t = (distance - mLengths[i - 1]) / segLength;
+
+		if (pos != null) {
+			pos[0] = x0 + t * dX;
+			pos[1] = y0 + t * dY;
+		}
+		if (tan != null) {
+			tan[0] = dX / segLength;
+			tan[1] = dY / segLength;
+		}
+		return true;
+	}
+
+	// Put the part of the path between startD and stopD into dst, starting it with a moveTo if startWithMoveTo
+	// is true (and a lineTo otherwise).  Return false if the part is empty.
+	public boolean getSegment(float startD, float stopD, PenPath dst, boolean startWithMoveTo) {
+		startD = Math.max(0.0F, startD);
+		stopD = Math.min(mLength, stopD);
+		if ((mLength <= 0.0F) || (startD > stopD))
+			return false;
+
+		int startIndex = findSegment(startD);
+		int stopIndex = findSegment(stopD);
+		float pos[] = {0.0F, 0.0F};
+
+		getPosTan(startD, pos, null);
+		if (startWithMoveTo)
+			dst.moveTo(pos[0], pos[1]);
+		else
+			dst.lineTo(pos[0], pos[1]);
+
+		// Add the points strictly between the two ends
+		for (int i = startIndex; i < stopIndex; i++) {
+			dst.lineTo(getX(i), getY(i));
+		}
+
+		getPosTan(stopD, pos, null);
+		dst.lineTo(pos[0], pos[1]);
+		return true;
+	}
+
+	// Put the points measured into dst (the whole of dst is replaced)
+	void getPath(PenPath dst) {
+		dst.reset();
+		for (int i = 0; i < mNumOfPoints; i++) {
+			if (i == 0)
+				dst.moveTo(getX(i), getY(i));
+			else
+				dst.lineTo(getX(i), getY(i));
+		}
+	}
+
+	// Compute the bounds of the points measured
+	void computeBounds(PenRectF bounds) {
+		if (mNumOfPoints == 0) {
+			bounds.setEmpty();
+			return;
+		}
+
+		bounds.set(getX(0), getY(0), getX(0), getY(0));
+		for (int i = 1; i < mNumOfPoints; i++) {
+			bounds.union(getX(i), getY(i));
+		}
+	}
+
+	// Get the centroid of the points measured (weighted by arc length, as PenStrokeAccumulator computes it) into
+	// pos, or the first point if there is no length
+	void computeCentroid(float pos[]) {
+		if (mNumOfPoints == 0) {
+			pos[0] = 0.0F;
+			pos[1] = 0.0F;
+			return;
+		}
+
+		float sumX = 0.0F;
+		float sumY = 0.0F;
+		for (int i = 1; i < mNumOfPoints; i++) {
+			float x0 = getX(i - 1);
+			float y0 = getY(i - 1);
+			float x = getX(i);
+			float y = getY(i);
+			float segLength = PenUtil.distanceBetween2Points(x0, y0, x, y);
+			sumX = sumX + segLength * (x0 + x) / 2;
+			sumY = sumY + segLength * (y0 + y) / 2;
+		}
+		pos[0] = (mLength > 0.0F) ? sumX / mLength : getX(0);
+		pos[1] = (mLength > 0.0F) ? sumY / mLength : getY(0);
+	}
+
+	// Get the largest distance of the points measured from the line through the first and the last point (or
+	// from the first point if the two are the same)
+	float getMaxDistanceFromChord() {
+		if (mNumOfPoints == 0)
+			return 0.0F;
+
+		float x0 = getX(0);
+		float y0 = getY(0);
+		float chordX = getX(mNumOfPoints - 1) - x0;
+		float chordY = getY(mNumOfPoints - 1) - y0;
+		float chordLength = PenUtil.distanceBetween2Points(0.0F, 0.0F, chordX, chordY);
+
+		float maxDistance = 0.0F;
+		for (int i = 1; i < mNumOfPoints - 1; i++) {
+			float dX = getX(i) - x0;
+			float dY = getY(i) - y0;
+			float distance = (chordLength > 0.0F) ? Math.abs(dX * chordY - dY * chordX) / chordLength
+					: PenUtil.distanceBetween2Points(0.0F, 0.0F, dX, dY);
+			maxDistance = Math.max(maxDistance, distance);
+		}
+		return maxDistance;
+	}
+
+	// Find the index i of the first point with mLengths[i] >= distance, skipping segments of zero length,
+	// so that distance is on the segment from point i-1 to point i
+	private int findSegment(float distance) {
+		int low = 1;
+		int high = mNumOfPoints - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (mLengths[mid] < distance)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		while ((low < mNumOfPoints - 1) & (mLengths[low] <= mLengths[low - 1]))
+			low = low + 1;
+
+		return low;
+	}
+
+	// The point after the last one of a closed path is the first point
+	private float getX(int i) {
+		if (mSubPathP)
+			return (i == 0) ? mStartX : ((i == mNumOfPoints - 1) ? mStopX : mPath.getX(mPathOffset + i));
+		return mPath.getX(i < mPath.getPointCount() ? i : 0);
+	}
+
+	private float getY(int i) {
+		if (mSubPathP)
+			return (i == 0) ? mStartY : ((i == mNumOfPoints - 1) ? mStopY : mPath.getY(mPathOffset + i));
+		return mPath.getY(i < mPath.getPointCount() ? i : 0);
+	}
+}
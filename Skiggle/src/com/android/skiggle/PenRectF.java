@@ -0,0 +1,87 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+// PenRectF is a plain Java rectangle with float coordinates.  It stands in for android.graphics.RectF
+// in the recognition code so that the recognizer does not depend on the Android graphics classes.
+// Like RectF, y increases downwards so top <= bottom for a non-empty rectangle.
+public class PenRectF {
+
+	public float left;
+	public float top;
+	public float right;
+	public float bottom;
+
+	public PenRectF() {}
+
+	public PenRectF(float left, float top, float right, float bottom) {
+		set(left, top, right, bottom);
+	}
+
+	public void set(float left, float top, float right, float bottom) {
+		this.left = left;
+		this.top = top;
+		this.right = right;
+		this.bottom = bottom;
+	}
+
+	public void set(PenRectF src) {
+		set(src.left, src.top, src.right, src.bottom);
+	}
+
+	public void setEmpty() {
+		set(0.0F, 0.0F, 0.0F, 0.0F);
+	}
+
+	public float width() {
+		return right - left;
+	}
+
+	public float height() {
+		return bottom - top;
+	}
+
+	public float centerX() {
+		return (left + right) * 0.5F;
+	}
+
+	public float centerY() {
+		return (top + bottom) * 0.5F;
+	}
+
+	// Grow the rectangle so that it contains the point (x, y)
+	public void union(float x, float y) {
+		left = Math.min(left, x);
+		top = Math.min(top, y);
+		right = Math.max(right, x);
+		bottom = Math.max(bottom, y);
+	}
+
+	// Grow the rectangle so that it contains the rectangle r
+	public void union(PenRectF r) {
+		union(r.left, r.top);
+		union(r.right, r.bottom);
+	}
+
+	public String toString() {
+		return "PenRectF(" + left + ", " + top + ", " + right + ", " + bottom + ")";
+	}
+}
@@ -26,14 +26,11 @@ import java.util.Vector;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.PathMeasure;
-import android.graphics.PointF;
-import android.graphics.RectF;
 import android.util.Log;
 
-// PenStroke is a continuous path (between pen down and pen up) drawn by the pen.
-public class PenSegment extends Path {
+// PenSegment is a part of a PenStroke that forms one of the primitive stroke elements (like '-', '(', or '|')
+// making up a character.
+public class PenSegment {
 
 	// TAG for logging debugging info
 	private static final String TAG = "MyPenSegment";
@@ -49,27 +46,31 @@ public class PenSegment extends Path {
 	public static final char DOT_CHAR = '.'; // Dot or period segment
 	public static final char U_CHAR = 'U'; // U segment
 
-	private static final float MAX_CURVATURE_FOR_STRAIGHTLINE = 0.005F; // Maximum curvature (kappa) for a stroke to be a straight line
-
 	private static final float VLINE_ANGLE = 90.0F; // Line goes from N to S
 	private static final float HLINE_ANGLE = 0.0F; // Line goes from W to E
 	private static final float BSLASH_ANGLE= 45.0F; // Line goes from NW to SE
 	private static final float FSLASH_ANGLE = 135.0F; // Line goes from NE to SW
 
-	private static final float VLINE_MAX_ANGLE_SPREAD = 15.0F; //10.0F;  // Max tilt angle spread from the vertical for vertical line
-	private static final float HLINE_MAX_ANGLE_SPREAD = 15.0F; //10.0F;	 // Max tilt angle from spread the horizontal for a horizontal line segment
-	private static final float BSLASH_MAX_ANGLE_SPREAD = 30.0F; // Maximum tilt angle from the horizontal for a back slash
-	private static final float FSLASH_MAX_ANGLE_SPREAD = 30.0F; // Maximum tilt angle from the horizontal for a forward slash
-
-	private static final float MAX_ABS_KAPPA_DIFF_THRESHOLD = 0.025F; // Max difference between the curvature (kappa) values of a stroke segment
-
-	private static final int NUM_OF_POINTS_ON_STROKE = 20;
+	// The max curvature of a straight line, the max angle spreads of the lines and the max curvature difference
+	// of a segment that is not split are parameters of the profile the segment is split and matched with (see
+	// RecognizerProfile)
+
+	// The curvature of a segment is computed at points about POINT_SPACING pixels apart along it (20 points for a
+	// 240 pixel stroke), but at no fewer than MIN_NUM_OF_POINTS_ON_STROKE points so that short strokes still
+	// have a curvature profile, and at no more than MAX_NUM_OF_POINTS_ON_STROKE points.  The whole-stroke
+	// segment of a stroke drawn through a PenStrokeAccumulator takes the curvature computed while the stroke
+	// was drawn, at points exactly POINT_SPACING pixels apart, if it has at least MIN_NUM_OF_POINTS_ON_STROKE
+	// of them (see setStrokeFeatures()).
+	private static final float POINT_SPACING = StrokeCurvature.POINT_SPACING;
+	private static final int MIN_NUM_OF_POINTS_ON_STROKE = 12;
+	private static final int MAX_NUM_OF_POINTS_ON_STROKE = StrokeCurvature.MAX_NUM_OF_POINTS;
+	private static final int PROBE_NUM_OF_POINTS_ON_STROKE = 20; // for the 10 points around a split point (see split())
 
 	// Members
-	public Path mPenSegmentPath;
-	public PathMeasure mPenStrokeMeasure;
+	public PenPath mPenSegmentPath;
+	public PenPathMeasure mPenStrokeMeasure;
 	public float mPenStrokeLength;
-	public RectF mBoundingRectF;
+	public PenRectF mBoundingRectF;
 	public float mBoundingRectHeight;
 	public float mBoundingRectWidth;
 	public float mPosStart[] = {0.0F, 0.0F};
@@ -86,49 +87,302 @@ public class PenSegment extends Path {
 	private float mMaxAbsKappaDiffX = 0.0F; // x-coord of the max absolute Kappa diff value
 	private float mMaxAbsKappaDiffY = 0.0F; // y-coord of the max absolute Kappa diff value
 	public int mMaxAbsKappaDiffIndex = -1; // array index or position of the max absolute Kappa duff point
+	public int mNumOfCurvaturePoints = 0; // number of points the curvature was computed at (0 for a dot or a straight stroke)
+	private float mCurvaturePointSpacing = 0.0F; // arc length between the points the curvature was computed at
+	private boolean mStrokeCurvatureP = false; // true if the curvature was taken from the stroke (see setStrokeFeatures())
 	public float mMaxAbsKappaDiff = 0.0F; // temp
-	private String mHistBucketsStr = ""; // temp
 	public Character mPenSegmentCharacter;
+	private RecognizerProfile mProfile = RecognizerProfile.getDefault(); // set by getStrokeSegments()
 
-	// Twenty element arrays
-	public float mPointsX[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-			0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F};
-	public float mPointsY[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-			0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F};
-	private float mTanAngle[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-			0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F}; // tangent angle in degrees
-	private float mKappa[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-			0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F}; // array of curvature
-	private float mKappaDiff[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-			0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F}; //
+	// Arrays of mNumOfCurvaturePoints elements, only kept if sKeepCurvaturePointsP is true (see getCurvaturePoints())
+	public float mPointsX[];
+	public float mPointsY[];
+	private float mTanAngle[]; // tangent angle in degrees
+	private float mKappa[]; // array of curvature
+	private float mKappaDiff[]; // array of difference of curvature
 
+	private static volatile boolean sKeepCurvaturePointsP = false;
+
+	// Segments made by obtain() (the segments of a stroke and their parts, see PenStroke.segmentStroke()) are
+	// reused once they are no longer used (see recycle()).  Each thread has its own pool, as PenStroke has: a
+	// segment goes back to the pool of the thread that first made it.  A pool holds at most MAX_POOL_SIZE
+	// segments, a list linked through mNextInPool, and is guarded by its own lock.  A pooled segment keeps its
+	// path, measures and bounds for the next time it is used.
+	private static final int MAX_POOL_SIZE = 128;
+
+	private static class Pool {
+		PenSegment mFirst = null;
+		int mSize = 0;
+	}
+
+	private static final ThreadLocal<Pool> POOL = new ThreadLocal<Pool>() {
+		protected Pool initialValue() {
+			return new Pool();
+		}
+	};
+
+	private Pool mPool = null; // the pool the segment belongs to, null if it was made with new
+	private PenSegment mNextInPool = null;
+	private boolean mRecycledP = false; // true from recycle() until obtain() hands the segment out again
+	private PenPath mOwnPath = null; // the path of a pooled segment, also kept while it is measured on another segment's points
+	private PenPathMeasure mOwnMeasure = null; // the measure of mOwnPath
+	private PenPathMeasure mSubPathMeasure = null; // the measure of a part of another segment (see newSubSegment())
+
+	// Scratch used by getCurvaturePoints(), one set per thread
+	private static class CurvatureScratch {
+		float mPos[] = {0.0F, 0.0F};
+		float mTan[] = {0.0F, 0.0F};
+		StrokeCurvature mCurvature = new StrokeCurvature();
+	}
+
+	private static final ThreadLocal<CurvatureScratch> CURVATURE_SCRATCH = new ThreadLocal<CurvatureScratch>() {
+		protected CurvatureScratch initialValue() {
+			return new CurvatureScratch();
+		}
+	};
 
 	public PenSegment() {
 
-		super();
+		mPenSegmentPath = new PenPath();
+	}
+
+	public PenSegment(PenPath path) {
+		mPenSegmentPath = new PenPath(path);
+		mPenStrokeMeasure = new PenPathMeasure(mPenSegmentPath, false);
+		mPenStrokeLength = mPenStrokeMeasure.getLength();
+		mPenStrokeMeasure.getPosTan(0, mPosStart, mTanStart);
+		mPenStrokeMeasure.getPosTan(mPenStrokeLength, mPosEnd, mTanEnd);
+		mBoundingRectF = new PenRectF();
+		path.computeBounds(mBoundingRectF);
+		mBoundingRectHeight = Math.abs(mBoundingRectF.top - mBoundingRectF.bottom);
+		mBoundingRectWidth = Math.abs(mBoundingRectF.left - mBoundingRectF.right);
+	}
+
+	// Make a segment of the whole stroke, reusing the measure and bounds of the stroke
+	public PenSegment(PenStroke penStroke) {
+		mPenSegmentPath = new PenPath(penStroke.mPenStrokePath);
+		mPenStrokeMeasure = new PenPathMeasure(mPenSegmentPath, penStroke.mPenStrokeMeasure);
+		setStrokeFeatures(penStroke);
+	}
+
+	// Get a segment of the whole stroke (as PenSegment(penStroke) makes it) from the pool, or a new one if the
+	// pool is empty
+	static PenSegment obtain(PenStroke penStroke) {
+		PenSegment pSegment = obtain();
+		if (pSegment.mOwnPath == null) {
+			pSegment.mOwnPath = new PenPath(penStroke.mPenStrokePath);
+			pSegment.mOwnMeasure = new PenPathMeasure(pSegment.mOwnPath, penStroke.mPenStrokeMeasure);
+		}
+		else {
+			pSegment.mOwnPath.set(penStroke.mPenStrokePath);
+			pSegment.mOwnMeasure.setPath(pSegment.mOwnPath, penStroke.mPenStrokeMeasure);
+		}
+		pSegment.mPenSegmentPath = pSegment.mOwnPath;
+		pSegment.mPenStrokeMeasure = pSegment.mOwnMeasure;
+		pSegment.setStrokeFeatures(penStroke);
+		return pSegment;
+	}
+
+	private static PenSegment obtain() {
+		Pool pool = POOL.get();
+		synchronized (pool) {
+			if (pool.mFirst != null) {
+				PenSegment pSegment = pool.mFirst;
+				pool.mFirst = pSegment.mNextInPool;
+				pSegment.mNextInPool = null;
+				pool.mSize = pool.mSize - 1;
+				pSegment.mRecycledP = false;
+				return pSegment;
+			}
+		}
+
+		PenSegment pSegment = new PenSegment((PenPathMeasure) null);
+		pSegment.mPool = pool;
+		return pSegment;
+	}
+
+	// Put a segment made by obtain() back into the pool (if it is not full).  It must not be used by anyone
+	// afterwards, and the parts made from it by newSubSegment() must have their own paths (see copySubPath()).
+	// Does nothing for a segment made with new.  Throws IllegalStateException if the segment was already
+	// recycled (and not obtained again since), so that it is never in the pool twice.
+	void recycle() {
+		if (mPool == null)
+			return;
+
+		synchronized (mPool) {
+			if (mRecycledP)
+				throw new IllegalStateException("PenSegment recycled twice");
+			mRecycledP = true;
+		}
+		clearFeatures();
+		synchronized (mPool) {
+			if (mPool.mSize < MAX_POOL_SIZE) {
+				mNextInPool = mPool.mFirst;
+				mPool.mFirst = this;
+				mPool.mSize = mPool.mSize + 1;
+			}
+		}
+	}
+
+	// Number of segments in the pool of the calling thread
+	public static int getPoolSize() {
+		Pool pool = POOL.get();
+		synchronized (pool) {
+			return pool.mSize;
+		}
+	}
+
+	// Set the features of a segment to those it has when it is made (see PenSegment()), except for the
+	// path, the measures and the bounds, which are kept for reuse
+	private void clearFeatures() {
+		mPenSegmentPath = null;
+		mPenStrokeMeasure = null;
+		mPenStrokeLength = 0.0F;
+		mBoundingRectHeight = 0.0F;
+		mBoundingRectWidth = 0.0F;
+		mPosStart[0] = 0.0F;
+		mPosStart[1] = 0.0F;
+		mTanStart[0] = 0.0F;
+		mTanStart[1] = 0.0F;
+		mPosEnd[0] = 0.0F;
+		mPosEnd[1] = 0.0F;
+		mTanEnd[0] = 0.0F;
+		mTanEnd[1] = 0.0F;
+		mAvgAngle = 0.0F;
+		mAvgKappa = 0.0F;
+		mAvgX = 0.0F;
+		mAvgY = 0.0F;
+		mMaxAbsKappaX = 0.0F;
+		mMaxAbsKappaY = 0.0F;
+		mMaxAbsKappa = 0.0F;
+		mMaxAbsKappaDiffX = 0.0F;
+		mMaxAbsKappaDiffY = 0.0F;
+		mMaxAbsKappaDiffIndex = -1;
+		mNumOfCurvaturePoints = 0;
+		mCurvaturePointSpacing = 0.0F;
+		mStrokeCurvatureP = false;
+		mMaxAbsKappaDiff = 0.0F;
+		mPenSegmentCharacter = null;
+		mProfile = RecognizerProfile.getDefault();
+		mPointsX = null;
+		mPointsY = null;
+		mTanAngle = null;
+		mKappa = null;
+		mKappaDiff = null;
+	}
+
+	// Set the end points and the bounds from those of the stroke the segment is made of, and the curvature too
+	// if it was computed while the stroke was drawn (see PenStroke.getCurvature())
+	private void setStrokeFeatures(PenStroke penStroke) {
+		mPenStrokeLength = penStroke.mPenStrokeLength;
+		mPosStart[0] = penStroke.mPosStart[0];
+		mPosStart[1] = penStroke.mPosStart[1];
+		mPosEnd[0] = penStroke.mPosEnd[0];
+		mPosEnd[1] = penStroke.mPosEnd[1];
+		mPenStrokeMeasure.getPosTan(0, null, mTanStart);
+		mPenStrokeMeasure.getPosTan(mPenStrokeLength, null, mTanEnd);
+		if (mBoundingRectF == null)
+			mBoundingRectF = new PenRectF();
+		mBoundingRectF.set(penStroke.mBoundingRectF);
+		mBoundingRectHeight = penStroke.mBoundingRectHeight;
+		mBoundingRectWidth = penStroke.mBoundingRectWidth;
+
+		StrokeCurvature curvature = penStroke.getCurvature();
+		mStrokeCurvatureP = (curvature != null) && (curvature.getNumOfPoints() >= MIN_NUM_OF_POINTS_ON_STROKE);
+		if (mStrokeCurvatureP)
+			setCurvatureFeatures(curvature);
+	}
+
+	// Make a segment of the part of srcMeasure between startD and stopD without copying its points (see
+	// PenPathMeasure.setSubPath()), or return null if the part is empty.  The segment has no path until
+	// copySubPath() is called.
+	private static PenSegment newSubSegment(PenPathMeasure srcMeasure, float startD, float stopD) {
+		PenSegment pSegment = obtain();
+		if (pSegment.mSubPathMeasure == null)
+			pSegment.mSubPathMeasure = new PenPathMeasure();
+		if (!pSegment.mSubPathMeasure.setSubPath(srcMeasure, startD, stopD)) {
+			pSegment.recycle();
+			return null;
+		}
+
+		pSegment.setSubPathFeatures(pSegment.mSubPathMeasure);
+		return pSegment;
 	}
 
-	public PenSegment(Path path) {
-		mPenSegmentPath = new Path(path);
-		mPenStrokeMeasure = new PathMeasure(mPenSegmentPath, false);
+	// Make a part of this segment as newSubSegment(mPenStrokeMeasure, startD, stopD) does, to be split and matched
+	// with the profile of this segment
+	private PenSegment newSubSegment(float startD, float stopD) {
+		PenSegment pSegment = newSubSegment(mPenStrokeMeasure, startD, stopD);
+		if (pSegment != null)
+			pSegment.mProfile = mProfile;
+		return pSegment;
+	}
+
+	// Make a segment measured by measure (null for a segment to be set by obtain() or newSubSegment())
+	private PenSegment(PenPathMeasure measure) {
+		if (measure != null)
+			setSubPathFeatures(measure);
+	}
+
+	private void setSubPathFeatures(PenPathMeasure measure) {
+		mPenStrokeMeasure = measure;
 		mPenStrokeLength = mPenStrokeMeasure.getLength();
 		mPenStrokeMeasure.getPosTan(0, mPosStart, mTanStart);
 		mPenStrokeMeasure.getPosTan(mPenStrokeLength, mPosEnd, mTanEnd);
-		mBoundingRectF = new RectF();
-		path.computeBounds(mBoundingRectF, false);
+		if (mBoundingRectF == null)
+			mBoundingRectF = new PenRectF();
+		mPenStrokeMeasure.computeBounds(mBoundingRectF);
 		mBoundingRectHeight = Math.abs(mBoundingRectF.top - mBoundingRectF.bottom);
 		mBoundingRectWidth = Math.abs(mBoundingRectF.left - mBoundingRectF.right);
 	}
 
-	public void addPath(Path srcPath) {
+	// Set the features the character checks read (see SegmentStore), for a segment made with PenSegment() and
+	// reused for one stored segment after another.  c is '\0' for a segment with no character.
+	void setFeatures(char c, float startX, float startY, float endX, float endY, float avgX, float avgY, float avgKappa,
+			float maxAbsKappaDiff, float left, float top, float right, float bottom) {
+		mPenSegmentCharacter = (c != '\0') ? Character.valueOf(c) : null;
+		mPosStart[0] = startX;
+		mPosStart[1] = startY;
+		mPosEnd[0] = endX;
+		mPosEnd[1] = endY;
+		mAvgX = avgX;
+		mAvgY = avgY;
+		mAvgKappa = avgKappa;
+		mMaxAbsKappaDiff = maxAbsKappaDiff;
+		if (mBoundingRectF == null)
+			mBoundingRectF = new PenRectF();
+		mBoundingRectF.set(left, top, right, bottom);
+		mBoundingRectHeight = Math.abs(bottom - top);
+		mBoundingRectWidth = Math.abs(right - left);
+	}
+
+	// Give a segment made by newSubSegment() its own path, a copy of the points it measures
+	private void copySubPath() {
+		if (mPenSegmentPath != null)
+			return;
+
+		if (mOwnPath == null) {
+			mOwnPath = new PenPath();
+			mPenStrokeMeasure.getPath(mOwnPath);
+			mOwnMeasure = new PenPathMeasure(mOwnPath, mPenStrokeMeasure);
+		}
+		else {
+			mPenStrokeMeasure.getPath(mOwnPath);
+			mOwnMeasure.setPath(mOwnPath, mPenStrokeMeasure);
+		}
+		mPenSegmentPath = mOwnPath;
+		mPenStrokeMeasure = mOwnMeasure;
+	}
+
+	public void addPath(PenPath srcPath) {
 
-		super.addPath(srcPath);		
-		mPenStrokeMeasure = new PathMeasure(srcPath, false);
+		mPenSegmentPath.set(srcPath);
+		mPenStrokeMeasure = new PenPathMeasure(mPenSegmentPath, false);
 		mPenStrokeLength = mPenStrokeMeasure.getLength();
 		mPenStrokeMeasure.getPosTan(0, mPosStart, mTanStart);
 		mPenStrokeMeasure.getPosTan(mPenStrokeLength, mPosEnd, mTanEnd);
-		mBoundingRectF = new RectF();	
-		srcPath.computeBounds(mBoundingRectF, false);
+		mBoundingRectF = new PenRectF();	
+		mPenSegmentPath.computeBounds(mBoundingRectF);
 		mBoundingRectHeight = Math.abs(mBoundingRectF.top - mBoundingRectF.bottom);
 		mBoundingRectWidth = Math.abs(mBoundingRectF.left - mBoundingRectF.right);
 	}
@@ -148,7 +402,7 @@ public class PenSegment extends Path {
 	// If the maximum kappa difference is more than 10 times the kappa average then the stroke has more than one segment
 	public boolean hasMultipleSegments() {
 
-		return (mMaxAbsKappaDiff > MAX_ABS_KAPPA_DIFF_THRESHOLD) & (mMaxAbsKappaDiff > 5.0 * Math.abs(mAvgKappa));
+		return (mMaxAbsKappaDiff > mProfile.get(RecognizerProfile.MAX_ABS_KAPPA_DIFF_THRESHOLD)) & (mMaxAbsKappaDiff > 5.0 * Math.abs(mAvgKappa));
 	}
 
 	// Check to see if the segment length is at least .1 the total length
@@ -166,7 +420,7 @@ public class PenSegment extends Path {
 
 	private boolean isStraight(double kappa) {
 
-		return (Math.abs(kappa) < MAX_CURVATURE_FOR_STRAIGHTLINE);
+		return (Math.abs(kappa) < mProfile.get(RecognizerProfile.STRAIGHTLINE_MAX_CURVATURE));
 	}
 
 	private boolean isCurved(double kappa) {
@@ -226,28 +480,28 @@ public class PenSegment extends Path {
 
 		// line can be left to right (W to E) or right to left (E to W)
 		return (isStraight(mAvgKappa) &
-				checkLineAngle(mAvgAngle - HLINE_ANGLE, HLINE_MAX_ANGLE_SPREAD));
+				checkLineAngle(mAvgAngle - HLINE_ANGLE, mProfile.get(RecognizerProfile.HLINE_MAX_ANGLE_SPREAD)));
 	}
 
 	private boolean isBSlash() {
 
 		// line can be NW to SE or SE to NW
 		return (isStraight(mAvgKappa) &
-				checkLineAngle(mAvgAngle - BSLASH_ANGLE, BSLASH_MAX_ANGLE_SPREAD));
+				checkLineAngle(mAvgAngle - BSLASH_ANGLE, mProfile.get(RecognizerProfile.BSLASH_MAX_ANGLE_SPREAD)));
 	}
 
 	private boolean isVLine() {
 
 		// line can be top to bottom (N to S) or bottom to top (S to N)
 		return (isStraight(mAvgKappa) &
-				checkLineAngle(mAvgAngle - VLINE_ANGLE, VLINE_MAX_ANGLE_SPREAD));
+				checkLineAngle(mAvgAngle - VLINE_ANGLE, mProfile.get(RecognizerProfile.VLINE_MAX_ANGLE_SPREAD)));
 	}
 
 	private boolean isFSlash() {
 
 		// line can be NE to SW or SW to NE
 		return (isStraight(mAvgKappa) &
-				checkLineAngle(mAvgAngle - FSLASH_ANGLE, FSLASH_MAX_ANGLE_SPREAD));
+				checkLineAngle(mAvgAngle - FSLASH_ANGLE, mProfile.get(RecognizerProfile.FSLASH_MAX_ANGLE_SPREAD)));
 	}
 
 	// Check to see if stroke is a backward C (looks like a more curved version of the left parenthesis ')' )
@@ -370,100 +624,171 @@ public class PenSegment extends Path {
 
 	}
 
-	// Compute the curvature at various points of the stroke
-	public void getCurvaturePoints(Canvas canvas, Paint textPaint) {
-
-		int numOfSegments = NUM_OF_POINTS_ON_STROKE;
-		float posStart[] = {0.0F, 0.0F};
-		float tanStart[] = {0.0F, 0.0F};
-		float posEnd[] = {0.0F, 0.0F};
-		float posX[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-				0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F};
-		float posY[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-				0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F};
-		float tanAngle[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-				0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F}; // tangent angle in degrees
-		float tanEnd[] = {0.0F, 0.0F};
-		float kappa[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-				0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F}; // array of curvature
-		float kappaDiff[] = {0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F,
-				0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F, 0.0F}; // array of difference of curvature
-		float sumAngle = 0.0F;
-		float sumKappa = 0.0F;
-		float sumX = 0.0F;
-		float sumY = 0.0F;
-		float maxAbsKappa = 0.0F;
-		float maxAbsKappaDiff = 0.0F;
+	// Compute the curvature at various points of the stroke, the number of points depending on its length (see
+	// getNumOfCurvaturePoints()).
+	public void getCurvaturePoints() {
+
+		getCurvaturePoints(getNumOfCurvaturePoints(mPenStrokeLength));
+	}
+
+	// Compute the curvature at numOfSegments points of the stroke.  The points, tangent angles, curvatures, and
+	// curvature differences are computed in a per-thread StrokeCurvature so that no arrays are allocated; they
+	// are copied to the segment only if setKeepCurvaturePoints(true) was called.
+	private void getCurvaturePoints(int numOfSegments) {
+
+		long startTime = RecognizerMetrics.startTime();
+		long startBytes = RecognizerMetrics.startAllocatedBytes();
+		CurvatureScratch scratch = CURVATURE_SCRATCH.get();
+		float posStart[] = scratch.mPos;
+		float tanStart[] = scratch.mTan;
+		StrokeCurvature curvature = scratch.mCurvature;
 		float segmentLength = mPenStrokeLength/numOfSegments;
+
+		// Clear what is left in the scratch from the last segment
+		posStart[0] = 0.0F;
+		posStart[1] = 0.0F;
+		tanStart[0] = 0.0F;
+		tanStart[1] = 0.0F;
+		curvature.reset(segmentLength);
+
 		for (int i = 0; i < numOfSegments; i++) {
 
 			mPenStrokeMeasure.getPosTan(i * segmentLength, posStart, tanStart);
-			posX[i] = posStart[0];
-			posY[i] = posStart[1];
-			sumX = sumX + posX[i];
-			sumY = sumY + posY[i];
-			tanAngle[i] = (float) PenUtil.getAbsAngle(tanStart[1], tanStart[0]);
-
-			if (i > 0) {
-
-				// mPenStrokeMeasure.getPosTan((i + 1) * segmentLength, posEnd, tanEnd);
-				// posX[i + 1] = posEnd[0];
-				// posY[i + 1] = posEnd[1];
-				// tanAngle[i + 1] = (float) getAbsAngle(tanEnd[1], tanEnd[0]);
-				sumAngle = sumAngle + tanAngle[i]; //tanAngle[i+1]; //Math.abs(tanAngle[i+1]);
-
-				if ((i > 1) & (i < numOfSegments - 1)) {
-					// need 3 points to compute kappa so ignore start and end points
-					kappa[i-1] = PenUtil.computeCurvatureM2003(posX[i-2], posY[i-2], posX[i-1], posY[i-1], posX[i], posY[i]);
-					// kappa[i-1] = computeCurvatureHK2003(posX[i-2], posY[i-2], posX[i-1], posY[i-1], posX[i], posY[i]);
-					sumKappa = sumKappa + kappa[i-1];
-					if (Math.abs(kappa[i-1])> maxAbsKappa) {
-
-						// Update the x,y coordinates and max absolute kappa value
-						mMaxAbsKappaX = posX[i-1];
-						mMaxAbsKappaY = posY[i-1];
-						maxAbsKappa = Math.abs(kappa[i-1]);
-					}
+			curvature.addPoint(posStart[0], posStart[1], tanStart[0], tanStart[1]);
+		}
 
-					kappaDiff[i-2] = kappa[i-1] - kappa[i-2]; // get difference in kappa of point and its next neighbor
-					if (Math.abs(kappaDiff[i-2])> maxAbsKappaDiff) {
+		setCurvatureFeatures(curvature);
 
-						// Update the x,y coordinates, index, and max absolute kappa difference accordingly
-						mMaxAbsKappaDiffX = posX[i-2];
-						mMaxAbsKappaDiffY = posY[i-2];
-						mMaxAbsKappaDiffIndex = i-2;
-						maxAbsKappaDiff = Math.abs(kappaDiff[i-2]);
-					}
-				}
-			}
+		//printSegmentEndPoints(mBoundingRectF, posX, posY, tanAngle, kappa, canvas, textPaint);
 
-			mAvgX = sumX/numOfSegments;
-			mAvgY = sumY/numOfSegments;
-			mAvgAngle = sumAngle/(numOfSegments - 1);
-			mAvgKappa = sumKappa/(numOfSegments - 2);
-			mMaxAbsKappa = maxAbsKappa;
-			mMaxAbsKappaDiff = maxAbsKappaDiff;
-
-			mPointsX = posX;
-			mPointsY = posY;
-			mTanAngle = tanAngle;
-			mKappa = kappa;
-			mKappaDiff = kappaDiff; 
+		RecognizerMetrics.record(RecognizerMetrics.STAGE_CURVATURE_POINTS, startTime, startBytes);
+	}
+
+	// Set the average angle, curvature, and x, y coordinates and the max curvature and curvature difference from
+	// the curvature computed at the points of curvature
+	private void setCurvatureFeatures(StrokeCurvature curvature) {
+
+		mAvgX = curvature.getAvgX();
+		mAvgY = curvature.getAvgY();
+		mAvgAngle = curvature.getAvgAngle();
+		mAvgKappa = curvature.getAvgKappa();
+		mMaxAbsKappa = curvature.getMaxAbsKappa();
+		mMaxAbsKappaX = curvature.getMaxAbsKappaX();
+		mMaxAbsKappaY = curvature.getMaxAbsKappaY();
+		mMaxAbsKappaDiff = curvature.getMaxAbsKappaDiff();
+		mMaxAbsKappaDiffX = curvature.getMaxAbsKappaDiffX();
+		mMaxAbsKappaDiffY = curvature.getMaxAbsKappaDiffY();
+		mMaxAbsKappaDiffIndex = curvature.getMaxAbsKappaDiffIndex();
+		mNumOfCurvaturePoints = curvature.getNumOfPoints();
+		mCurvaturePointSpacing = curvature.getPointSpacing();
+
+		if (sKeepCurvaturePointsP)
+			keepCurvaturePoints(curvature);
+	}
+
+	// The number of points to compute the curvature of a segment of length at
+	static int getNumOfCurvaturePoints(float length) {
+		int numOfPoints = Math.round(length / POINT_SPACING);
+		return Math.max(MIN_NUM_OF_POINTS_ON_STROKE, Math.min(MAX_NUM_OF_POINTS_ON_STROKE, numOfPoints));
+	}
+
+	// Check to see if the stroke is close enough to the line joining its ends to be taken as straight without
+	// computing its curvature.  The stroke must also be not much longer than its chord, since a stroke that
+	// doubles back along the line (like one drawn from A to B and back to the middle) is on it everywhere.
+	private boolean isStraightStroke() {
+		float maxDeviation = (float) mProfile.get(RecognizerProfile.MAX_STRAIGHTLINE_DEVIATION);
+		float chordLength = PenUtil.distanceBetween2Points(mPosStart[0], mPosStart[1], mPosEnd[0], mPosEnd[1]);
+
+		return (mPenStrokeLength <= (1.0F + maxDeviation) * chordLength) &&
+			(mPenStrokeMeasure.getMaxDistanceFromChord() <= maxDeviation * mPenStrokeLength);
+	}
+
+	// Set the average angle, curvature, and x, y coordinates of a dot or a straight stroke from its ends
+	// (the values getCurvaturePoints() would give for the line joining them)
+	private void getStraightLinePoints() {
+
+		mAvgX = (mPosStart[0] + mPosEnd[0])/2;
+		mAvgY = (mPosStart[1] + mPosEnd[1])/2;
+		mAvgAngle = (float) PenUtil.getAbsAngle(mPosEnd[1] - mPosStart[1], mPosEnd[0] - mPosStart[0]);
+		mAvgKappa = 0.0F;
+		mMaxAbsKappa = 0.0F;
+		mMaxAbsKappaDiff = 0.0F;
+		mMaxAbsKappaDiffIndex = -1;
+		mNumOfCurvaturePoints = 0;
+		mCurvaturePointSpacing = 0.0F;
+	}
+
+	// Copy the points, tangent angles, curvatures, and curvature differences from curvature
+	private void keepCurvaturePoints(StrokeCurvature curvature) {
+		int numOfPoints = mNumOfCurvaturePoints;
+		if ((mPointsX == null) || (mPointsX.length != numOfPoints)) {
+			mPointsX = new float[numOfPoints];
+			mPointsY = new float[numOfPoints];
+			mTanAngle = new float[numOfPoints];
+			mKappa = new float[numOfPoints];
+			mKappaDiff = new float[numOfPoints];
 		}
-		//printSegmentEndPoints(mBoundingRectF, posX, posY, tanAngle, kappa, canvas, textPaint);
+		System.arraycopy(curvature.mPointsX, 0, mPointsX, 0, numOfPoints);
+		System.arraycopy(curvature.mPointsY, 0, mPointsY, 0, numOfPoints);
+		System.arraycopy(curvature.mTanAngle, 0, mTanAngle, 0, numOfPoints);
+		System.arraycopy(curvature.mKappa, 0, mKappa, 0, numOfPoints);
+		System.arraycopy(curvature.mKappaDiff, 0, mKappaDiff, 0, numOfPoints);
+	}
 
-		int histBuckets[] = PenUtil.histogram(kappaDiff);
-		for (int i = 0; i < histBuckets.length; i++) {
-			mHistBucketsStr = mHistBucketsStr + ", "  + histBuckets[i];
-		}		
+	// Keep (or stop keeping) the points, tangent angles, curvatures, and curvature differences computed by
+	// getCurvaturePoints() in each segment, e.g. for printSegmentPointsData() and printSegmentStats()
+	public static void setKeepCurvaturePoints(boolean keepP) {
+		sKeepCurvaturePointsP = keepP;
+	}
 
+	// Split the segment into the primitive stroke elements it is made of.  A segment that has more than one
+	// (see hasMultipleSegments()) is split in two around its point of max curvature difference, and the head
+	// and then the tail are split in turn.  The parts are measured on the points of this segment (see
+	// newSubSegment()) so no path is built for a part until it is found not to split any further.
+	public Vector<PenSegment> getStrokeSegments(RecognitionTraceListener trace) {
+		return getStrokeSegments(trace, RecognizerProfile.getCurrent());
 	}
 
-	public Vector<PenSegment> getStrokeSegments(Canvas canvas, Paint textPaint) {
+	// Split the segment as getStrokeSegments(trace) does, with the thresholds of profile
+	public Vector<PenSegment> getStrokeSegments(RecognitionTraceListener trace, RecognizerProfile profile) {
 
+		mProfile = profile;
 		Vector<PenSegment> pSegments = new Vector<PenSegment>();
+		Vector<PenSegment> unsplitSegments = new Vector<PenSegment>(); // parts still to be split, the next one last
+		Vector<PenSegment> splitSegments = new Vector<PenSegment>(); // segments split (and their probes), to be recycled
+		unsplitSegments.add(this);
+
+		while (!unsplitSegments.isEmpty()) {
+			PenSegment pSegment = unsplitSegments.remove(unsplitSegments.size() - 1);
+			if (!pSegment.split(unsplitSegments, splitSegments, trace)) {
+				pSegment.copySubPath();
+				pSegment.findMatchingCharacter();
+				pSegments.add(pSegment);
+			}
+		}
+
+		// The parts are measured on the points of the segments they were split from until they have their own
+		// paths, so the split segments are only recycled now
+		for (int i = 0; i < splitSegments.size(); i++) {
+			splitSegments.elementAt(i).recycle();
+		}
+		return pSegments;
+	}
+
+	// Split the segment in two if it has more than one segment.  The tail and then the head are added to
+	// unsplitSegments, and the segment (if it is split) and the part it was probed with to splitSegments.
+	// Return false if the segment is not split.
+	private boolean split(Vector<PenSegment> unsplitSegments, Vector<PenSegment> splitSegments, RecognitionTraceListener trace) {
+
+		// A dot or a straight stroke has no curvature worth computing (and no point to split at)
+		if (isDot() || isStraightStroke()) {
+			getStraightLinePoints();
+			return false;
+		}
 
-		getCurvaturePoints(canvas, textPaint);
+		// The whole-stroke segment may have the curvature computed while the stroke was drawn
+		if (!mStrokeCurvatureP)
+			getCurvaturePoints();
 
 
 		if (hasMultipleSegments()) {
@@ -471,59 +796,58 @@ public class PenSegment extends Path {
 			int offSet = 5;
 
 			float pathLength1 = mPenStrokeMeasure.getLength();
-			float headLength1 = Math.max(0, mMaxAbsKappaDiffIndex + 1 - offSet) * (pathLength1/NUM_OF_POINTS_ON_STROKE);
-			float tailLength1 = Math.min(pathLength1, mMaxAbsKappaDiffIndex + offSet) * (pathLength1/NUM_OF_POINTS_ON_STROKE);
-			Path path2 = new Path();
+			float headLength1 = Math.max(0, mMaxAbsKappaDiffIndex + 1 - offSet) * mCurvaturePointSpacing;
+			float tailLength1 = Math.min(pathLength1, mMaxAbsKappaDiffIndex + offSet) * mCurvaturePointSpacing;
+			PenSegment pSegment2 = newSubSegment(headLength1, tailLength1);
 
-			if (mPenStrokeMeasure.getSegment(headLength1, tailLength1, path2, true)) {
-				PenSegment pSegment2 = new PenSegment(path2);
-				pSegment2.getCurvaturePoints(canvas, textPaint);
+			if (pSegment2 != null) {
+				// Look at the part around the max abs kappa diff point more closely (at twice as many points)
+				pSegment2.getCurvaturePoints(PROBE_NUM_OF_POINTS_ON_STROKE);
 
-				float pathLength2 = pSegment2.mPenStrokeMeasure.getLength();
 				// Set length of the head (first segment) to a default value - start of path to the first max abs kappa diff point
-				float headLength2 = Math.max(0, mMaxAbsKappaDiffIndex) * (pathLength1/NUM_OF_POINTS_ON_STROKE);
+				float headLength2 = Math.max(0, mMaxAbsKappaDiffIndex) * mCurvaturePointSpacing;
 
 				// See if the max abs kappa diff of the new shorter segment is more than that of the longer segment
 				if (pSegment2.mMaxAbsKappaDiff > mMaxAbsKappaDiff)
-					headLength2 = Math.max(0, pSegment2.mMaxAbsKappaDiffIndex) * (pathLength2/NUM_OF_POINTS_ON_STROKE);
-				// float tailLength2 = Math.min(pathLength1, pSegment2.mMaxAbsKappaDiffIndex + offSet) * (pathLength1/NUM_OF_POINTS_ON_STROKE);
+					headLength2 = Math.max(0, pSegment2.mMaxAbsKappaDiffIndex) * pSegment2.mCurvaturePointSpacing;
+				// float tailLength2 = Math.min(pathLength1, pSegment2.mMaxAbsKappaDiffIndex + offSet) * (pathLength1/mNumOfCurvaturePoints);
 
-				if (minSegmentLengthCheck(headLength2, pathLength1)) {
-					Path path3 = new Path();
-					Path path4 = new Path();
-					if (mPenStrokeMeasure.getSegment(0, headLength1 + headLength2, path3, true)
-							& mPenStrokeMeasure.getSegment(headLength1 + headLength2 + 1, tailLength1, path4, true)) {
-						PenSegment pSegment3 = new PenSegment(path3);
-						PenSegment pSegment4 = new PenSegment(path4);
-
-						PenUtil.printString(String.format(".(%1$3.1f,%2$3.1f), k:%2$3.1f", pSegment3.mPosEnd[0], pSegment3.mPosEnd[1], pSegment3.mKappa),
-								pSegment3.mPosEnd[0], pSegment3.mPosEnd[1], mBoundingRectF, canvas, textPaint);
+				// The split point (where the head ends) must leave enough of the segment on either side of it
+				if (minSegmentLengthCheck(headLength1 + headLength2, pathLength1)) {
+					PenSegment pSegment3 = newSubSegment(0, headLength1 + headLength2);
+					PenSegment pSegment4 = newSubSegment(headLength1 + headLength2 + 1, tailLength1);
+					if ((pSegment3 != null) & (pSegment4 != null)) {
 
 						//				PenUtil.printString(String.format("!!%1$3.1f, %2$3.1f, %3$3.1f, %4$3.1f, %5$3.1f", mMaxAbsKappaDiff, pSegment2.mMaxAbsKappa, tailLength1 - headLength1, pSegment2.mPenStrokeLength, mPenStrokeLength), 100, 420, mBoundingRectF, canvas, textPaint);
-						pSegment2.printSegmentStats(canvas, textPaint);
-						pSegments.addAll(pSegment3.getStrokeSegments(canvas, textPaint));
-						pSegments.addAll(pSegment4.getStrokeSegments(canvas, textPaint));						
-						return pSegments;
+						trace.onSegmentSplit(this, pSegment2, pSegment3, pSegment4);
+						unsplitSegments.add(pSegment4);
+						unsplitSegments.add(pSegment3);
+						splitSegments.add(pSegment2);
+						splitSegments.add(this);
+						return true;
 					}
+					if (pSegment3 != null)
+						pSegment3.recycle();
+					if (pSegment4 != null)
+						pSegment4.recycle();
 
 				}
 
+				splitSegments.add(pSegment2);
 			}
 
 			getExtremaPoint();
 
 
 		}
-		findMatchingCharacter();
-		pSegments.add(this);
-
-
 
-		return pSegments;
+		return false;
 	}
 
 	public void findMatchingCharacter() {
 
+		long startTime = RecognizerMetrics.startTime();
+		long startBytes = RecognizerMetrics.startAllocatedBytes();
 		// Check for the DOT stroke first as it has the length of one pixel
 		if (isDot())
 			mPenSegmentCharacter = DOT_CHAR;
@@ -545,6 +869,7 @@ public class PenSegment extends Path {
 			mPenSegmentCharacter = U_CHAR;
 		else 
 			mPenSegmentCharacter = new Character('?');
+		RecognizerMetrics.record(RecognizerMetrics.STAGE_SEGMENT_MATCH, startTime, startBytes);
 	}
 
 	public void printSegmentStats(Canvas canvas, Paint textPaint) {
@@ -569,15 +894,26 @@ public class PenSegment extends Path {
 		PenUtil.printString(mPenSegmentCharacter.toString(), mPosEnd[0], mPosEnd[1], mBoundingRectF, canvas, textPaint);
 
 		 */
+		if (canvas == null)
+			return;
+
 		String msg = String.format("k:%1$3.3f, maxKD:%2$3.3f, x:%3$3.3f, y:%4$3.3f",
 				mAvgKappa, mMaxAbsKappaDiff, mMaxAbsKappaDiffX, mMaxAbsKappaDiffY);
-		PenUtil.printString(mHistBucketsStr, 10, 420, mBoundingRectF, canvas, textPaint);
+		// The histogram of the curvature differences needs the curvature points (see setKeepCurvaturePoints())
+		if (mKappaDiff != null) {
+			int histBuckets[] = PenUtil.histogram(mKappaDiff);
+			StringBuilder histBucketsStr = new StringBuilder();
+			for (int i = 0; i < histBuckets.length; i++) {
+				histBucketsStr.append(", ").append(histBuckets[i]);
+			}
+			PenUtil.printString(histBucketsStr.toString(), 10, 420, mBoundingRectF, canvas, textPaint);
+		}
 		canvas.drawText(msg, mMaxAbsKappaDiffX , mMaxAbsKappaDiffY, textPaint);
 		//Log.i(PenSegment.TAG, msg);
 		//printSegmentPointsData();
 	}
 
-	public void printSegmentEndPoints(RectF mBoundingRectF, float x[], float y[], float tanAngle[], float kappa[], Canvas canvas, Paint textPaint) {
+	public void printSegmentEndPoints(PenRectF mBoundingRectF, float x[], float y[], float tanAngle[], float kappa[], Canvas canvas, Paint textPaint) {
 
 		int numOfSegments = x.length;
 		String msg = "";
@@ -589,6 +925,10 @@ public class PenSegment extends Path {
 
 	}
 
+	public void reset() {
+		mPenSegmentPath.reset();
+	}
+
 	public void printSegmentPointsData() {
 		String msg = "";
 		/*
@@ -601,8 +941,12 @@ public class PenSegment extends Path {
 				mBoundingRectF.left, mBoundingRectF.top, mBoundingRectF.right, mBoundingRectF.bottom,
 				mBoundingRectF.centerX(), mBoundingRectF.centerY()));
 				*/
+		if (mPointsX == null) {
+			Log.i(PenSegment.TAG, "Curvature points not kept; see setKeepCurvaturePoints()");
+			return;
+		}
 		Log.i(PenSegment.TAG, "i, mPointsX[i], mPointsY[i], mTanAngle[i], mKappa[i], mKappaDiff[i]");
-		for (int i =0; i < NUM_OF_POINTS_ON_STROKE; i++) {
+		for (int i =0; i < mPointsX.length; i++) {
 			msg = String.format("%1$d, %2$2.4f, %3$2.4f, %4$2.4f, %5$2.4f, %6$2.4f", i,
 					mPointsX[i],
 					mPointsY[i],
@@ -24,28 +24,27 @@ import com.android.skiggle.Skiggle.BoxView;
 
 import java.util.Vector;
 
-import android.graphics.Path;
-import android.graphics.PathMeasure;
-import android.graphics.RectF;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 
-public class PenStroke extends Path {
+// PenStroke is a continuous path (between pen down and pen up) drawn by the pen.
+public class PenStroke {
 	
 	// TAG for logging debugging info
 	//private static final String TAG = "MyPenStroke";
 
 	// Members
-	public Path mPenStrokePath;
-	public PathMeasure mPenStrokeMeasure;
+	public PenPath mPenStrokePath;
+	public PenPathMeasure mPenStrokeMeasure;
 	public float mPenStrokeLength;
-	public RectF mBoundingRectF;
+	public PenRectF mBoundingRectF;
 	public float mBoundingRectHeight;
 	public float mBoundingRectWidth;
 	public float mPosStart[] = {0.0F, 0.0F};
 	private float mTanStart[] = {0.0F, 0.0F};
 	public float mPosEnd[] = {0.0F, 0.0F};
 	private float mTanEnd[] = {0.0F, 0.0F};
+	private float mPos[] = {0.0F, 0.0F}; // used by addPath()
 	//	private float mAvgAngle = 0.0F;
 	//	private float mAvgKappa = 0.0F; // a measure of average curvature
 	public float mAvgX = 0.0F; // average X-coord of points on the stroke
@@ -59,29 +58,208 @@ public class PenStroke extends Path {
 	//	private String mHistBucketsStr = ""; // temp
 	//	public Character mPenStrokeCharacter;
 
-	public PenStroke(Path path) {
-		mPenStrokePath = new Path(path);
+	// Strokes made by obtain() are reused once they are no longer used (see recycle()).  Each thread has its own
+	// pool, so that threads recognizing at the same time do not wait on one another.  A stroke belongs to the
+	// pool of the thread that first made it and goes back to that pool, whichever thread recycles it.  A pool
+	// holds at most MAX_POOL_SIZE strokes, a list linked through mNextInPool, and is guarded by its own lock,
+	// as are the reference counts of the strokes that belong to it.
+	private static final int MAX_POOL_SIZE = 32;
+
+	private static class Pool {
+		PenStroke mFirst = null;
+		int mSize = 0;
+	}
+
+	private static final ThreadLocal<Pool> POOL = new ThreadLocal<Pool>() {
+		protected Pool initialValue() {
+			return new Pool();
+		}
+	};
+
+	private Pool mPool = null; // the pool the stroke belongs to, null if it was made with new
+	private PenStroke mNextInPool = null;
+	private int mRefCount = 0; // references to a pooled stroke (see retain() and recycle())
+
+	// The curvature computed while the stroke was drawn (see PenStrokeAccumulator), if mStrokeCurvatureP
+	private StrokeCurvature mCurvature = null;
+	private boolean mStrokeCurvatureP = false;
+
+	private PenStroke() {
+	}
+
+	public PenStroke(PenPath path) {
+		mPenStrokePath = new PenPath(path);
+	}
+
+	// Make the stroke from the path and the features accumulated while it was drawn, without measuring the
+	// path again
+	public PenStroke(PenStrokeAccumulator accumulator) {
+		set(accumulator);
+	}
+
+	// Get a stroke made from path (as PenStroke(path) followed by addPath(path) makes it) from the pool, or a new
+	// one if the pool is empty.  The caller holds the only reference to it (see recycle()).
+	public static PenStroke obtain(PenPath path) {
+		PenStroke penStroke = obtain();
+		penStroke.addPath(path);
+		return penStroke;
+	}
+
+	// Get a stroke made from the path and the features accumulated while it was drawn (as
+	// PenStroke(accumulator) makes it) from the pool, or a new one if the pool is empty.  The caller holds the
+	// only reference to it (see recycle()).
+	public static PenStroke obtain(PenStrokeAccumulator accumulator) {
+		PenStroke penStroke = obtain();
+		penStroke.set(accumulator);
+		return penStroke;
+	}
+
+	private static PenStroke obtain() {
+		Pool pool = POOL.get();
+		synchronized (pool) {
+			if (pool.mFirst != null) {
+				PenStroke penStroke = pool.mFirst;
+				pool.mFirst = penStroke.mNextInPool;
+				penStroke.mNextInPool = null;
+				pool.mSize = pool.mSize - 1;
+				penStroke.mRefCount = 1;
+				return penStroke;
+			}
+		}
+
+		PenStroke penStroke = new PenStroke();
+		penStroke.mPool = pool;
+		synchronized (pool) {
+			penStroke.mRefCount = 1;
+		}
+		return penStroke;
+	}
+
+	// Take another reference to a stroke made by obtain(), to be given up with recycle().  Does nothing for a
+	// stroke made with new.  Throws IllegalStateException if the stroke has no references left (it has been
+	// recycled).
+	public void retain() {
+		if (mPool == null)
+			return;
+
+		synchronized (mPool) {
+			if (mRefCount <= 0)
+				throw new IllegalStateException("PenStroke retained after it was recycled");
+			mRefCount = mRefCount + 1;
+		}
+	}
+
+	// Give up a reference to a stroke made by obtain().  The stroke goes back to the pool (and must not be used
+	// by anyone) when the last reference is given up.  Does nothing for a stroke made with new.  A reference
+	// that is never given up only keeps the stroke out of the pool.  Throws IllegalStateException if the stroke
+	// has no references left, i.e. if it is recycled more often than it was obtained and retained.
+	public void recycle() {
+		if (mPool == null)
+			return;
+
+		synchronized (mPool) {
+			if (mRefCount <= 0)
+				throw new IllegalStateException("PenStroke recycled more often than it was obtained and retained");
+			mRefCount = mRefCount - 1;
+			if ((mRefCount == 0) && (mPool.mSize < MAX_POOL_SIZE)) {
+				mNextInPool = mPool.mFirst;
+				mPool.mFirst = this;
+				mPool.mSize = mPool.mSize + 1;
+			}
+		}
+	}
+
+	// Number of strokes in the pool of the calling thread
+	public static int getPoolSize() {
+		Pool pool = POOL.get();
+		synchronized (pool) {
+			return pool.mSize;
+		}
+	}
+
+	private void set(PenStrokeAccumulator accumulator) {
+		long startTime = RecognizerMetrics.startTime();
+		long startBytes = RecognizerMetrics.startAllocatedBytes();
+		if (mPenStrokePath == null)
+			mPenStrokePath = new PenPath(accumulator.getPath());
+		else
+			mPenStrokePath.set(accumulator.getPath());
+		if (mPenStrokeMeasure == null)
+			mPenStrokeMeasure = accumulator.newPathMeasure(mPenStrokePath);
+		else
+			accumulator.setPathMeasure(mPenStrokeMeasure, mPenStrokePath);
+		if (mBoundingRectF == null)
+			mBoundingRectF = new PenRectF();
+		accumulator.computeBounds(mBoundingRectF);
+		setMeasuredFeatures();
+		mAvgX = accumulator.getAvgX();
+		mAvgY = accumulator.getAvgY();
+		mStrokeCurvatureP = accumulator.hasCurvature();
+		if (mStrokeCurvatureP) {
+			if (mCurvature == null)
+				mCurvature = new StrokeCurvature();
+			mCurvature.set(accumulator.getCurvature());
+		}
+		RecognizerMetrics.record(RecognizerMetrics.STAGE_STROKE_MEASURE, startTime, startBytes);
 	}
 	
-	public void addPath(Path srcPath) {
-		super.addPath(srcPath);
+	// Make the stroke from srcPath, reusing the path, the measure and the bounds of the stroke if it has them
+	public void addPath(PenPath srcPath) {
 		
-		mPenStrokePath = new Path(srcPath);
-		mPenStrokeMeasure = new PathMeasure(this, false);
+		long startTime = RecognizerMetrics.startTime();
+		long startBytes = RecognizerMetrics.startAllocatedBytes();
+		if (mPenStrokePath == null)
+			mPenStrokePath = new PenPath(srcPath);
+		else if (mPenStrokePath != srcPath)
+			mPenStrokePath.set(srcPath);
+		if (mPenStrokeMeasure == null)
+			mPenStrokeMeasure = new PenPathMeasure(mPenStrokePath, false);
+		else
+			mPenStrokeMeasure.setPath(mPenStrokePath, false);
+		if (mBoundingRectF == null)
+			mBoundingRectF = new PenRectF();	
+		mPenStrokePath.computeBounds(mBoundingRectF);
+		setMeasuredFeatures();
+		mPenStrokeMeasure.computeCentroid(mPos);
+		mAvgX = mPos[0];
+		mAvgY = mPos[1];
+		mStrokeCurvatureP = false;
+		RecognizerMetrics.record(RecognizerMetrics.STAGE_STROKE_MEASURE, startTime, startBytes);
+
+	}
+
+	// Set the length, end points and bounding rectangle size from mPenStrokeMeasure and mBoundingRectF
+	private void setMeasuredFeatures() {
 		mPenStrokeLength = mPenStrokeMeasure.getLength();
 		mPenStrokeMeasure.getPosTan(0, mPosStart, mTanStart);
 		mPenStrokeMeasure.getPosTan(mPenStrokeLength, mPosEnd, mTanEnd);
-		mBoundingRectF = new RectF();	
-		this.computeBounds(mBoundingRectF, false);
 		mBoundingRectHeight = Math.abs(mBoundingRectF.top - mBoundingRectF.bottom);
 		mBoundingRectWidth = Math.abs(mBoundingRectF.left - mBoundingRectF.right);
+	}
 
+	// The curvature of the whole stroke computed while it was drawn, or null if it was made from a path
+	// (see PenStrokeAccumulator.hasCurvature())
+	StrokeCurvature getCurvature() {
+		return mStrokeCurvatureP ? mCurvature : null;
 	}
 
-	public Vector<PenSegment> segmentStroke(Canvas canvas, Paint textPaint) {
+	public Vector<PenSegment> segmentStroke(RecognitionTraceListener trace) {
+		return segmentStroke(trace, RecognizerProfile.getCurrent());
+	}
+
+	// Split the stroke into segments with the thresholds of profile
+	public Vector<PenSegment> segmentStroke(RecognitionTraceListener trace, RecognizerProfile profile) {
 		// Vector<PenSegment> pSegments = new Vector<PenSegment>();
-		PenSegment pSegment1 = new PenSegment(this.mPenStrokePath);
-		return pSegment1.getStrokeSegments(canvas, textPaint);
+		long startTime = RecognizerMetrics.startTime();
+		long startBytes = RecognizerMetrics.startAllocatedBytes();
+		PenSegment pSegment1 = PenSegment.obtain(this);
+		Vector<PenSegment> pSegments = pSegment1.getStrokeSegments(trace, profile);
+		RecognizerMetrics.record(RecognizerMetrics.STAGE_STROKE_SEGMENTS, startTime, startBytes);
+		return pSegments;
+	}
+
+	public void reset() {
+		mPenStrokePath.reset();
 	}
 	
 
@@ -0,0 +1,194 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+// PenStrokeAccumulator builds the PenPath of the stroke being drawn and keeps its measure up to date as the
+// points come in (while the pen moves), so that the path is not measured again when the pen is lifted:
+//    - the arc length to every point (the same lengths PenPathMeasure computes) and the total length
+//    - the bounding rectangle of the points
+//    - the centroid of the stroke (weighted by arc length)
+//    - the curvature profile of the stroke at points StrokeCurvature.POINT_SPACING pixels apart along it (see
+//      StrokeCurvature), each point added as soon as the stroke reaches it
+// A PenStroke made with PenStroke(PenStrokeAccumulator) takes the lengths, bounds and curvature from here
+// instead of measuring the path again, and its whole-stroke segment takes its curvature features from the
+// curvature profile (see PenSegment.setStrokeFeatures()), so that pen up is left with adding the last point
+// and splitting and matching the segments.  A stroke with more than StrokeCurvature.MAX_NUM_OF_POINTS
+// points has its curvature computed at pen up instead.
+public class PenStrokeAccumulator {
+
+	private static final int INITIAL_CAPACITY = 32;
+
+	// Members
+	private PenPath mPenPath = new PenPath();
+	private int mNumOfPoints = 0; // number of points of mPenPath already accumulated
+	private float mLengths[] = new float[INITIAL_CAPACITY]; // mLengths[i] is the arc length from the first point to point i
+	private float mLength = 0.0F;
+	private PenRectF mBoundingRectF = new PenRectF();
+	private float mSumX = 0.0F; // sum of the segment mid-points times the segment lengths
+	private float mSumY = 0.0F;
+	private StrokeCurvature mCurvature = new StrokeCurvature();
+	private boolean mCurvatureP = true; // false once the stroke has more curvature points than mCurvature holds
+	private int mCurvaturePiece = 0; // the piece of the path (from point i - 1 to point i) the last curvature point is on
+
+	public PenStrokeAccumulator() {
+	}
+
+	// Clear the stroke but keep the arrays for the next one
+	public void reset() {
+		mPenPath.reset();
+		mNumOfPoints = 0;
+		mLength = 0.0F;
+		mBoundingRectF.setEmpty();
+		mSumX = 0.0F;
+		mSumY = 0.0F;
+		mCurvature.reset(StrokeCurvature.POINT_SPACING);
+		mCurvatureP = true;
+		mCurvaturePiece = 0;
+	}
+
+	// The moveTo/quadTo/lineTo methods are the same as those of PenPath
+
+	public void moveTo(float x, float y) {
+		reset();
+		mPenPath.moveTo(x, y);
+		accumulate();
+	}
+
+	public void lineTo(float x, float y) {
+		mPenPath.lineTo(x, y);
+		accumulate();
+	}
+
+	public void quadTo(float x1, float y1, float x2, float y2) {
+		mPenPath.quadTo(x1, y1, x2, y2);
+		accumulate();
+	}
+
+	// The path of the stroke.  It must not be changed except through this accumulator.
+	public PenPath getPath() {
+		return mPenPath;
+	}
+
+	public float getLength() {
+		return mLength;
+	}
+
+	public void computeBounds(PenRectF bounds) {
+		bounds.set(mBoundingRectF);
+	}
+
+	// Average x-coord of the points on the stroke
+	public float getAvgX() {
+		if (mLength > 0.0F)
+			return mSumX / mLength;
+		else
+			return (mNumOfPoints > 0) ? mPenPath.getX(0) : 0.0F;
+	}
+
+	// Average y-coord of the points on the stroke
+	public float getAvgY() {
+		if (mLength > 0.0F)
+			return mSumY / mLength;
+		else
+			return (mNumOfPoints > 0) ? mPenPath.getY(0) : 0.0F;
+	}
+
+	// The curvature profile of the stroke so far, at the points up to its length (see StrokeCurvature)
+	public StrokeCurvature getCurvature() {
+		return mCurvature;
+	}
+
+	// Check to see if the curvature profile has every point of the stroke
+	public boolean hasCurvature() {
+		return mCurvatureP;
+	}
+
+	// Make a PenPathMeasure of path, a copy of getPath(), from the accumulated lengths
+	PenPathMeasure newPathMeasure(PenPath path) {
+		return new PenPathMeasure(path, mLengths, mNumOfPoints);
+	}
+
+	// Measure path, a copy of the path accumulated, with measure (see newPathMeasure())
+	void setPathMeasure(PenPathMeasure measure, PenPath path) {
+		measure.setPath(path, mLengths, mNumOfPoints);
+	}
+
+	// Accumulate the points added to the path since the last call
+	private void accumulate() {
+		int numOfPoints = mPenPath.getPointCount();
+		if (numOfPoints > mLengths.length) {
+			float newLengths[] = new float[Math.max(numOfPoints, 2 * mLengths.length)];
+			System.arraycopy(mLengths, 0, newLengths, 0, mNumOfPoints);
+			mLengths = newLengths;
+		}
+
+		for (int i = mNumOfPoints; i < numOfPoints; i++) {
+			float x = mPenPath.getX(i);
+			float y = mPenPath.getY(i);
+
+			if (i == 0) {
+				mLengths[0] = 0.0F;
+				mBoundingRectF.set(x, y, x, y);
+				continue;
+			}
+
+			float x0 = mPenPath.getX(i - 1);
+			float y0 = mPenPath.getY(i - 1);
+			float segLength = PenUtil.distanceBetween2Points(x0, y0, x, y);
+
+			// Add up the lengths in the same order as PenPathMeasure so that the lengths are the same
+			mLength = mLength + segLength;
+			mLengths[i] = mLength;
+			mBoundingRectF.union(x, y);
+			mSumX = mSumX + segLength * (x0 + x) / 2;
+			mSumY = mSumY + segLength * (y0 + y) / 2;
+		}
+		mNumOfPoints = numOfPoints;
+		addCurvaturePoints();
+	}
+
+	// Add the curvature points the stroke has reached, with the position and the tangent
+	// PenPathMeasure.getPosTan() gives at their distances
+	private void addCurvaturePoints() {
+		while (mCurvatureP) {
+			float distance = mCurvature.getNumOfPoints() * StrokeCurvature.POINT_SPACING;
+			if ((mLength <= 0.0F) || (distance > mLength))
+				break;
+
+			// Find the piece of the path the point is on as PenPathMeasure.findSegment() does (the pieces up to
+			// mCurvaturePiece are before the point)
+			int i = Math.max(1, mCurvaturePiece);
+			while ((i < mNumOfPoints - 1) && (mLengths[i] < distance))
+				i = i + 1;
+			while ((i < mNumOfPoints - 1) && (mLengths[i] <= mLengths[i - 1]))
+				i = i + 1;
+			mCurvaturePiece = i;
+
+			float x0 = mPenPath.getX(i - 1);
+			float y0 = mPenPath.getY(i - 1);
+			float dX = mPenPath.getX(i) - x0;
+			float dY = mPenPath.getY(i) - y0;
+			float pieceLength = mLengths[i] - mLengths[i - 1];
+			float t = (distance - mLengths[i - 1]) / pieceLength;
+			mCurvatureP = mCurvature.addPoint(x0 + t * dX, y0 + t * dY, dX / pieceLength, dY / pieceLength);
+		}
+	}
+}
@@ -20,16 +20,46 @@
 
 package com.android.skiggle;
 
+import java.util.Arrays;
+
 import android.graphics.Canvas;
-import android.graphics.PointF;
-import android.graphics.RectF;
 import android.graphics.Paint;
 
 public class PenUtil
 {
 
+	// The fast-math kernel, getAbsAngleFast() and computeCurvatureM2003Fast(), computes the tangent angles and
+	// curvatures of the segments in float, without the double precision Math.atan2(), Math.toDegrees(),
+	// Math.IEEEremainder() and Math.pow() of getAbsAngle() and computeCurvatureM2003().  Its errors are at most
+	//    MAX_FAST_ANGLE_ERROR           degrees, for the angle (the error of the arctangent polynomial, 1e-5
+	//                                   radians, plus the float rounding of an angle of up to 180 degrees)
+	//    MAX_FAST_CURVATURE_ERROR       relative to the curvature
+	// which leaves the segments of the stroke corpus (and the characters recognized) as they are with the double
+	// precision functions.  The kernel is used unless setFastMath(false) is called (e.g. to compare the two).
+	public static final float MAX_FAST_ANGLE_ERROR = 0.001F;
+	public static final float MAX_FAST_CURVATURE_ERROR = 1e-6F;
+
+	// Coefficients of the polynomial for the arctangent (in degrees) of z in [0, 1] (Abramowitz and Stegun 4.4.49,
+	// within 1e-5 radians of atan(z))
+	private static final float RADIANS_TO_DEGREES = (float) (180.0 / Math.PI);
+	private static final float ATAN_C1 = 0.9998660F * RADIANS_TO_DEGREES;
+	private static final float ATAN_C3 = -0.3302995F * RADIANS_TO_DEGREES;
+	private static final float ATAN_C5 = 0.1801410F * RADIANS_TO_DEGREES;
+	private static final float ATAN_C7 = -0.0851330F * RADIANS_TO_DEGREES;
+	private static final float ATAN_C9 = 0.0208351F * RADIANS_TO_DEGREES;
+
+	private static volatile boolean sFastMathP = true;
+
 	public PenUtil() {}
 
+	public static void setFastMath(boolean fastMathP) {
+		sFastMathP = fastMathP;
+	}
+
+	public static boolean isFastMath() {
+		return sFastMathP;
+	}
+
 	public static double getAbsAngle(double y, double x) {
 
 		double angle = 0.0F;
@@ -40,15 +70,51 @@ public class PenUtil
 		return angle;
 	}
 
+	// Get the angle getAbsAngle() gets (in degrees, from -180 to 180) to within MAX_FAST_ANGLE_ERROR, in float.
+	// The arctangent of the smaller over the larger of |x| and |y| (at most 45 degrees) is found with a
+	// polynomial and moved to the octant of (x, y).
+	public static float getAbsAngleFast(float y, float x) {
+
+		float absX = Math.abs(x);
+		float absY = Math.abs(y);
+		if (absY == 0.0F) {
+			// On the x-axis (or at the origin).  getAbsAngle() gives -180 for +0 and 180 for -0 to the left
+			// of the origin (IEEEremainder() rounds the half way 540/360 and 180/360 to even).
+			if (x >= 0.0F)
+				return 0.0F;
+			return (Float.floatToRawIntBits(y) < 0) ? 180.0F : -180.0F;
+		}
+
+		boolean steepP = (absY > absX);
+		float z = steepP ? absX / absY : absY / absX;
+		float z2 = z * z;
+		float angle = z * (ATAN_C1 + z2 * (ATAN_C3 + z2 * (ATAN_C5 + z2 * (ATAN_C7 + z2 * ATAN_C9))));
+		if (steepP)
+			angle = 90.0F - angle;
+		if (x < 0.0F)
+			angle = 180.0F - angle;
+
+		return (y < 0.0F) ? -angle : angle;
+	}
+
 	// Get the gap between two stroke points (x1, y1) and (x2, y2)
 	public static float distanceBetween2Points(float x1, float y1, float x2, float y2) {
 
-		return PointF.length(Math.abs(x1 - x2), Math.abs(y1 - y2));
+		float dX = x1 - x2;
+		float dY = y1 - y2;
+		return (float) Math.sqrt(dX * dX + dY * dY);
 	}
 
 	public static int[] histogram(float[] dataPoints) {
 
 		int[] buckets = {0, 0, 0, 0, 0}; // 5 buckets
+		return histogram(dataPoints, buckets);
+	}
+
+	// Count the data points into the 5 buckets given (which are cleared first) and return the buckets
+	public static int[] histogram(float[] dataPoints, int[] buckets) {
+
+		Arrays.fill(buckets, 0);
 		float minVal = 1000000.0F;
 		float maxVal = -minVal;
 		int numOfDataPoints = dataPoints.length;
@@ -81,7 +147,7 @@ public class PenUtil
 		return buckets;
 	}
 
-	public static void getSegmentEndPoints(RectF mBoundingRectF, float x[], float y[], float tanAngle[], float kappa[], Canvas canvas, Paint textPaint) {
+	public static void getSegmentEndPoints(PenRectF mBoundingRectF, float x[], float y[], float tanAngle[], float kappa[], Canvas canvas, Paint textPaint) {
 
 		int numOfSegments = x.length;
 		for (int i =0; i < numOfSegments; i++) {
@@ -132,22 +198,37 @@ public class PenUtil
 		return (float) kappa;
 	}
 
-	public static void printString(String s, float x, float y, RectF boundingRectF, Canvas canvas, Paint paint) {
+	// Compute the curvature computeCurvatureM2003() computes to within MAX_FAST_CURVATURE_ERROR (relative), in
+	// float, with s * sqrt(s) for the power of 1.5 of s
+	public static float computeCurvatureM2003Fast(float x0, float y0, float x1, float y1, float x2, float y2) {
+
+		float a1 = (x2 - x0)/2;
+		float a2 = (x2 + x0)/2 - x1;
+		float b1 = (y2 - y0)/2;
+		float b2 = (y2 + y0)/2 - y1;
+
+		float s = a1*a1 + b1*b1;
+		return 2*(a1*b2 - a2*b1) / (s * (float) Math.sqrt(s));
+	}
+
+	public static void printString(String s, float x, float y, PenRectF boundingRectF, Canvas canvas, Paint paint) {
 
 
-		if (s != null) {
+		// Nothing to print on when recognizing without a display
+		if ((s != null) & (canvas != null)) {
 
-			Paint tempPaint = new Paint();
-			tempPaint.set(paint);
+			// Draw with the given paint and put its color back afterwards
+			int color = paint.getColor();
 
-			tempPaint.setColor(Skiggle.DEFAULT_CANVAS_COLOR + 2);
-			tempPaint.setStrokeWidth(Skiggle.DEFAULT_STROKE_WIDTH);
-			// canvas.drawRect(boundingRectF, tempPaint);
+			// paint.setColor(Skiggle.DEFAULT_CANVAS_COLOR + 2);
+			// paint.setStrokeWidth(Skiggle.DEFAULT_STROKE_WIDTH);
+			// canvas.drawRect(boundingRectF, paint);
 
-			tempPaint.setColor(0xFFFF0000);
-			//tempPaint.setTextSize(Math.max(mBoundingRectHeight, mBoundingRectWidth));
+			paint.setColor(0xFFFF0000);
+			//paint.setTextSize(Math.max(mBoundingRectHeight, mBoundingRectWidth));
 
-			canvas.drawText(s, x, y, tempPaint);
+			canvas.drawText(s, x, y, paint);
+			paint.setColor(color);
 		}
 	}
 
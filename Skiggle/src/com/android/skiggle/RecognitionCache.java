@@ -0,0 +1,211 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// RecognitionCache remembers the characters recognized for the shapes seen most recently, so that a shape
+// written again is recognized without looking up its candidates and running their rules (see
+// PenCharacter.findMatchingCharacter(RecognitionTraceListener, RecognitionCache)).  The shape of a character
+// is keyed by its number of strokes and, for each of its segments in order, the segment character and the
+// start, end and average points of the segment binned into a coarse grid.  The grid is laid over the
+// bounding box of the character and sized by its larger side, so the key does not change with the size or
+// the position of the character but does with its proportions.  Since some rules tell characters of the same
+// shape apart by where on the screen or how tall they are written (like ')' and ',', '-' and '_', '9' and 'q',
+// or 'P' and 'p'), the key also has, for each segment, the zone its top end is in and whether it is in the
+// lower zone, and whether the character is the height of a small letter or of a 'P' (see
+// PenCharacter.getTopZone(), isInLowerZone(), isSmallLetter() and isCapitalPHeight()).
+// The cache holds at most a fixed number of shapes and drops the least recently used one to make room.  It
+// can be shared by threads recognizing at the same time.  The shapes are recognized with one profile (see
+// RecognizerProfile): the cache is cleared when a character recognized with another profile comes along.
+public class RecognitionCache {
+
+	public static final int DEFAULT_NUM_OF_BINS = 6; // Bins across the larger side of a character
+	private static final int MAX_NUM_OF_BINS = 8; // so that a bin (x and y) fits in 6 bits
+	private static final int SIZE_BIN_SHIFT = 21; // Keeps the exponent and 2 bits of the mantissa of the size
+
+	// The key of a shape, packed into two longs:
+	//    mHigh  number of strokes (6 bits), size bin (10 bits) and segments 0 and 1 (24 bits each)
+	//    mLow   zones (14 bits) and segments 2 and 3 (24 bits each)
+	// with the character of a segment in 6 bits and its start, end and average points in 6 bits each, and the
+	// zones of each segment in 3 bits followed by the small letter and 'P' heights in 1 bit each
+	private static class ShapeKey {
+		long mHigh;
+		long mLow;
+
+		@Override
+		public int hashCode() {
+			long h = mHigh * 31 + mLow;
+			return (int) (h ^ (h >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return (o instanceof ShapeKey) && (((ShapeKey) o).mHigh == mHigh) && (((ShapeKey) o).mLow == mLow);
+		}
+	}
+
+	// The result of recognizing a shape
+	private static class CachedCharacter {
+		Character mPenCharacter;
+		String mPenCharacterCandidates;
+	}
+
+	// Members
+	private final int mNumOfBins;
+	private final LinkedHashMap<ShapeKey, CachedCharacter> mCache;
+	private ShapeKey mProbeKey = new ShapeKey(); // for looking up a shape without making a key
+	private long mSegmentKeys[] = new long[SegmentCandidateTable.MAX_NUM_OF_SEGMENTS]; // used by setKey()
+	private RecognizerProfile mProfile = null; // the profile the shapes in the cache were recognized with
+	private long mNumOfHits = 0;
+	private long mNumOfMisses = 0;
+
+	public RecognitionCache(int maxNumOfShapes) {
+		this(maxNumOfShapes, DEFAULT_NUM_OF_BINS);
+	}
+
+	// Keep at most maxNumOfShapes shapes, binning the points into numOfBins (at most 8) bins across the larger
+	// side of a character
+	public RecognitionCache(final int maxNumOfShapes, int numOfBins) {
+		mNumOfBins = Math.max(1, Math.min(MAX_NUM_OF_BINS, numOfBins));
+		// A LinkedHashMap in access order is in least recently used order
+		mCache = new LinkedHashMap<ShapeKey, CachedCharacter>(16, 0.75F, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ShapeKey, CachedCharacter> eldest) {
+				return (size() > maxNumOfShapes);
+			}
+		};
+	}
+
+	// Set the character and the candidates of penCharacter to those of a character of the same shape, if it
+	// is in the cache.  Return true if it is.  A character with more segments than any rule has is not cached.
+	public boolean lookUp(PenCharacter penCharacter) {
+		int numOfSegments = penCharacter.mPenSegments.size();
+		if ((numOfSegments < 1) || (numOfSegments > SegmentCandidateTable.MAX_NUM_OF_SEGMENTS))
+			return false;
+
+		synchronized (this) {
+			checkProfile(penCharacter.getProfile());
+			setKey(penCharacter, numOfSegments, mProbeKey);
+			CachedCharacter cachedCharacter = mCache.get(mProbeKey);
+			if (cachedCharacter == null) {
+				mNumOfMisses = mNumOfMisses + 1;
+				return false;
+			}
+
+			mNumOfHits = mNumOfHits + 1;
+			penCharacter.mPenCharacter = cachedCharacter.mPenCharacter;
+			penCharacter.mPenCharacterCandidates = cachedCharacter.mPenCharacterCandidates;
+			return true;
+		}
+	}
+
+	// Remember the character and the candidates of penCharacter for its shape
+	public void put(PenCharacter penCharacter) {
+		int numOfSegments = penCharacter.mPenSegments.size();
+		if ((numOfSegments < 1) || (numOfSegments > SegmentCandidateTable.MAX_NUM_OF_SEGMENTS))
+			return;
+
+		ShapeKey key = new ShapeKey();
+		CachedCharacter cachedCharacter = new CachedCharacter();
+		cachedCharacter.mPenCharacter = penCharacter.mPenCharacter;
+		cachedCharacter.mPenCharacterCandidates = penCharacter.mPenCharacterCandidates;
+		synchronized (this) {
+			checkProfile(penCharacter.getProfile());
+			setKey(penCharacter, numOfSegments, key);
+			mCache.put(key, cachedCharacter);
+		}
+	}
+
+	// Drop the shapes recognized with a profile other than profile
+	private void checkProfile(RecognizerProfile profile) {
+		if (profile != mProfile) {
+			mCache.clear();
+			mProfile = profile;
+		}
+	}
+
+	public synchronized int size() {
+		return mCache.size();
+	}
+
+	public synchronized long getNumOfHits() {
+		return mNumOfHits;
+	}
+
+	public synchronized long getNumOfMisses() {
+		return mNumOfMisses;
+	}
+
+	// Drop the shapes and reset the counts
+	public synchronized void clear() {
+		mCache.clear();
+		mNumOfHits = 0;
+		mNumOfMisses = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "RecognitionCache(size=" + mCache.size() + ", hits=" + mNumOfHits + ", misses=" + mNumOfMisses + ")";
+	}
+
+	// Set key to the key of the shape of penCharacter, which has numOfSegments segments (called with the lock
+	// held since it uses mSegmentKeys)
+	private void setKey(PenCharacter penCharacter, int numOfSegments, ShapeKey key) {
+		SegmentRelations relations = penCharacter.getSegmentRelations();
+		float minX = penCharacter.mPenStrokesMinX;
+		float minY = penCharacter.mPenStrokesMinY;
+		float size = Math.max(penCharacter.mPenStrokesMaxX - minX, penCharacter.mPenStrokesMaxY - minY);
+		float binsPerPixel = (size > 0.0F) ? mNumOfBins / size : 0.0F;
+
+		// The size bins are a quarter of a power of 2 wide (the sizes of consecutive bins are 1.14 to 1.25 times
+		// apart)
+		long sizeBin = (size > 0.0F) ? (Float.floatToRawIntBits(size) >>> SIZE_BIN_SHIFT) : 0;
+		long segmentKeys[] = mSegmentKeys;
+		long zones = (penCharacter.isSmallLetter() ? 2 : 0) | (penCharacter.isCapitalPHeight() ? 1 : 0);
+		for (int i = 0; i < SegmentCandidateTable.MAX_NUM_OF_SEGMENTS; i++) {
+			if (i >= numOfSegments) {
+				segmentKeys[i] = 0;
+				continue;
+			}
+
+			zones = zones | ((long) ((penCharacter.getTopZone(i) << 1) | (penCharacter.isInLowerZone(i) ? 1 : 0)) << (2 + 3 * i));
+
+			// The segment characters (see PenSegment.findMatchingCharacter()) differ in their low 6 bits
+			segmentKeys[i] = ((long) (relations.getSegmentCharacter(i) & 0x3F) << 18) |
+				(getBin(relations.getStartX(i) - minX, relations.getStartY(i) - minY, binsPerPixel) << 12) |
+				(getBin(relations.getEndX(i) - minX, relations.getEndY(i) - minY, binsPerPixel) << 6) |
+				getBin(relations.getAvgX(i) - minX, relations.getAvgY(i) - minY, binsPerPixel);
+		}
+		key.mHigh = ((penCharacter.getNumOfStrokes() & 0x3FL) << 58) | ((sizeBin & 0x3FFL) << 48) |
+			(segmentKeys[0] << 24) | segmentKeys[1];
+		key.mLow = (zones << 48) | (segmentKeys[2] << 24) | segmentKeys[3];
+	}
+
+	// The bin of a point (x, y) from the top left corner of a character, in 6 bits
+	private long getBin(float x, float y, float binsPerPixel) {
+		int binX = Math.max(0, Math.min(mNumOfBins - 1, (int) (x * binsPerPixel)));
+		int binY = Math.max(0, Math.min(mNumOfBins - 1, (int) (y * binsPerPixel)));
+		return (binY << 3) | binX;
+	}
+}
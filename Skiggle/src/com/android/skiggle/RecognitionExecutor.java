@@ -0,0 +1,151 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+// RecognitionExecutor recognizes the character being written on a background thread so that pen up does not
+// wait for segmentation and matching.  Each call to recognize() gets a snapshot of all the strokes of the
+// character so far and recognizes them with a new PenCharacter, so nothing is shared with the caller.
+// A newer snapshot supersedes the older ones: a run that has not started is skipped, a running one stops
+// after its current stroke, and a result that has been superseded is not delivered.  Results are handed
+// to the listener through the result executor, e.g. one that posts to the UI thread.
+// A snapshot holds references to its strokes (see PenStroke.retain()) until it has been recognized or its
+// run has been skipped, and the strokes and segments of a result that is not delivered are put back into the
+// pools.
+public class RecognitionExecutor {
+
+	// Listener for the recognized character.  It is called through the result executor.
+	public interface RecognitionListener {
+		void onCharacterRecognized(PenCharacter penCharacter);
+	}
+
+	// Members
+	private ExecutorService mExecutor;
+	private Executor mResultExecutor;
+	private RecognitionListener mListener;
+	private AtomicLong mGeneration = new AtomicLong(); // incremented for every snapshot and cancel()
+	private Future<?> mPendingRun; // the last run submitted
+	private PenStroke mPendingSnapshot[]; // the snapshot of mPendingRun, given back if the run is skipped
+
+	public RecognitionExecutor(Executor resultExecutor, RecognitionListener listener) {
+		mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "SkiggleRecognizer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		mResultExecutor = resultExecutor;
+		mListener = listener;
+	}
+
+	// Recognize the character made up of penStrokes, superseding any earlier snapshot.  The strokes are
+	// read on the background thread so they must not be changed after they are passed in (the array is
+	// copied).
+	public synchronized void recognize(PenStroke penStrokes[]) {
+		final long generation = mGeneration.incrementAndGet();
+		final PenStroke snapshot[] = new PenStroke[penStrokes.length];
+		System.arraycopy(penStrokes, 0, snapshot, 0, penStrokes.length);
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i].retain();
+		}
+
+		cancelPendingRun();
+		mPendingSnapshot = snapshot;
+		mPendingRun = mExecutor.submit(new Runnable() {
+			public void run() {
+				final PenCharacter penCharacter = recognizeSnapshot(snapshot, generation);
+				for (int i = 0; i < snapshot.length; i++) {
+					snapshot[i].recycle();
+				}
+				if (penCharacter == null)
+					return;
+
+				mResultExecutor.execute(new Runnable() {
+					public void run() {
+						// The result may have been superseded while it was being posted
+						if (isCurrent(generation)) {
+							mListener.onCharacterRecognized(penCharacter);
+						}
+						else {
+							penCharacter.resetStrokes();
+							penCharacter.resetSegments();
+						}
+					}
+				});
+			}
+		});
+	}
+
+	// Drop the current snapshot (e.g. when the screen is cleared)
+	public synchronized void cancel() {
+		mGeneration.incrementAndGet();
+		cancelPendingRun();
+	}
+
+	public void shutdown() {
+		cancel();
+		mExecutor.shutdown();
+	}
+
+	// Skip the last run submitted if it has not started, giving back the references of its snapshot since the
+	// run will not (called with the lock held)
+	private void cancelPendingRun() {
+		if ((mPendingRun != null) && mPendingRun.cancel(false)) {
+			for (int i = 0; i < mPendingSnapshot.length; i++) {
+				mPendingSnapshot[i].recycle();
+			}
+		}
+		mPendingRun = null;
+		mPendingSnapshot = null;
+	}
+
+	private boolean isCurrent(long generation) {
+		return (mGeneration.get() == generation);
+	}
+
+	// Recognize the strokes of a snapshot, or return null if the snapshot is superseded before it is done
+	private PenCharacter recognizeSnapshot(PenStroke penStrokes[], long generation) {
+		PenCharacter penCharacter = new PenCharacter();
+		for (int i = 0; i < penStrokes.length; i++) {
+			if (!isCurrent(generation))
+				break;
+
+			penCharacter.addStroke(penStrokes[i]);
+			penCharacter.addSegments(penStrokes[i], RecognitionTraceListener.NO_TRACE);
+		}
+
+		if (!isCurrent(generation)) {
+			penCharacter.resetStrokes();
+			penCharacter.resetSegments();
+			return null;
+		}
+
+		penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE);
+		return penCharacter;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+// RecognitionTraceListener is told about the steps of recognizing a character, e.g. for drawing debugging
+// info over the strokes (see CanvasTraceListener).  The recognizer only passes the objects it already has,
+// so all the formatting and drawing is done by the listener.  Use NO_TRACE when nothing is traced.
+public interface RecognitionTraceListener {
+
+	// A segment has been split in two (head and tail) around the point of its max curvature difference.
+	// probeSegment is the part of the segment around that point that was used to find where to split it.
+	void onSegmentSplit(PenSegment segment, PenSegment probeSegment, PenSegment headSegment, PenSegment tailSegment);
+
+	// The segments of a stroke have been added to a character
+	void onSegmentsAdded(PenCharacter penCharacter, PenStroke penStroke);
+
+	// The candidates of a character have been matched (mPenCharacter is null if none matched)
+	void onCharacterMatched(PenCharacter penCharacter);
+
+	// The listener that does nothing
+	public static final RecognitionTraceListener NO_TRACE = new RecognitionTraceListener() {
+		public void onSegmentSplit(PenSegment segment, PenSegment probeSegment, PenSegment headSegment, PenSegment tailSegment) {
+		}
+
+		public void onSegmentsAdded(PenCharacter penCharacter, PenStroke penStroke) {
+		}
+
+		public void onCharacterMatched(PenCharacter penCharacter) {
+		}
+	};
+}
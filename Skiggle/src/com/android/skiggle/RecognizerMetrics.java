@@ -0,0 +1,215 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// RecognizerMetrics records how long each stage of recognizing a stroke takes (and, if an AllocationCounter
+// is set, how many bytes it allocates), from any number of threads.  Recording is off by default and then
+// costs one volatile read per stage.  A stage is timed with
+//
+//		long startTime = RecognizerMetrics.startTime();
+//		long startBytes = RecognizerMetrics.startAllocatedBytes();
+//		...
+//		RecognizerMetrics.record(RecognizerMetrics.STAGE_..., startTime, startBytes);
+//
+// The latencies go into histograms with 8 buckets per power of 2 (so the percentiles are within 12.5%) and
+// getSnapshot() gives the count, p50, p99, max and allocated bytes of each stage.  The stages nest: the time
+// and allocations of STAGE_STROKE_SEGMENTS include those of the curvature and segment matching stages.
+public class RecognizerMetrics {
+
+	// Stages
+	public static final int STAGE_STROKE_MEASURE = 0; // PenStroke measuring its path and bounds
+	public static final int STAGE_CURVATURE_POINTS = 1; // PenSegment.getCurvaturePoints()
+	public static final int STAGE_STROKE_SEGMENTS = 2; // the split of a stroke (PenSegment.getStrokeSegments())
+	public static final int STAGE_SEGMENT_MATCH = 3; // PenSegment.findMatchingCharacter()
+	public static final int STAGE_CHARACTER_CANDIDATES = 4; // PenCharacter.getCharacterCandidates()
+	public static final int STAGE_CHARACTER_MATCH = 5; // PenCharacter.scoreCharacter() for the rule of one candidate
+	public static final int NUM_OF_STAGES = 6;
+
+	public static final String STAGE_NAMES[] = {"strokeMeasure", "curvaturePoints", "strokeSegments",
+		"segmentMatch", "characterCandidates", "characterMatch"};
+
+	public static final long NOT_STARTED = Long.MIN_VALUE; // startTime() and startAllocatedBytes() when not recording
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int NUM_OF_SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int NUM_OF_BUCKETS = NUM_OF_SUB_BUCKETS * (64 - SUB_BUCKET_BITS);
+
+	// Counter of the bytes allocated by the current thread, e.g. from com.sun.management.ThreadMXBean on a
+	// server JVM or android.os.Debug on a device
+	public interface AllocationCounter {
+		long getAllocatedBytes();
+	}
+
+	// The stats of one stage
+	public static class StageStats {
+		public String mName;
+		public long mCount;
+		public long mTotalNanos;
+		public long mP50Nanos;
+		public long mP99Nanos;
+		public long mMaxNanos;
+		public long mAllocatedBytes = -1; // -1 if allocations are not counted
+
+		@Override
+		public String toString() {
+			return String.format("%1$s: n=%2$d, p50=%3$.1fus, p99=%4$.1fus, max=%5$.1fus, total=%6$.3fms, alloc=%7$s",
+					mName, mCount, mP50Nanos / 1000.0, mP99Nanos / 1000.0, mMaxNanos / 1000.0, mTotalNanos / 1000000.0,
+					(mAllocatedBytes < 0) ? "n/a" : (mCount > 0 ? (mAllocatedBytes / mCount) + "B/op" : "0B/op"));
+		}
+	}
+
+	private static class StageHistogram {
+		AtomicLongArray mBuckets = new AtomicLongArray(NUM_OF_BUCKETS);
+		AtomicLong mTotalNanos = new AtomicLong();
+		AtomicLong mMaxNanos = new AtomicLong();
+		AtomicLong mAllocatedBytes = new AtomicLong();
+	}
+
+	private static volatile boolean sEnabledP = false;
+	private static volatile AllocationCounter sAllocationCounter = null;
+	private static final StageHistogram STAGES[] = new StageHistogram[NUM_OF_STAGES];
+
+	static {
+		for (int i = 0; i < NUM_OF_STAGES; i++) {
+			STAGES[i] = new StageHistogram();
+		}
+	}
+
+	public static void setEnabled(boolean enabledP) {
+		sEnabledP = enabledP;
+	}
+
+	public static boolean isEnabled() {
+		return sEnabledP;
+	}
+
+	// Set (or clear with null) the counter used for the allocations of the stages
+	public static void setAllocationCounter(AllocationCounter allocationCounter) {
+		sAllocationCounter = allocationCounter;
+	}
+
+	public static long startTime() {
+		return sEnabledP ? System.nanoTime() : NOT_STARTED;
+	}
+
+	public static long startAllocatedBytes() {
+		AllocationCounter allocationCounter = sAllocationCounter;
+		return (sEnabledP & (allocationCounter != null)) ? allocationCounter.getAllocatedBytes() : NOT_STARTED;
+	}
+
+	// Record a stage that started at startTime (with startBytes allocated).  Nothing is recorded if the stage
+	// started while recording was off.
+	public static void record(int stage, long startTime, long startBytes) {
+		if (startTime == NOT_STARTED)
+			return;
+
+		long nanos = Math.max(0L, System.nanoTime() - startTime);
+		StageHistogram histogram = STAGES[stage];
+		histogram.mBuckets.incrementAndGet(getBucketIndex(nanos));
+		histogram.mTotalNanos.addAndGet(nanos);
+
+		long maxNanos = histogram.mMaxNanos.get();
+		while ((nanos > maxNanos) && !histogram.mMaxNanos.compareAndSet(maxNanos, nanos)) {
+			maxNanos = histogram.mMaxNanos.get();
+		}
+
+		AllocationCounter allocationCounter = sAllocationCounter;
+		if ((startBytes != NOT_STARTED) & (allocationCounter != null))
+			histogram.mAllocatedBytes.addAndGet(Math.max(0L, allocationCounter.getAllocatedBytes() - startBytes));
+	}
+
+	// Get the stats of every stage (in the order of the STAGE_ constants).  Stages recorded while the snapshot
+	// is taken may be partly included.
+	public static StageStats[] getSnapshot() {
+		StageStats snapshot[] = new StageStats[NUM_OF_STAGES];
+		long counts[] = new long[NUM_OF_BUCKETS];
+		for (int stage = 0; stage < NUM_OF_STAGES; stage++) {
+			StageHistogram histogram = STAGES[stage];
+			StageStats stats = new StageStats();
+			stats.mName = STAGE_NAMES[stage];
+
+			long count = 0;
+			for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+				counts[i] = histogram.mBuckets.get(i);
+				count = count + counts[i];
+			}
+			stats.mCount = count;
+			stats.mTotalNanos = histogram.mTotalNanos.get();
+			stats.mMaxNanos = histogram.mMaxNanos.get();
+			stats.mP50Nanos = Math.min(stats.mMaxNanos, getPercentile(counts, count, 0.50));
+			stats.mP99Nanos = Math.min(stats.mMaxNanos, getPercentile(counts, count, 0.99));
+			if (sAllocationCounter != null)
+				stats.mAllocatedBytes = histogram.mAllocatedBytes.get();
+			snapshot[stage] = stats;
+		}
+		return snapshot;
+	}
+
+	public static void reset() {
+		for (int stage = 0; stage < NUM_OF_STAGES; stage++) {
+			StageHistogram histogram = STAGES[stage];
+			for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+				histogram.mBuckets.set(i, 0L);
+			}
+			histogram.mTotalNanos.set(0L);
+			histogram.mMaxNanos.set(0L);
+			histogram.mAllocatedBytes.set(0L);
+		}
+	}
+
+	// Values below NUM_OF_SUB_BUCKETS get a bucket each; larger values get NUM_OF_SUB_BUCKETS buckets for each
+	// power of 2
+	private static int getBucketIndex(long value) {
+		if (value < NUM_OF_SUB_BUCKETS)
+			return (int) value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (NUM_OF_SUB_BUCKETS - 1);
+		return NUM_OF_SUB_BUCKETS * (exponent - SUB_BUCKET_BITS + 1) + subBucket;
+	}
+
+	// The largest value that goes into a bucket
+	private static long getBucketUpperBound(int index) {
+		if (index < NUM_OF_SUB_BUCKETS)
+			return index;
+
+		int shift = index / NUM_OF_SUB_BUCKETS - 1;
+		long subBucket = NUM_OF_SUB_BUCKETS + (index % NUM_OF_SUB_BUCKETS);
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	private static long getPercentile(long counts[], long count, double fraction) {
+		if (count == 0)
+			return 0L;
+
+		long rank = (long) Math.ceil(fraction * count);
+		long seen = 0;
+		for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+			seen = seen + counts[i];
+			if (seen >= rank)
+				return getBucketUpperBound(i);
+		}
+		return getBucketUpperBound(NUM_OF_BUCKETS - 1);
+	}
+}
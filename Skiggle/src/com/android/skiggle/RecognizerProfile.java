@@ -0,0 +1,194 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+// RecognizerProfile holds the thresholds the recognizer tunes by: the ones PenSegment uses to split strokes and
+// match segments, and the ones PenCharacter uses to tell characters apart by their size and place in the
+// write pad.  A profile is immutable; withParameter() makes a changed copy.  The profile in use is swapped
+// with setCurrent() and is read once per character (see PenCharacter.setProfile()), so a character is
+// recognized with one profile even if the profile is swapped while it is being recognized.
+// A profile is stored as properties, one "name=value" line per parameter (see PARAMETER_NAMES); a parameter
+// missing from the properties keeps its default value.
+public class RecognizerProfile {
+
+	// Parameters of the segments (used by PenSegment)
+	public static final int STRAIGHTLINE_MAX_CURVATURE = 0; // Maximum curvature (kappa) for a segment to be a straight line
+	public static final int VLINE_MAX_ANGLE_SPREAD = 1; // Max tilt angle spread from the vertical for a vertical line
+	public static final int HLINE_MAX_ANGLE_SPREAD = 2; // Max tilt angle spread from the horizontal for a horizontal line
+	public static final int BSLASH_MAX_ANGLE_SPREAD = 3; // Max tilt angle spread from 45 degrees for a back slash
+	public static final int FSLASH_MAX_ANGLE_SPREAD = 4; // Max tilt angle spread from 135 degrees for a forward slash
+	public static final int MAX_ABS_KAPPA_DIFF_THRESHOLD = 5; // Max curvature difference of a segment that is not split
+	public static final int MAX_STRAIGHTLINE_DEVIATION = 6; // Max distance (as a fraction of the length) of a straight stroke from its chord
+	public static final int NUM_OF_SEGMENT_PARAMETERS = 7;
+
+	// Parameters of the characters (used by PenCharacter), as fractions of Skiggle.DEFAULT_WRITE_PAD_HEIGHT or
+	// of the size of a character
+	public static final int SMALL_LETTER_MAX_HEIGHT = 7; // Max height of a small letter
+	public static final int UPPER_ZONE_HEIGHT = 8; // Top of the write pad the VLINE of a '9' (but not a 'q') starts in
+	public static final int LOWER_ZONE_TOP = 9; // Top of the bottom of the write pad a ',' or a '_' is written in
+	public static final int CAPITAL_P_MIN_HEIGHT = 10; // Min height of a 'P' (rather than a 'p')
+	public static final int CAPITAL_A_HLINE_LOW = 11; // Low end of the band the HLINE of an 'A' is in (of the width and height of the caret)
+	public static final int CAPITAL_A_HLINE_HIGH = 12; // High end of that band
+	public static final int NUM_OF_PARAMETERS = 13;
+
+	public static final String PARAMETER_NAMES[] = {"straightLineMaxCurvature", "vLineMaxAngleSpread",
+		"hLineMaxAngleSpread", "bSlashMaxAngleSpread", "fSlashMaxAngleSpread", "maxAbsKappaDiffThreshold",
+		"maxStraightLineDeviation", "smallLetterMaxHeight", "upperZoneHeight", "lowerZoneTop",
+		"capitalPMinHeight", "capitalAHLineLow", "capitalAHLineHigh"};
+
+	// The values the recognizer was written with (the float ones as they were compared before they were
+	// parameters, so that the default profile recognizes exactly as before)
+	private static final double DEFAULT_VALUES[] = {0.005F, 15.0F, 15.0F, 30.0F, 30.0F, 0.025F, 0.03F,
+		0.4, 0.4, 2.0/3, .6, .25, .75};
+
+	private static final RecognizerProfile DEFAULT_PROFILE = new RecognizerProfile(DEFAULT_VALUES);
+	private static volatile RecognizerProfile sCurrentProfile = DEFAULT_PROFILE;
+
+	// Members
+	private final double mValues[];
+
+	private RecognizerProfile(double values[]) {
+		mValues = values;
+	}
+
+	public static RecognizerProfile getDefault() {
+		return DEFAULT_PROFILE;
+	}
+
+	// The profile the characters are recognized with
+	public static RecognizerProfile getCurrent() {
+		return sCurrentProfile;
+	}
+
+	// Recognize the characters started from now on with profile
+	public static void setCurrent(RecognizerProfile profile) {
+		sCurrentProfile = (profile != null) ? profile : DEFAULT_PROFILE;
+	}
+
+	public double get(int parameter) {
+		return mValues[parameter];
+	}
+
+	// A copy of this profile with parameter set to value
+	public RecognizerProfile withParameter(int parameter, double value) {
+		double values[] = mValues.clone();
+		values[parameter] = value;
+		return new RecognizerProfile(values);
+	}
+
+	// Check to see if this profile splits and matches segments the same way as profile does
+	public boolean hasSameSegmentParameters(RecognizerProfile profile) {
+		for (int i = 0; i < NUM_OF_SEGMENT_PARAMETERS; i++) {
+			if (mValues[i] != profile.mValues[i])
+				return false;
+		}
+		return true;
+	}
+
+	// Get the index of the parameter named name, or -1 if there is none
+	public static int getParameter(String name) {
+		for (int i = 0; i < NUM_OF_PARAMETERS; i++) {
+			if (PARAMETER_NAMES[i].equals(name))
+				return i;
+		}
+		return -1;
+	}
+
+	// Load a profile stored as properties, starting from the default profile
+	public static RecognizerProfile load(InputStream in) throws IOException {
+		Properties properties = new Properties();
+		properties.load(in);
+		double values[] = DEFAULT_VALUES.clone();
+		for (int i = 0; i < NUM_OF_PARAMETERS; i++) {
+			String value = properties.getProperty(PARAMETER_NAMES[i]);
+			if (value == null)
+				continue;
+			try {
+				values[i] = Double.parseDouble(value.trim());
+			}
+			catch (NumberFormatException e) {
+				throw new IOException("Bad value for " + PARAMETER_NAMES[i] + ": " + value);
+			}
+		}
+		return new RecognizerProfile(values);
+	}
+
+	public static RecognizerProfile load(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return load(in);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	public void store(OutputStream out, String comments) throws IOException {
+		Properties properties = new Properties();
+		for (int i = 0; i < NUM_OF_PARAMETERS; i++) {
+			properties.setProperty(PARAMETER_NAMES[i], Double.toString(mValues[i]));
+		}
+		properties.store(out, comments);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < NUM_OF_PARAMETERS; i++) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(PARAMETER_NAMES[i]).append('=').append((float) mValues[i]);
+		}
+		return sb.toString();
+	}
+
+	// Reloader makes the profile in a file the current profile whenever the file changes.  reloadIfChanged() is
+	// meant to be called now and then, e.g. when the write pad is cleared; it only looks at the time the file
+	// was last modified unless it has changed.
+	public static class Reloader {
+		private final File mFile;
+		private long mLastModified = 0;
+
+		public Reloader(File file) {
+			mFile = file;
+		}
+
+		// Load the file and make it the current profile if it changed since it was last loaded.  Return true if
+		// the profile was swapped.  A file that cannot be read (or is being written) is tried again next time.
+		public synchronized boolean reloadIfChanged() throws IOException {
+			long lastModified = mFile.lastModified();
+			if ((lastModified == 0) || (lastModified == mLastModified))
+				return false;
+
+			setCurrent(load(mFile));
+			mLastModified = lastModified;
+			return true;
+		}
+	}
+}
@@ -20,11 +20,19 @@
 
 package com.android.skiggle;
 
-import java.util.BitSet;
+// SegmentBitSet is the set of characters (digits, letters, and special characters) that contain a primitive stroke
+// element or that are made up of a given number of segments.  The 95 characters of DIGITS_LETTERS_SPECIALS_STRING
+// fit in two longs: bit i of mLowBits is character i and bit i of mHighBits is character 64 + i.  SegmentBitSets
+// are immutable, so the static constants can be shared by all PenCharacters (and threads).  and(), or() and
+// andNot() make a new SegmentBitSet only if the result is not one of the two sets, empty or all the characters
+// (EMPTY_BITSET or DIGITS_LETTERS_SPECIALS_STRING_BITSET), which they return instead.  The word operations (getLowBits(), getHighBits() and the static
+// getCharacters(long, long)) can be used to combine sets in a loop without creating any SegmentBitSets.
+public final class SegmentBitSet {
 
-public class SegmentBitSet {
+	public static final int NUM_OF_BITS_PER_WORD = 64;
 
-	public BitSet mSegmentBitSet = new BitSet();
+	private final long mLowBits; // characters 0 to 63
+	private final long mHighBits; // characters 64 to 94
 
 	/******************************************************/
 	/* BitSet for digits, letters, and special characters */
@@ -75,38 +83,137 @@ public class SegmentBitSet {
 	public static final SegmentBitSet FOUR_SEGMENTS_BITSET    = new SegmentBitSet("00000000000000100000001000000000100000000000000000000000001000000100000000000000000000000000000");
 
 
-	public SegmentBitSet(){};
+	public static final SegmentBitSet EMPTY_BITSET = new SegmentBitSet();
+
+	public SegmentBitSet() {
+		this(0L, 0L);
+	}
+
+	public SegmentBitSet(long lowBits, long highBits) {
+		mLowBits = lowBits;
+		mHighBits = highBits;
+	}
 
 	public SegmentBitSet(String bitString) {
-		int bitStringLength = bitString.length();
+		long lowBits = 0L;
+		long highBits = 0L;
+		int bitStringLength = Math.min(bitString.length(), DIGITS_LETTERS_SPECIALS_STRING.length());
 		for (int i = 0; i < bitStringLength; i++) {
 
 			if (bitString.charAt(i) == '1') {
-				mSegmentBitSet.set(i);
+				if (i < NUM_OF_BITS_PER_WORD)
+					lowBits = lowBits | (1L << i);
+				else
+					highBits = highBits | (1L << (i - NUM_OF_BITS_PER_WORD));
 			}
 		}
+		mLowBits = lowBits;
+		mHighBits = highBits;
+	}
+
+	public long getLowBits() {
+		return mLowBits;
+	}
+
+	public long getHighBits() {
+		return mHighBits;
+	}
+
+	public SegmentBitSet and(SegmentBitSet sBitSet) {
+		return getBitSet(mLowBits & sBitSet.mLowBits, mHighBits & sBitSet.mHighBits, sBitSet);
+	}
+
+	public SegmentBitSet or(SegmentBitSet sBitSet) {
+		return getBitSet(mLowBits | sBitSet.mLowBits, mHighBits | sBitSet.mHighBits, sBitSet);
+	}
+
+	public SegmentBitSet andNot(SegmentBitSet sBitSet) {
+		return getBitSet(mLowBits & ~sBitSet.mLowBits, mHighBits & ~sBitSet.mHighBits, sBitSet);
 	}
 
-	public void copy(SegmentBitSet sBitSet) {
-		this.mSegmentBitSet = (BitSet) sBitSet.mSegmentBitSet.clone();
+	// The result of an operation on this set and sBitSet: this set, sBitSet or a shared constant if it is one of
+	// them, and a new SegmentBitSet otherwise
+	private SegmentBitSet getBitSet(long lowBits, long highBits, SegmentBitSet sBitSet) {
+		if ((lowBits == mLowBits) & (highBits == mHighBits))
+			return this;
+		else if ((lowBits == sBitSet.mLowBits) & (highBits == sBitSet.mHighBits))
+			return sBitSet;
+		else if ((lowBits | highBits) == 0L)
+			return EMPTY_BITSET;
+		else if ((lowBits == DIGITS_LETTERS_SPECIALS_STRING_BITSET.mLowBits) & (highBits == DIGITS_LETTERS_SPECIALS_STRING_BITSET.mHighBits))
+			return DIGITS_LETTERS_SPECIALS_STRING_BITSET;
+		else
+			return new SegmentBitSet(lowBits, highBits);
 	}
 
-	private SegmentBitSet clone(SegmentBitSet sBitSet) {
-		SegmentBitSet nBitSet = new SegmentBitSet();
-		nBitSet.copy(sBitSet);
-		return nBitSet;
+	// Is the i-th character of DIGITS_LETTERS_SPECIALS_STRING in the set?
+	public boolean get(int i) {
+		if ((i < 0) | (i >= DIGITS_LETTERS_SPECIALS_STRING.length()))
+			return false;
+		else if (i < NUM_OF_BITS_PER_WORD)
+			return (mLowBits & (1L << i)) != 0L;
+		else
+			return (mHighBits & (1L << (i - NUM_OF_BITS_PER_WORD))) != 0L;
+	}
+
+	public boolean contains(char c) {
+		return get(DIGITS_LETTERS_SPECIALS_STRING.indexOf(c));
+	}
+
+	public boolean isEmpty() {
+		return (mLowBits | mHighBits) == 0L;
+	}
+
+	public int cardinality() {
+		return Long.bitCount(mLowBits) + Long.bitCount(mHighBits);
 	}
 
 	public String getCharacters() {
-		String characters = "";
-		int bitStringLength = mSegmentBitSet.length();
-		for (int i = 0; i < bitStringLength; i++) {
+		return getCharacters(mLowBits, mHighBits);
+	}
 
-			if (mSegmentBitSet.get(i) == true) {
-				characters = characters + DIGITS_LETTERS_SPECIALS_STRING.charAt(i);
-			}
+	// Get the characters of the set given by its two words, in the order of DIGITS_LETTERS_SPECIALS_STRING
+	public static String getCharacters(long lowBits, long highBits) {
+		char characters[] = new char[Long.bitCount(lowBits) + Long.bitCount(highBits)];
+		int numOfCharacters = 0;
+
+		// Visit only the set bits, lowest first, by clearing the lowest set bit each time
+		for (long bits = lowBits; bits != 0L; bits = bits & (bits - 1L)) {
+			characters[numOfCharacters++] = DIGITS_LETTERS_SPECIALS_STRING.charAt(Long.numberOfTrailingZeros(bits));
+		}
+		for (long bits = highBits; bits != 0L; bits = bits & (bits - 1L)) {
+			characters[numOfCharacters++] = DIGITS_LETTERS_SPECIALS_STRING.charAt(NUM_OF_BITS_PER_WORD + Long.numberOfTrailingZeros(bits));
+		}
+		return new String(characters);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof SegmentBitSet))
+			return false;
+		SegmentBitSet sBitSet = (SegmentBitSet) o;
+		return (mLowBits == sBitSet.mLowBits) & (mHighBits == sBitSet.mHighBits);
+	}
+
+	@Override
+	public int hashCode() {
+		long h = mLowBits ^ (mHighBits * 31L);
+		return (int) (h ^ (h >>> 32));
+	}
+
+	// The indexes of the characters in the set, in the same form as java.util.BitSet.toString()
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder("{");
+		for (long bits = mLowBits; bits != 0L; bits = bits & (bits - 1L)) {
+			if (s.length() > 1) s.append(", ");
+			s.append(Long.numberOfTrailingZeros(bits));
+		}
+		for (long bits = mHighBits; bits != 0L; bits = bits & (bits - 1L)) {
+			if (s.length() > 1) s.append(", ");
+			s.append(NUM_OF_BITS_PER_WORD + Long.numberOfTrailingZeros(bits));
 		}
-		return characters;
+		return s.append('}').toString();
 	}
 
 	private void printCharSet(SegmentBitSet bitSet) {
@@ -185,79 +292,67 @@ public class SegmentBitSet {
 		}
 	}
 
+	// The SegmentBitSets are immutable so the shared constant itself is returned
 	public static SegmentBitSet getSegmentBitSetForChar(char segmentChar) {
-		SegmentBitSet sBitSet = new SegmentBitSet();
 		switch (segmentChar) {
 		case PenSegment.HLINE_CHAR:
-			sBitSet.copy(HLINE_BITSET);
-			break;
+			return HLINE_BITSET;
 		case PenSegment.FSLASH_CHAR:
-			sBitSet.copy(FSLASH_BITSET);
-			break;
+			return FSLASH_BITSET;
 		case PenSegment.VLINE_CHAR:
-			sBitSet.copy(VLINE_BITSET);
-			break;
+			return VLINE_BITSET;
 		case PenSegment.BSLASH_CHAR:
-			sBitSet.copy(BSLASH_BITSET);
-			break;
+			return BSLASH_BITSET;
 		case PenSegment.BC_CHAR:
-			sBitSet.copy(BC_BITSET);
-			break;		
+			return BC_BITSET;
 		case PenSegment.FC_CHAR:
-			sBitSet.copy(FC_BITSET);
-			break;
+			return FC_BITSET;
 		case PenSegment.CIRCLE_CHAR:
-			sBitSet.copy(CIRCLE_BITSET);
-			break;
+			return CIRCLE_BITSET;
 		case PenSegment.U_CHAR:
-			sBitSet.copy(U_BITSET);
-			break;
+			return U_BITSET;
 		case PenSegment.DOT_CHAR:
-			sBitSet.copy(DOT_BITSET);
-			break;
+			return DOT_BITSET;
 		default:
-			break;
-
+			return EMPTY_BITSET;
 		}
-
-		return sBitSet;
 	}
 
 	public static void testPrintSegmentBitSet() {
 		SegmentBitSet s = SegmentBitSet.VLINE_BITSET;
-		System.out.println("VLINE" + s.mSegmentBitSet.toString() + s.mSegmentBitSet.cardinality());
+		System.out.println("VLINE" + s.toString() + s.cardinality());
 		s.printCharSet(VLINE_BITSET);
 
 		s = SegmentBitSet.HLINE_BITSET;
-		System.out.println("HLINE" + s.mSegmentBitSet.toString() + s.mSegmentBitSet.cardinality());
+		System.out.println("HLINE" + s.toString() + s.cardinality());
 		s.printCharSet(HLINE_BITSET);
 
 		s = SegmentBitSet.FSLASH_BITSET;
-		System.out.println("FSLASH" + s.mSegmentBitSet.toString() + s.mSegmentBitSet.cardinality());
+		System.out.println("FSLASH" + s.toString() + s.cardinality());
 		s.printCharSet(FSLASH_BITSET);
 
 		s = SegmentBitSet.BSLASH_BITSET;
-		System.out.println("BSLASH_STRING" + s.mSegmentBitSet.toString() + s.mSegmentBitSet.cardinality());
+		System.out.println("BSLASH_STRING" + s.toString() + s.cardinality());
 		s.printCharSet(BSLASH_BITSET);
 
 		s = SegmentBitSet.BC_BITSET;
-		System.out.println("BC_STRING" + s.mSegmentBitSet.toString() + s.mSegmentBitSet.cardinality());
+		System.out.println("BC_STRING" + s.toString() + s.cardinality());
 		s.printCharSet(BC_BITSET);
 
 		s = SegmentBitSet.CIRCLE_BITSET;
-		System.out.println("OH_STRING" + s.mSegmentBitSet.toString() + s.mSegmentBitSet.cardinality());
+		System.out.println("OH_STRING" + s.toString() + s.cardinality());
 		s.printCharSet(CIRCLE_BITSET);
 
 		s = SegmentBitSet.FC_BITSET;
-		System.out.println("FC_STRING" + s.mSegmentBitSet.toString() + s.mSegmentBitSet.cardinality());
+		System.out.println("FC_STRING" + s.toString() + s.cardinality());
 		s.printCharSet(FC_BITSET);
 
 		s = SegmentBitSet.DOT_BITSET;
-		System.out.println("DOT_STRING" + s.mSegmentBitSet.toString() + s.mSegmentBitSet.cardinality());
+		System.out.println("DOT_STRING" + s.toString() + s.cardinality());
 		s.printCharSet(DOT_BITSET);
 
 		s = SegmentBitSet.U_BITSET;
-		System.out.println("U_STRING" + s.mSegmentBitSet.toString() + s.mSegmentBitSet.cardinality());
+		System.out.println("U_STRING" + s.toString() + s.cardinality());
 		s.printCharSet(U_BITSET);
 
 	}
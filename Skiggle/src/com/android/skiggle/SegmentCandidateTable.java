@@ -0,0 +1,206 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import java.util.Vector;
+
+// SegmentCandidateTable maps the primitive stroke elements ('|', '-', '/', '\', '(', 'O', ')', '.', 'U') of the
+// segments of a character to the candidate characters for them.  The candidates only depend on which primitives
+// there are and not on their order, so the table has one entry for each multiset of 1 to 4 of the 9 primitives
+// (714 entries).  The entries are computed once from the SegmentBitSet constants when the class is loaded.
+// The index of the entry for the segments of a character is their signature, which CharacterRuleTable also
+// uses to look up the rules for the candidates.
+public class SegmentCandidateTable {
+
+	public static final int MAX_NUM_OF_SEGMENTS = 4;
+
+	public static final String NO_CANDIDATES = "";
+	public static final String TOO_MANY_SEGMENTS_CANDIDATES = "???"; // Candidates for no segments or more than 4
+
+	// The primitive stroke elements in the order of their index
+	private static final char PRIMITIVE_CHARS[] = {
+		PenSegment.VLINE_CHAR, PenSegment.HLINE_CHAR, PenSegment.FSLASH_CHAR, PenSegment.BSLASH_CHAR,
+		PenSegment.FC_CHAR, PenSegment.CIRCLE_CHAR, PenSegment.BC_CHAR, PenSegment.DOT_CHAR, PenSegment.U_CHAR};
+	private static final int NUM_OF_PRIMITIVES = PRIMITIVE_CHARS.length;
+
+	// The sorted primitive indexes of n segments are the digits of a base NUM_OF_PRIMITIVES number, which is
+	// added to TABLE_OFFSETS[n] to get the table index.  Only entries with digits in ascending order are used.
+	private static final int TABLE_OFFSETS[] = {0, 0, 9, 90, 819, 7380};
+
+	public static final int NUM_OF_SIGNATURES = TABLE_OFFSETS[MAX_NUM_OF_SEGMENTS + 1];
+	public static final int TOO_MANY_SEGMENTS_SIGNATURE = -1; // Signature for no segments or more than 4
+	public static final int NOT_PRIMITIVES_SIGNATURE = -2; // Signature for segments that are not all primitives
+
+	private static final String CANDIDATES[] = buildTable();
+
+	// Get the index of a primitive stroke element or -1 if segmentChar is not one
+	public static int getPrimitiveIndex(char segmentChar) {
+		switch (segmentChar) {
+		case PenSegment.VLINE_CHAR:
+			return 0;
+		case PenSegment.HLINE_CHAR:
+			return 1;
+		case PenSegment.FSLASH_CHAR:
+			return 2;
+		case PenSegment.BSLASH_CHAR:
+			return 3;
+		case PenSegment.FC_CHAR:
+			return 4;
+		case PenSegment.CIRCLE_CHAR:
+			return 5;
+		case PenSegment.BC_CHAR:
+			return 6;
+		case PenSegment.DOT_CHAR:
+			return 7;
+		case PenSegment.U_CHAR:
+			return 8;
+		default:
+			return -1;
+		}
+	}
+
+	// Get the candidate characters for the segments of a character
+	public static String getCandidates(Vector<PenSegment> penSegments) {
+		return getCandidates(getSignature(penSegments, null));
+	}
+
+	// Get the candidate characters for a signature
+	public static String getCandidates(int signature) {
+		if (signature == TOO_MANY_SEGMENTS_SIGNATURE)
+			return TOO_MANY_SEGMENTS_CANDIDATES;
+		// No character has a segment that is not a primitive stroke element
+		if (signature == NOT_PRIMITIVES_SIGNATURE)
+			return NO_CANDIDATES;
+
+		return CANDIDATES[signature];
+	}
+
+	// Get the signature of the segments of a character, i.e., the index of the table entry for their primitives.
+	// If sortedSegmentIndexes is not null, it is set to the indexes of the segments sorted by primitive, with
+	// segments of the same primitive in the order they were written (the order of getSignaturePrimitives()).
+	public static int getSignature(Vector<PenSegment> penSegments, int sortedSegmentIndexes[]) {
+		int numOfSegments = penSegments.size();
+		if ((numOfSegments < 1) | (numOfSegments > MAX_NUM_OF_SEGMENTS))
+			return TOO_MANY_SEGMENTS_SIGNATURE;
+
+		// Each segment gets the key (primitive index * MAX_NUM_OF_SEGMENTS + segment index), so sorting the keys
+		// sorts the segments by primitive and keeps the segments of a primitive in order.  Missing segments get
+		// the primitive index NUM_OF_PRIMITIVES so that they are sorted to the end.
+		int key0 = NUM_OF_PRIMITIVES * MAX_NUM_OF_SEGMENTS;
+		int key1 = NUM_OF_PRIMITIVES * MAX_NUM_OF_SEGMENTS + 1;
+		int key2 = NUM_OF_PRIMITIVES * MAX_NUM_OF_SEGMENTS + 2;
+		int key3 = NUM_OF_PRIMITIVES * MAX_NUM_OF_SEGMENTS + 3;
+		for (int i = 0; i < numOfSegments; i++) {
+			int index = getPrimitiveIndex(penSegments.elementAt(i).mPenSegmentCharacter);
+			if (index < 0)
+				return NOT_PRIMITIVES_SIGNATURE;
+
+			switch (i) {
+			case 0: key0 = index * MAX_NUM_OF_SEGMENTS; break;
+			case 1: key1 = index * MAX_NUM_OF_SEGMENTS + 1; break;
+			case 2: key2 = index * MAX_NUM_OF_SEGMENTS + 2; break;
+			default: key3 = index * MAX_NUM_OF_SEGMENTS + 3; break;
+			}
+		}
+
+		// Sort the 4 keys (sorting network)
+		int temp;
+		if (key1 < key0) { temp = key0; key0 = key1; key1 = temp; }
+		if (key3 < key2) { temp = key2; key2 = key3; key3 = temp; }
+		if (key2 < key0) { temp = key0; key0 = key2; key2 = temp; }
+		if (key3 < key1) { temp = key1; key1 = key3; key3 = temp; }
+		if (key2 < key1) { temp = key1; key1 = key2; key2 = temp; }
+
+		if (sortedSegmentIndexes != null) {
+			sortedSegmentIndexes[0] = key0 % MAX_NUM_OF_SEGMENTS;
+			sortedSegmentIndexes[1] = key1 % MAX_NUM_OF_SEGMENTS;
+			sortedSegmentIndexes[2] = key2 % MAX_NUM_OF_SEGMENTS;
+			sortedSegmentIndexes[3] = key3 % MAX_NUM_OF_SEGMENTS;
+		}
+
+		int code = key0 / MAX_NUM_OF_SEGMENTS;
+		if (numOfSegments > 1) code = code * NUM_OF_PRIMITIVES + key1 / MAX_NUM_OF_SEGMENTS;
+		if (numOfSegments > 2) code = code * NUM_OF_PRIMITIVES + key2 / MAX_NUM_OF_SEGMENTS;
+		if (numOfSegments > 3) code = code * NUM_OF_PRIMITIVES + key3 / MAX_NUM_OF_SEGMENTS;
+
+		return TABLE_OFFSETS[numOfSegments] + code;
+	}
+
+	// Get the primitive stroke elements of a signature in sorted order, or null if it is not the signature of
+	// any segments
+	public static String getSignaturePrimitives(int signature) {
+		if ((signature < 0) || (signature >= NUM_OF_SIGNATURES) || (CANDIDATES[signature] == null))
+			return null;
+
+		int numOfSegments = 1;
+		while (signature >= TABLE_OFFSETS[numOfSegments + 1]) {
+			numOfSegments++;
+		}
+
+		// Get the digits of the code, most significant first
+		char primitives[] = new char[numOfSegments];
+		int rest = signature - TABLE_OFFSETS[numOfSegments];
+		for (int i = numOfSegments - 1; i >= 0; i--) {
+			primitives[i] = PRIMITIVE_CHARS[rest % NUM_OF_PRIMITIVES];
+			rest = rest / NUM_OF_PRIMITIVES;
+		}
+		return new String(primitives);
+	}
+
+	// Compute the candidates for every multiset of primitives by ANDing the SegmentBitSets of its primitives
+	// and the SegmentBitSet for its number of segments
+	private static String[] buildTable() {
+		SegmentBitSet numOfSegmentsBitSets[] = {null,
+				SegmentBitSet.ONE_SEGMENT_BITSET, SegmentBitSet.TWO_SEGMENTS_BITSET,
+				SegmentBitSet.THREE_SEGMENTS_BITSET, SegmentBitSet.FOUR_SEGMENTS_BITSET};
+		String candidates[] = new String[TABLE_OFFSETS[MAX_NUM_OF_SEGMENTS + 1]];
+		int indexes[] = new int[MAX_NUM_OF_SEGMENTS];
+
+		for (int numOfSegments = 1; numOfSegments <= MAX_NUM_OF_SEGMENTS; numOfSegments++) {
+			int numOfCodes = TABLE_OFFSETS[numOfSegments + 1] - TABLE_OFFSETS[numOfSegments];
+			for (int code = 0; code < numOfCodes; code++) {
+				// Get the digits of the code, most significant first
+				int rest = code;
+				for (int i = numOfSegments - 1; i >= 0; i--) {
+					indexes[i] = rest % NUM_OF_PRIMITIVES;
+					rest = rest / NUM_OF_PRIMITIVES;
+				}
+
+				boolean sortedP = true;
+				for (int i = 1; i < numOfSegments; i++) {
+					sortedP = sortedP & (indexes[i - 1] <= indexes[i]);
+				}
+				if (!sortedP)
+					continue;
+
+				long lowBits = numOfSegmentsBitSets[numOfSegments].getLowBits();
+				long highBits = numOfSegmentsBitSets[numOfSegments].getHighBits();
+				for (int i = 0; i < numOfSegments; i++) {
+					SegmentBitSet primitiveBitSet = SegmentBitSet.getSegmentBitSetForChar(PRIMITIVE_CHARS[indexes[i]]);
+					lowBits = lowBits & primitiveBitSet.getLowBits();
+					highBits = highBits & primitiveBitSet.getHighBits();
+				}
+				candidates[TABLE_OFFSETS[numOfSegments] + code] = SegmentBitSet.getCharacters(lowBits, highBits);
+			}
+		}
+		return candidates;
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle;
+
+import java.util.Vector;
+
+// SegmentRelations keeps the geometry the character checks need about the segments of a character and each
+// pair of them, so that it is worked out once when a stroke is added rather than by every check that is tried:
+//    - the ends of each segment in top/bottom order and in left/right order
+//    - the points at the one-third and two-third marks between those ends
+//    - the mid-point of the ends of each segment
+//    - the gaps between the tops and between the bottoms of each pair of segments
+//    - the segment character, the start and end and the average point of each segment (the shape of the
+//      character for RecognitionCache)
+// Everything is read by segment index (the index in PenCharacter.mPenSegments).  Only the first
+// SegmentCandidateTable.MAX_NUM_OF_SEGMENTS segments are kept since characters with more segments have no
+// candidates to check.
+public class SegmentRelations {
+
+	private static final int MAX_NUM_OF_SEGMENTS = SegmentCandidateTable.MAX_NUM_OF_SEGMENTS;
+
+	// The geometry of each segment is GEOMETRY_SIZE floats at GEOMETRY_SIZE * segmentIndex:
+	private static final int TOP_BOTTOM_COORDS = 0; // x, y of the top and bottom ends
+	private static final int LEFT_RIGHT_COORDS = 4; // x, y of the left and right ends
+	private static final int TOP_BOTTOM_THIRD_MARKS = 8; // x, y of the one-third and two-third marks from the top end
+	private static final int LEFT_RIGHT_THIRD_MARKS = 12; // x, y of the one-third and two-third marks from the left end
+	private static final int MID_POINT = 16; // average of the x, y of the start and end
+	private static final int START_END_COORDS = 18; // x, y of the start and end
+	private static final int AVG_POINT = 22; // average x, y of the points of the segment
+	private static final int GEOMETRY_SIZE = 24;
+
+	// followed by the gaps between the tops and between the bottoms of each pair of segments (symmetric)
+	private static final int TOP_GAPS = GEOMETRY_SIZE * MAX_NUM_OF_SEGMENTS;
+	private static final int BOTTOM_GAPS = TOP_GAPS + MAX_NUM_OF_SEGMENTS * MAX_NUM_OF_SEGMENTS;
+
+	// Members
+	private int mNumOfSegments = 0;
+	private float mGeometry[] = new float[BOTTOM_GAPS + MAX_NUM_OF_SEGMENTS * MAX_NUM_OF_SEGMENTS];
+	private char mSegmentCharacters[] = new char[MAX_NUM_OF_SEGMENTS]; // '\0' if a segment has no character
+
+	// Work out the geometry of the segments added since the last update (penSegments only ever grows)
+	public void update(Vector<PenSegment> penSegments) {
+		int numOfSegments = Math.min(penSegments.size(), MAX_NUM_OF_SEGMENTS);
+		for (int i = mNumOfSegments; i < numOfSegments; i++) {
+			PenSegment pSegment = penSegments.elementAt(i);
+			float startX = pSegment.mPosStart[0];
+			float startY = pSegment.mPosStart[1];
+			float endX = pSegment.mPosEnd[0];
+			float endY = pSegment.mPosEnd[1];
+			int offset = GEOMETRY_SIZE * i;
+
+			// Initially assume the start of the segment is the top (left) and swap the ends if necessary
+			// Note: y increases downwards
+			if (endY < startY)
+				setCoords(offset + TOP_BOTTOM_COORDS, endX, endY, startX, startY);
+			else
+				setCoords(offset + TOP_BOTTOM_COORDS, startX, startY, endX, endY);
+
+			if (endX < startX)
+				setCoords(offset + LEFT_RIGHT_COORDS, endX, endY, startX, startY);
+			else
+				setCoords(offset + LEFT_RIGHT_COORDS, startX, startY, endX, endY);
+
+			setThirdMarks(offset + TOP_BOTTOM_THIRD_MARKS, offset + TOP_BOTTOM_COORDS);
+			setThirdMarks(offset + LEFT_RIGHT_THIRD_MARKS, offset + LEFT_RIGHT_COORDS);
+
+			mGeometry[offset + MID_POINT] = (startX + endX)/2;
+			mGeometry[offset + MID_POINT + 1] = (startY + endY)/2;
+
+			setCoords(offset + START_END_COORDS, startX, startY, endX, endY);
+			mGeometry[offset + AVG_POINT] = pSegment.mAvgX;
+			mGeometry[offset + AVG_POINT + 1] = pSegment.mAvgY;
+			mSegmentCharacters[i] = (pSegment.mPenSegmentCharacter != null) ? pSegment.mPenSegmentCharacter.charValue() : '\0';
+
+			for (int j = 0; j <= i; j++) {
+				float topGap = PenUtil.distanceBetween2Points(getTopX(j), getTopY(j), getTopX(i), getTopY(i));
+				float bottomGap = PenUtil.distanceBetween2Points(getBottomX(j), getBottomY(j), getBottomX(i), getBottomY(i));
+				mGeometry[TOP_GAPS + j * MAX_NUM_OF_SEGMENTS + i] = topGap;
+				mGeometry[TOP_GAPS + i * MAX_NUM_OF_SEGMENTS + j] = topGap;
+				mGeometry[BOTTOM_GAPS + j * MAX_NUM_OF_SEGMENTS + i] = bottomGap;
+				mGeometry[BOTTOM_GAPS + i * MAX_NUM_OF_SEGMENTS + j] = bottomGap;
+			}
+		}
+		mNumOfSegments = numOfSegments;
+	}
+
+	// Forget the segments, for a character that is being reused
+	public void clear() {
+		mNumOfSegments = 0;
+	}
+
+	private void setCoords(int offset, float x1, float y1, float x2, float y2) {
+		mGeometry[offset] = x1;
+		mGeometry[offset + 1] = y1;
+		mGeometry[offset + 2] = x2;
+		mGeometry[offset + 3] = y2;
+	}
+
+	// Set the x, y coordinates of the points at 1/3 and 2/3 of the way from the first to the second end
+	private void setThirdMarks(int offset, int coordsOffset) {
+		float oneThirdX = (mGeometry[coordsOffset + 2] - mGeometry[coordsOffset])/3; // one third the distance between the x-coords
+		float oneThirdY = (mGeometry[coordsOffset + 3] - mGeometry[coordsOffset + 1])/3; // one third the distance between the y-coords
+
+		mGeometry[offset] = mGeometry[coordsOffset] + oneThirdX; // x-coord of first one-third mark
+		mGeometry[offset + 1] = mGeometry[coordsOffset + 1] + oneThirdY; // y-coord of first one-third mark
+		mGeometry[offset + 2] = mGeometry[coordsOffset] + 2 * oneThirdX; // x-coord of second one-third mark
+		mGeometry[offset + 3] = mGeometry[coordsOffset + 1] + 2 * oneThirdY; // y-coord of second one-third mark
+	}
+
+	// Top and bottom ends of a segment (like a '/', '\', or '|')
+	public float getTopX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + TOP_BOTTOM_COORDS];
+	}
+
+	public float getTopY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + TOP_BOTTOM_COORDS + 1];
+	}
+
+	public float getBottomX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + TOP_BOTTOM_COORDS + 2];
+	}
+
+	public float getBottomY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + TOP_BOTTOM_COORDS + 3];
+	}
+
+	// Left and right ends of a segment (like a '-')
+	public float getLeftX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + LEFT_RIGHT_COORDS];
+	}
+
+	public float getLeftY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + LEFT_RIGHT_COORDS + 1];
+	}
+
+	public float getRightX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + LEFT_RIGHT_COORDS + 2];
+	}
+
+	public float getRightY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + LEFT_RIGHT_COORDS + 3];
+	}
+
+	// One-third and two-third marks from the top end of a segment
+	public float getTopBottom1stThirdX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + TOP_BOTTOM_THIRD_MARKS];
+	}
+
+	public float getTopBottom1stThirdY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + TOP_BOTTOM_THIRD_MARKS + 1];
+	}
+
+	public float getTopBottom2ndThirdX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + TOP_BOTTOM_THIRD_MARKS + 2];
+	}
+
+	public float getTopBottom2ndThirdY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + TOP_BOTTOM_THIRD_MARKS + 3];
+	}
+
+	// One-third and two-third marks from the left end of a segment
+	public float getLeftRight1stThirdX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + LEFT_RIGHT_THIRD_MARKS];
+	}
+
+	public float getLeftRight1stThirdY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + LEFT_RIGHT_THIRD_MARKS + 1];
+	}
+
+	public float getLeftRight2ndThirdX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + LEFT_RIGHT_THIRD_MARKS + 2];
+	}
+
+	public float getLeftRight2ndThirdY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + LEFT_RIGHT_THIRD_MARKS + 3];
+	}
+
+	// Mid-point of the ends of a segment
+	public float getMidX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + MID_POINT];
+	}
+
+	public float getMidY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + MID_POINT + 1];
+	}
+
+	// Start and end of a segment, in the order it was written
+	public float getStartX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + START_END_COORDS];
+	}
+
+	public float getStartY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + START_END_COORDS + 1];
+	}
+
+	public float getEndX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + START_END_COORDS + 2];
+	}
+
+	public float getEndY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + START_END_COORDS + 3];
+	}
+
+	// Average of the points of a segment
+	public float getAvgX(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + AVG_POINT];
+	}
+
+	public float getAvgY(int segmentIndex) {
+		return mGeometry[GEOMETRY_SIZE * segmentIndex + AVG_POINT + 1];
+	}
+
+	public char getSegmentCharacter(int segmentIndex) {
+		return mSegmentCharacters[segmentIndex];
+	}
+
+	// Gap between the tops (bottoms) of two segments
+	public float getTopGap(int segment1Index, int segment2Index) {
+		return mGeometry[TOP_GAPS + segment1Index * MAX_NUM_OF_SEGMENTS + segment2Index];
+	}
+
+	public float getBottomGap(int segment1Index, int segment2Index) {
+		return mGeometry[BOTTOM_GAPS + segment1Index * MAX_NUM_OF_SEGMENTS + segment2Index];
+	}
+
+	// Order a pair of segments into top and bottom by the mid-points of their ends.  The first segment is on top
+	// unless the mid-point of the second one is higher.
+	// Note: y increases downwards (y values of the top stroke are smaller than those of the bottom stroke).
+	public int getTopIndex(int segment1Index, int segment2Index) {
+		return (getMidY(segment2Index) < getMidY(segment1Index)) ? segment2Index : segment1Index;
+	}
+
+	public int getBottomIndex(int segment1Index, int segment2Index) {
+		return (getMidY(segment2Index) < getMidY(segment1Index)) ? segment1Index : segment2Index;
+	}
+
+	// Order a pair of segments into left and right by the mid-points of their ends.  The first segment is on the
+	// left unless the mid-point of the second one is further left.
+	public int getLeftIndex(int segment1Index, int segment2Index) {
+		return (getMidX(segment2Index) < getMidX(segment1Index)) ? segment2Index : segment1Index;
+	}
+
+	public int getRightIndex(int segment1Index, int segment2Index) {
+		return (getMidX(segment2Index) < getMidX(segment1Index)) ? segment1Index : segment2Index;
+	}
+}
@@ -0,0 +1,345 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// SegmentStore keeps the strokes and segments of a very large number of characters off the Java heap, for
+// recognition jobs too large to keep a PenCharacter (with its PenStrokes and PenSegments, each with a path, a
+// path measure, bounds and arrays) per character.  A character is segmented as usual and added with
+// addCharacter(), after which its PenCharacter can be dropped; what the character checks need is kept in
+// columns of direct ByteBuffers:
+//    points      x and y of the points of every stroke
+//    strokes     first point and number of points of every stroke
+//    segments    segment character, start and end points, average point, average curvature, max curvature
+//                difference and bounds of every segment
+//    characters  first stroke, number of strokes, first segment, number of segments, bounds and recognized
+//                character of every character
+// A column grows a block (of BLOCK_SIZE values) at a time, so the store grows with the job and rows are never
+// copied.  A CharacterView recognizes the characters of the store with one PenCharacter and a few PenSegments
+// it binds to one stored character after another.
+// Characters are added by one thread at a time.  Views on any number of threads can read the store (and set
+// the recognized characters of different characters) once the characters they read have been added.
+public class SegmentStore {
+
+	private static final int BLOCK_BITS = 16;
+	private static final int BLOCK_SIZE = 1 << BLOCK_BITS; // values in a block of a column
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+	// A column of 4-byte values (floats, ints or chars), in blocks allocated as rows are added
+	private static class Column {
+		private ByteBuffer mBlocks[] = new ByteBuffer[16];
+		private int mNumOfBlocks = 0;
+
+		// Make sure there is room for row
+		void reserve(int row) {
+			int block = row >>> BLOCK_BITS;
+			if (block < mNumOfBlocks)
+				return;
+
+			if (block >= mBlocks.length) {
+				ByteBuffer blocks[] = new ByteBuffer[Math.max(block + 1, 2 * mBlocks.length)];
+				System.arraycopy(mBlocks, 0, blocks, 0, mNumOfBlocks);
+				mBlocks = blocks;
+			}
+			while (mNumOfBlocks <= block) {
+				mBlocks[mNumOfBlocks] = ByteBuffer.allocateDirect(4 * BLOCK_SIZE).order(ByteOrder.nativeOrder());
+				mNumOfBlocks = mNumOfBlocks + 1;
+			}
+		}
+
+		float getFloat(int row) {
+			return mBlocks[row >>> BLOCK_BITS].getFloat((row & BLOCK_MASK) << 2);
+		}
+
+		void putFloat(int row, float value) {
+			mBlocks[row >>> BLOCK_BITS].putFloat((row & BLOCK_MASK) << 2, value);
+		}
+
+		int getInt(int row) {
+			return mBlocks[row >>> BLOCK_BITS].getInt((row & BLOCK_MASK) << 2);
+		}
+
+		void putInt(int row, int value) {
+			mBlocks[row >>> BLOCK_BITS].putInt((row & BLOCK_MASK) << 2, value);
+		}
+
+		long getNumOfBytes() {
+			return 4L * BLOCK_SIZE * mNumOfBlocks;
+		}
+	}
+
+	// Columns of the points
+	private static final int POINT_X = 0;
+	private static final int POINT_Y = 1;
+	private static final int NUM_OF_POINT_COLUMNS = 2;
+
+	// Columns of the strokes
+	private static final int STROKE_FIRST_POINT = 0;
+	private static final int STROKE_NUM_OF_POINTS = 1;
+	private static final int NUM_OF_STROKE_COLUMNS = 2;
+
+	// Columns of the segments
+	private static final int SEGMENT_CHARACTER = 0;
+	private static final int SEGMENT_START_X = 1;
+	private static final int SEGMENT_START_Y = 2;
+	private static final int SEGMENT_END_X = 3;
+	private static final int SEGMENT_END_Y = 4;
+	private static final int SEGMENT_AVG_X = 5;
+	private static final int SEGMENT_AVG_Y = 6;
+	private static final int SEGMENT_AVG_KAPPA = 7;
+	private static final int SEGMENT_MAX_ABS_KAPPA_DIFF = 8;
+	private static final int SEGMENT_LEFT = 9;
+	private static final int SEGMENT_TOP = 10;
+	private static final int SEGMENT_RIGHT = 11;
+	private static final int SEGMENT_BOTTOM = 12;
+	private static final int NUM_OF_SEGMENT_COLUMNS = 13;
+
+	// Columns of the characters
+	private static final int CHARACTER_FIRST_STROKE = 0;
+	private static final int CHARACTER_NUM_OF_STROKES = 1;
+	private static final int CHARACTER_FIRST_SEGMENT = 2;
+	private static final int CHARACTER_NUM_OF_SEGMENTS = 3;
+	private static final int CHARACTER_MIN_X = 4;
+	private static final int CHARACTER_MIN_Y = 5;
+	private static final int CHARACTER_MAX_X = 6;
+	private static final int CHARACTER_MAX_Y = 7;
+	private static final int CHARACTER_RECOGNIZED = 8; // '\0' until set
+	private static final int NUM_OF_CHARACTER_COLUMNS = 9;
+
+	// Members
+	private final Column mPoints[] = newColumns(NUM_OF_POINT_COLUMNS);
+	private final Column mStrokes[] = newColumns(NUM_OF_STROKE_COLUMNS);
+	private final Column mSegments[] = newColumns(NUM_OF_SEGMENT_COLUMNS);
+	private final Column mCharacters[] = newColumns(NUM_OF_CHARACTER_COLUMNS);
+	private int mNumOfPoints = 0;
+	private int mNumOfStrokes = 0;
+	private int mNumOfSegments = 0;
+	private volatile int mNumOfCharacters = 0; // written last by addCharacter()
+
+	private static Column[] newColumns(int numOfColumns) {
+		Column columns[] = new Column[numOfColumns];
+		for (int i = 0; i < numOfColumns; i++) {
+			columns[i] = new Column();
+		}
+		return columns;
+	}
+
+	private static void reserve(Column columns[], int row) {
+		for (int i = 0; i < columns.length; i++) {
+			columns[i].reserve(row);
+		}
+	}
+
+	// Add a character whose strokes have been added (with PenCharacter.addStroke() and addSegments()) and return
+	// its index.  The character can be dropped afterwards.
+	public int addCharacter(PenCharacter penCharacter) {
+		int character = mNumOfCharacters;
+		int numOfStrokes = penCharacter.getNumOfStrokes();
+		int numOfSegments = penCharacter.mPenSegments.size();
+
+		reserve(mCharacters, character);
+		mCharacters[CHARACTER_FIRST_STROKE].putInt(character, mNumOfStrokes);
+		mCharacters[CHARACTER_NUM_OF_STROKES].putInt(character, numOfStrokes);
+		mCharacters[CHARACTER_FIRST_SEGMENT].putInt(character, mNumOfSegments);
+		mCharacters[CHARACTER_NUM_OF_SEGMENTS].putInt(character, numOfSegments);
+		mCharacters[CHARACTER_MIN_X].putFloat(character, penCharacter.mPenStrokesMinX);
+		mCharacters[CHARACTER_MIN_Y].putFloat(character, penCharacter.mPenStrokesMinY);
+		mCharacters[CHARACTER_MAX_X].putFloat(character, penCharacter.mPenStrokesMaxX);
+		mCharacters[CHARACTER_MAX_Y].putFloat(character, penCharacter.mPenStrokesMaxY);
+		mCharacters[CHARACTER_RECOGNIZED].putInt(character, 0);
+
+		for (int i = 0; i < numOfStrokes; i++) {
+			addStroke(penCharacter.getStroke(i).mPenStrokePath);
+		}
+		for (int i = 0; i < numOfSegments; i++) {
+			addSegment(penCharacter.mPenSegments.elementAt(i));
+		}
+
+		mNumOfCharacters = character + 1;
+		return character;
+	}
+
+	private void addStroke(PenPath path) {
+		int stroke = mNumOfStrokes;
+		int numOfPoints = path.getPointCount();
+		reserve(mStrokes, stroke);
+		mStrokes[STROKE_FIRST_POINT].putInt(stroke, mNumOfPoints);
+		mStrokes[STROKE_NUM_OF_POINTS].putInt(stroke, numOfPoints);
+
+		for (int i = 0; i < numOfPoints; i++) {
+			reserve(mPoints, mNumOfPoints);
+			mPoints[POINT_X].putFloat(mNumOfPoints, path.getX(i));
+			mPoints[POINT_Y].putFloat(mNumOfPoints, path.getY(i));
+			mNumOfPoints = mNumOfPoints + 1;
+		}
+		mNumOfStrokes = stroke + 1;
+	}
+
+	private void addSegment(PenSegment pSegment) {
+		int segment = mNumOfSegments;
+		reserve(mSegments, segment);
+		mSegments[SEGMENT_CHARACTER].putInt(segment, (pSegment.mPenSegmentCharacter != null) ? pSegment.mPenSegmentCharacter.charValue() : 0);
+		mSegments[SEGMENT_START_X].putFloat(segment, pSegment.mPosStart[0]);
+		mSegments[SEGMENT_START_Y].putFloat(segment, pSegment.mPosStart[1]);
+		mSegments[SEGMENT_END_X].putFloat(segment, pSegment.mPosEnd[0]);
+		mSegments[SEGMENT_END_Y].putFloat(segment, pSegment.mPosEnd[1]);
+		mSegments[SEGMENT_AVG_X].putFloat(segment, pSegment.mAvgX);
+		mSegments[SEGMENT_AVG_Y].putFloat(segment, pSegment.mAvgY);
+		mSegments[SEGMENT_AVG_KAPPA].putFloat(segment, pSegment.mAvgKappa);
+		mSegments[SEGMENT_MAX_ABS_KAPPA_DIFF].putFloat(segment, pSegment.mMaxAbsKappaDiff);
+		mSegments[SEGMENT_LEFT].putFloat(segment, pSegment.mBoundingRectF.left);
+		mSegments[SEGMENT_TOP].putFloat(segment, pSegment.mBoundingRectF.top);
+		mSegments[SEGMENT_RIGHT].putFloat(segment, pSegment.mBoundingRectF.right);
+		mSegments[SEGMENT_BOTTOM].putFloat(segment, pSegment.mBoundingRectF.bottom);
+		mNumOfSegments = segment + 1;
+	}
+
+	public int getNumOfCharacters() {
+		return mNumOfCharacters;
+	}
+
+	// Bytes allocated off the heap for the columns
+	public long getNumOfBytes() {
+		long numOfBytes = 0;
+		Column columns[][] = {mPoints, mStrokes, mSegments, mCharacters};
+		for (int i = 0; i < columns.length; i++) {
+			for (int j = 0; j < columns[i].length; j++) {
+				numOfBytes = numOfBytes + columns[i][j].getNumOfBytes();
+			}
+		}
+		return numOfBytes;
+	}
+
+	// Characters
+
+	public int getNumOfStrokes(int character) {
+		return mCharacters[CHARACTER_NUM_OF_STROKES].getInt(character);
+	}
+
+	public int getFirstStroke(int character) {
+		return mCharacters[CHARACTER_FIRST_STROKE].getInt(character);
+	}
+
+	public int getNumOfSegments(int character) {
+		return mCharacters[CHARACTER_NUM_OF_SEGMENTS].getInt(character);
+	}
+
+	public int getFirstSegment(int character) {
+		return mCharacters[CHARACTER_FIRST_SEGMENT].getInt(character);
+	}
+
+	// The character recognized (see setRecognizedCharacter()), '\0' if none
+	public char getRecognizedCharacter(int character) {
+		return (char) mCharacters[CHARACTER_RECOGNIZED].getInt(character);
+	}
+
+	public void setRecognizedCharacter(int character, char c) {
+		mCharacters[CHARACTER_RECOGNIZED].putInt(character, c);
+	}
+
+	// Strokes
+
+	public int getNumOfPoints(int stroke) {
+		return mStrokes[STROKE_NUM_OF_POINTS].getInt(stroke);
+	}
+
+	public int getFirstPoint(int stroke) {
+		return mStrokes[STROKE_FIRST_POINT].getInt(stroke);
+	}
+
+	// Points
+
+	public float getX(int point) {
+		return mPoints[POINT_X].getFloat(point);
+	}
+
+	public float getY(int point) {
+		return mPoints[POINT_Y].getFloat(point);
+	}
+
+	// Segments
+
+	// The segment character (see PenSegment.findMatchingCharacter()), '\0' if none
+	public char getSegmentCharacter(int segment) {
+		return (char) mSegments[SEGMENT_CHARACTER].getInt(segment);
+	}
+
+	public float getAvgKappa(int segment) {
+		return mSegments[SEGMENT_AVG_KAPPA].getFloat(segment);
+	}
+
+	public float getMaxAbsKappaDiff(int segment) {
+		return mSegments[SEGMENT_MAX_ABS_KAPPA_DIFF].getFloat(segment);
+	}
+
+	// Set the features of a segment to those of a stored segment
+	private void loadSegment(int segment, PenSegment pSegment) {
+		pSegment.setFeatures((char) mSegments[SEGMENT_CHARACTER].getInt(segment),
+				mSegments[SEGMENT_START_X].getFloat(segment), mSegments[SEGMENT_START_Y].getFloat(segment),
+				mSegments[SEGMENT_END_X].getFloat(segment), mSegments[SEGMENT_END_Y].getFloat(segment),
+				mSegments[SEGMENT_AVG_X].getFloat(segment), mSegments[SEGMENT_AVG_Y].getFloat(segment),
+				mSegments[SEGMENT_AVG_KAPPA].getFloat(segment), mSegments[SEGMENT_MAX_ABS_KAPPA_DIFF].getFloat(segment),
+				mSegments[SEGMENT_LEFT].getFloat(segment), mSegments[SEGMENT_TOP].getFloat(segment),
+				mSegments[SEGMENT_RIGHT].getFloat(segment), mSegments[SEGMENT_BOTTOM].getFloat(segment));
+	}
+
+	// CharacterView gives the characters of a store as a PenCharacter, one at a time, to be recognized with
+	// PenCharacter.findMatchingCharacter() (or findBestCharacters()).  The PenCharacter and its PenSegments are
+	// reused from one character to the next, so a view must be used by one thread at a time and the character
+	// it gives is only good until the next bind().  The segments only have what the character checks read:
+	// they have no paths or curvature points.
+	public static class CharacterView {
+		private final SegmentStore mStore;
+		private final PenCharacter mPenCharacter = new PenCharacter();
+		private PenSegment mSegments[] = new PenSegment[0];
+
+		public CharacterView(SegmentStore store) {
+			mStore = store;
+		}
+
+		// Get the character at index of the store
+		public PenCharacter bind(int character) {
+			SegmentStore store = mStore;
+			int numOfSegments = store.getNumOfSegments(character);
+			int firstSegment = store.getFirstSegment(character);
+			if (numOfSegments > mSegments.length) {
+				PenSegment segments[] = new PenSegment[numOfSegments];
+				System.arraycopy(mSegments, 0, segments, 0, mSegments.length);
+				for (int i = mSegments.length; i < numOfSegments; i++) {
+					segments[i] = new PenSegment();
+				}
+				mSegments = segments;
+			}
+			for (int i = 0; i < numOfSegments; i++) {
+				store.loadSegment(firstSegment + i, mSegments[i]);
+			}
+
+			mPenCharacter.bind(store.getNumOfStrokes(character),
+					store.mCharacters[CHARACTER_MIN_X].getFloat(character), store.mCharacters[CHARACTER_MIN_Y].getFloat(character),
+					store.mCharacters[CHARACTER_MAX_X].getFloat(character), store.mCharacters[CHARACTER_MAX_Y].getFloat(character),
+					mSegments, numOfSegments);
+			return mPenCharacter;
+		}
+	}
+}
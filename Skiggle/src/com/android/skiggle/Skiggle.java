@@ -20,6 +20,9 @@
 
 package com.android.skiggle;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import android.app.Activity;
 import android.content.Context;
@@ -27,15 +30,27 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PathMeasure;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
 
 public class Skiggle extends Activity {
 	//	 implements ColorPickerDialog.OnColorChangedListener {
 
+	// TAG for logging
+	private static final String TAG = "Skiggle";
+
+	// Set to record the strokes written in each session into an ink file (see InkFormat) in the files directory
+	private static final boolean RECORD_SESSIONS = false;
+
+	// Profile (see RecognizerProfile) in the files directory that the recognizer is tuned with, if there is one.  It is
+	// loaded again when it changes, at the start and whenever the write pad is cleared.
+	private static final String PROFILE_FILE_NAME = "profile.properties";
+
 	public static int DEFAULT_PEN_COLOR = 0xFF00FFFF;   //;
 	public static int DEFAULT_CANVAS_COLOR = 0xFFFFFFFF;  //0xFFAAAAAA);
 	public static float DEFAULT_STROKE_WIDTH = 12.0F;	
@@ -46,12 +61,15 @@ public class Skiggle extends Activity {
 
 	private Paint mPaint;
 	private Paint mTextPaint;
+	private BoxView mBoxView;
+	private RecognizerProfile.Reloader mProfileReloader;
 
 
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
-		setContentView(new BoxView(this));
+		mBoxView = new BoxView(this);
+		setContentView(mBoxView);
 
 		mPaint = new Paint();
 		mPaint.setAntiAlias(true);
@@ -65,106 +83,170 @@ public class Skiggle extends Activity {
 		mTextPaint = new Paint();
 		mTextPaint.setTextSize(DEFAULT_FONT_SIZE);
 
+		mProfileReloader = new RecognizerProfile.Reloader(new File(getFilesDir(), PROFILE_FILE_NAME));
+		reloadProfile();
+
+		if (RECORD_SESSIONS)
+			mBoxView.startRecording(new File(getFilesDir(), "session-" + System.currentTimeMillis() + ".ink"));
 
 
 	}
 
-	public class BoxView extends View {
+	@Override
+	protected void onDestroy() {
+		mBoxView.shutdown();
+		super.onDestroy();
+	}
+
+	// Swap in the profile in the profile file if it has changed
+	private void reloadProfile() {
+		try {
+			if (mProfileReloader.reloadIfChanged())
+				Log.i(TAG, "Recognizer profile: " + RecognizerProfile.getCurrent());
+		}
+		catch (IOException e) {
+			Log.e(TAG, "Cannot load the recognizer profile", e);
+		}
+	}
+
+	public class BoxView extends View implements RecognitionExecutor.RecognitionListener,
+			CharacterStream.CharacterListener {
 
 		private Bitmap mBitmap;
 
 		private Canvas mCanvas;
+		// The stroke being drawn is kept twice: mPath is the android.graphics.Path used for drawing on
+		// the screen and mWritePad builds the PenPath used for recognition (and measures it as the points
+		// come in).  Every moveTo/quadTo/lineTo of mWritePad is applied to mPath too.
+		// The stroke is drawn into mBitmap a piece at a time as it comes in (see drawPendingPath()): mPath only
+		// holds the piece added since the last frame, and only the area the piece covers (mDirtyRectF, with
+		// the width of the pen) is invalidated, so the cost of a frame does not grow with the size of the view
+		// or the length of the stroke.
 		private Path mPath;
 		private Paint mBitmapPaint;
-		private float mX, mY;
-		private static final float TOUCH_TOLERANCE = 4;
-		private PenStroke mPenStroke;
-		private PenSegment mPenSegment;
+		private RectF mDirtyRectF = new RectF(); // bounds of the points of mPath, if mDirtyP is true
+		private boolean mDirtyP = false;
+		private Rect mDirtyRect = new Rect();
+		private Rect mBitmapRect = new Rect(0, 0, DEFAULT_WRITE_PAD_WIDTH, DEFAULT_WRITE_PAD_HEIGHT);
+		private Rect mClipRect = new Rect();
+		private float mLastX, mLastY; // last point of mPath
 		//		private int mStrokeNumber = 0;
 		//		private int mSegmentNumber = 0;
+		// The strokes written are grouped into characters by the CharacterStream of mWritePad, which
+		// recognizes each character once it is closed and adds it to mRecognizedText.  The strokes of the
+		// character still being written are also recognized in the background by its RecognitionExecutor
+		// and mPenCharacter is set to the last character recognized.  The characters are reset once they are
+		// done with, so that their strokes and segments are reused (see PenStroke.obtain()).
+		private WritePad mWritePad;
 		public PenCharacter mPenCharacter = new PenCharacter();
+		private StringBuilder mRecognizedText = new StringBuilder();
+		private InkRecorder mInkRecorder = null; // records the strokes written, if not null (see startRecording())
+
+		// Close the character being written if the pen has stayed up
+		private Runnable mCommitIdleCharacter = new Runnable() {
+			public void run() {
+				mWritePad.commitIfIdle(SystemClock.uptimeMillis());
+			}
+		};
 
 		public BoxView(Context c) {
 			super(c);
 
 			mBitmap = Bitmap.createBitmap(DEFAULT_WRITE_PAD_WIDTH, DEFAULT_WRITE_PAD_HEIGHT, Bitmap.Config.ARGB_8888);
+			mBitmap.eraseColor(DEFAULT_CANVAS_COLOR);
 			mCanvas = new Canvas(mBitmap);
 			mBitmapPaint = new Paint(Paint.DITHER_FLAG);
 			mPath = new Path();
+
+			// Recognition results are posted back to the UI thread
+			Executor uiExecutor = new Executor() {
+				public void execute(Runnable command) {
+					post(command);
+				}
+			};
+			WritePad.PathListener pathListener = new WritePad.PathListener() {
+				public void moveTo(float x, float y) {
+					mPath.reset();
+					mPath.moveTo(x, y);
+					addDirtyPoint(x, y);
+					mLastX = x;
+					mLastY = y;
+				}
+
+				public void lineTo(float x, float y) {
+					mPath.lineTo(x, y);
+					addDirtyPoint(mLastX, mLastY);
+					addDirtyPoint(x, y);
+					mLastX = x;
+					mLastY = y;
+				}
+
+				// The curve lies within the triangle of its end points and its control point
+				public void quadTo(float x1, float y1, float x2, float y2) {
+					mPath.quadTo(x1, y1, x2, y2);
+					addDirtyPoint(mLastX, mLastY);
+					addDirtyPoint(x1, y1);
+					addDirtyPoint(x2, y2);
+					mLastX = x2;
+					mLastY = y2;
+				}
+			};
+			mWritePad = new WritePad(new CharacterStream(uiExecutor, this), new RecognitionExecutor(uiExecutor, this),
+					pathListener);
 		}
 
+		// Only the area invalidated is drawn (the canvas is clipped to it).  The strokes are all in mBitmap, which
+		// covers the background wherever it is drawn.
 		@Override
 		protected void onDraw(Canvas canvas) {
-			canvas.drawColor(DEFAULT_CANVAS_COLOR);
+			if (!canvas.getClipBounds(mClipRect) || !mBitmapRect.contains(mClipRect))
+				canvas.drawColor(DEFAULT_CANVAS_COLOR);
 
 			canvas.drawBitmap(mBitmap, 0, 0, mBitmapPaint);
 
-			canvas.drawPath(mPath, mPaint);
+			canvas.drawText(mRecognizedText.toString(), 10.0F, DEFAULT_WRITE_PAD_HEIGHT - 20.0F, mTextPaint);
 		}
 
-		private void touch_start(float x, float y) {
-			mPath.reset();
-			mPath.moveTo(x, y);
-			mX = x;
-			mY = y;
-		}
-
-		private void touch_move(float x, float y) {
-			float dx = Math.abs(x - mX);
-			float dy = Math.abs(y - mY);
-			if (dx >= TOUCH_TOLERANCE || dy >= TOUCH_TOLERANCE) {
-				mPath.quadTo(mX, mY, (x + mX) / 2, (y + mY) / 2);
-				mX = x;
-				mY = y;
+		private void addDirtyPoint(float x, float y) {
+			if (mDirtyP) {
+				mDirtyRectF.union(x, y);
+			}
+			else {
+				mDirtyRectF.set(x, y, x, y);
+				mDirtyP = true;
 			}
 		}
 
-		private void touch_up() {
-			mPath.lineTo(mX, mY);
+		// Draw the piece of the stroke added since the last frame into mBitmap, start the next piece at its
+		// last point, and invalidate the area it covers: its points and half the width of the pen around them
+		// (plus a pixel for anti-aliasing)
+		private void drawPendingPath() {
+			if (!mDirtyP)
+				return;
 
-			// commit the path to our off screen
 			mCanvas.drawPath(mPath, mPaint);
+			mPath.reset();
+			mPath.moveTo(mLastX, mLastY);
 
-			// If the stroke is a point of zero length , make it a filled circle of
-			// diameter Skiggle.DEFAULT_STROKE_WIDTH and add it to the path
-			PathMeasure pMeasure = new PathMeasure(mPath, false);
-			if (pMeasure.getLength() == 0) {
-				RectF boundingRectF = new RectF(); 
-				mPath.computeBounds(boundingRectF, false);
-
-				// Create a line of 1 pixel length
-				mPath.lineTo(boundingRectF.centerX(), boundingRectF.centerY() + 1);
-
-			}
+			float margin = mPaint.getStrokeWidth() / 2 + 1;
+			mDirtyRectF.inset(-margin, -margin);
+			mDirtyRectF.roundOut(mDirtyRect);
+			mDirtyP = false;
+			invalidate(mDirtyRect);
+		}
 
-			// Set pen stroke to a copy of the stroke
-			// mPenStroke = new PenStroke();
-			mPenStroke = new PenStroke(mPath);
-			mPenStroke.addPath(mPath);
-			mPenCharacter.addStroke(mPenStroke);
-			//			mStrokeNumber = mStrokeNumber + 1;
-			// Set pen color to a different color for the copy of the stroke
-			//  mPenStrokeMeasure = new PathMeasure( mPenStroke, false);
-			// if ( mPenStrokeMeasure.isClosed())
-			//	mPaint.setColor(0xFFFF0000);
-			// Paint the copy of the stroke with the new pen color
-			mCanvas.drawPath( mPenStroke, mPaint);
-			
-			// Check to see if the stroke is a jagged "clear screen" stroke
-			if ((mPenStroke.mPenStrokeLength/(mPenStroke.mBoundingRectWidth + mPenStroke.mBoundingRectHeight)) > 2) {
-				this.clear();
-				// Clear the Pen Character object
-				mPenCharacter = new PenCharacter();
+		private void touch_up(long penUpTime) {
+			if (mWritePad.touchUp(penUpTime)) {
+				// commit the rest of the path to our off screen
+				drawPendingPath();
+				removeCallbacks(mCommitIdleCharacter);
+				postDelayed(mCommitIdleCharacter, CharacterStream.CHARACTER_TIMEOUT_MILLIS + 1);
 			}
 			else {
-
-				// Add segment(s) for the PenStroke
-				// mPenSegment = new PenSegment(mPenStroke);
-				mPenCharacter.addSegments(mPenStroke, mCanvas, mTextPaint);
-				//				mSegmentNumber = mSegmentNumber + 1;
-				
-				mPenCharacter.findMatchingCharacter(mCanvas, mTextPaint);
-
+				// A jagged "clear screen" stroke
+				if (mInkRecorder != null)
+					mInkRecorder.discardStroke();
+				this.clear();
 			}
 
 			// kill this so we don't double draw
@@ -178,28 +260,101 @@ public class Skiggle extends Activity {
 			float y = event.getY();
 			switch (event.getAction()) {
 			case MotionEvent.ACTION_DOWN:
-				touch_start(x, y);
-				invalidate();
+				if (mInkRecorder != null)
+					mInkRecorder.penDown(x, y, event.getEventTime());
+				mWritePad.touchDown(x, y, event.getEventTime());
+				drawPendingPath();
 				break;
 			case MotionEvent.ACTION_MOVE:
-				touch_move(x, y);
-				invalidate();
+				if (mInkRecorder != null)
+					mInkRecorder.penMove(x, y);
+				if (mWritePad.touchMove(x, y))
+					drawPendingPath();
 				break;
 			case MotionEvent.ACTION_UP:
-				touch_up();
-				invalidate();
+				if (mInkRecorder != null)
+					mInkRecorder.penUp(event.getEventTime());
+				touch_up(event.getEventTime());
 				break;
 			}
 			return true;
 		}
 
+		// Called on the UI thread with the character recognized from the latest strokes
+		public void onCharacterRecognized(PenCharacter penCharacter) {
+			mPenCharacter.resetStrokes();
+			mPenCharacter.resetSegments();
+			mPenCharacter = penCharacter;
+			mPenCharacter.printRecognizedCharacter(mCanvas, mTextPaint);
+			invalidate();
+		}
+
+		// Called on the UI thread with each character closed by mCharacterStream, in order
+		public void onCharacterRecognized(int index, PenCharacter penCharacter) {
+			mRecognizedText.setLength(Math.min(index, mRecognizedText.length()));
+			mRecognizedText.append((penCharacter.mPenCharacter != null) ? penCharacter.mPenCharacter.charValue() : '?');
+			invalidate();
+
+			if (mInkRecorder != null) {
+				try {
+					mInkRecorder.characterRecognized((penCharacter.mPenCharacter != null) ? penCharacter.mPenCharacter.charValue() : '\0',
+							penCharacter.getNumOfStrokes());
+				}
+				catch (IOException e) {
+					Log.e(TAG, "Cannot record the character", e);
+					stopRecording();
+				}
+			}
+
+			penCharacter.resetStrokes();
+			penCharacter.resetSegments();
+		}
+
+		// Record the strokes written into an ink file (see InkFormat), a character at a time as the characters
+		// are recognized, until stopRecording()
+		public void startRecording(File file) {
+			stopRecording();
+			try {
+				mInkRecorder = new InkRecorder(new InkWriter(file));
+			}
+			catch (IOException e) {
+				Log.e(TAG, "Cannot record to " + file, e);
+			}
+		}
+
+		// Stop recording and close the ink file; the strokes of the character still being written are dropped
+		public void stopRecording() {
+			if (mInkRecorder == null)
+				return;
+
+			try {
+				mInkRecorder.close();
+			}
+			catch (IOException e) {
+				Log.e(TAG, "Cannot close the recording", e);
+			}
+			mInkRecorder = null;
+		}
+
 		public void clear() {
+			reloadProfile(); // before the characters of the cleared pad are started
 			mBitmap.eraseColor(DEFAULT_CANVAS_COLOR);
 			mPath.reset();
+			mDirtyP = false;
+			mWritePad.clear();
+			removeCallbacks(mCommitIdleCharacter);
+			mRecognizedText.setLength(0);
 			mPenCharacter.resetStrokes();
 			mPenCharacter.resetSegments();
+			if (mInkRecorder != null)
+				mInkRecorder.clear();
 			invalidate();
 		}
 
+		public void shutdown() {
+			mWritePad.shutdown();
+			stopRecording();
+		}
+
 	}
 }
@@ -0,0 +1,306 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+// StrokeBatch computes the curvature of many strokes at once, e.g. for recognizing a batch of characters on a
+// server.  The points each stroke is sampled at (the points PenSegment.getCurvaturePoints() samples a segment
+// at) are laid out one stroke after the other in arrays of x, y and tangent coordinates, so that a
+// CurvatureKernel can go through the points of all the strokes in one pass (with SIMD instructions, if it has
+// them).  computeCurvature() then leaves, for each stroke, the values getCurvaturePoints() gives a segment with
+// the fast-math kernel of PenUtil on: the tangent angle, curvature and curvature difference at every point
+// and the averages and maxima of the stroke.
+public class StrokeBatch {
+
+	private static final int INITIAL_NUM_OF_STROKES = 16;
+
+	private static CurvatureKernel sDefaultKernel = null;
+
+	// Members: the points of all the strokes (mNumOfPoints of them)
+	private int mNumOfPoints = 0;
+	float mX[];
+	float mY[];
+	float mTanX[];
+	float mTanY[];
+	float mTanAngle[];
+	float mKappa[]; // 0 at the first and the last two points of a stroke, as getCurvaturePoints() leaves it
+	float mKappaDiff[]; // 0 at the last three points of a stroke
+
+	// Members: the strokes (mNumOfStrokes of them) and what computeCurvature() computes for them
+	private int mNumOfStrokes = 0;
+	private int mOffsets[]; // index of the first point of each stroke
+	private int mLengths[]; // number of points of each stroke
+	private float mAvgX[];
+	private float mAvgY[];
+	private float mAvgAngle[];
+	private float mAvgKappa[];
+	private float mMaxAbsKappa[];
+	private float mMaxAbsKappaDiff[];
+	private int mMaxAbsKappaDiffIndex[]; // from the first point of the stroke, -1 if there is no difference
+
+	private float mPos[] = {0.0F, 0.0F};
+	private float mTan[] = {0.0F, 0.0F};
+
+	public StrokeBatch() {
+		this(INITIAL_NUM_OF_STROKES * PenSegment.getNumOfCurvaturePoints(0.0F));
+	}
+
+	public StrokeBatch(int initialNumOfPoints) {
+		allocatePoints(Math.max(1, initialNumOfPoints));
+		allocateStrokes(INITIAL_NUM_OF_STROKES);
+	}
+
+	// The Vector API kernel if the runtime has it and SCALAR otherwise
+	public static synchronized CurvatureKernel getDefaultKernel() {
+		if (sDefaultKernel == null) {
+			try {
+				sDefaultKernel = (CurvatureKernel) Class.forName(CurvatureKernel.VECTOR_KERNEL_CLASS_NAME)
+					.getDeclaredConstructor().newInstance();
+			}
+			catch (ReflectiveOperationException | LinkageError e) {
+				// Not built in, or the JVM has no jdk.incubator.vector module (it has to be added with
+				// --add-modules jdk.incubator.vector)
+				sDefaultKernel = CurvatureKernel.SCALAR;
+			}
+		}
+		return sDefaultKernel;
+	}
+
+	// Add a stroke sampled at the points getCurvaturePoints() samples segment at, and return its index
+	public int add(PenSegment segment) {
+		int numOfPoints = PenSegment.getNumOfCurvaturePoints(segment.mPenStrokeLength);
+		float segmentLength = segment.mPenStrokeLength/numOfPoints;
+		int offset = addStroke(numOfPoints);
+
+		// The point and tangent are left as they were if the segment has no length, starting from 0 as in
+		// getCurvaturePoints()
+		mPos[0] = 0.0F;
+		mPos[1] = 0.0F;
+		mTan[0] = 0.0F;
+		mTan[1] = 0.0F;
+		for (int i = 0; i < numOfPoints; i++) {
+			segment.mPenStrokeMeasure.getPosTan(i * segmentLength, mPos, mTan);
+			mX[offset + i] = mPos[0];
+			mY[offset + i] = mPos[1];
+			mTanX[offset + i] = mTan[0];
+			mTanY[offset + i] = mTan[1];
+		}
+		return mNumOfStrokes - 1;
+	}
+
+	// Add a stroke with numOfPoints points (at least 3) and unit tangents at the points, and return its index
+	public int add(float x[], float y[], float tanX[], float tanY[], int numOfPoints) {
+		int offset = addStroke(numOfPoints);
+		System.arraycopy(x, 0, mX, offset, numOfPoints);
+		System.arraycopy(y, 0, mY, offset, numOfPoints);
+		System.arraycopy(tanX, 0, mTanX, offset, numOfPoints);
+		System.arraycopy(tanY, 0, mTanY, offset, numOfPoints);
+		return mNumOfStrokes - 1;
+	}
+
+	// Drop all the strokes (keeping the arrays)
+	public void clear() {
+		mNumOfPoints = 0;
+		mNumOfStrokes = 0;
+	}
+
+	public int getNumOfStrokes() {
+		return mNumOfStrokes;
+	}
+
+	// Compute the curvature of the strokes with the default kernel
+	public void computeCurvature() {
+		computeCurvature(getDefaultKernel());
+	}
+
+	public void computeCurvature(CurvatureKernel kernel) {
+		if (mNumOfPoints < 3)
+			return;
+
+		kernel.computeTanAngles(mTanX, mTanY, mTanAngle, 0, mNumOfPoints);
+		kernel.computeCurvatures(mX, mY, mKappa, 1, mNumOfPoints - 1);
+		// getCurvaturePoints() has no curvature at the first and the last two points of a segment
+		for (int s = 0; s < mNumOfStrokes; s++) {
+			int offset = mOffsets[s];
+			int end = offset + mLengths[s];
+			mKappa[offset] = 0.0F;
+			mKappa[end - 2] = 0.0F;
+			mKappa[end - 1] = 0.0F;
+		}
+		kernel.computeDifferences(mKappa, mKappaDiff, 0, mNumOfPoints - 1);
+
+		for (int s = 0; s < mNumOfStrokes; s++) {
+			summarize(s);
+		}
+	}
+
+	// Add up the values of stroke s in the order getCurvaturePoints() does, and clear the curvature differences
+	// it does not compute
+	private void summarize(int s) {
+		int offset = mOffsets[s];
+		int numOfPoints = mLengths[s];
+		float sumX = 0.0F;
+		float sumY = 0.0F;
+		float sumAngle = 0.0F;
+		float sumKappa = 0.0F;
+		float maxAbsKappa = 0.0F;
+		float maxAbsKappaDiff = 0.0F;
+		int maxAbsKappaDiffIndex = -1;
+
+		for (int i = 0; i < numOfPoints; i++) {
+			sumX = sumX + mX[offset + i];
+			sumY = sumY + mY[offset + i];
+			if (i > 0)
+				sumAngle = sumAngle + mTanAngle[offset + i];
+			if ((i > 1) & (i < numOfPoints - 1)) {
+				float kappa = mKappa[offset + i - 1];
+				sumKappa = sumKappa + kappa;
+				if (Math.abs(kappa) > maxAbsKappa)
+					maxAbsKappa = Math.abs(kappa);
+				if (Math.abs(mKappaDiff[offset + i - 2]) > maxAbsKappaDiff) {
+					maxAbsKappaDiff = Math.abs(mKappaDiff[offset + i - 2]);
+					maxAbsKappaDiffIndex = i - 2;
+				}
+			}
+		}
+		for (int i = Math.max(0, numOfPoints - 3); i < numOfPoints; i++) {
+			mKappaDiff[offset + i] = 0.0F;
+		}
+
+		mAvgX[s] = sumX/numOfPoints;
+		mAvgY[s] = sumY/numOfPoints;
+		mAvgAngle[s] = sumAngle/(numOfPoints - 1);
+		mAvgKappa[s] = sumKappa/(numOfPoints - 2);
+		mMaxAbsKappa[s] = maxAbsKappa;
+		mMaxAbsKappaDiff[s] = maxAbsKappaDiff;
+		mMaxAbsKappaDiffIndex[s] = maxAbsKappaDiffIndex;
+	}
+
+	// Index of the first point of stroke s in the point arrays
+	public int getOffset(int s) {
+		return mOffsets[s];
+	}
+
+	public int getNumOfPoints(int s) {
+		return mLengths[s];
+	}
+
+	public float getAvgX(int s) {
+		return mAvgX[s];
+	}
+
+	public float getAvgY(int s) {
+		return mAvgY[s];
+	}
+
+	public float getAvgAngle(int s) {
+		return mAvgAngle[s];
+	}
+
+	public float getAvgKappa(int s) {
+		return mAvgKappa[s];
+	}
+
+	public float getMaxAbsKappa(int s) {
+		return mMaxAbsKappa[s];
+	}
+
+	public float getMaxAbsKappaDiff(int s) {
+		return mMaxAbsKappaDiff[s];
+	}
+
+	public int getMaxAbsKappaDiffIndex(int s) {
+		return mMaxAbsKappaDiffIndex[s];
+	}
+
+	// The tangent angle, curvature and curvature difference at point i of all the points (see getOffset())
+	public float getTanAngle(int i) {
+		return mTanAngle[i];
+	}
+
+	public float getKappa(int i) {
+		return mKappa[i];
+	}
+
+	public float getKappaDiff(int i) {
+		return mKappaDiff[i];
+	}
+
+	// Make room for a stroke of numOfPoints points and return the index of its first point
+	private int addStroke(int numOfPoints) {
+		if (numOfPoints < 3)
+			throw new IllegalArgumentException("A stroke needs at least 3 points, not " + numOfPoints);
+
+		if (mNumOfPoints + numOfPoints > mX.length)
+			growPoints(Math.max(mNumOfPoints + numOfPoints, 2 * mX.length));
+		if (mNumOfStrokes == mOffsets.length)
+			growStrokes(2 * mOffsets.length);
+
+		int offset = mNumOfPoints;
+		mOffsets[mNumOfStrokes] = offset;
+		mLengths[mNumOfStrokes] = numOfPoints;
+		mNumOfStrokes = mNumOfStrokes + 1;
+		mNumOfPoints = mNumOfPoints + numOfPoints;
+		return offset;
+	}
+
+	private void allocatePoints(int capacity) {
+		mX = new float[capacity];
+		mY = new float[capacity];
+		mTanX = new float[capacity];
+		mTanY = new float[capacity];
+		mTanAngle = new float[capacity];
+		mKappa = new float[capacity];
+		mKappaDiff = new float[capacity];
+	}
+
+	private void growPoints(int capacity) {
+		float x[] = mX;
+		float y[] = mY;
+		float tanX[] = mTanX;
+		float tanY[] = mTanY;
+		allocatePoints(capacity);
+		System.arraycopy(x, 0, mX, 0, mNumOfPoints);
+		System.arraycopy(y, 0, mY, 0, mNumOfPoints);
+		System.arraycopy(tanX, 0, mTanX, 0, mNumOfPoints);
+		System.arraycopy(tanY, 0, mTanY, 0, mNumOfPoints);
+	}
+
+	private void allocateStrokes(int capacity) {
+		mOffsets = new int[capacity];
+		mLengths = new int[capacity];
+		mAvgX = new float[capacity];
+		mAvgY = new float[capacity];
+		mAvgAngle = new float[capacity];
+		mAvgKappa = new float[capacity];
+		mMaxAbsKappa = new float[capacity];
+		mMaxAbsKappaDiff = new float[capacity];
+		mMaxAbsKappaDiffIndex = new int[capacity];
+	}
+
+	private void growStrokes(int capacity) {
+		int offsets[] = mOffsets;
+		int lengths[] = mLengths;
+		allocateStrokes(capacity);
+		System.arraycopy(offsets, 0, mOffsets, 0, mNumOfStrokes);
+		System.arraycopy(lengths, 0, mLengths, 0, mNumOfStrokes);
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+// StrokeCurvature computes the curvature profile of a stroke one point at a time, as the points come in:
+// the tangent angle at each point, the curvature (kappa) at each point from the points before and after it,
+// and the difference in curvature of each point and the next.  It keeps the sums and the maxima PenSegment
+// takes its features from (the average point, tangent angle and curvature, and the max absolute curvature
+// and curvature difference and where they are), so that they are up to date after every point.
+// The curvature of a point is only known once the point after it comes in, and the last point has none,
+// so the curvature of the latest point is held back until the next one comes in.
+// PenSegment.getCurvaturePoints() adds the points it measures along a segment to one, and
+// PenStrokeAccumulator adds the points POINT_SPACING pixels apart along the stroke as it is drawn, so that
+// the whole-stroke segment takes its curvature from there at pen up (see PenSegment.obtain(PenStroke)).
+public class StrokeCurvature {
+
+	public static final float POINT_SPACING = 12.0F; // Arc length (in pixels) between the points of PenStrokeAccumulator
+	public static final int MAX_NUM_OF_POINTS = 64;
+
+	// Members
+	private int mNumOfPoints = 0;
+	private float mPointSpacing = 0.0F; // arc length between the points
+	private boolean mFastMathP = true; // PenUtil.isFastMath() when reset() was called
+	private float mSumX = 0.0F;
+	private float mSumY = 0.0F;
+	private float mSumAngle = 0.0F; // of the points after the first
+	private float mSumKappa = 0.0F; // of the points whose curvature is known
+	private float mMaxAbsKappa = 0.0F;
+	private float mMaxAbsKappaX = 0.0F; // x-coord of the max absolute kappa value
+	private float mMaxAbsKappaY = 0.0F; // y-coord of the max absolute kappa value
+	private float mMaxAbsKappaDiff = 0.0F;
+	private float mMaxAbsKappaDiffX = 0.0F; // x-coord of the max absolute kappa diff value
+	private float mMaxAbsKappaDiffY = 0.0F; // y-coord of the max absolute kappa diff value
+	private int mMaxAbsKappaDiffIndex = -1;
+
+	// The points, tangent angles (in degrees), curvatures and curvature differences; the curvature of the first,
+	// the last and the latest points, and the differences after them, are 0
+	float mPointsX[] = new float[MAX_NUM_OF_POINTS];
+	float mPointsY[] = new float[MAX_NUM_OF_POINTS];
+	float mTanAngle[] = new float[MAX_NUM_OF_POINTS];
+	float mKappa[] = new float[MAX_NUM_OF_POINTS];
+	float mKappaDiff[] = new float[MAX_NUM_OF_POINTS];
+
+	// Clear the profile for points pointSpacing apart
+	public void reset(float pointSpacing) {
+		mNumOfPoints = 0;
+		mPointSpacing = pointSpacing;
+		mFastMathP = PenUtil.isFastMath();
+		mSumX = 0.0F;
+		mSumY = 0.0F;
+		mSumAngle = 0.0F;
+		mSumKappa = 0.0F;
+		mMaxAbsKappa = 0.0F;
+		mMaxAbsKappaX = 0.0F;
+		mMaxAbsKappaY = 0.0F;
+		mMaxAbsKappaDiff = 0.0F;
+		mMaxAbsKappaDiffX = 0.0F;
+		mMaxAbsKappaDiffY = 0.0F;
+		mMaxAbsKappaDiffIndex = -1;
+	}
+
+	// Make this profile a copy of src
+	public void set(StrokeCurvature src) {
+		mNumOfPoints = src.mNumOfPoints;
+		mPointSpacing = src.mPointSpacing;
+		mFastMathP = src.mFastMathP;
+		mSumX = src.mSumX;
+		mSumY = src.mSumY;
+		mSumAngle = src.mSumAngle;
+		mSumKappa = src.mSumKappa;
+		mMaxAbsKappa = src.mMaxAbsKappa;
+		mMaxAbsKappaX = src.mMaxAbsKappaX;
+		mMaxAbsKappaY = src.mMaxAbsKappaY;
+		mMaxAbsKappaDiff = src.mMaxAbsKappaDiff;
+		mMaxAbsKappaDiffX = src.mMaxAbsKappaDiffX;
+		mMaxAbsKappaDiffY = src.mMaxAbsKappaDiffY;
+		mMaxAbsKappaDiffIndex = src.mMaxAbsKappaDiffIndex;
+		System.arraycopy(src.mPointsX, 0, mPointsX, 0, mNumOfPoints);
+		System.arraycopy(src.mPointsY, 0, mPointsY, 0, mNumOfPoints);
+		System.arraycopy(src.mTanAngle, 0, mTanAngle, 0, mNumOfPoints);
+		System.arraycopy(src.mKappa, 0, mKappa, 0, mNumOfPoints);
+		System.arraycopy(src.mKappaDiff, 0, mKappaDiff, 0, mNumOfPoints);
+	}
+
+	// Add the point (x, y) with the (unit) tangent (tanX, tanY).  Return false (and add nothing) if the profile
+	// already has MAX_NUM_OF_POINTS points.
+	public boolean addPoint(float x, float y, float tanX, float tanY) {
+		int i = mNumOfPoints;
+		if (i >= MAX_NUM_OF_POINTS)
+			return false;
+
+		mPointsX[i] = x;
+		mPointsY[i] = y;
+		mKappa[i] = 0.0F;
+		mKappaDiff[i] = 0.0F;
+		mSumX = mSumX + x;
+		mSumY = mSumY + y;
+		mTanAngle[i] = mFastMathP ? PenUtil.getAbsAngleFast(tanY, tanX) : (float) PenUtil.getAbsAngle(tanY, tanX);
+		if (i > 0)
+			mSumAngle = mSumAngle + mTanAngle[i];
+
+		// Now that point i is in, point i - 1 is not the last point, so the curvature of point i - 2 (from the
+		// points before and after it) is known
+		if (i > 2)
+			addKappa(i - 2);
+
+		mNumOfPoints = i + 1;
+		return true;
+	}
+
+	// Compute the curvature of point i (not the first or the last point) and its difference from that of point
+	// i - 1
+	private void addKappa(int i) {
+		float kappa = mFastMathP ?
+				PenUtil.computeCurvatureM2003Fast(mPointsX[i - 1], mPointsY[i - 1], mPointsX[i], mPointsY[i], mPointsX[i + 1], mPointsY[i + 1])
+				: PenUtil.computeCurvatureM2003(mPointsX[i - 1], mPointsY[i - 1], mPointsX[i], mPointsY[i], mPointsX[i + 1], mPointsY[i + 1]);
+		mKappa[i] = kappa;
+		mSumKappa = mSumKappa + kappa;
+		if (Math.abs(kappa) > mMaxAbsKappa) {
+			mMaxAbsKappaX = mPointsX[i];
+			mMaxAbsKappaY = mPointsY[i];
+			mMaxAbsKappa = Math.abs(kappa);
+		}
+
+		float kappaDiff = kappa - mKappa[i - 1]; // difference in kappa of point i - 1 and its next neighbor
+		mKappaDiff[i - 1] = kappaDiff;
+		if (Math.abs(kappaDiff) > mMaxAbsKappaDiff) {
+			mMaxAbsKappaDiffX = mPointsX[i - 1];
+			mMaxAbsKappaDiffY = mPointsY[i - 1];
+			mMaxAbsKappaDiffIndex = i - 1;
+			mMaxAbsKappaDiff = Math.abs(kappaDiff);
+		}
+	}
+
+	public int getNumOfPoints() {
+		return mNumOfPoints;
+	}
+
+	public float getPointSpacing() {
+		return mPointSpacing;
+	}
+
+	// The averages are over all the points (x and y), the points after the first (tangent angle) and the
+	// points with a known curvature, all but the first and the last (kappa)
+
+	public float getAvgX() {
+		return mSumX / mNumOfPoints;
+	}
+
+	public float getAvgY() {
+		return mSumY / mNumOfPoints;
+	}
+
+	public float getAvgAngle() {
+		return mSumAngle / (mNumOfPoints - 1);
+	}
+
+	public float getAvgKappa() {
+		return mSumKappa / (mNumOfPoints - 2);
+	}
+
+	public float getMaxAbsKappa() {
+		return mMaxAbsKappa;
+	}
+
+	public float getMaxAbsKappaX() {
+		return mMaxAbsKappaX;
+	}
+
+	public float getMaxAbsKappaY() {
+		return mMaxAbsKappaY;
+	}
+
+	public float getMaxAbsKappaDiff() {
+		return mMaxAbsKappaDiff;
+	}
+
+	public float getMaxAbsKappaDiffX() {
+		return mMaxAbsKappaDiffX;
+	}
+
+	public float getMaxAbsKappaDiffY() {
+		return mMaxAbsKappaDiffY;
+	}
+
+	// The index of the point the max absolute kappa difference is after (-1 if there is none)
+	public int getMaxAbsKappaDiffIndex() {
+		return mMaxAbsKappaDiffIndex;
+	}
+}
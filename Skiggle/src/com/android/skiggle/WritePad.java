@@ -0,0 +1,160 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+// WritePad is the write pad of Skiggle.BoxView without the view: it takes the touch events, turns them into
+// strokes and hands the strokes to the recognizers, so the same code runs on the device and in a headless
+// replay of recorded touch events.
+//    - Touch moves smaller than TOUCH_TOLERANCE are dropped and the others are smoothed with quadTo through
+//      the mid-points; a stroke of zero length becomes a line of 1 pixel.
+//    - A jagged stroke (longer than CLEAR_STROKE_RATIO times its width plus height) clears the pad.
+//    - Any other stroke is added to the CharacterStream, which recognizes each character once it is closed,
+//      and the strokes of the character still being written are recognized by the RecognitionExecutor.
+// The path of the stroke being written can be drawn as it grows through a PathListener.  A WritePad is used
+// from one thread (the UI thread on the device); the results come through the listeners of the
+// CharacterStream and the RecognitionExecutor.
+public class WritePad {
+
+	public static final float TOUCH_TOLERANCE = 4;
+	private static final float CLEAR_STROKE_RATIO = 2;
+
+	// Receives the same moveTo/quadTo/lineTo calls as the PenPath of the stroke, e.g. to draw it into an
+	// android.graphics.Path
+	public interface PathListener {
+		void moveTo(float x, float y);
+		void lineTo(float x, float y);
+		void quadTo(float x1, float y1, float x2, float y2);
+	}
+
+	// Members
+	private CharacterStream mCharacterStream;
+	private RecognitionExecutor mRecognitionExecutor;
+	private PathListener mPathListener;
+	private PenStrokeAccumulator mStrokeAccumulator = new PenStrokeAccumulator();
+	private PenRectF mBoundingRectF = new PenRectF(); // for making a line of a stroke of zero length
+	private float mX, mY; // last sample taken into the stroke
+	private long mPenDownTime;
+	private boolean mPenDownP = false;
+
+	// pathListener may be null
+	public WritePad(CharacterStream characterStream, RecognitionExecutor recognitionExecutor, PathListener pathListener) {
+		mCharacterStream = characterStream;
+		mRecognitionExecutor = recognitionExecutor;
+		mPathListener = pathListener;
+	}
+
+	public void touchDown(float x, float y, long time) {
+		mPenDownTime = time;
+		mPenDownP = true;
+		mStrokeAccumulator.moveTo(x, y);
+		if (mPathListener != null)
+			mPathListener.moveTo(x, y);
+		mX = x;
+		mY = y;
+	}
+
+	// Return true if the sample was taken into the stroke
+	public boolean touchMove(float x, float y) {
+		if (!mPenDownP)
+			return false;
+
+		float dx = Math.abs(x - mX);
+		float dy = Math.abs(y - mY);
+		if (dx >= TOUCH_TOLERANCE || dy >= TOUCH_TOLERANCE) {
+			mStrokeAccumulator.quadTo(mX, mY, (x + mX) / 2, (y + mY) / 2);
+			if (mPathListener != null)
+				mPathListener.quadTo(mX, mY, (x + mX) / 2, (y + mY) / 2);
+			mX = x;
+			mY = y;
+			return true;
+		}
+		return false;
+	}
+
+	// End the stroke at the last sample taken and recognize it.  Return false if it was a "clear screen"
+	// stroke, in which case the pad has been cleared.
+	public boolean touchUp(long penUpTime) {
+		if (!mPenDownP)
+			return true;
+
+		mPenDownP = false;
+		lineTo(mX, mY);
+
+		// If the stroke is a point of zero length, make it a line of 1 pixel length
+		if (mStrokeAccumulator.getLength() == 0) {
+			mStrokeAccumulator.computeBounds(mBoundingRectF);
+			lineTo(mBoundingRectF.centerX(), mBoundingRectF.centerY() + 1);
+		}
+
+		// The stroke has been measured while it was drawn so only the tail is left to do.  It is made from the
+		// pool of strokes that are no longer used (see PenStroke.obtain()).
+		PenStroke penStroke = PenStroke.obtain(mStrokeAccumulator);
+		mStrokeAccumulator.reset();
+
+		// Check to see if the stroke is a jagged "clear screen" stroke
+		if ((penStroke.mPenStrokeLength/(penStroke.mBoundingRectWidth + penStroke.mBoundingRectHeight)) > CLEAR_STROKE_RATIO) {
+			penStroke.recycle();
+			clear();
+			return false;
+		}
+
+		// Add the stroke to the character being written (or start a new one, in which case the last one is
+		// recognized by mCharacterStream), and segment and match the strokes of the character so far in the
+		// background; this supersedes the recognition of the earlier strokes if it is still running.
+		// Both take their own references to the stroke, so the pad gives up its one.
+		mCharacterStream.addStroke(penStroke, mPenDownTime, penUpTime);
+		mRecognitionExecutor.recognize(mCharacterStream.getOpenStrokes());
+		penStroke.recycle();
+		return true;
+	}
+
+	// Close the character being written if the pen has been up for more than
+	// CharacterStream.CHARACTER_TIMEOUT_MILLIS at time now (e.g. from a timer started at pen up)
+	public boolean commitIfIdle(long now) {
+		return mCharacterStream.commitIfIdle(now);
+	}
+
+	// Close the character being written
+	public void commit() {
+		mCharacterStream.commit();
+	}
+
+	// Drop the stroke being written, the character being written and the results not yet delivered
+	public void clear() {
+		mPenDownP = false;
+		mStrokeAccumulator.reset();
+		// The submitted strokes may still be read by the recognizer so they are dropped, not reset
+		mRecognitionExecutor.cancel();
+		mCharacterStream.clear();
+	}
+
+	public void shutdown() {
+		mRecognitionExecutor.shutdown();
+		mCharacterStream.shutdown();
+	}
+
+	private void lineTo(float x, float y) {
+		mStrokeAccumulator.lineTo(x, y);
+		if (mPathListener != null)
+			mPathListener.lineTo(x, y);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.android.skiggle.BatchRecognizer;
+import com.android.skiggle.PenPath;
+
+// Throughput (characters per millisecond) of BatchRecognizer on a work-stealing pool with a given number
+// of threads, for checking how recognition scales with the number of cores.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchRecognizerBenchmark {
+
+	private static final int NUM_OF_CHARACTERS = 4096; // The corpus is repeated to make up this many characters
+
+	@Param({"1", "2", "4", "8"})
+	public int mNumOfThreads;
+
+	private List<PenPath[]> mCharacters;
+	private ForkJoinPool mPool;
+	private BatchRecognizer mBatchRecognizer;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		StrokeCorpus corpus = StrokeCorpus.load();
+		mCharacters = new ArrayList<PenPath[]>(NUM_OF_CHARACTERS);
+		for (int i = 0; i < NUM_OF_CHARACTERS; i++) {
+			StrokeCorpus.Entry entry = corpus.mEntries.get(i % corpus.size());
+			PenPath paths[] = new PenPath[entry.getNumOfStrokes()];
+			for (int j = 0; j < paths.length; j++) {
+				paths[j] = StrokeCorpus.buildPenPath(entry.mStrokesX.get(j), entry.mStrokesY.get(j));
+			}
+			mCharacters.add(paths);
+		}
+
+		mPool = new ForkJoinPool(mNumOfThreads);
+		mBatchRecognizer = new BatchRecognizer(mPool, mNumOfThreads);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mPool.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_OF_CHARACTERS)
+	public List<Character> recognizeAll() throws InterruptedException, ExecutionException {
+		return mBatchRecognizer.recognizeAll(mCharacters);
+	}
+}
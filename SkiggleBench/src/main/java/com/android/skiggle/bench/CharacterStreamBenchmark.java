@@ -0,0 +1,161 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.android.skiggle.CharacterStream;
+import com.android.skiggle.PenCharacter;
+import com.android.skiggle.PenStroke;
+
+// Time per character of writing NUM_OF_CHARACTERS corpus characters into a CharacterStream, mLineLength
+// characters to a line, and waiting for all of them to be recognized.  With a line length of 1 every
+// character is written on top of the last one after a pause (the way the write pad is used one character at
+// a time); with longer lines the characters are written side by side and grouped by the gaps between them.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CharacterStreamBenchmark {
+
+	private static final int NUM_OF_CHARACTERS = 64;
+	private static final float CHARACTER_GAP_RATIO = 0.5F; // Gap between the characters of a line, as a fraction of their size
+	private static final float MIN_CHARACTER_SIZE = 20.0F; // Size used for the gap after small characters like '.'
+	private static final long STROKE_MILLIS = 250; // Time from one pen down to the next within a line
+	private static final long LINE_PAUSE_MILLIS = CharacterStream.CHARACTER_TIMEOUT_MILLIS + 200; // Pen up time between lines
+
+	@Param({"1", "8", "64"})
+	public int mLineLength;
+
+	private PenStroke mPenStrokes[]; // the strokes of all the characters in the order they are written
+	private long mPenDownTimes[];
+	private CharacterStream mCharacterStream;
+	private volatile CountDownLatch mRecognized;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		StrokeCorpus corpus = StrokeCorpus.load();
+		List<PenStroke> penStrokes = new ArrayList<PenStroke>();
+		List<Long> penDownTimes = new ArrayList<Long>();
+		float x = 0.0F;
+		long time = 0;
+
+		for (int i = 0; i < NUM_OF_CHARACTERS; i++) {
+			StrokeCorpus.Entry entry = corpus.mEntries.get(i % corpus.size());
+			if (i % mLineLength == 0) {
+				x = 0.0F;
+				time = time + LINE_PAUSE_MILLIS;
+			}
+
+			float minX = Float.MAX_VALUE;
+			float maxX = -Float.MAX_VALUE;
+			float minY = Float.MAX_VALUE;
+			float maxY = -Float.MAX_VALUE;
+			for (int j = 0; j < entry.getNumOfStrokes(); j++) {
+				float xs[] = entry.mStrokesX.get(j);
+				float ys[] = entry.mStrokesY.get(j);
+				for (int k = 0; k < xs.length; k++) {
+					minX = Math.min(minX, xs[k]);
+					maxX = Math.max(maxX, xs[k]);
+					minY = Math.min(minY, ys[k]);
+					maxY = Math.max(maxY, ys[k]);
+				}
+			}
+
+			// Move the character to its place in the line
+			for (int j = 0; j < entry.getNumOfStrokes(); j++) {
+				float xs[] = entry.mStrokesX.get(j).clone();
+				for (int k = 0; k < xs.length; k++) {
+					xs[k] = xs[k] - minX + x;
+				}
+				penStrokes.add(StrokeCorpus.buildPenStroke(StrokeCorpus.buildPenPath(xs, entry.mStrokesY.get(j))));
+				penDownTimes.add(time);
+				time = time + STROKE_MILLIS;
+			}
+			x = x + (maxX - minX) + CHARACTER_GAP_RATIO * Math.max(MIN_CHARACTER_SIZE, Math.max(maxX - minX, maxY - minY));
+		}
+
+		mPenStrokes = penStrokes.toArray(new PenStroke[penStrokes.size()]);
+		mPenDownTimes = new long[mPenStrokes.length];
+		for (int i = 0; i < mPenDownTimes.length; i++) {
+			mPenDownTimes[i] = penDownTimes.get(i);
+		}
+
+		mCharacterStream = new CharacterStream(new Executor() {
+			public void execute(Runnable command) {
+				command.run();
+			}
+		}, new CharacterStream.CharacterListener() {
+			public void onCharacterRecognized(int index, PenCharacter penCharacter) {
+				mRecognized.countDown();
+			}
+		});
+
+		// Check that the characters are grouped the way they were written
+		mRecognized = new CountDownLatch(NUM_OF_CHARACTERS);
+		writeAll();
+		if (mCharacterStream.getNumOfCharacters() != NUM_OF_CHARACTERS)
+			throw new IllegalStateException(mCharacterStream.getNumOfCharacters() + " characters instead of " + NUM_OF_CHARACTERS);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mCharacterStream.shutdown();
+	}
+
+	private void writeAll() {
+		mCharacterStream.clear();
+		for (int i = 0; i < mPenStrokes.length; i++) {
+			mCharacterStream.addStroke(mPenStrokes[i], mPenDownTimes[i], mPenDownTimes[i] + STROKE_MILLIS / 2);
+		}
+		mCharacterStream.commit();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_OF_CHARACTERS)
+	public void writeAndRecognize() throws InterruptedException {
+		mRecognized = new CountDownLatch(NUM_OF_CHARACTERS);
+		writeAll();
+		mRecognized.await();
+	}
+}
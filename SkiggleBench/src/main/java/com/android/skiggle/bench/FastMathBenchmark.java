@@ -0,0 +1,162 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.android.skiggle.PenPath;
+import com.android.skiggle.PenSegment;
+import com.android.skiggle.PenUtil;
+import com.android.skiggle.RecognitionTraceListener;
+
+// The fast-math kernel of PenUtil against the double precision functions it stands in for: the tangent angle and
+// the curvature of NUM_OF_SAMPLES random samples (one sample per operation), and PenSegment.getCurvaturePoints()
+// and the split of the corpus strokes with and without the kernel (one stroke per operation).  See FastMathMain
+// for the errors of the kernel.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastMathBenchmark {
+
+	private static final int NUM_OF_SAMPLES = 1024;
+
+	@Param({"true", "false"})
+	public boolean mFastMath;
+
+	private float mTanX[] = new float[NUM_OF_SAMPLES]; // unit tangents
+	private float mTanY[] = new float[NUM_OF_SAMPLES];
+	private float mPointsX[] = new float[NUM_OF_SAMPLES + 2]; // points about 12 pixels apart (see PenSegment.POINT_SPACING)
+	private float mPointsY[] = new float[NUM_OF_SAMPLES + 2];
+	private PenPath mStrokePaths[];
+	private PenSegment mStrokeSegments[];
+	private int mNextStroke = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Random random = new Random(1);
+		for (int i = 0; i < NUM_OF_SAMPLES; i++) {
+			double angle = 2 * Math.PI * random.nextDouble();
+			mTanX[i] = (float) Math.cos(angle);
+			mTanY[i] = (float) Math.sin(angle);
+		}
+		for (int i = 0; i < NUM_OF_SAMPLES + 2; i++) {
+			mPointsX[i] = ((i > 0) ? mPointsX[i - 1] : 0.0F) + 12 * mTanX[i % NUM_OF_SAMPLES];
+			mPointsY[i] = ((i > 0) ? mPointsY[i - 1] : 0.0F) + 12 * mTanY[i % NUM_OF_SAMPLES];
+		}
+
+		StrokeCorpus corpus = StrokeCorpus.load();
+		int numOfStrokes = 0;
+		for (int i = 0; i < corpus.size(); i++) {
+			numOfStrokes = numOfStrokes + corpus.mEntries.get(i).getNumOfStrokes();
+		}
+		mStrokePaths = new PenPath[numOfStrokes];
+		mStrokeSegments = new PenSegment[numOfStrokes];
+		int k = 0;
+		for (int i = 0; i < corpus.size(); i++) {
+			StrokeCorpus.Entry entry = corpus.mEntries.get(i);
+			for (int j = 0; j < entry.getNumOfStrokes(); j++) {
+				mStrokePaths[k] = StrokeCorpus.buildPenPath(entry.mStrokesX.get(j), entry.mStrokesY.get(j));
+				mStrokeSegments[k] = new PenSegment(mStrokePaths[k]);
+				k = k + 1;
+			}
+		}
+
+		PenUtil.setFastMath(mFastMath);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		PenUtil.setFastMath(true);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_OF_SAMPLES)
+	public float angle() {
+		float sum = 0.0F;
+		if (mFastMath) {
+			for (int i = 0; i < NUM_OF_SAMPLES; i++) {
+				sum = sum + PenUtil.getAbsAngleFast(mTanY[i], mTanX[i]);
+			}
+		}
+		else {
+			for (int i = 0; i < NUM_OF_SAMPLES; i++) {
+				sum = sum + (float) PenUtil.getAbsAngle(mTanY[i], mTanX[i]);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_OF_SAMPLES)
+	public float curvature() {
+		float sum = 0.0F;
+		if (mFastMath) {
+			for (int i = 0; i < NUM_OF_SAMPLES; i++) {
+				sum = sum + PenUtil.computeCurvatureM2003Fast(mPointsX[i], mPointsY[i], mPointsX[i + 1], mPointsY[i + 1],
+						mPointsX[i + 2], mPointsY[i + 2]);
+			}
+		}
+		else {
+			for (int i = 0; i < NUM_OF_SAMPLES; i++) {
+				sum = sum + PenUtil.computeCurvatureM2003(mPointsX[i], mPointsY[i], mPointsX[i + 1], mPointsY[i + 1],
+						mPointsX[i + 2], mPointsY[i + 2]);
+			}
+		}
+		return sum;
+	}
+
+	// PenSegment.getCurvaturePoints() on a whole stroke
+	@Benchmark
+	public float curvaturePoints() {
+		PenSegment segment = mStrokeSegments[mNextStroke];
+		mNextStroke = (mNextStroke + 1) % mStrokeSegments.length;
+		segment.getCurvaturePoints();
+		return segment.mMaxAbsKappaDiff;
+	}
+
+	// The recursive split of a whole stroke into segments, including the matching of each segment
+	@Benchmark
+	public Object strokeSegments() {
+		PenPath path = mStrokePaths[mNextStroke];
+		mNextStroke = (mNextStroke + 1) % mStrokePaths.length;
+		return new PenSegment(path).getStrokeSegments(RecognitionTraceListener.NO_TRACE);
+	}
+}
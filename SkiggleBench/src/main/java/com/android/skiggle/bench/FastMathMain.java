@@ -0,0 +1,119 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+import java.util.Random;
+
+import com.android.skiggle.PenCharacter;
+import com.android.skiggle.PenSegment;
+import com.android.skiggle.PenStroke;
+import com.android.skiggle.PenUtil;
+import com.android.skiggle.RecognitionTraceListener;
+
+// Check the fast-math kernel of PenUtil against the double precision functions it stands in for:
+//    - the largest angle and curvature errors over NUM_OF_SAMPLES random points, which must be within
+//      PenUtil.MAX_FAST_ANGLE_ERROR and PenUtil.MAX_FAST_CURVATURE_ERROR
+//    - the segments (PenSegment.findMatchingCharacter()) and the character recognized for every character of
+//      the stroke corpus, which must be the same with and without the kernel
+// Exits with status 1 (after printing the differences) if a check fails.
+// Arguments: [number of random samples, default 10000000]
+public class FastMathMain {
+
+	private static final long SEED = 20091001L;
+	private static final float WRITE_PAD_SIZE = 480.0F; // Skiggle.DEFAULT_WRITE_PAD_HEIGHT
+
+	public static void main(String[] args) throws IOException {
+		int numOfSamples = (args.length > 0) ? Integer.parseInt(args[0]) : 10000000;
+		boolean passedP = true;
+
+		Random random = new Random(SEED);
+		double maxAngleError = 0.0;
+		double maxCurvatureError = 0.0;
+		for (int i = 0; i < numOfSamples; i++) {
+			// Unit tangents (as the segments have) and differences of points up to a write pad apart
+			float scale = ((i & 1) == 0) ? 1.0F : WRITE_PAD_SIZE;
+			float x = (2 * random.nextFloat() - 1) * scale;
+			float y = (2 * random.nextFloat() - 1) * scale;
+			double angleError = Math.abs(PenUtil.getAbsAngleFast(y, x) - PenUtil.getAbsAngle(y, x));
+			maxAngleError = Math.max(maxAngleError, Math.min(angleError, 360 - angleError));
+
+			float x0 = random.nextFloat() * WRITE_PAD_SIZE;
+			float y0 = random.nextFloat() * WRITE_PAD_SIZE;
+			float x1 = x0 + (2 * random.nextFloat() - 1) * 20;
+			float y1 = y0 + (2 * random.nextFloat() - 1) * 20;
+			float x2 = x1 + (2 * random.nextFloat() - 1) * 20;
+			float y2 = y1 + (2 * random.nextFloat() - 1) * 20;
+			float kappa = PenUtil.computeCurvatureM2003(x0, y0, x1, y1, x2, y2);
+			float fastKappa = PenUtil.computeCurvatureM2003Fast(x0, y0, x1, y1, x2, y2);
+			if ((kappa != 0.0F) && !Float.isInfinite(kappa) && !Float.isNaN(kappa))
+				maxCurvatureError = Math.max(maxCurvatureError, Math.abs((fastKappa - kappa) / kappa));
+		}
+		System.out.println(String.format("max angle error %1$.6f degrees (bound %2$.6f), max curvature error %3$.2e (bound %4$.2e)",
+				maxAngleError, PenUtil.MAX_FAST_ANGLE_ERROR, maxCurvatureError, PenUtil.MAX_FAST_CURVATURE_ERROR));
+		if ((maxAngleError > PenUtil.MAX_FAST_ANGLE_ERROR) || (maxCurvatureError > PenUtil.MAX_FAST_CURVATURE_ERROR))
+			passedP = false;
+
+		StrokeCorpus corpus = StrokeCorpus.load();
+		int numOfSameCharacters = 0;
+		for (int i = 0; i < corpus.size(); i++) {
+			StrokeCorpus.Entry entry = corpus.mEntries.get(i);
+			PenUtil.setFastMath(false);
+			PenCharacter penCharacter = recognizeCharacter(entry);
+			PenUtil.setFastMath(true);
+			PenCharacter fastPenCharacter = recognizeCharacter(entry);
+
+			String segments = getSegmentCharacters(penCharacter);
+			String fastSegments = getSegmentCharacters(fastPenCharacter);
+			if (segments.equals(fastSegments) && String.valueOf(penCharacter.mPenCharacter).equals(String.valueOf(fastPenCharacter.mPenCharacter)))
+				numOfSameCharacters = numOfSameCharacters + 1;
+			else
+				System.out.println(String.format("%1$c: segments %2$s, recognized %3$s; with the kernel %4$s, %5$s",
+						entry.mCharacter, segments, penCharacter.mPenCharacter, fastSegments, fastPenCharacter.mPenCharacter));
+		}
+		System.out.println(String.format("%1$d/%2$d corpus characters with the same segments and recognition",
+				numOfSameCharacters, corpus.size()));
+		if (numOfSameCharacters < corpus.size())
+			passedP = false;
+
+		if (!passedP)
+			System.exit(1);
+	}
+
+	private static PenCharacter recognizeCharacter(StrokeCorpus.Entry entry) {
+		PenCharacter penCharacter = new PenCharacter();
+		for (int j = 0; j < entry.getNumOfStrokes(); j++) {
+			PenStroke penStroke = StrokeCorpus.buildPenStroke(StrokeCorpus.buildPenPath(entry.mStrokesX.get(j), entry.mStrokesY.get(j)));
+			penCharacter.addStroke(penStroke);
+			penCharacter.addSegments(penStroke, RecognitionTraceListener.NO_TRACE);
+		}
+		penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE);
+		return penCharacter;
+	}
+
+	private static String getSegmentCharacters(PenCharacter penCharacter) {
+		StringBuilder sb = new StringBuilder();
+		for (PenSegment segment : penCharacter.mPenSegments) {
+			sb.append(segment.mPenSegmentCharacter);
+		}
+		return sb.toString();
+	}
+}
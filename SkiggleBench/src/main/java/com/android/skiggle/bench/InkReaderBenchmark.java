@@ -0,0 +1,126 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.android.skiggle.InkReader;
+import com.android.skiggle.InkWriter;
+import com.android.skiggle.PenStroke;
+import com.android.skiggle.PenStrokeAccumulator;
+
+// Time per character of loading the strokes of a corpus: from a memory-mapped ink file (NUM_OF_COPIES
+// copies of the stroke corpus) decoded into PenStrokes, from the text corpus parsed and turned into
+// PenStrokes, and from the touch samples already in memory turned into PenStrokes, which is the floor for
+// both.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InkReaderBenchmark {
+
+	private static final int NUM_OF_COPIES = 100;
+	private static final int NUM_OF_CORPUS_CHARACTERS = 79; // characters in StrokeCorpus.DEFAULT_CORPUS
+	private static final int NUM_OF_CHARACTERS = NUM_OF_COPIES * NUM_OF_CORPUS_CHARACTERS;
+
+	private File mInkFile;
+	private InkReader mInkReader;
+	private StrokeCorpus mCorpus;
+	private PenStrokeAccumulator mAccumulator = new PenStrokeAccumulator();
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		mCorpus = StrokeCorpus.load();
+		if (mCorpus.size() != NUM_OF_CORPUS_CHARACTERS)
+			throw new IllegalStateException(mCorpus.size() + " corpus characters instead of " + NUM_OF_CORPUS_CHARACTERS);
+
+		mInkFile = File.createTempFile("corpus", ".ink");
+		InkWriter writer = new InkWriter(mInkFile);
+		mCorpus.writeInk(writer, NUM_OF_COPIES);
+		writer.close();
+		mInkReader = InkReader.open(mInkFile);
+
+		// Report the size of one copy of the corpus in each format
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer = new InkWriter(out);
+		mCorpus.writeInk(writer, 1);
+		writer.close();
+		System.out.println();
+		System.out.println("Ink corpus: " + out.size() + " bytes for " + NUM_OF_CORPUS_CHARACTERS + " characters");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mInkFile.delete();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_OF_CHARACTERS)
+	public void readInk(Blackhole blackhole) throws IOException {
+		mInkReader.seekCharacter(0);
+		while (mInkReader.nextCharacter()) {
+			while (mInkReader.nextStroke(mAccumulator)) {
+				blackhole.consume(new PenStroke(mAccumulator));
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_OF_CORPUS_CHARACTERS)
+	public void readText(Blackhole blackhole) throws IOException {
+		buildStrokes(StrokeCorpus.load(), blackhole);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_OF_CORPUS_CHARACTERS)
+	public void buildFromSamples(Blackhole blackhole) {
+		buildStrokes(mCorpus, blackhole);
+	}
+
+	private static void buildStrokes(StrokeCorpus corpus, Blackhole blackhole) {
+		for (int i = 0; i < corpus.size(); i++) {
+			StrokeCorpus.Entry entry = corpus.mEntries.get(i);
+			for (int j = 0; j < entry.getNumOfStrokes(); j++) {
+				blackhole.consume(new PenStroke(StrokeCorpus.buildStrokeAccumulator(entry.mStrokesX.get(j), entry.mStrokesY.get(j))));
+			}
+		}
+	}
+}
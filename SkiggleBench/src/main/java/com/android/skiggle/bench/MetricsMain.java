@@ -0,0 +1,77 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import com.android.skiggle.BatchRecognizer;
+import com.android.skiggle.PenPath;
+import com.android.skiggle.RecognizerMetrics;
+
+// Recognize the stroke corpus over and over with RecognizerMetrics on and print the stats of each stage.
+// Allocations are counted with the per-thread allocated bytes of the HotSpot ThreadMXBean.
+// Arguments: [number of passes over the corpus, default 200]
+public class MetricsMain {
+
+	private static final int NUM_OF_WARMUP_PASSES = 50;
+
+	// Bytes allocated by the current thread, from com.sun.management.ThreadMXBean
+	public static class ThreadMXBeanAllocationCounter implements RecognizerMetrics.AllocationCounter {
+		private final com.sun.management.ThreadMXBean mThreadMXBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		public long getAllocatedBytes() {
+			return mThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int numOfPasses = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+
+		StrokeCorpus corpus = StrokeCorpus.load();
+		PenPath characters[][] = new PenPath[corpus.size()][];
+		for (int i = 0; i < characters.length; i++) {
+			StrokeCorpus.Entry entry = corpus.mEntries.get(i);
+			characters[i] = new PenPath[entry.getNumOfStrokes()];
+			for (int j = 0; j < characters[i].length; j++) {
+				characters[i][j] = StrokeCorpus.buildPenPath(entry.mStrokesX.get(j), entry.mStrokesY.get(j));
+			}
+		}
+
+		RecognizerMetrics.setAllocationCounter(new ThreadMXBeanAllocationCounter());
+		RecognizerMetrics.setEnabled(true);
+		for (int pass = 0; pass < NUM_OF_WARMUP_PASSES + numOfPasses; pass++) {
+			if (pass == NUM_OF_WARMUP_PASSES)
+				RecognizerMetrics.reset();
+
+			for (int i = 0; i < characters.length; i++) {
+				BatchRecognizer.recognizeCharacter(characters[i]);
+			}
+		}
+		RecognizerMetrics.setEnabled(false);
+
+		RecognizerMetrics.StageStats snapshot[] = RecognizerMetrics.getSnapshot();
+		for (int i = 0; i < snapshot.length; i++) {
+			System.out.println(snapshot[i]);
+		}
+	}
+}
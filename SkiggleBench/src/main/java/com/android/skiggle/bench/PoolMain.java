@@ -0,0 +1,120 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+import java.util.Random;
+
+import com.android.skiggle.PenCharacter;
+import com.android.skiggle.PenPath;
+import com.android.skiggle.PenSegment;
+import com.android.skiggle.PenStroke;
+import com.android.skiggle.RecognitionTraceListener;
+
+// Recognize the characters of the stroke corpus over and over, in a random order, as before the pools (strokes
+// made with new, characters dropped once they are recognized) and with the pools (strokes from
+// PenStroke.obtain(), characters reset once they are recognized so that their strokes and segments are reused
+// for the next ones).  Prints the bytes allocated per character and the sizes of the pools, and checks that
+// every character has the same segments and is recognized as the same character either way.
+// Exits with status 1 (after printing the differences) if a check fails.
+// Arguments: [number of passes over the corpus, default 200]
+public class PoolMain {
+
+	private static final long SEED = 20091001L;
+	private static final int NUM_OF_WARMUP_PASSES = 20;
+
+	public static void main(String[] args) throws IOException {
+		int numOfPasses = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+		MetricsMain.ThreadMXBeanAllocationCounter counter = new MetricsMain.ThreadMXBeanAllocationCounter();
+
+		StrokeCorpus corpus = StrokeCorpus.load();
+		PenPath paths[][] = new PenPath[corpus.size()][];
+		String expected[] = new String[corpus.size()];
+		for (int i = 0; i < corpus.size(); i++) {
+			StrokeCorpus.Entry entry = corpus.mEntries.get(i);
+			paths[i] = new PenPath[entry.getNumOfStrokes()];
+			for (int j = 0; j < paths[i].length; j++) {
+				paths[i][j] = StrokeCorpus.buildPenPath(entry.mStrokesX.get(j), entry.mStrokesY.get(j));
+			}
+			expected[i] = describe(recognizeCharacter(paths[i], false));
+		}
+
+		Random random = new Random(SEED);
+		boolean passedP = true;
+		for (int pooledP = 0; pooledP < 2; pooledP++) {
+			long numOfBytes = 0;
+			int numOfCharacters = 0;
+			int numOfDifferences = 0;
+			for (int pass = 0; pass < NUM_OF_WARMUP_PASSES + numOfPasses; pass++) {
+				long startBytes = counter.getAllocatedBytes();
+				for (int i = 0; i < corpus.size(); i++) {
+					int j = random.nextInt(corpus.size());
+					PenCharacter penCharacter = recognizeCharacter(paths[j], pooledP == 1);
+					String description = describe(penCharacter);
+					if (!description.equals(expected[j])) {
+						if (numOfDifferences < 10)
+							System.out.println(String.format("%1$c: %2$s, %3$s from the pools",
+									corpus.mEntries.get(j).mCharacter, expected[j], description));
+						numOfDifferences = numOfDifferences + 1;
+					}
+					if (pooledP == 1) {
+						penCharacter.resetStrokes();
+						penCharacter.resetSegments();
+					}
+				}
+				if (pass >= NUM_OF_WARMUP_PASSES) {
+					numOfBytes = numOfBytes + counter.getAllocatedBytes() - startBytes;
+					numOfCharacters = numOfCharacters + corpus.size();
+				}
+			}
+
+			System.out.println(String.format("%1$s: %2$.0f bytes/character, %3$d strokes and %4$d segments in the pools, %5$d differences",
+					(pooledP == 1) ? "pooled" : "dropped", (double) numOfBytes / numOfCharacters,
+					PenStroke.getPoolSize(), PenSegment.getPoolSize(), numOfDifferences));
+			if (numOfDifferences > 0)
+				passedP = false;
+		}
+
+		if (!passedP)
+			System.exit(1);
+	}
+
+	private static PenCharacter recognizeCharacter(PenPath strokePaths[], boolean pooledP) {
+		PenCharacter penCharacter = new PenCharacter();
+		for (int i = 0; i < strokePaths.length; i++) {
+			PenStroke penStroke = pooledP ? PenStroke.obtain(strokePaths[i]) : StrokeCorpus.buildPenStroke(strokePaths[i]);
+			penCharacter.addStroke(penStroke);
+			penCharacter.addSegments(penStroke, RecognitionTraceListener.NO_TRACE);
+			penStroke.recycle();
+		}
+		penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE);
+		return penCharacter;
+	}
+
+	// The segment characters, the recognized character and its candidates
+	private static String describe(PenCharacter penCharacter) {
+		StringBuilder sb = new StringBuilder();
+		for (PenSegment segment : penCharacter.mPenSegments) {
+			sb.append(segment.mPenSegmentCharacter);
+		}
+		return sb.append(' ').append(penCharacter.mPenCharacter).append(' ').append(penCharacter.mPenCharacterCandidates).toString();
+	}
+}
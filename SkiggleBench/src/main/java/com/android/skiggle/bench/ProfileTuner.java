@@ -0,0 +1,272 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.android.skiggle.PenCharacter;
+import com.android.skiggle.PenStroke;
+import com.android.skiggle.RecognitionTraceListener;
+import com.android.skiggle.RecognizerProfile;
+
+// Sweep parameters of the RecognizerProfile over a range each, recognize the stroke corpus with every profile
+// of the sweep (every combination of the values) and print the profiles that recognize the most characters.
+// The profiles are grouped by their segment parameters: the strokes of a character are split into segments
+// once per group and the segments are matched with each profile of the group, so sweeping the character
+// parameters costs about as much as matching, not segmenting.  The groups are split into chunks of the
+// corpus that are recognized on one thread per processor.
+// Arguments: [-base profile file] [-o file to write the best profile to] name=from:to:step ...
+// (see RecognizerProfile.PARAMETER_NAMES for the names; the default sweep is DEFAULT_SWEEP)
+public class ProfileTuner {
+
+	private static final String DEFAULT_SWEEP[] = {"vLineMaxAngleSpread=10:20:2.5", "maxAbsKappaDiffThreshold=0.02:0.03:0.005",
+		"smallLetterMaxHeight=0.3:0.5:0.05", "capitalAHLineLow=0.15:0.35:0.05", "capitalAHLineHigh=0.65:0.85:0.05"};
+	private static final int NUM_OF_CHARACTERS_PER_TASK = 16;
+	private static final int NUM_OF_BEST_PROFILES = 5;
+
+	// The profiles with the same segment parameters
+	private static class ProfileGroup {
+		List<RecognizerProfile> mProfiles = new ArrayList<RecognizerProfile>();
+		List<Integer> mProfileIndexes = new ArrayList<Integer>(); // of the profiles in the sweep
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		RecognizerProfile baseProfile = RecognizerProfile.getDefault();
+		File outFile = null;
+		List<String> sweep = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-base") && (i + 1 < args.length))
+				baseProfile = RecognizerProfile.load(new File(args[++i]));
+			else if (args[i].equals("-o") && (i + 1 < args.length))
+				outFile = new File(args[++i]);
+			else
+				sweep.add(args[i]);
+		}
+		if (sweep.isEmpty())
+			Collections.addAll(sweep, DEFAULT_SWEEP);
+
+		// The base profile is recognized first, for reference
+		final List<RecognizerProfile> profiles = makeProfiles(baseProfile, sweep);
+		profiles.add(0, baseProfile);
+		List<ProfileGroup> groups = groupProfiles(profiles);
+
+		StrokeCorpus corpus = StrokeCorpus.load();
+		PenStroke strokes[][] = new PenStroke[corpus.size()][];
+		char characters[] = new char[corpus.size()];
+		for (int i = 0; i < strokes.length; i++) {
+			StrokeCorpus.Entry entry = corpus.mEntries.get(i);
+			characters[i] = entry.mCharacter;
+			strokes[i] = new PenStroke[entry.getNumOfStrokes()];
+			for (int j = 0; j < strokes[i].length; j++) {
+				strokes[i][j] = StrokeCorpus.buildPenStroke(StrokeCorpus.buildPenPath(entry.mStrokesX.get(j), entry.mStrokesY.get(j)));
+			}
+		}
+
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
+		final AtomicIntegerArray numsOfMatches = new AtomicIntegerArray(profiles.size());
+		long startTime = System.nanoTime();
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (ProfileGroup group : groups) {
+				for (int i = 0; i < strokes.length; i = i + NUM_OF_CHARACTERS_PER_TASK) {
+					futures.add(executor.submit(newTask(group, strokes, characters, i,
+							Math.min(strokes.length, i + NUM_OF_CHARACTERS_PER_TASK), numsOfMatches)));
+				}
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		long elapsedNanos = System.nanoTime() - startTime;
+
+		System.out.println(String.format("%1$d profiles (%2$d segment groups) x %3$d characters on %4$d threads in %5$.1fs",
+				profiles.size(), groups.size(), strokes.length, numOfThreads, elapsedNanos / 1e9));
+		System.out.println(String.format("Base profile: %1$d/%2$d", numsOfMatches.get(0), strokes.length));
+
+		// The best profiles: of those that match as many characters, the ones with the fewest changes, and then
+		// the first of the sweep
+		final int numsOfChanges[] = new int[profiles.size()];
+		for (int i = 0; i < numsOfChanges.length; i++) {
+			numsOfChanges[i] = countChanges(baseProfile, profiles.get(i));
+		}
+		List<Integer> order = new ArrayList<Integer>();
+		for (int i = 0; i < profiles.size(); i++) {
+			// A profile of the sweep that is the base profile is left out
+			if ((i == 0) || (numsOfChanges[i] > 0))
+				order.add(i);
+		}
+		final int matches[] = new int[profiles.size()];
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = numsOfMatches.get(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				if (matches[a] != matches[b])
+					return matches[b] - matches[a];
+				return (numsOfChanges[a] != numsOfChanges[b]) ? (numsOfChanges[a] - numsOfChanges[b]) : (a - b);
+			}
+		});
+		for (int i = 0; i < Math.min(NUM_OF_BEST_PROFILES, order.size()); i++) {
+			int index = order.get(i);
+			System.out.println(String.format("%1$d/%2$d  %3$s", matches[index], strokes.length,
+					describeChanges(baseProfile, profiles.get(index))));
+		}
+
+		if (outFile != null) {
+			OutputStream out = new FileOutputStream(outFile);
+			try {
+				profiles.get(order.get(0)).store(out, matches[order.get(0)] + "/" + strokes.length + " characters of the corpus");
+			}
+			finally {
+				out.close();
+			}
+		}
+	}
+
+	// Recognize characters from to to with each profile of group, splitting the strokes of each character once
+	private static Callable<Void> newTask(final ProfileGroup group, final PenStroke strokes[][], final char characters[],
+			final int from, final int to, final AtomicIntegerArray numsOfMatches) {
+		return new Callable<Void>() {
+			public Void call() {
+				int numOfProfiles = group.mProfiles.size();
+				int localMatches[] = new int[numOfProfiles];
+				for (int i = from; i < to; i++) {
+					PenCharacter penCharacter = new PenCharacter();
+					penCharacter.setProfile(group.mProfiles.get(0));
+					for (int j = 0; j < strokes[i].length; j++) {
+						penCharacter.addStroke(strokes[i][j]);
+						penCharacter.addSegments(strokes[i][j], RecognitionTraceListener.NO_TRACE);
+					}
+
+					for (int k = 0; k < numOfProfiles; k++) {
+						penCharacter.setProfile(group.mProfiles.get(k));
+						penCharacter.mPenCharacter = null;
+						penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE);
+						if ((penCharacter.mPenCharacter != null) && (penCharacter.mPenCharacter.charValue() == characters[i]))
+							localMatches[k] = localMatches[k] + 1;
+					}
+				}
+
+				for (int k = 0; k < numOfProfiles; k++) {
+					numsOfMatches.addAndGet(group.mProfileIndexes.get(k), localMatches[k]);
+				}
+				return null;
+			}
+		};
+	}
+
+	// Make the profiles of every combination of the values of the sweep, changing baseProfile.  A sweep is
+	// name=from:to:step, or name=value for a single value.
+	private static List<RecognizerProfile> makeProfiles(RecognizerProfile baseProfile, List<String> sweep) {
+		List<RecognizerProfile> profiles = new ArrayList<RecognizerProfile>();
+		profiles.add(baseProfile);
+		for (String range : sweep) {
+			int equalsIndex = range.indexOf('=');
+			int parameter = (equalsIndex > 0) ? RecognizerProfile.getParameter(range.substring(0, equalsIndex)) : -1;
+			if (parameter < 0)
+				throw new IllegalArgumentException("Unknown parameter in " + range);
+
+			String values[] = range.substring(equalsIndex + 1).split(":");
+			double from = Double.parseDouble(values[0]);
+			double to = (values.length > 1) ? Double.parseDouble(values[1]) : from;
+			double step = (values.length > 2) ? Double.parseDouble(values[2]) : 1.0;
+			if (step <= 0)
+				throw new IllegalArgumentException("Step must be positive in " + range);
+
+			// Count the values rather than adding up the steps so that the last value is not lost to rounding
+			int numOfValues = (int) Math.floor((to - from) / step + 1e-9) + 1;
+			List<RecognizerProfile> sweptProfiles = new ArrayList<RecognizerProfile>();
+			for (RecognizerProfile profile : profiles) {
+				for (int i = 0; i < numOfValues; i++) {
+					sweptProfiles.add(profile.withParameter(parameter, from + i * step));
+				}
+			}
+			profiles = sweptProfiles;
+		}
+		return profiles;
+	}
+
+	private static List<ProfileGroup> groupProfiles(List<RecognizerProfile> profiles) {
+		List<ProfileGroup> groups = new ArrayList<ProfileGroup>();
+		for (int i = 0; i < profiles.size(); i++) {
+			RecognizerProfile profile = profiles.get(i);
+			ProfileGroup profileGroup = null;
+			for (ProfileGroup group : groups) {
+				if (group.mProfiles.get(0).hasSameSegmentParameters(profile)) {
+					profileGroup = group;
+					break;
+				}
+			}
+			if (profileGroup == null) {
+				profileGroup = new ProfileGroup();
+				groups.add(profileGroup);
+			}
+			profileGroup.mProfiles.add(profile);
+			profileGroup.mProfileIndexes.add(i);
+		}
+		return groups;
+	}
+
+	// Check to see if a parameter of profile differs from that of baseProfile, at float precision (as the
+	// defaults were written)
+	private static boolean isChanged(RecognizerProfile baseProfile, RecognizerProfile profile, int parameter) {
+		return ((float) profile.get(parameter) != (float) baseProfile.get(parameter));
+	}
+
+	private static int countChanges(RecognizerProfile baseProfile, RecognizerProfile profile) {
+		int numOfChanges = 0;
+		for (int i = 0; i < RecognizerProfile.NUM_OF_PARAMETERS; i++) {
+			if (isChanged(baseProfile, profile, i))
+				numOfChanges = numOfChanges + 1;
+		}
+		return numOfChanges;
+	}
+
+	// The parameters of profile that differ from those of baseProfile
+	private static String describeChanges(RecognizerProfile baseProfile, RecognizerProfile profile) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < RecognizerProfile.NUM_OF_PARAMETERS; i++) {
+			if (isChanged(baseProfile, profile, i)) {
+				if (sb.length() > 0)
+					sb.append(", ");
+				sb.append(RecognizerProfile.PARAMETER_NAMES[i]).append('=').append((float) profile.get(i));
+			}
+		}
+		return (sb.length() > 0) ? sb.toString() : "(base profile)";
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+
+import com.android.skiggle.PenCharacter;
+import com.android.skiggle.PenPath;
+import com.android.skiggle.PenStroke;
+import com.android.skiggle.RecognitionCache;
+import com.android.skiggle.RecognitionTraceListener;
+import com.android.skiggle.Skiggle;
+
+// Write every character of the stroke corpus at several heights and at several places from the top to the
+// bottom of the write pad, and recognize each copy with and without a RecognitionCache shared by all of them.
+// Copies of the same shape in different zones (like a ')' at the top and a ',' at the bottom, or a '-' and a
+// '_') must not be taken from the cache for one another, so checks that every copy is recognized as the same
+// character, with the same candidates, either way.
+// Exits with status 1 (after printing the differences) if a check fails.
+// Arguments: [number of places from the top to the bottom, default 8]
+public class RecognitionCacheZoneMain {
+
+	private static final float SCALES[] = {0.6F, 1.0F, 1.5F}; // Heights of the copies, as multiples of the corpus heights
+
+	public static void main(String[] args) throws IOException {
+		int numOfPlaces = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+
+		StrokeCorpus corpus = StrokeCorpus.load();
+		RecognitionCache cache = new RecognitionCache(1024);
+		int numOfCopies = 0;
+		int numOfDifferences = 0;
+		for (int scale = 0; scale < SCALES.length; scale++) {
+			for (int place = 0; place < numOfPlaces; place++) {
+				for (int i = 0; i < corpus.size(); i++) {
+					StrokeCorpus.Entry entry = corpus.mEntries.get(i);
+					PenPath paths[] = buildPenPaths(entry, SCALES[scale], (numOfPlaces > 1) ? (float) place / (numOfPlaces - 1) : 0.0F);
+					if (paths == null)
+						continue;
+
+					String expected = describe(recognizeCharacter(paths, null));
+					String cached = describe(recognizeCharacter(paths, cache));
+					if (!cached.equals(expected)) {
+						if (numOfDifferences < 10)
+							System.out.println(String.format("%1$c x%2$.1f at %3$d/%4$d: %5$s, %6$s with the cache",
+									entry.mCharacter, SCALES[scale], place, numOfPlaces - 1, expected, cached));
+						numOfDifferences = numOfDifferences + 1;
+					}
+					numOfCopies = numOfCopies + 1;
+				}
+			}
+		}
+
+		System.out.println(String.format("%1$d copies, %2$s, %3$d differences", numOfCopies, cache, numOfDifferences));
+		if (numOfDifferences > 0)
+			System.exit(1);
+	}
+
+	// The strokes of entry scaled by scale about its top left corner and moved up or down so that its top is
+	// position (0 at the top, 1 at the bottom) of the way down the room left on the write pad, or null if the
+	// scaled character does not fit on the write pad
+	private static PenPath[] buildPenPaths(StrokeCorpus.Entry entry, float scale, float position) {
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float maxY = -Float.MAX_VALUE;
+		for (int i = 0; i < entry.getNumOfStrokes(); i++) {
+			float xs[] = entry.mStrokesX.get(i);
+			float ys[] = entry.mStrokesY.get(i);
+			for (int j = 0; j < ys.length; j++) {
+				minX = Math.min(minX, xs[j]);
+				minY = Math.min(minY, ys[j]);
+				maxY = Math.max(maxY, ys[j]);
+			}
+		}
+
+		float room = Skiggle.DEFAULT_WRITE_PAD_HEIGHT - (maxY - minY) * scale;
+		if (room < 0.0F)
+			return null;
+
+		float top = room * position;
+		PenPath paths[] = new PenPath[entry.getNumOfStrokes()];
+		for (int i = 0; i < paths.length; i++) {
+			float xs[] = entry.mStrokesX.get(i);
+			float ys[] = entry.mStrokesY.get(i);
+			float scaledXs[] = new float[xs.length];
+			float scaledYs[] = new float[ys.length];
+			for (int j = 0; j < xs.length; j++) {
+				scaledXs[j] = minX + (xs[j] - minX) * scale;
+				scaledYs[j] = top + (ys[j] - minY) * scale;
+			}
+			paths[i] = StrokeCorpus.buildPenPath(scaledXs, scaledYs);
+		}
+		return paths;
+	}
+
+	private static PenCharacter recognizeCharacter(PenPath paths[], RecognitionCache cache) {
+		PenCharacter penCharacter = new PenCharacter();
+		for (int i = 0; i < paths.length; i++) {
+			PenStroke penStroke = StrokeCorpus.buildPenStroke(paths[i]);
+			penCharacter.addStroke(penStroke);
+			penCharacter.addSegments(penStroke, RecognitionTraceListener.NO_TRACE);
+		}
+		penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE, cache);
+		return penCharacter;
+	}
+
+	// The recognized character and its candidates
+	private static String describe(PenCharacter penCharacter) {
+		return penCharacter.mPenCharacter + " " + penCharacter.mPenCharacterCandidates;
+	}
+}
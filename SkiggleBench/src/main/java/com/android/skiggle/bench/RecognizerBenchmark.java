@@ -0,0 +1,253 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.android.skiggle.PenCharacter;
+import com.android.skiggle.PenPath;
+import com.android.skiggle.PenSegment;
+import com.android.skiggle.PenStroke;
+import com.android.skiggle.PenStrokeAccumulator;
+import com.android.skiggle.RecognitionCache;
+import com.android.skiggle.RecognitionTraceListener;
+
+// Benchmarks for each stage of the pen-up pipeline and for the whole pipeline, run over the strokes of the
+// stroke corpus in turn (one stroke, segment or character per operation).  Throughput and the sampled
+// per-operation latency are reported; run with "-prof gc" (or BenchmarkMain) for the allocation rate.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecognizerBenchmark {
+
+	private PenPath mStrokePaths[]; // the pen path of every stroke in the corpus
+	private PenStrokeAccumulator mStrokeAccumulators[]; // the accumulated (but not yet pen-up) state of every stroke
+	private PenSegment mStrokeSegments[]; // a (whole stroke) segment for every stroke in the corpus
+	private PenSegment mSegments[]; // every segment of the corpus with its curvature computed
+	private PenCharacter mCharacters[]; // every character of the corpus with all its segments added
+	private PenPath mCharacterPaths[][]; // the pen paths of the strokes of every character
+	private RecognitionCache mRecognitionCache; // holding the shapes of all the characters (and their strokes so far)
+
+	private int mNextStroke = 0;
+	private int mNextSegment = 0;
+	private int mNextCharacter = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		StrokeCorpus corpus = StrokeCorpus.load();
+		int numOfCharacters = corpus.size();
+		List<PenPath> strokePaths = new ArrayList<PenPath>();
+		List<PenStrokeAccumulator> strokeAccumulators = new ArrayList<PenStrokeAccumulator>();
+		List<PenSegment> segments = new ArrayList<PenSegment>();
+
+		mCharacters = new PenCharacter[numOfCharacters];
+		mCharacterPaths = new PenPath[numOfCharacters][];
+		for (int i = 0; i < numOfCharacters; i++) {
+			StrokeCorpus.Entry entry = corpus.mEntries.get(i);
+			int numOfStrokes = entry.getNumOfStrokes();
+			PenCharacter penCharacter = new PenCharacter();
+
+			mCharacterPaths[i] = new PenPath[numOfStrokes];
+			for (int j = 0; j < numOfStrokes; j++) {
+				PenPath path = StrokeCorpus.buildPenPath(entry.mStrokesX.get(j), entry.mStrokesY.get(j));
+				PenStroke penStroke = StrokeCorpus.buildPenStroke(path);
+				mCharacterPaths[i][j] = path;
+				strokePaths.add(path);
+				strokeAccumulators.add(StrokeCorpus.buildStrokeAccumulator(entry.mStrokesX.get(j), entry.mStrokesY.get(j)));
+
+				penCharacter.addStroke(penStroke);
+				penCharacter.addSegments(penStroke, RecognitionTraceListener.NO_TRACE);
+			}
+			mCharacters[i] = penCharacter;
+			segments.addAll(penCharacter.mPenSegments);
+		}
+		mStrokePaths = strokePaths.toArray(new PenPath[strokePaths.size()]);
+		mStrokeAccumulators = strokeAccumulators.toArray(new PenStrokeAccumulator[strokeAccumulators.size()]);
+		mStrokeSegments = new PenSegment[mStrokePaths.length];
+		for (int i = 0; i < mStrokePaths.length; i++) {
+			mStrokeSegments[i] = new PenSegment(mStrokePaths[i]);
+		}
+		mSegments = segments.toArray(new PenSegment[segments.size()]);
+
+		mRecognitionCache = new RecognitionCache(1024);
+		for (int i = 0; i < numOfCharacters; i++) {
+			recognizeCharacter(mCharacterPaths[i], mRecognitionCache);
+		}
+	}
+
+	private PenPath nextStrokePath() {
+		PenPath path = mStrokePaths[mNextStroke];
+		mNextStroke = (mNextStroke + 1) % mStrokePaths.length;
+		return path;
+	}
+
+	private PenSegment nextSegment() {
+		PenSegment segment = mSegments[mNextSegment];
+		mNextSegment = (mNextSegment + 1) % mSegments.length;
+		return segment;
+	}
+
+	private int nextCharacterIndex() {
+		int i = mNextCharacter;
+		mNextCharacter = (mNextCharacter + 1) % mCharacters.length;
+		return i;
+	}
+
+	// Making the PenStroke and its whole-stroke PenSegment at pen up from the pen path (measured at pen up)
+	@Benchmark
+	public PenSegment penUpStrokeFromPath() {
+		return new PenSegment(StrokeCorpus.buildPenStroke(nextStrokePath()));
+	}
+
+	// Making the PenStroke and its whole-stroke PenSegment at pen up from a PenStrokeAccumulator (measured
+	// while the stroke was drawn)
+	@Benchmark
+	public PenSegment penUpStrokeFromAccumulator() {
+		PenStrokeAccumulator accumulator = mStrokeAccumulators[mNextStroke];
+		mNextStroke = (mNextStroke + 1) % mStrokeAccumulators.length;
+		return new PenSegment(new PenStroke(accumulator));
+	}
+
+	// Making the PenStroke at pen up from the path of the stroke and splitting it into segments (the
+	// curvature of the whole stroke is computed at pen up)
+	@Benchmark
+	public Object penUpSegmentsFromPath() {
+		return StrokeCorpus.buildPenStroke(nextStrokePath()).segmentStroke(RecognitionTraceListener.NO_TRACE);
+	}
+
+	// Making the PenStroke at pen up from a PenStrokeAccumulator and splitting it into segments (the curvature
+	// of the whole stroke was computed while it was drawn)
+	@Benchmark
+	public Object penUpSegmentsFromAccumulator() {
+		PenStrokeAccumulator accumulator = mStrokeAccumulators[mNextStroke];
+		mNextStroke = (mNextStroke + 1) % mStrokeAccumulators.length;
+		return new PenStroke(accumulator).segmentStroke(RecognitionTraceListener.NO_TRACE);
+	}
+
+	// Measuring a stroke (a new PenSegment measures its path and bounds)
+	@Benchmark
+	public PenSegment segmentMeasure() {
+		return new PenSegment(nextStrokePath());
+	}
+
+	// PenSegment.getCurvaturePoints() on a whole stroke
+	@Benchmark
+	public float curvaturePoints() {
+		PenSegment segment = mStrokeSegments[mNextStroke];
+		mNextStroke = (mNextStroke + 1) % mStrokeSegments.length;
+		segment.getCurvaturePoints();
+		return segment.mMaxAbsKappaDiff;
+	}
+
+	// The recursive split of a whole stroke into segments, including the matching of each segment
+	@Benchmark
+	public Object strokeSegments() {
+		return new PenSegment(nextStrokePath()).getStrokeSegments(RecognitionTraceListener.NO_TRACE);
+	}
+
+	// Matching a segment with its curvature already computed to a primitive ('|', '-', '(', ...)
+	@Benchmark
+	public Character segmentFindMatchingCharacter() {
+		PenSegment segment = nextSegment();
+		segment.findMatchingCharacter();
+		return segment.mPenSegmentCharacter;
+	}
+
+	// Getting the candidate characters for the segments of a character
+	@Benchmark
+	public String characterCandidates() {
+		PenCharacter penCharacter = mCharacters[nextCharacterIndex()];
+		penCharacter.getCharacterCandidates();
+		return penCharacter.mPenCharacterCandidates;
+	}
+
+	// Getting the candidates and matching them against the segments of a character
+	@Benchmark
+	public Character characterFindMatchingCharacter() {
+		PenCharacter penCharacter = mCharacters[nextCharacterIndex()];
+		penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE);
+		return penCharacter.mPenCharacter;
+	}
+
+	// Getting the matching character of a character whose shape is in the cache
+	@Benchmark
+	public Character characterFindMatchingCharacterCached() {
+		PenCharacter penCharacter = mCharacters[nextCharacterIndex()];
+		penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE, mRecognitionCache);
+		return penCharacter.mPenCharacter;
+	}
+
+	// Scoring the candidates of a character and keeping the best one (see PenCharacter.findBestCharacters())
+	@Benchmark
+	public Object characterFindBestCharacter() {
+		PenCharacter penCharacter = mCharacters[nextCharacterIndex()];
+		return penCharacter.findBestCharacters(1, RecognitionTraceListener.NO_TRACE);
+	}
+
+	// Scoring the candidates of a character and keeping the best three
+	@Benchmark
+	public Object characterFindBestCharacters() {
+		PenCharacter penCharacter = mCharacters[nextCharacterIndex()];
+		return penCharacter.findBestCharacters(3, RecognitionTraceListener.NO_TRACE);
+	}
+
+	// The whole pen-up pipeline for each stroke of a character, as in WritePad.touchUp()
+	@Benchmark
+	public void endToEnd(Blackhole blackhole) {
+		blackhole.consume(recognizeCharacter(mCharacterPaths[nextCharacterIndex()], null).mPenCharacter);
+	}
+
+	// The same with the shapes of the characters (and of their strokes so far) in the recognition cache
+	@Benchmark
+	public void endToEndCached(Blackhole blackhole) {
+		blackhole.consume(recognizeCharacter(mCharacterPaths[nextCharacterIndex()], mRecognitionCache).mPenCharacter);
+	}
+
+	private static PenCharacter recognizeCharacter(PenPath paths[], RecognitionCache cache) {
+		PenCharacter penCharacter = new PenCharacter();
+		for (int i = 0; i < paths.length; i++) {
+			PenStroke penStroke = StrokeCorpus.buildPenStroke(paths[i]);
+			penCharacter.addStroke(penStroke);
+			penCharacter.addSegments(penStroke, RecognitionTraceListener.NO_TRACE);
+			penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE, cache);
+		}
+		return penCharacter;
+	}
+}
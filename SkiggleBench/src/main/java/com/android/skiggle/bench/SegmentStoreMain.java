@@ -0,0 +1,165 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.android.skiggle.PenCharacter;
+import com.android.skiggle.PenStroke;
+import com.android.skiggle.RecognitionTraceListener;
+import com.android.skiggle.SegmentStore;
+
+// Segment a number of copies of the stroke corpus into a SegmentStore (dropping every PenCharacter once it is
+// stored) and recognize the stored characters with a CharacterView per thread.  Prints
+//    - the heap used (after a GC) and the bytes allocated off the heap by the store, against the heap used by
+//      the same characters kept as PenCharacters
+//    - the time, and the collections and collection time, of storing and of recognizing the characters
+//    - the number of stored characters recognized as the same character as their PenCharacter
+// Exits with status 1 if a stored character is not recognized as its PenCharacter is.
+// Arguments: [number of copies of the corpus, default 200] [number of threads, default the number of processors]
+public class SegmentStoreMain {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int numOfCopies = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+		int numOfThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		StrokeCorpus corpus = StrokeCorpus.load();
+		char expected[] = new char[corpus.size()];
+		for (int i = 0; i < corpus.size(); i++) {
+			PenCharacter penCharacter = segmentCharacter(corpus.mEntries.get(i));
+			penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE);
+			expected[i] = (penCharacter.mPenCharacter != null) ? penCharacter.mPenCharacter.charValue() : '\0';
+		}
+
+		// The characters kept as PenCharacters, for the heap they take
+		long baseHeap = getUsedHeap();
+		List<PenCharacter> penCharacters = new ArrayList<PenCharacter>();
+		for (int i = 0; i < numOfCopies; i++) {
+			for (int j = 0; j < corpus.size(); j++) {
+				penCharacters.add(segmentCharacter(corpus.mEntries.get(j)));
+			}
+		}
+		long penCharactersHeap = getUsedHeap() - baseHeap;
+		int numOfCharacters = penCharacters.size();
+		penCharacters = null;
+
+		baseHeap = getUsedHeap();
+		long gcCounts[] = getGcCounts();
+		long time = System.nanoTime();
+		final SegmentStore store = new SegmentStore();
+		for (int i = 0; i < numOfCopies; i++) {
+			for (int j = 0; j < corpus.size(); j++) {
+				store.addCharacter(segmentCharacter(corpus.mEntries.get(j)));
+			}
+		}
+		time = System.nanoTime() - time;
+		gcCounts = getGcCountsSince(gcCounts);
+		long storeHeap = getUsedHeap() - baseHeap;
+		System.out.println(String.format("%1$d characters: %2$.1f MB of heap as PenCharacters; %3$.1f MB of heap and %4$.1f MB off the heap in the store",
+				numOfCharacters, toMegabytes(penCharactersHeap), toMegabytes(storeHeap), toMegabytes(store.getNumOfBytes())));
+		System.out.println(String.format("stored in %1$.0f ms (%2$.1f us/character), %3$d collections in %4$d ms",
+				time / 1.0E6, time / 1.0E3 / numOfCharacters, gcCounts[0], gcCounts[1]));
+
+		// Recognize a share of the characters on each thread
+		gcCounts = getGcCounts();
+		time = System.nanoTime();
+		Thread threads[] = new Thread[numOfThreads];
+		for (int i = 0; i < numOfThreads; i++) {
+			final int first = (int) ((long) numOfCharacters * i / numOfThreads);
+			final int last = (int) ((long) numOfCharacters * (i + 1) / numOfThreads);
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					SegmentStore.CharacterView view = new SegmentStore.CharacterView(store);
+					for (int j = first; j < last; j++) {
+						PenCharacter penCharacter = view.bind(j);
+						penCharacter.findMatchingCharacter(RecognitionTraceListener.NO_TRACE);
+						if (penCharacter.mPenCharacter != null)
+							store.setRecognizedCharacter(j, penCharacter.mPenCharacter.charValue());
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (int i = 0; i < numOfThreads; i++) {
+			threads[i].join();
+		}
+		time = System.nanoTime() - time;
+		gcCounts = getGcCountsSince(gcCounts);
+		System.out.println(String.format("recognized on %1$d threads in %2$.0f ms (%3$.1f us/character), %4$d collections in %5$d ms",
+				numOfThreads, time / 1.0E6, time / 1.0E3 / numOfCharacters, gcCounts[0], gcCounts[1]));
+
+		int numOfSameCharacters = 0;
+		for (int i = 0; i < numOfCharacters; i++) {
+			int j = i % corpus.size();
+			if (store.getRecognizedCharacter(i) == expected[j])
+				numOfSameCharacters = numOfSameCharacters + 1;
+			else if (i < corpus.size())
+				System.out.println(String.format("%1$c: recognized %2$c as a PenCharacter, %3$c from the store",
+						corpus.mEntries.get(j).mCharacter, expected[j], store.getRecognizedCharacter(i)));
+		}
+		System.out.println(String.format("%1$d/%2$d stored characters recognized as their PenCharacter", numOfSameCharacters, numOfCharacters));
+		if (numOfSameCharacters < numOfCharacters)
+			System.exit(1);
+	}
+
+	private static PenCharacter segmentCharacter(StrokeCorpus.Entry entry) {
+		PenCharacter penCharacter = new PenCharacter();
+		for (int j = 0; j < entry.getNumOfStrokes(); j++) {
+			PenStroke penStroke = StrokeCorpus.buildPenStroke(StrokeCorpus.buildPenPath(entry.mStrokesX.get(j), entry.mStrokesY.get(j)));
+			penCharacter.addStroke(penStroke);
+			penCharacter.addSegments(penStroke, RecognitionTraceListener.NO_TRACE);
+		}
+		return penCharacter;
+	}
+
+	private static long getUsedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	// The number of collections and the collection time (in milliseconds) so far
+	private static long[] getGcCounts() {
+		long gcCounts[] = {0, 0};
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gcCounts[0] = gcCounts[0] + Math.max(0, bean.getCollectionCount());
+			gcCounts[1] = gcCounts[1] + Math.max(0, bean.getCollectionTime());
+		}
+		return gcCounts;
+	}
+
+	private static long[] getGcCountsSince(long since[]) {
+		long gcCounts[] = getGcCounts();
+		gcCounts[0] = gcCounts[0] - since[0];
+		gcCounts[1] = gcCounts[1] - since[1];
+		return gcCounts;
+	}
+
+	private static double toMegabytes(long numOfBytes) {
+		return numOfBytes / (1024.0 * 1024.0);
+	}
+}
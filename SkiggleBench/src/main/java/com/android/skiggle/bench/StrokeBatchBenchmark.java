@@ -0,0 +1,177 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.android.skiggle.CurvatureKernel;
+import com.android.skiggle.PenSegment;
+import com.android.skiggle.PenUtil;
+import com.android.skiggle.StrokeBatch;
+
+// The curvature of a StrokeBatch of all the strokes of the corpus (NUM_OF_COPIES times over) with the scalar
+// and the Vector API kernels (the JVM is forked with the jdk.incubator.vector module), one stroke per
+// operation: computeCurvature() on its own and with adding the strokes to the batch, against
+// PenSegment.getCurvaturePoints() on the strokes one at a time.  The setup checks that the two kernels give
+// the same values and that the batch gives the values getCurvaturePoints() gives.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class StrokeBatchBenchmark {
+
+	private static final int NUM_OF_COPIES = 4;
+	private static final int MAX_NUM_OF_STROKES = 1024; // for @OperationsPerInvocation, more than the strokes of the copies
+
+	@Param({"scalar", "vector"})
+	public String mKernelName;
+
+	private CurvatureKernel mKernel;
+	private PenSegment mSegments[];
+	private StrokeBatch mBatch = new StrokeBatch();
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		StrokeCorpus corpus = StrokeCorpus.load();
+		int numOfStrokes = 0;
+		for (int i = 0; i < corpus.size(); i++) {
+			numOfStrokes = numOfStrokes + corpus.mEntries.get(i).getNumOfStrokes();
+		}
+		mSegments = new PenSegment[MAX_NUM_OF_STROKES];
+		int k = 0;
+		for (int copy = 0; copy < NUM_OF_COPIES; copy++) {
+			for (int i = 0; i < corpus.size(); i++) {
+				StrokeCorpus.Entry entry = corpus.mEntries.get(i);
+				for (int j = 0; j < entry.getNumOfStrokes(); j++) {
+					mSegments[k] = new PenSegment(StrokeCorpus.buildPenPath(entry.mStrokesX.get(j), entry.mStrokesY.get(j)));
+					k = k + 1;
+				}
+			}
+		}
+		// Fill up to MAX_NUM_OF_STROKES with the first strokes again so that the operations are counted right
+		for (int i = k; i < MAX_NUM_OF_STROKES; i++) {
+			mSegments[i] = mSegments[i % numOfStrokes];
+		}
+
+		if (mKernelName.equals("vector")) {
+			mKernel = StrokeBatch.getDefaultKernel();
+			if (mKernel == CurvatureKernel.SCALAR)
+				throw new IllegalStateException("No Vector API kernel (is the jdk.incubator.vector module added?)");
+		}
+		else {
+			mKernel = CurvatureKernel.SCALAR;
+		}
+
+		addAll();
+		check();
+	}
+
+	private void addAll() {
+		mBatch.clear();
+		for (int i = 0; i < mSegments.length; i++) {
+			mBatch.add(mSegments[i]);
+		}
+	}
+
+	// Check the kernel against the scalar kernel and the batch against getCurvaturePoints()
+	private void check() {
+		mBatch.computeCurvature(CurvatureKernel.SCALAR);
+		float scalarValues[][] = getPointValues();
+		mBatch.computeCurvature(mKernel);
+		float values[][] = getPointValues();
+		for (int j = 0; j < values.length; j++) {
+			for (int i = 0; i < values[j].length; i++) {
+				if (Float.floatToIntBits(values[j][i]) != Float.floatToIntBits(scalarValues[j][i]))
+					throw new IllegalStateException(mKernelName + " kernel differs from the scalar kernel at point " + i);
+			}
+		}
+
+		boolean fastMathP = PenUtil.isFastMath();
+		PenUtil.setFastMath(true);
+		for (int s = 0; s < mBatch.getNumOfStrokes(); s++) {
+			PenSegment segment = new PenSegment(mSegments[s].mPenSegmentPath);
+			segment.getCurvaturePoints();
+			if ((segment.mNumOfCurvaturePoints != mBatch.getNumOfPoints(s)) || (segment.mAvgX != mBatch.getAvgX(s))
+					|| (segment.mAvgY != mBatch.getAvgY(s)) || (segment.mAvgKappa != mBatch.getAvgKappa(s))
+					|| (segment.mMaxAbsKappaDiff != mBatch.getMaxAbsKappaDiff(s))
+					|| (segment.mMaxAbsKappaDiffIndex != mBatch.getMaxAbsKappaDiffIndex(s)))
+				throw new IllegalStateException("Stroke " + s + " differs from PenSegment.getCurvaturePoints()");
+		}
+		PenUtil.setFastMath(fastMathP);
+	}
+
+	private float[][] getPointValues() {
+		int numOfPoints = 0;
+		for (int s = 0; s < mBatch.getNumOfStrokes(); s++) {
+			numOfPoints = numOfPoints + mBatch.getNumOfPoints(s);
+		}
+		float values[][] = new float[3][numOfPoints];
+		for (int i = 0; i < numOfPoints; i++) {
+			values[0][i] = mBatch.getTanAngle(i);
+			values[1][i] = mBatch.getKappa(i);
+			values[2][i] = mBatch.getKappaDiff(i);
+		}
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MAX_NUM_OF_STROKES)
+	public StrokeBatch computeCurvature() {
+		mBatch.computeCurvature(mKernel);
+		return mBatch;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MAX_NUM_OF_STROKES)
+	public StrokeBatch addAndComputeCurvature() {
+		addAll();
+		mBatch.computeCurvature(mKernel);
+		return mBatch;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MAX_NUM_OF_STROKES)
+	public float segmentCurvaturePoints() {
+		float sum = 0.0F;
+		for (int i = 0; i < mSegments.length; i++) {
+			mSegments[i].getCurvaturePoints();
+			sum = sum + mSegments[i].mAvgKappa;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.android.skiggle.CharacterStream;
+import com.android.skiggle.InkWriter;
+import com.android.skiggle.PenPath;
+import com.android.skiggle.PenPathMeasure;
+import com.android.skiggle.PenRectF;
+import com.android.skiggle.PenStroke;
+import com.android.skiggle.PenStrokeAccumulator;
+import com.android.skiggle.WritePad;
+
+// StrokeCorpus is the fixed set of recorded characters (strokes.txt) the benchmarks run on.
+// Each character keeps the raw touch samples of its strokes; buildPenPath() turns them into the same
+// PenPath that WritePad hands to the recognizer.
+public class StrokeCorpus {
+
+	public static final String DEFAULT_CORPUS = "strokes.txt";
+
+	private static final long STROKE_MILLIS = 250; // Time from one pen down to the next in writeInk()
+	private static final long CHARACTER_PAUSE_MILLIS = CharacterStream.CHARACTER_TIMEOUT_MILLIS + 200; // Pen up time between characters in writeInk()
+
+	// A recorded character: the character written and the touch samples of each of its strokes
+	public static class Entry {
+		public char mCharacter;
+		public List<float[]> mStrokesX = new ArrayList<float[]>();
+		public List<float[]> mStrokesY = new ArrayList<float[]>();
+
+		public int getNumOfStrokes() {
+			return mStrokesX.size();
+		}
+	}
+
+	public List<Entry> mEntries = new ArrayList<Entry>();
+
+	public static StrokeCorpus load() throws IOException {
+		return load(DEFAULT_CORPUS);
+	}
+
+	public static StrokeCorpus load(String resourceName) throws IOException {
+		InputStream in = StrokeCorpus.class.getResourceAsStream(resourceName);
+		if (in == null)
+			throw new IOException("Stroke corpus not found: " + resourceName);
+
+		StrokeCorpus corpus = new StrokeCorpus();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, "US-ASCII"));
+		try {
+			Entry entry = null;
+			String line;
+			int lineNum = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNum = lineNum + 1;
+				if ((line.length() == 0) || line.startsWith("#"))
+					continue;
+
+				if (line.startsWith("char ") && (line.length() == 6)) {
+					entry = new Entry();
+					entry.mCharacter = line.charAt(5);
+					corpus.mEntries.add(entry);
+				}
+				else if (line.startsWith("stroke ") && (entry != null)) {
+					String points[] = line.substring(7).trim().split(" ");
+					float xs[] = new float[points.length];
+					float ys[] = new float[points.length];
+					for (int i = 0; i < points.length; i++) {
+						int comma = points[i].indexOf(',');
+						xs[i] = Float.parseFloat(points[i].substring(0, comma));
+						ys[i] = Float.parseFloat(points[i].substring(comma + 1));
+					}
+					entry.mStrokesX.add(xs);
+					entry.mStrokesY.add(ys);
+				}
+				else
+					throw new IOException(resourceName + ":" + lineNum + ": cannot parse \"" + line + "\"");
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return corpus;
+	}
+
+	public int size() {
+		return mEntries.size();
+	}
+
+	// Build the pen path of a stroke from its touch samples the way WritePad does it: moves smaller
+	// than TOUCH_TOLERANCE are dropped, the others are smoothed with quadTo, and a stroke of zero length
+	// becomes a line of 1 pixel.
+	public static PenPath buildPenPath(float xs[], float ys[]) {
+		PenPath path = new PenPath();
+		float lastX = xs[0];
+		float lastY = ys[0];
+		path.moveTo(lastX, lastY);
+		for (int i = 1; i < xs.length; i++) {
+			float x = xs[i];
+			float y = ys[i];
+			if ((Math.abs(x - lastX) >= WritePad.TOUCH_TOLERANCE) || (Math.abs(y - lastY) >= WritePad.TOUCH_TOLERANCE)) {
+				path.quadTo(lastX, lastY, (x + lastX) / 2, (y + lastY) / 2);
+				lastX = x;
+				lastY = y;
+			}
+		}
+		path.lineTo(lastX, lastY);
+
+		if (new PenPathMeasure(path, false).getLength() == 0) {
+			PenRectF boundingRectF = new PenRectF();
+			path.computeBounds(boundingRectF);
+			path.lineTo(boundingRectF.centerX(), boundingRectF.centerY() + 1);
+		}
+		return path;
+	}
+
+	// Feed the touch samples of a stroke to a PenStrokeAccumulator the way WritePad does it, up to
+	// (but not including) the making of the PenStroke at pen up
+	public static PenStrokeAccumulator buildStrokeAccumulator(float xs[], float ys[]) {
+		PenStrokeAccumulator accumulator = new PenStrokeAccumulator();
+		float lastX = xs[0];
+		float lastY = ys[0];
+		accumulator.moveTo(lastX, lastY);
+		for (int i = 1; i < xs.length; i++) {
+			float x = xs[i];
+			float y = ys[i];
+			if ((Math.abs(x - lastX) >= WritePad.TOUCH_TOLERANCE) || (Math.abs(y - lastY) >= WritePad.TOUCH_TOLERANCE)) {
+				accumulator.quadTo(lastX, lastY, (x + lastX) / 2, (y + lastY) / 2);
+				lastX = x;
+				lastY = y;
+			}
+		}
+		accumulator.lineTo(lastX, lastY);
+
+		if (accumulator.getLength() == 0) {
+			PenRectF boundingRectF = new PenRectF();
+			accumulator.computeBounds(boundingRectF);
+			accumulator.lineTo(boundingRectF.centerX(), boundingRectF.centerY() + 1);
+		}
+		return accumulator;
+	}
+
+	// Write the characters of the corpus numOfCopies times over to an ink file (see InkFormat), one stroke
+	// every STROKE_MILLIS and with a pause of CHARACTER_PAUSE_MILLIS after each character, the way they are
+	// written on the write pad one at a time
+	public void writeInk(InkWriter writer, int numOfCopies) throws IOException {
+		long time = 0;
+		for (int i = 0; i < numOfCopies; i++) {
+			for (int j = 0; j < mEntries.size(); j++) {
+				Entry entry = mEntries.get(j);
+				writer.beginCharacter(entry.mCharacter);
+				for (int k = 0; k < entry.getNumOfStrokes(); k++) {
+					float xs[] = entry.mStrokesX.get(k);
+					writer.addStroke(xs, entry.mStrokesY.get(k), xs.length, time, time + STROKE_MILLIS / 2);
+					time = time + STROKE_MILLIS;
+				}
+				writer.endCharacter();
+				time = time + CHARACTER_PAUSE_MILLIS;
+			}
+		}
+	}
+
+	public static PenStroke buildPenStroke(PenPath path) {
+		PenStroke penStroke = new PenStroke(path);
+		penStroke.addPath(path);
+		return penStroke;
+	}
+}
@@ -0,0 +1,283 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.android.skiggle.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.android.skiggle.CharacterStream;
+import com.android.skiggle.InkReader;
+import com.android.skiggle.InkWriter;
+import com.android.skiggle.PenCharacter;
+import com.android.skiggle.RecognitionExecutor;
+import com.android.skiggle.WritePad;
+
+// Replay recorded touch events through a WritePad, the write pad of Skiggle.BoxView without the view, and
+// report the characters recognized and the latency of each stroke:
+//    touch up   time spent in WritePad.touchUp() (on the UI thread on the device)
+//    stroke     from pen up to the recognition of the character being written, with the stroke, by the
+//               RecognitionExecutor
+//    character  from the pen up of the last stroke of a character to its recognition by the
+//               CharacterStream; this includes the wait for the character to be closed (by the next
+//               stroke or by the idle timer, which is run as BoxView runs it)
+// A "clear screen" stroke shows as CLEAR_MARK in the recognized text, which goes on after it.
+// The events are replayed at the times they were recorded, scaled by the speed (0 replays them as fast as
+// possible, so characters still being recognized at a "clear screen" stroke are dropped with it).
+// Arguments: [ink file (see InkFormat), default the stroke corpus] [speed, default 1]
+public class TouchReplayMain {
+
+	private static final int DOWN = 0;
+	private static final int MOVE = 1;
+	private static final int UP = 2;
+
+	private static final char CLEAR_MARK = '*';
+
+	// A recorded touch event
+	private static class TouchEvent {
+		int mAction;
+		float mX, mY;
+		long mTime; // in milliseconds
+	}
+
+	// Members
+	private double mSpeed;
+	private long mStartNanos;
+	private long mStartTime;
+	private String mExpectedText;
+	private List<TouchEvent> mEvents = new ArrayList<TouchEvent>();
+
+	// Pen up times (from System.nanoTime()) of the strokes not yet recognized, by each recognizer
+	private LinkedList<Long> mPendingStrokes = new LinkedList<Long>();
+	private LinkedList<Long> mPendingCharacterStrokes = new LinkedList<Long>();
+	private List<Long> mTouchUpNanos = new ArrayList<Long>();
+	private List<Long> mStrokeNanos = new ArrayList<Long>();
+	private List<Long> mCharacterNanos = new ArrayList<Long>();
+	private StringBuilder mRecognizedText = new StringBuilder();
+	private int mTextOffset = 0; // of the character of index 0 of the CharacterStream, which counts from 0 after a clear
+	private int mNumOfClears = 0;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		InkReader reader;
+		if ((args.length > 0) && !args[0].equals("-")) {
+			reader = InkReader.open(new File(args[0]));
+		}
+		else {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			InkWriter writer = new InkWriter(out);
+			StrokeCorpus.load().writeInk(writer, 1);
+			writer.close();
+			reader = new InkReader(ByteBuffer.wrap(out.toByteArray()));
+		}
+
+		TouchReplayMain replay = new TouchReplayMain((args.length > 1) ? Double.parseDouble(args[1]) : 1.0);
+		replay.load(reader);
+		replay.run();
+		replay.report();
+	}
+
+	public TouchReplayMain(double speed) {
+		mSpeed = speed;
+	}
+
+	// Turn the strokes of the ink file into touch events
+	public void load(InkReader reader) throws IOException {
+		StringBuilder expectedText = new StringBuilder();
+		InkReader.TouchListener listener = new InkReader.TouchListener() {
+			public void touchDown(float x, float y, long time) {
+				addEvent(DOWN, x, y, time);
+			}
+
+			public void touchMove(float x, float y, long time) {
+				addEvent(MOVE, x, y, time);
+			}
+
+			public void touchUp(long time) {
+				addEvent(UP, 0.0F, 0.0F, time);
+			}
+		};
+
+		while (reader.nextCharacter()) {
+			expectedText.append((reader.getCharacter() != '\0') ? reader.getCharacter() : '?');
+			while (reader.nextStroke(listener)) {
+			}
+		}
+		mExpectedText = expectedText.toString();
+	}
+
+	public void run() throws InterruptedException {
+		Executor directExecutor = new Executor() {
+			public void execute(Runnable command) {
+				command.run();
+			}
+		};
+		CharacterStream characterStream = new CharacterStream(directExecutor, new CharacterStream.CharacterListener() {
+			public void onCharacterRecognized(int index, PenCharacter penCharacter) {
+				characterRecognized(index, penCharacter);
+			}
+		});
+		RecognitionExecutor recognitionExecutor = new RecognitionExecutor(directExecutor, new RecognitionExecutor.RecognitionListener() {
+			public void onCharacterRecognized(PenCharacter penCharacter) {
+				strokeRecognized();
+			}
+		});
+		WritePad writePad = new WritePad(characterStream, recognitionExecutor, null);
+
+		mStartNanos = System.nanoTime();
+		mStartTime = mEvents.isEmpty() ? 0 : mEvents.get(0).mTime;
+		long idleTime = -1; // time of the idle timer set at the last pen up, if any
+		for (int i = 0; i < mEvents.size(); i++) {
+			TouchEvent event = mEvents.get(i);
+			if ((idleTime >= 0) && (idleTime <= event.mTime)) {
+				waitUntil(idleTime);
+				writePad.commitIfIdle(idleTime);
+				idleTime = -1;
+			}
+
+			waitUntil(event.mTime);
+			switch (event.mAction) {
+			case DOWN:
+				writePad.touchDown(event.mX, event.mY, event.mTime);
+				break;
+			case MOVE:
+				writePad.touchMove(event.mX, event.mY);
+				break;
+			case UP:
+				long penUpNanos = System.nanoTime();
+				synchronized (this) {
+					mPendingStrokes.add(penUpNanos);
+					mPendingCharacterStrokes.add(penUpNanos);
+				}
+				if (!writePad.touchUp(event.mTime)) {
+					synchronized (this) {
+						mPendingStrokes.clear();
+						mPendingCharacterStrokes.clear();
+						mRecognizedText.append(CLEAR_MARK);
+						mTextOffset = mRecognizedText.length();
+						mNumOfClears = mNumOfClears + 1;
+					}
+				}
+				mTouchUpNanos.add(System.nanoTime() - penUpNanos);
+				idleTime = event.mTime + CharacterStream.CHARACTER_TIMEOUT_MILLIS + 1;
+				break;
+			}
+		}
+
+		if (idleTime >= 0) {
+			waitUntil(idleTime);
+			writePad.commitIfIdle(idleTime);
+		}
+		writePad.commit();
+
+		// Wait for the last results
+		synchronized (this) {
+			while (!mPendingCharacterStrokes.isEmpty())
+				wait();
+		}
+		writePad.shutdown();
+	}
+
+	public void report() {
+		System.out.println("Expected:   " + mExpectedText);
+		System.out.println("Recognized: " + mRecognizedText);
+		int numOfMatches = 0;
+		for (int i = 0; i < Math.min(mExpectedText.length(), mRecognizedText.length()); i++) {
+			if (mExpectedText.charAt(i) == mRecognizedText.charAt(i))
+				numOfMatches = numOfMatches + 1;
+		}
+		System.out.println(numOfMatches + "/" + mExpectedText.length() + " characters recognized, " +
+				mTouchUpNanos.size() + " strokes (" + mNumOfClears + " clear screen), speed " + mSpeed);
+		System.out.println();
+		System.out.println(String.format("%-10s %6s %9s %9s %9s %9s %9s", "latency", "count", "mean ms", "p50 ms",
+				"p90 ms", "p99 ms", "max ms"));
+		printLatencies("touch up", mTouchUpNanos);
+		printLatencies("stroke", mStrokeNanos);
+		printLatencies("character", mCharacterNanos);
+	}
+
+	private void addEvent(int action, float x, float y, long time) {
+		TouchEvent event = new TouchEvent();
+		event.mAction = action;
+		event.mX = x;
+		event.mY = y;
+		event.mTime = time;
+		mEvents.add(event);
+	}
+
+	// Sleep until the time (in milliseconds) of the recording, scaled by the speed
+	private void waitUntil(long time) throws InterruptedException {
+		if (mSpeed <= 0.0)
+			return;
+
+		long nanos = mStartNanos + (long) ((time - mStartTime) * 1000000.0 / mSpeed) - System.nanoTime();
+		if (nanos > 0)
+			Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+	}
+
+	// A result of the RecognitionExecutor is only delivered if no stroke came after it, so it covers all the
+	// strokes waiting for one
+	private synchronized void strokeRecognized() {
+		long now = System.nanoTime();
+		while (!mPendingStrokes.isEmpty())
+			mStrokeNanos.add(now - mPendingStrokes.removeFirst());
+	}
+
+	private synchronized void characterRecognized(int index, PenCharacter penCharacter) {
+		long now = System.nanoTime();
+		long lastPenUpNanos = now;
+		for (int i = 0; (i < penCharacter.getNumOfStrokes()) && !mPendingCharacterStrokes.isEmpty(); i++) {
+			lastPenUpNanos = mPendingCharacterStrokes.removeFirst();
+		}
+		mCharacterNanos.add(now - lastPenUpNanos);
+
+		mRecognizedText.setLength(Math.min(mTextOffset + index, mRecognizedText.length()));
+		mRecognizedText.append((penCharacter.mPenCharacter != null) ? penCharacter.mPenCharacter.charValue() : '?');
+		notifyAll();
+	}
+
+	private static void printLatencies(String name, List<Long> nanos) {
+		if (nanos.isEmpty()) {
+			System.out.println(String.format("%-10s %6d", name, 0));
+			return;
+		}
+
+		long sorted[] = new long[nanos.size()];
+		long sum = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = nanos.get(i);
+			sum = sum + sorted[i];
+		}
+		Arrays.sort(sorted);
+		System.out.println(String.format("%-10s %6d %9.3f %9.3f %9.3f %9.3f %9.3f", name, sorted.length,
+				sum / 1e6 / sorted.length, percentile(sorted, 0.5) / 1e6, percentile(sorted, 0.9) / 1e6,
+				percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6));
+	}
+
+	private static long percentile(long sorted[], double p) {
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+	}
+}
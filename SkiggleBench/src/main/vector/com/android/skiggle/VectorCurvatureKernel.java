@@ -0,0 +1,102 @@
+/*
+ *     This file is part of Skiggle, an online handwriting recognition
+ *     Java application.
+ *     Copyright (C) 2009-2011 Willie Lim <wlim650@gmail.com>
+ *
+ *     Skiggle is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Skiggle is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Skiggle.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.android.skiggle;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// VectorCurvatureKernel is the CurvatureKernel built with the JDK Vector API (jdk.incubator.vector, JDK 16 and
+// later), for recognizing on a server JVM started with --add-modules jdk.incubator.vector.  It computes as many
+// points at a time as the preferred float vector of the processor has lanes, with the same float operations
+// in the same order as CurvatureKernel.SCALAR (and none fused), so its results are the same bit for bit.  The
+// points left over at the end are computed by SCALAR.
+public class VectorCurvatureKernel implements CurvatureKernel {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	private static final float RADIANS_TO_DEGREES = (float) (180.0 / Math.PI);
+	private static final float ATAN_C1 = 0.9998660F * RADIANS_TO_DEGREES; // as in PenUtil
+	private static final float ATAN_C3 = -0.3302995F * RADIANS_TO_DEGREES;
+	private static final float ATAN_C5 = 0.1801410F * RADIANS_TO_DEGREES;
+	private static final float ATAN_C7 = -0.0851330F * RADIANS_TO_DEGREES;
+	private static final float ATAN_C9 = 0.0208351F * RADIANS_TO_DEGREES;
+
+	public void computeTanAngles(float tanX[], float tanY[], float tanAngle[], int from, int to) {
+		int i = from;
+		for (; i + SPECIES.length() <= to; i = i + SPECIES.length()) {
+			FloatVector x = FloatVector.fromArray(SPECIES, tanX, i);
+			FloatVector y = FloatVector.fromArray(SPECIES, tanY, i);
+			FloatVector absX = x.abs();
+			FloatVector absY = y.abs();
+
+			VectorMask<Float> steep = absY.compare(VectorOperators.GT, absX);
+			FloatVector z = absX.min(absY).div(absX.max(absY));
+			FloatVector z2 = z.mul(z);
+			FloatVector angle = z.mul(z2.mul(z2.mul(z2.mul(z2.mul(ATAN_C9).add(ATAN_C7)).add(ATAN_C5)).add(ATAN_C3)).add(ATAN_C1));
+			angle = angle.blend(angle.neg().add(90.0F), steep);
+			angle = angle.blend(angle.neg().add(180.0F), x.compare(VectorOperators.LT, 0.0F));
+			angle = angle.blend(angle.neg(), y.compare(VectorOperators.LT, 0.0F));
+
+			// On the x-axis: 0 to the right of the origin and -180 for +0 (180 for -0) to its left
+			VectorMask<Float> onXAxis = absY.compare(VectorOperators.EQ, 0.0F);
+			if (onXAxis.anyTrue()) {
+				FloatVector axisAngle = FloatVector.broadcast(SPECIES, -180.0F)
+						.blend(180.0F, y.reinterpretAsInts().compare(VectorOperators.LT, 0).cast(SPECIES))
+						.blend(0.0F, x.compare(VectorOperators.GE, 0.0F));
+				angle = angle.blend(axisAngle, onXAxis);
+			}
+			angle.intoArray(tanAngle, i);
+		}
+		CurvatureKernel.SCALAR.computeTanAngles(tanX, tanY, tanAngle, i, to);
+	}
+
+	public void computeCurvatures(float x[], float y[], float kappa[], int from, int to) {
+		int i = from;
+		for (; i + SPECIES.length() <= to; i = i + SPECIES.length()) {
+			FloatVector x0 = FloatVector.fromArray(SPECIES, x, i - 1);
+			FloatVector x1 = FloatVector.fromArray(SPECIES, x, i);
+			FloatVector x2 = FloatVector.fromArray(SPECIES, x, i + 1);
+			FloatVector y0 = FloatVector.fromArray(SPECIES, y, i - 1);
+			FloatVector y1 = FloatVector.fromArray(SPECIES, y, i);
+			FloatVector y2 = FloatVector.fromArray(SPECIES, y, i + 1);
+
+			FloatVector a1 = x2.sub(x0).div(2.0F);
+			FloatVector a2 = x2.add(x0).div(2.0F).sub(x1);
+			FloatVector b1 = y2.sub(y0).div(2.0F);
+			FloatVector b2 = y2.add(y0).div(2.0F).sub(y1);
+
+			FloatVector s = a1.mul(a1).add(b1.mul(b1));
+			a1.mul(b2).sub(a2.mul(b1)).mul(2.0F).div(s.mul(s.sqrt())).intoArray(kappa, i);
+		}
+		CurvatureKernel.SCALAR.computeCurvatures(x, y, kappa, i, to);
+	}
+
+	public void computeDifferences(float kappa[], float kappaDiff[], int from, int to) {
+		int i = from;
+		for (; i + SPECIES.length() <= to; i = i + SPECIES.length()) {
+			FloatVector.fromArray(SPECIES, kappa, i + 1).sub(FloatVector.fromArray(SPECIES, kappa, i)).intoArray(kappaDiff, i);
+		}
+		CurvatureKernel.SCALAR.computeDifferences(kappa, kappaDiff, i, to);
+	}
+}